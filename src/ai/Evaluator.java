@@ -0,0 +1,316 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.util.Arrays;
+import model.BoardFeatures;
+
+/**
+ * Scores boards by a weighted sum of heuristic features, for bots choosing between the
+ * boards their placements would leave.
+ *
+ * Boards are rows as written by BoardFeatures.writeRows(), many boards of the same
+ * size one after another in an array. On boards at most 64 columns wide a row is one
+ * long, and every feature is found a row at a time with bitwise operations on the
+ * whole row; wider boards fall back to reading one cell at a time.
+ *
+ * <pre>
+ * HEIGHT              the sum of the column heights
+ * HOLES               empty cells with a block somewhere above them
+ * ROW_TRANSITIONS     empty and full cells side by side in a row, the walls full,
+ *                     in the rows below the highest block
+ * COLUMN_TRANSITIONS  empty and full cells one above the other, the floor full,
+ *                     up to the empty row above the highest block
+ * WELLS               empty cells with full cells or walls on both sides
+ * BUMPINESS           the sum of the height differences of neighbouring columns
+ * LINES               the rows cleared by the placement that left the board
+ * </pre>
+ *
+ * An Evaluator keeps scratch space, so each thread needs its own.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class Evaluator {
+    /** The index of the sum of the column heights. */
+    public static final int HEIGHT = 0;
+
+    /** The index of the number of holes. */
+    public static final int HOLES = 1;
+
+    /** The index of the number of row transitions. */
+    public static final int ROW_TRANSITIONS = 2;
+
+    /** The index of the number of column transitions. */
+    public static final int COLUMN_TRANSITIONS = 3;
+
+    /** The index of the number of well cells. */
+    public static final int WELLS = 4;
+
+    /** The index of the bumpiness. */
+    public static final int BUMPINESS = 5;
+
+    /** The index of the number of rows cleared. */
+    public static final int LINES = 6;
+
+    /** The number of features. */
+    public static final int FEATURES = 7;
+
+    /** The default weights, tuned for 10 by 20 boards. */
+    private static final float[] DEFAULT_WEIGHTS = {
+        -0.5f, -7.9f, -3.2f, -9.3f, -3.4f, -0.2f, 3.4f,
+    };
+
+    /** The width of the boards. */
+    private final int myWidth;
+
+    /** The height of the boards. */
+    private final int myHeight;
+
+    /** The longs of each row. */
+    private final int myWords;
+
+    /** The weight of each feature. */
+    private final float[] myWeights;
+
+    /** The features of the last board measured. */
+    private final int[] myFeatures;
+
+    /** The column heights of the last board measured. */
+    private final int[] myHeights;
+
+    /**
+     * Creates an evaluator with the default weights.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     */
+    public Evaluator(final int theWidth, final int theHeight) {
+        this(theWidth, theHeight, DEFAULT_WEIGHTS);
+    }
+
+    /**
+     * Creates an evaluator.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theWeights The weight of each feature, indexed as the feature constants.
+     * @throws IllegalArgumentException if there is not one weight per feature.
+     */
+    public Evaluator(final int theWidth, final int theHeight, final float[] theWeights) {
+        if (theWeights.length != FEATURES) {
+            throw new IllegalArgumentException(theWeights.length + " weights for "
+                                               + FEATURES + " features");
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myWords = BoardFeatures.getWordsPerRow(theWidth);
+        myWeights = theWeights.clone();
+        myFeatures = new int[FEATURES];
+        myHeights = new int[theWidth];
+    }
+
+    /**
+     * Provides the default weights.
+     *
+     * @return A copy of the default weights.
+     */
+    public static float[] getDefaultWeights() {
+        return DEFAULT_WEIGHTS.clone();
+    }
+
+    /**
+     * Provides the weights.
+     *
+     * @return A copy of the weights.
+     */
+    public float[] getWeights() {
+        return myWeights.clone();
+    }
+
+    /**
+     * Scores a board.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     * @param theLines The rows cleared by the placement that left the board.
+     * @return The score, higher for better boards.
+     */
+    public float evaluate(final long[] theRows, final int theOffset, final int theLines) {
+        measure(theRows, theOffset, theLines, myFeatures, 0);
+        float result = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            result += myWeights[i] * myFeatures[i];
+        }
+        return result;
+    }
+
+    /**
+     * Scores boards laid out one after another.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the first board's bottom row.
+     * @param theCount The number of boards.
+     * @param theLines The rows cleared by the placement that left each board.
+     * @param theScores The array to write the score of each board to.
+     */
+    public void evaluate(final long[] theRows, final int theOffset, final int theCount,
+                         final int[] theLines, final float[] theScores) {
+        final int size = myHeight * myWords;
+        for (int i = 0; i < theCount; i++) {
+            theScores[i] = evaluate(theRows, theOffset + i * size, theLines[i]);
+        }
+    }
+
+    /**
+     * Finds the features of a board.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     * @param theLines The rows cleared by the placement that left the board.
+     * @param theFeatures The array to write the features to.
+     * @param theFeaturesOffset The index of the first feature.
+     */
+    public void measure(final long[] theRows, final int theOffset, final int theLines,
+                        final int[] theFeatures, final int theFeaturesOffset) {
+        Arrays.fill(myFeatures, 0);
+        Arrays.fill(myHeights, 0);
+        if (myWords == 1) {
+            measureRows(theRows, theOffset);
+        } else {
+            measureCells(theRows, theOffset);
+        }
+        for (int x = 0; x < myWidth; x++) {
+            myFeatures[HEIGHT] += myHeights[x];
+            if (x > 0) {
+                myFeatures[BUMPINESS] += Math.abs(myHeights[x] - myHeights[x - 1]);
+            }
+        }
+        myFeatures[LINES] = theLines;
+        System.arraycopy(myFeatures, 0, theFeatures, theFeaturesOffset, FEATURES);
+    }
+
+    /**
+     * Finds the features of a board of one long per row, a row at a time.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     */
+    private void measureRows(final long[] theRows, final int theOffset) {
+        final long full = -1L >>> Long.SIZE - myWidth;
+        final long rightWall = 1L << myWidth - 1;
+        long covered = 0;
+        long above = 0;
+        for (int y = myHeight - 1; y >= 0; y--) {
+            final long row = theRows[theOffset + y];
+            myFeatures[HOLES] += Long.bitCount(covered & ~row);
+            long found = row & ~covered;
+            covered |= row;
+            while (found != 0) {
+                myHeights[Long.numberOfTrailingZeros(found)] = y + 1;
+                found &= found - 1;
+            }
+            if (covered != 0) {
+                final long empty = ~row & full;
+                myFeatures[ROW_TRANSITIONS] += Long.bitCount((row ^ row >>> 1) & full >>> 1)
+                                               + (int) (empty & 1)
+                                               + (int) (empty >>> myWidth - 1);
+                myFeatures[COLUMN_TRANSITIONS] += Long.bitCount(row ^ above);
+                myFeatures[WELLS] += Long.bitCount(empty & (row << 1 | 1)
+                                                   & (row >>> 1 | rightWall));
+            }
+            above = row;
+        }
+        myFeatures[COLUMN_TRANSITIONS] += Long.bitCount(above ^ full);
+    }
+
+    /**
+     * Finds the features of a board of any width a cell at a time.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     */
+    private void measureCells(final long[] theRows, final int theOffset) {
+        boolean found = false;
+        for (int y = myHeight - 1; y >= 0; y--) {
+            for (int word = 0; word < myWords; word++) {
+                found |= theRows[theOffset + y * myWords + word] != 0;
+            }
+            for (int x = 0; x < myWidth; x++) {
+                final boolean cell = isFull(theRows, theOffset, x, y);
+                if (cell && myHeights[x] == 0) {
+                    myHeights[x] = y + 1;
+                } else if (!cell && myHeights[x] > 0) {
+                    myFeatures[HOLES]++;
+                }
+                if (found) {
+                    measureCell(theRows, theOffset, x, y, cell);
+                }
+            }
+            if (found) {
+                myFeatures[ROW_TRANSITIONS] += count(!isFull(theRows, theOffset, 0, y))
+                                               + count(!isFull(theRows, theOffset,
+                                                               myWidth - 1, y));
+            }
+        }
+        for (int x = 0; x < myWidth; x++) {
+            myFeatures[COLUMN_TRANSITIONS] += count(!isFull(theRows, theOffset, x, 0));
+        }
+    }
+
+    /**
+     * Adds the transitions and well of a cell in or below the row of the highest
+     * block: the transitions to its right and above it, and whether it is a well.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     * @param theX The x coordinate of the cell.
+     * @param theY The y coordinate of the cell.
+     * @param theCell Whether the cell is full.
+     */
+    private void measureCell(final long[] theRows, final int theOffset, final int theX,
+                             final int theY, final boolean theCell) {
+        final boolean right = theX == myWidth - 1
+                              || isFull(theRows, theOffset, theX + 1, theY);
+        final boolean left = theX == 0 || isFull(theRows, theOffset, theX - 1, theY);
+        final boolean above = theY < myHeight - 1
+                              && isFull(theRows, theOffset, theX, theY + 1);
+        if (theX < myWidth - 1) {
+            myFeatures[ROW_TRANSITIONS] += count(theCell != right);
+        }
+        myFeatures[COLUMN_TRANSITIONS] += count(theCell != above);
+        myFeatures[WELLS] += count(!theCell && left && right);
+    }
+
+    /**
+     * Checks whether a cell of a board is full.
+     *
+     * @param theRows The rows of the boards.
+     * @param theOffset The index of the board's bottom row.
+     * @param theX The x coordinate of the cell.
+     * @param theY The y coordinate of the cell.
+     * @return true if the cell is full.
+     */
+    private boolean isFull(final long[] theRows, final int theOffset, final int theX,
+                           final int theY) {
+        final long word = theRows[theOffset + theY * myWords + theX / Long.SIZE];
+        return (word >>> theX & 1) != 0;
+    }
+
+    /**
+     * Counts a condition.
+     *
+     * @param theCondition The condition.
+     * @return 1 if the condition holds, otherwise 0.
+     */
+    private static int count(final boolean theCondition) {
+        int result = 0;
+        if (theCondition) {
+            result = 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import model.Placements;
+
+/**
+ * A bot that places each piece where the Evaluator scores the resulting board highest,
+ * without looking at the upcoming pieces.
+ *
+ * Every distinct placement of the piece is made on a bitboard copy of the board and
+ * the resulting boards are scored together, so choosing an action allocates nothing.
+ * Boards must be at most Placements.MAX_WIDTH columns wide.
+ *
+ * A bot keeps scratch space, so each thread needs its own.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class GreedyBot {
+    /** The height of the boards. */
+    private final int myHeight;
+
+    /** The placements of the pieces. */
+    private final Placements myPlacements;
+
+    /** The scores of the boards. */
+    private final Evaluator myEvaluator;
+
+    /** The boards left by the placements. */
+    private final long[] myBoards;
+
+    /** The rows cleared by each placement. */
+    private final int[] myLines;
+
+    /** The action of each placement. */
+    private final int[] myActions;
+
+    /** The score of each placement. */
+    private final float[] myScores;
+
+    /**
+     * Creates a bot with the default weights.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     */
+    public GreedyBot(final int theWidth, final int theHeight) {
+        this(theWidth, theHeight, Evaluator.getDefaultWeights());
+    }
+
+    /**
+     * Creates a bot.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theWeights The weight of each of the Evaluator's features.
+     * @throws IllegalArgumentException if the board is too wide or there is not one
+     *         weight per feature.
+     */
+    public GreedyBot(final int theWidth, final int theHeight, final float[] theWeights) {
+        myHeight = theHeight;
+        myPlacements = new Placements(theWidth, theHeight);
+        myEvaluator = new Evaluator(theWidth, theHeight, theWeights);
+        final int actions = myPlacements.getActionCount();
+        myBoards = new long[actions * theHeight];
+        myLines = new int[actions];
+        myActions = new int[actions];
+        myScores = new float[actions];
+    }
+
+    /**
+     * Chooses the action for the movable piece of an environment's observation.
+     *
+     * @param theEnv The environment.
+     * @return The action.
+     */
+    public int chooseAction(final TetrisEnv theEnv) {
+        return chooseAction(theEnv.getRows(), theEnv.getIndex() * myHeight,
+                            theEnv.getPieces()[theEnv.getIndex() * TetrisEnv.getPiecesSize()]);
+    }
+
+    /**
+     * Chooses the action for a piece on a bitboard.
+     *
+     * @param theRows The bitboard, one long per row.
+     * @param theOffset The index of its bottom row.
+     * @param thePiece The TetrisPiece ordinal of the piece.
+     * @return The action, or 0 if every action ends the game.
+     */
+    public int chooseAction(final long[] theRows, final int theOffset, final int thePiece) {
+        final int count = myPlacements.placeAll(theRows, theOffset, thePiece, myBoards,
+                                                myLines, myActions);
+        myEvaluator.evaluate(myBoards, 0, count, myLines, myScores);
+        int best = -1;
+        for (int i = 0; i < count; i++) {
+            if (best < 0 || myScores[i] > myScores[best]) {
+                best = i;
+            }
+        }
+        int result = 0;
+        if (best >= 0) {
+            result = myActions[best];
+        }
+        return result;
+    }
+}
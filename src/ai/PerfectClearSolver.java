@@ -0,0 +1,576 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import model.Board;
+import model.BoardFeatures;
+import model.Placements;
+
+/**
+ * Searches for a perfect clear: a sequence of placements of the known pieces that
+ * leaves the board empty, clearing at most a given number of rows.
+ *
+ * The search is a depth-first search over bitboards with model.Placements, trying
+ * fewer rows first. Every block must be placed below the rows still to be cleared,
+ * and a position is given up on when a region of empty cells below those rows is not
+ * a multiple of four cells or they need more pieces than are left. Positions with no
+ * perfect clear are remembered in a TranspositionTable, keyed by the board, the rows
+ * to clear and the pieces left, so they are not searched again, even by a later
+ * search of the same pieces. The placements of the first piece are shared out among
+ * the threads.
+ *
+ * A search stops at a time budget, so that it can give hints during a game: a
+ * solution is a sequence of actions as TetrisEnv takes them, one per piece, and
+ * isComplete() tells whether a search that found none gave up early. The hold slot
+ * is not used.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class PerfectClearSolver implements Closeable {
+    /** The blocks of a piece. */
+    private static final int BLOCKS = 4;
+
+    /** The number of positions searched between looks at the clock. */
+    private static final int CLOCK_INTERVAL = 1024;
+
+    /** The multiplier folding the rows to clear and pieces into a position's hash. */
+    private static final long FOLD = 0x9E3779B97F4A7C15L;
+
+    /** The width of the boards. */
+    private final int myWidth;
+
+    /** The height of the boards. */
+    private final int myHeight;
+
+    /** The positions without a perfect clear. */
+    private final TranspositionTable myTable;
+
+    /** The searchers, one per thread. */
+    private final Searcher[] mySearchers;
+
+    /** The tasks searching from the placements of the first piece. */
+    private final List<Callable<Void>> myTasks;
+
+    /** The threads, or null if there is only one searcher. */
+    private final ExecutorService myPool;
+
+    /** The thread searching for solveLater(). */
+    private final ExecutorService myHintThread;
+
+    /** The index of the next placement of the first piece to search. */
+    private final AtomicInteger myNext;
+
+    /** The solution found by the search being made, or null. */
+    private final AtomicReference<int[]> mySolution;
+
+    /** The pieces of the search being made. */
+    private int[] myPieces;
+
+    /** The rows to clear in the search being made. */
+    private int myLines;
+
+    /** The number of placements of the first piece. */
+    private int myCount;
+
+    /** The time the search being made must stop by, from System.nanoTime(). */
+    private long myDeadline;
+
+    /** Whether the search being made has run out of time. */
+    private volatile boolean myTimedOut;
+
+    /**
+     * Creates a solver.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theTable The table to remember positions without a perfect clear in,
+     *        shared only with solvers of boards of the same size. A few thousand
+     *        slots are plenty for a hint of a few pieces.
+     * @param theThreads The number of threads to search on, 1 for the calling thread.
+     * @throws IllegalArgumentException if theThreads is less than 1 or the board is
+     *         too wide.
+     */
+    public PerfectClearSolver(final int theWidth, final int theHeight,
+                              final TranspositionTable theTable, final int theThreads) {
+        if (theThreads < 1) {
+            throw new IllegalArgumentException("Cannot search on " + theThreads
+                                               + " threads");
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myTable = theTable;
+        mySearchers = createSearchers(theThreads);
+        myTasks = createTasks();
+        if (theThreads > 1) {
+            myPool = createPool(theThreads, "perfect-clear");
+        } else {
+            myPool = null;
+        }
+        myHintThread = createPool(1, "perfect-clear-hint");
+        myNext = new AtomicInteger();
+        mySolution = new AtomicReference<>();
+    }
+
+    /**
+     * Starts a search for a perfect clear of a board with its movable piece and
+     * upcoming pieces, on a thread of its own so that the caller (a game loop, say)
+     * does not wait. The board is copied before this method returns. Searches started
+     * before this one finish first.
+     *
+     * @param theBoard The board, at most Placements.MAX_WIDTH columns wide.
+     * @param theLines The most rows to clear.
+     * @param theMillis The time budget in milliseconds.
+     * @return The solution, completed with null if there is none or it was not found
+     *         in time.
+     */
+    public CompletableFuture<int[]> solveLater(final Board theBoard, final int theLines,
+                                               final long theMillis) {
+        final BoardFeatures features = new BoardFeatures(theBoard);
+        final long[] rows = new long[myHeight * BoardFeatures.getWordsPerRow(myWidth)];
+        final int[] pieces = new int[features.getPieceCount()];
+        features.writeRows(rows, 0);
+        features.writePieces(pieces, 0);
+        return CompletableFuture.supplyAsync(() -> solve(rows, 0, pieces, 0, pieces.length,
+                                                         theLines, theMillis),
+                                             myHintThread);
+    }
+
+    /**
+     * Searches for a perfect clear.
+     *
+     * @param theRows The bitboard, one long per row.
+     * @param theOffset The index of its bottom row.
+     * @param thePieces The TetrisPiece ordinals of the pieces to place, in order.
+     * @param thePiecesOffset The index of the first piece.
+     * @param thePieceCount The number of pieces.
+     * @param theLines The most rows to clear.
+     * @param theMillis The time budget in milliseconds.
+     * @return The action of each piece up to the perfect clear, or null if there is
+     *         none or it was not found in time.
+     */
+    public synchronized int[] solve(final long[] theRows, final int theOffset,
+                                    final int[] thePieces, final int thePiecesOffset,
+                                    final int thePieceCount, final int theLines,
+                                    final long theMillis) {
+        myPieces = new int[thePieceCount];
+        System.arraycopy(thePieces, thePiecesOffset, myPieces, 0, thePieceCount);
+        myDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(theMillis);
+        myTimedOut = false;
+        mySolution.set(null);
+        myTable.newSearch();
+        final int lowest = getLowestLines(theRows, theOffset);
+        for (int lines = lowest; lines <= Math.min(theLines, myHeight)
+                                 && mySolution.get() == null && !myTimedOut;
+             lines++) {
+            if (lines > 0 && mySearchers[0].isSolvable(theRows, theOffset, lines, 0)
+                && myPieces.length > 0 && myPieces[0] >= 0) {
+                search(theRows, theOffset, lines);
+            }
+        }
+        return mySolution.get();
+    }
+
+    /**
+     * Checks whether the last search looked at every sequence of placements, so that
+     * finding none means there is no perfect clear.
+     *
+     * @return true if the last search did not run out of time.
+     */
+    public boolean isComplete() {
+        return !myTimedOut;
+    }
+
+    /**
+     * Stops the threads.
+     */
+    @Override
+    public void close() {
+        myHintThread.shutdown();
+        if (myPool != null) {
+            myPool.shutdown();
+        }
+    }
+
+    /**
+     * Searches for a perfect clear of a number of rows.
+     *
+     * @param theRows The bitboard.
+     * @param theOffset The index of its bottom row.
+     * @param theLines The rows to clear.
+     */
+    private void search(final long[] theRows, final int theOffset, final int theLines) {
+        myLines = theLines;
+        myCount = mySearchers[0].placeRoots(theRows, theOffset);
+        myNext.set(0);
+        if (myPool == null) {
+            mySearchers[0].searchRoots();
+        } else {
+            invokeTasks();
+        }
+    }
+
+    /**
+     * Finds the fewest rows a perfect clear of a board can clear: those up to its
+     * highest block.
+     *
+     * @param theRows The bitboard.
+     * @param theOffset The index of its bottom row.
+     * @return The number of rows.
+     */
+    private int getLowestLines(final long[] theRows, final int theOffset) {
+        int result = 0;
+        for (int y = 0; y < myHeight; y++) {
+            if (theRows[theOffset + y] != 0) {
+                result = y + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Runs the tasks on the threads and waits for them.
+     */
+    private void invokeTasks() {
+        try {
+            for (final Future<Void> done : myPool.invokeAll(myTasks)) {
+                done.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Searching failed", e.getCause());
+        }
+    }
+
+    /**
+     * Creates the searchers.
+     *
+     * @param theThreads The number of threads.
+     * @return The searchers.
+     */
+    private Searcher[] createSearchers(final int theThreads) {
+        final Searcher[] result = new Searcher[theThreads];
+        for (int i = 0; i < theThreads; i++) {
+            result[i] = new Searcher();
+        }
+        return result;
+    }
+
+    /**
+     * Creates the tasks, one per searcher.
+     *
+     * @return The tasks.
+     */
+    private List<Callable<Void>> createTasks() {
+        final List<Callable<Void>> result = new ArrayList<>(mySearchers.length);
+        for (final Searcher searcher : mySearchers) {
+            result.add(() -> {
+                searcher.searchRoots();
+                return null;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Creates daemon threads, started when first needed.
+     *
+     * @param theThreads The number of threads.
+     * @param theName The name of the threads.
+     * @return The threads.
+     */
+    private static ExecutorService createPool(final int theThreads, final String theName) {
+        return Executors.newFixedThreadPool(theThreads, theTask -> {
+            final Thread thread = new Thread(theTask, theName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The placements and boards of one thread of a search.
+     */
+    private final class Searcher {
+        /** The placements of the pieces. */
+        private final Placements myPlacements;
+
+        /** The boards left by the placements of each piece. */
+        private long[][] myLevelBoards;
+
+        /** The rows cleared by each placement of each piece. */
+        private int[][] myLevelLines;
+
+        /** The action of each placement of each piece. */
+        private int[][] myLevelActions;
+
+        /** The action chosen for each piece on the way to the current position. */
+        private int[] myPath;
+
+        /** The positions searched since the clock was last looked at. */
+        private int myPositions;
+
+        /**
+         * Creates a searcher.
+         */
+        Searcher() {
+            myPlacements = new Placements(myWidth, myHeight);
+            myLevelBoards = new long[0][];
+            myLevelLines = new int[0][];
+            myLevelActions = new int[0][];
+            myPath = new int[0];
+        }
+
+        /**
+         * Places the first piece in every distinct way, keeping the placements for
+         * every searcher's searchRoots().
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @return The number of placements.
+         */
+        int placeRoots(final long[] theRows, final int theOffset) {
+            ensureLevels();
+            return placeAll(theRows, theOffset, 0);
+        }
+
+        /**
+         * Searches from placements of the first piece until none are left or a
+         * solution is found.
+         */
+        void searchRoots() {
+            ensureLevels();
+            final Searcher root = mySearchers[0];
+            for (int i = myNext.getAndIncrement(); i < myCount && !isStopped();
+                 i = myNext.getAndIncrement()) {
+                final int lines = myLines - root.myLevelLines[0][i];
+                if (fits(root.myLevelBoards[0], i * myHeight, lines)) {
+                    myPath[0] = root.myLevelActions[0][i];
+                    final int pieces = search(root.myLevelBoards[0], i * myHeight, lines,
+                                              1);
+                    if (pieces > 0) {
+                        mySolution.compareAndSet(null, Arrays.copyOf(myPath, pieces));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks whether a position may have a perfect clear: whether the empty
+         * cells below the rows to clear are a multiple of four and the pieces left
+         * are enough to fill them.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLines The rows to clear.
+         * @param theLevel The index of the next piece to place.
+         * @return true if the position is not ruled out.
+         */
+        boolean isSolvable(final long[] theRows, final int theOffset, final int theLines,
+                           final int theLevel) {
+            int empty = theLines * myWidth;
+            for (int y = 0; y < theLines; y++) {
+                empty -= Long.bitCount(theRows[theOffset + y]);
+            }
+            return empty % BLOCKS == 0 && empty / BLOCKS <= myPieces.length - theLevel
+                   && isFillable(theRows, theOffset, theLines);
+        }
+
+        /**
+         * Searches a position whose blocks are all below the rows to clear.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLines The rows to clear.
+         * @param theLevel The index of the next piece to place.
+         * @return The number of pieces placed up to the perfect clear, or 0 if none
+         *         was found.
+         */
+        private int search(final long[] theRows, final int theOffset, final int theLines,
+                           final int theLevel) {
+            int result = 0;
+            if (fits(theRows, theOffset, 0)) {
+                result = theLevel;
+            } else if (theLevel < myPieces.length && !isStopped()
+                       && isSolvable(theRows, theOffset, theLines, theLevel)) {
+                final long key = getKey(theRows, theOffset, theLines, theLevel);
+                final int depth = myPieces.length - theLevel;
+                if (Float.isNaN(myTable.get(key, depth))) {
+                    result = searchPlacements(theRows, theOffset, theLines, theLevel);
+                    if (result == 0 && mySolution.get() == null && !myTimedOut) {
+                        myTable.put(key, depth, 0);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Searches each placement of a position's piece that keeps the blocks below
+         * the rows still to clear.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLines The rows to clear.
+         * @param theLevel The index of the piece to place.
+         * @return The number of pieces placed up to the perfect clear, or 0 if none
+         *         was found.
+         */
+        private int searchPlacements(final long[] theRows, final int theOffset,
+                                     final int theLines, final int theLevel) {
+            final int count = placeAll(theRows, theOffset, theLevel);
+            final long[] boards = myLevelBoards[theLevel];
+            int result = 0;
+            for (int i = 0; i < count && result == 0; i++) {
+                final int lines = theLines - myLevelLines[theLevel][i];
+                if (fits(boards, i * myHeight, lines)) {
+                    myPath[theLevel] = myLevelActions[theLevel][i];
+                    result = search(boards, i * myHeight, lines, theLevel + 1);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Places a piece in every distinct way.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLevel The index of the piece.
+         * @return The number of placements.
+         */
+        private int placeAll(final long[] theRows, final int theOffset,
+                             final int theLevel) {
+            return myPlacements.placeAll(theRows, theOffset, myPieces[theLevel],
+                                         myLevelBoards[theLevel], myLevelLines[theLevel],
+                                         myLevelActions[theLevel]);
+        }
+
+        /**
+         * Checks whether the search should stop, because a solution was found or the
+         * time is up. The clock is only looked at every CLOCK_INTERVAL positions.
+         *
+         * @return true if the search should stop.
+         */
+        private boolean isStopped() {
+            myPositions++;
+            if (myPositions >= CLOCK_INTERVAL) {
+                myPositions = 0;
+                if (System.nanoTime() - myDeadline > 0) {
+                    myTimedOut = true;
+                }
+            }
+            return myTimedOut || mySolution.get() != null;
+        }
+
+        /**
+         * Makes room for the placements of every piece of the search being made.
+         */
+        private void ensureLevels() {
+            final int levels = myPieces.length;
+            if (myLevelBoards.length < levels) {
+                final int actions = myPlacements.getActionCount();
+                myLevelBoards = new long[levels][actions * myHeight];
+                myLevelLines = new int[levels][actions];
+                myLevelActions = new int[levels][actions];
+                myPath = new int[levels];
+            }
+        }
+
+        /**
+         * Provides the key of a position: its bitboard, the rows to clear and the
+         * pieces left.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLines The rows to clear.
+         * @param theLevel The index of the next piece to place.
+         * @return The key.
+         */
+        private long getKey(final long[] theRows, final int theOffset, final int theLines,
+                            final int theLevel) {
+            long hash = (TranspositionTable.hash(theRows, theOffset, myHeight) + theLines)
+                        * FOLD;
+            for (int i = theLevel + 2; i < myPieces.length; i++) {
+                hash = (hash + myPieces[i] + 1) * FOLD;
+            }
+            int next = -1;
+            if (theLevel + 1 < myPieces.length) {
+                next = myPieces[theLevel + 1];
+            }
+            return TranspositionTable.key(hash, myPieces[theLevel], next);
+        }
+    }
+
+    /**
+     * Checks whether every region of empty cells below the rows to clear could be
+     * filled by whole pieces, that is whether its size is a multiple of four. The rows
+     * are packed into one long, a row after another, and each region is flood filled
+     * a step in every direction at a time; if they do not fit in a long, every region
+     * is taken to be fillable.
+     *
+     * @param theRows The bitboard.
+     * @param theOffset The index of its bottom row.
+     * @param theLines The rows to clear.
+     * @return true if no region is ruled out.
+     */
+    private boolean isFillable(final long[] theRows, final int theOffset,
+                               final int theLines) {
+        final int bits = theLines * myWidth;
+        boolean result = true;
+        if (bits <= Long.SIZE) {
+            final long all = -1L >>> Long.SIZE - bits;
+            long leftColumn = 0;
+            long empty = all;
+            for (int y = 0; y < theLines; y++) {
+                leftColumn |= 1L << y * myWidth;
+                empty &= ~(theRows[theOffset + y] << y * myWidth);
+            }
+            final long rightColumn = leftColumn << myWidth - 1;
+            while (empty != 0 && result) {
+                long region = empty & -empty;
+                long grown = 0;
+                while (grown != region) {
+                    grown = region;
+                    region |= (region << 1 & ~leftColumn | region >>> 1 & ~rightColumn
+                               | region << myWidth | region >>> myWidth) & empty;
+                }
+                result = Long.bitCount(region) % BLOCKS == 0;
+                empty &= ~region;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a board's blocks are all below a row.
+     *
+     * @param theRows The bitboard.
+     * @param theOffset The index of its bottom row.
+     * @param theLines The index of the row.
+     * @return true if the rows from theLines up are empty.
+     */
+    private boolean fits(final long[] theRows, final int theOffset, final int theLines) {
+        boolean result = theLines >= 0;
+        for (int y = Math.max(theLines, 0); y < myHeight && result; y++) {
+            result = theRows[theOffset + y] == 0;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import model.Placements;
+
+/**
+ * A bot that looks ahead through the upcoming pieces: it places the movable piece
+ * where the best sequence of placements of it and the next pieces scores highest.
+ *
+ * The score of a sequence is the Evaluator's score of the board it leaves plus the
+ * weight of LINES times the rows it cleared. Every position searched is cached in a
+ * TranspositionTable, so a board reached again by another sequence of placements of
+ * the same pieces is not searched again. The placements of the movable piece are
+ * shared out among the threads, which share the table.
+ *
+ * A bot is meant to be used by one thread at a time.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class SearchBot implements Closeable {
+    /** The score of a position every placement of which ends the game. */
+    private static final float LOSS = -Float.MAX_VALUE;
+
+    /** The multiplier folding the pieces after the next into a position's hash. */
+    private static final long PIECE_HASH = 0x9E3779B97F4A7C15L;
+
+    /** The height of the boards. */
+    private final int myHeight;
+
+    /** The number of pieces placed by a sequence, 1 to place greedily. */
+    private final int myDepth;
+
+    /** The scores of the positions searched. */
+    private final TranspositionTable myTable;
+
+    /** The searchers, one per thread. */
+    private final Searcher[] mySearchers;
+
+    /** The tasks searching from the placements of the movable piece. */
+    private final List<Callable<Void>> myTasks;
+
+    /** The threads, or null to search on the calling thread. */
+    private final ExecutorService myPool;
+
+    /** The index of the next placement of the movable piece to search. */
+    private final AtomicInteger myNext;
+
+    /** The score of each placement of the movable piece. */
+    private final float[] myScores;
+
+    /** The pieces of the search being made. */
+    private int[] myPieces;
+
+    /** The number of pieces placed by the search being made. */
+    private int mySearchDepth;
+
+    /** The number of placements of the movable piece. */
+    private int myCount;
+
+    /**
+     * Creates a bot.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theWeights The weight of each of the Evaluator's features.
+     * @param theDepth The number of pieces to place in each sequence, at least 1.
+     * @param theTable The table to cache positions in, shared only with bots of the
+     *        same weights.
+     * @param theThreads The number of threads to search on, 1 for the calling thread.
+     * @throws IllegalArgumentException if theDepth or theThreads is less than 1.
+     */
+    public SearchBot(final int theWidth, final int theHeight, final float[] theWeights,
+                     final int theDepth, final TranspositionTable theTable,
+                     final int theThreads) {
+        checkCounts(theDepth, theThreads);
+        myHeight = theHeight;
+        myDepth = theDepth;
+        myTable = theTable;
+        mySearchers = createSearchers(theWidth, theHeight, theWeights, theThreads);
+        myTasks = createTasks();
+        myPool = createPool(theThreads);
+        myNext = new AtomicInteger();
+        myScores = new float[TetrisEnv.ROTATIONS * theWidth];
+    }
+
+    /**
+     * Chooses the action for the movable piece of an environment's observation,
+     * looking ahead through the upcoming pieces it shows.
+     *
+     * @param theEnv The environment.
+     * @return The action.
+     */
+    public int chooseAction(final TetrisEnv theEnv) {
+        return chooseAction(theEnv.getRows(), theEnv.getIndex() * myHeight,
+                            theEnv.getPieces(),
+                            theEnv.getIndex() * TetrisEnv.getPiecesSize(),
+                            TetrisEnv.getPiecesSize());
+    }
+
+    /**
+     * Chooses the action for a piece on a bitboard.
+     *
+     * @param theRows The bitboard, one long per row.
+     * @param theOffset The index of its bottom row.
+     * @param thePieces The TetrisPiece ordinals of the movable piece and the upcoming
+     *        pieces.
+     * @param thePiecesOffset The index of the movable piece.
+     * @param thePieceCount The number of pieces known, at least 1.
+     * @return The action, or 0 if every action ends the game.
+     */
+    public int chooseAction(final long[] theRows, final int theOffset,
+                            final int[] thePieces, final int thePiecesOffset,
+                            final int thePieceCount) {
+        myPieces = new int[thePieceCount];
+        System.arraycopy(thePieces, thePiecesOffset, myPieces, 0, thePieceCount);
+        mySearchDepth = Math.min(myDepth, thePieceCount);
+        myTable.newSearch();
+        myCount = mySearchers[0].placeRoots(theRows, theOffset);
+        myNext.set(0);
+        if (myPool == null) {
+            mySearchers[0].searchRoots();
+        } else {
+            invokeTasks();
+        }
+        int best = -1;
+        for (int i = 0; i < myCount; i++) {
+            if (best < 0 || myScores[i] > myScores[best]) {
+                best = i;
+            }
+        }
+        int result = 0;
+        if (best >= 0) {
+            result = mySearchers[0].myLevelActions[0][best];
+        }
+        return result;
+    }
+
+    /**
+     * Stops the threads.
+     */
+    @Override
+    public void close() {
+        if (myPool != null) {
+            myPool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the tasks on the threads and waits for them.
+     */
+    private void invokeTasks() {
+        try {
+            for (final Future<Void> done : myPool.invokeAll(myTasks)) {
+                done.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Searching failed", e.getCause());
+        }
+    }
+
+    /**
+     * Checks the depth and the number of threads.
+     *
+     * @param theDepth The number of pieces to place in each sequence.
+     * @param theThreads The number of threads.
+     * @throws IllegalArgumentException if either is less than 1.
+     */
+    private static void checkCounts(final int theDepth, final int theThreads) {
+        if (theDepth < 1 || theThreads < 1) {
+            throw new IllegalArgumentException("Cannot search " + theDepth
+                                               + " pieces deep on " + theThreads
+                                               + " threads");
+        }
+    }
+
+    /**
+     * Creates the searchers.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theWeights The weight of each of the Evaluator's features.
+     * @param theThreads The number of threads.
+     * @return The searchers.
+     */
+    private Searcher[] createSearchers(final int theWidth, final int theHeight,
+                                       final float[] theWeights, final int theThreads) {
+        final Searcher[] result = new Searcher[theThreads];
+        for (int i = 0; i < theThreads; i++) {
+            result[i] = new Searcher(theWidth, theHeight, theWeights);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the tasks, one per searcher.
+     *
+     * @return The tasks.
+     */
+    private List<Callable<Void>> createTasks() {
+        final List<Callable<Void>> result = new ArrayList<>(mySearchers.length);
+        for (final Searcher searcher : mySearchers) {
+            result.add(() -> {
+                searcher.searchRoots();
+                return null;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Creates the threads to run the tasks on.
+     *
+     * @param theThreads The number of threads.
+     * @return The threads, or null if there is only one.
+     */
+    private static ExecutorService createPool(final int theThreads) {
+        ExecutorService result = null;
+        if (theThreads > 1) {
+            result = Executors.newFixedThreadPool(theThreads, theTask -> {
+                final Thread thread = new Thread(theTask, "search-bot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * The placements, evaluator and boards of one thread of a search.
+     */
+    private final class Searcher {
+        /** The placements of the pieces. */
+        private final Placements myPlacements;
+
+        /** The scores of the boards. */
+        private final Evaluator myEvaluator;
+
+        /** The weight of the rows cleared. */
+        private final float myLineWeight;
+
+        /** The boards left by the placements at each depth. */
+        private final long[][] myLevelBoards;
+
+        /** The rows cleared by each placement at each depth. */
+        private final int[][] myLevelLines;
+
+        /** The action of each placement at each depth. */
+        private final int[][] myLevelActions;
+
+        /**
+         * Creates a searcher.
+         *
+         * @param theWidth The width of the boards.
+         * @param theHeight The height of the boards.
+         * @param theWeights The weight of each of the Evaluator's features.
+         */
+        Searcher(final int theWidth, final int theHeight, final float[] theWeights) {
+            myPlacements = new Placements(theWidth, theHeight);
+            myEvaluator = new Evaluator(theWidth, theHeight, theWeights);
+            myLineWeight = theWeights[Evaluator.LINES];
+            final int actions = myPlacements.getActionCount();
+            myLevelBoards = new long[myDepth][actions * theHeight];
+            myLevelLines = new int[myDepth][actions];
+            myLevelActions = new int[myDepth][actions];
+        }
+
+        /**
+         * Places the movable piece in every distinct way, keeping the placements for
+         * every searcher's searchRoots().
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @return The number of placements.
+         */
+        int placeRoots(final long[] theRows, final int theOffset) {
+            return myPlacements.placeAll(theRows, theOffset, myPieces[0],
+                                         myLevelBoards[0], myLevelLines[0],
+                                         myLevelActions[0]);
+        }
+
+        /**
+         * Scores placements of the movable piece until none are left to score.
+         */
+        void searchRoots() {
+            final Searcher root = mySearchers[0];
+            for (int i = myNext.getAndIncrement(); i < myCount;
+                 i = myNext.getAndIncrement()) {
+                myScores[i] = myLineWeight * root.myLevelLines[0][i]
+                              + search(root.myLevelBoards[0], i * myHeight, 1);
+            }
+        }
+
+        /**
+         * Scores a position: the score of the best sequence of placements of the
+         * pieces from one on, or the board's own score once the sequence is complete.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLevel The index of the piece to place.
+         * @return The score.
+         */
+        private float search(final long[] theRows, final int theOffset,
+                             final int theLevel) {
+            final int remaining = mySearchDepth - theLevel;
+            float result = Float.NaN;
+            long key = 0;
+            if (remaining == 0) {
+                result = myEvaluator.evaluate(theRows, theOffset, 0);
+            } else {
+                key = getKey(theRows, theOffset, theLevel);
+                result = myTable.get(key, remaining);
+            }
+            if (Float.isNaN(result)) {
+                result = searchPlacements(theRows, theOffset, theLevel);
+                myTable.put(key, remaining, result);
+            }
+            return result;
+        }
+
+        /**
+         * Scores a position by searching each placement of its piece.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLevel The index of the piece to place.
+         * @return The score of the best placement, or LOSS if there is none.
+         */
+        private float searchPlacements(final long[] theRows, final int theOffset,
+                                       final int theLevel) {
+            final long[] boards = myLevelBoards[theLevel];
+            final int[] lines = myLevelLines[theLevel];
+            final int count = myPlacements.placeAll(theRows, theOffset, myPieces[theLevel],
+                                                    boards, lines,
+                                                    myLevelActions[theLevel]);
+            float result = LOSS;
+            for (int i = 0; i < count; i++) {
+                result = Math.max(result, myLineWeight * lines[i]
+                                          + search(boards, i * myHeight, theLevel + 1));
+            }
+            return result;
+        }
+
+        /**
+         * Provides the key of a position: its bitboard, its piece, the next piece and
+         * the pieces after that which the rest of the search places.
+         *
+         * @param theRows The bitboard.
+         * @param theOffset The index of its bottom row.
+         * @param theLevel The index of the piece to place.
+         * @return The key.
+         */
+        private long getKey(final long[] theRows, final int theOffset, final int theLevel) {
+            long hash = TranspositionTable.hash(theRows, theOffset, myHeight);
+            for (int i = theLevel + 2; i < mySearchDepth; i++) {
+                hash = (hash + myPieces[i] + 1) * PIECE_HASH;
+            }
+            int next = -1;
+            if (theLevel + 1 < mySearchDepth) {
+                next = myPieces[theLevel + 1];
+            }
+            return TranspositionTable.key(hash, myPieces[theLevel], next);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import model.Board;
+import model.BoardFeatures;
+import model.BoardListener;
+import model.Input;
+import model.PieceQueue;
+import model.TetrisPiece;
+
+/**
+ * A Board wrapped as an environment for reinforcement learning: reset(seed) starts an
+ * episode and step(action) places one piece and returns the reward.
+ *
+ * An action places the movable piece: action / width is the number of clockwise
+ * rotations and action % width the column its leftmost block is moved to (as far as
+ * it gets), and then the piece is dropped. The reward is the number of lines the
+ * piece cleared, and the episode is done once the game is over.
+ *
+ * The observation is written after every reset and step into arrays the environment
+ * does not reallocate, so an agent can keep reading the same arrays (see
+ * BoardFeatures for their layout). Nothing observes the board, so no step renders
+ * it or allocates.
+ *
+ * An environment is meant to be used by one thread at a time.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class TetrisEnv implements BoardListener {
+    /** The number of rotations of an action. */
+    public static final int ROTATIONS = 4;
+
+    /** The board. */
+    private final Board myBoard;
+
+    /** The features of the board. */
+    private final BoardFeatures myFeatures;
+
+    /** The width of the board. */
+    private final int myWidth;
+
+    /** The rows of the observation. */
+    private final long[] myRows;
+
+    /** The column heights of the observation. */
+    private final int[] myHeights;
+
+    /** The pieces of the observation. */
+    private final int[] myPieces;
+
+    /** The index of this environment in the arrays it shares with others. */
+    private final int myIndex;
+
+    /** The index of this environment's rows. */
+    private final int myRowOffset;
+
+    /** The lines cleared by the last step. */
+    private int myLines;
+
+    /**
+     * Creates an environment with arrays of its own. Call reset() before stepping.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     */
+    public TetrisEnv(final int theWidth, final int theHeight) {
+        this(theWidth, theHeight, new long[getRowsSize(theWidth, theHeight)],
+             new int[theWidth], new int[getPiecesSize()], 0);
+    }
+
+    /**
+     * Creates an environment that writes its observation into arrays shared with
+     * others, each environment in its own part.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @param theRows The rows of the observations.
+     * @param theHeights The column heights of the observations.
+     * @param thePieces The pieces of the observations.
+     * @param theIndex The index of this environment's part of the arrays.
+     */
+    TetrisEnv(final int theWidth, final int theHeight, final long[] theRows,
+              final int[] theHeights, final int[] thePieces, final int theIndex) {
+        myBoard = new Board(theWidth, theHeight, 0);
+        myBoard.setListener(this);
+        myFeatures = new BoardFeatures(myBoard);
+        myWidth = theWidth;
+        myRows = theRows;
+        myHeights = theHeights;
+        myPieces = thePieces;
+        myIndex = theIndex;
+        myRowOffset = theIndex * getRowsSize(theWidth, theHeight);
+    }
+
+    /**
+     * Provides the number of longs of the rows of an observation.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @return The size of the rows.
+     */
+    public static int getRowsSize(final int theWidth, final int theHeight) {
+        return theHeight * BoardFeatures.getWordsPerRow(theWidth);
+    }
+
+    /**
+     * Provides the number of ints of the pieces of an observation: the movable piece
+     * and the default number of upcoming pieces.
+     *
+     * @return The size of the pieces.
+     */
+    public static int getPiecesSize() {
+        return 1 + PieceQueue.DEFAULT_LENGTH;
+    }
+
+    /**
+     * Provides the number of actions.
+     *
+     * @return The number of actions, from 0.
+     */
+    public int getActionCount() {
+        return ROTATIONS * myWidth;
+    }
+
+    /**
+     * Provides the rows of the observation, from index getIndex() * getRowsSize().
+     *
+     * @return The rows, updated in place.
+     */
+    public long[] getRows() {
+        return myRows;
+    }
+
+    /**
+     * Provides the column heights of the observation, from index getIndex() * width.
+     *
+     * @return The heights, updated in place.
+     */
+    public int[] getHeights() {
+        return myHeights;
+    }
+
+    /**
+     * Provides the pieces of the observation, from index getIndex() * getPiecesSize().
+     *
+     * @return The pieces, updated in place.
+     */
+    public int[] getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Provides the index of this environment's part of the observation arrays.
+     *
+     * @return The index, 0 unless the arrays are shared.
+     */
+    public int getIndex() {
+        return myIndex;
+    }
+
+    /**
+     * Provides the board, for instance to draw it. Observing it slows every step, and
+     * the preview length must not be changed.
+     *
+     * @return The board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Starts an episode and writes its first observation.
+     *
+     * @param theSeed The seed of the episode's pieces.
+     */
+    public void reset(final long theSeed) {
+        myBoard.newGame(theSeed);
+        myLines = 0;
+        observe();
+    }
+
+    /**
+     * Places the movable piece and writes the next observation.
+     *
+     * @param theAction The action, from 0 to getActionCount() - 1.
+     * @return The reward: the number of lines cleared.
+     * @throws IllegalArgumentException if theAction is not an action.
+     * @throws IllegalStateException if the episode is done.
+     */
+    public float step(final int theAction) {
+        if (theAction < 0 || theAction >= getActionCount()) {
+            throw new IllegalArgumentException("Bad action " + theAction);
+        }
+        if (myBoard.isGameOver()) {
+            throw new IllegalStateException("The episode is done");
+        }
+        myLines = 0;
+        for (int i = theAction / myWidth; i > 0; i--) {
+            myBoard.rotate();
+        }
+        // against the left wall first, so the column does not depend on the piece
+        myBoard.shift(-myWidth);
+        myBoard.shift(theAction % myWidth);
+        myBoard.drop();
+        observe();
+        return myLines;
+    }
+
+    /**
+     * Checks whether the episode is done.
+     *
+     * @return true if the game is over.
+     */
+    public boolean isDone() {
+        return myBoard.isGameOver();
+    }
+
+    @Override
+    public void pieceSpawned(final TetrisPiece thePiece, final long theTick) {
+        // only locks are rewarded
+    }
+
+    @Override
+    public void inputApplied(final Input theInput, final long theTick) {
+        // only locks are rewarded
+    }
+
+    @Override
+    public void pieceLocked(final TetrisPiece thePiece, final int theLines,
+                            final boolean theTSpin, final long theTick) {
+        myLines += theLines;
+    }
+
+    /**
+     * Writes the observation.
+     */
+    private void observe() {
+        myFeatures.writeRows(myRows, myRowOffset);
+        myFeatures.writeHeights(myHeights, myIndex * myWidth);
+        myFeatures.writePieces(myPieces, myIndex * getPiecesSize());
+    }
+}
@@ -0,0 +1,462 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.Scoring;
+
+/**
+ * Plays bots against each other on seeded headless games and reports how they did.
+ *
+ * Each bot plays one game per seed, and since a seed fixes the pieces, two bots meet
+ * by comparing their games of the same seed: the bot that placed more pieces wins,
+ * then the one that scored more. Every pair meets on every seed, giving each bot round
+ * robin points (1 for a win, 1/2 for a draw) and an Elo rating, updated meeting by
+ * meeting in seed order. The games are independent, so they are played on all the
+ * threads at once, and the same seeds give the same results on any number of threads.
+ *
+ * <pre>
+ * java ai.Tournament [-games N] [-seed S] [-threads T] [-pieces P] [-size WxH]
+ *                    [-log FILE] BOT...
+ *
+ * BOT      [name=]weights[@depth]: weights "default" or the Evaluator's feature
+ *          weights separated by commas; depth 1 (the default) places greedily and
+ *          more looks ahead through that many pieces
+ * -pieces  ends a game after P pieces, since good bots can play on indefinitely
+ * -log     writes one CSV line per game: bot, seed, pieces, lines, score, nanos
+ * </pre>
+ *
+ * The summary is CSV on standard output: per bot the number of games, the mean and
+ * variance of the score, lines and pieces, the points and the rating, then a comment
+ * line with the games and pieces played per second. Games are scored as the
+ * Scoreboard scores them (see Scoring).
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class Tournament {
+    /** The rating every bot starts with. */
+    private static final double INITIAL_RATING = 1500;
+
+    /** The most a rating changes in one meeting. */
+    private static final double K_FACTOR = 16;
+
+    /** The rating difference at which the stronger bot is expected to win 10 to 1. */
+    private static final double RATING_SCALE = 400;
+
+    /** The default number of games per bot. */
+    private static final int DEFAULT_GAMES = 20;
+
+    /** The default most pieces per game. */
+    private static final int DEFAULT_PIECES = 2000;
+
+    /** The default width of the boards. */
+    private static final int DEFAULT_WIDTH = 10;
+
+    /** The default height of the boards. */
+    private static final int DEFAULT_HEIGHT = 20;
+
+    /** The slots of the table of each game of a bot that looks ahead. */
+    private static final int TABLE_SLOTS = 1 << 16;
+
+    /** The nanoseconds per second. */
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /** The names of the bots. */
+    private final List<String> myNames;
+
+    /** The weights of the bots. */
+    private final List<float[]> myWeights;
+
+    /** The depths of the bots. */
+    private final List<Integer> myDepths;
+
+    /** The number of games per bot. */
+    private int myGames;
+
+    /** The seed of the first game. */
+    private long mySeed;
+
+    /** The number of threads. */
+    private int myThreads;
+
+    /** The most pieces per game. */
+    private int myMaxPieces;
+
+    /** The width of the boards. */
+    private int myWidth;
+
+    /** The height of the boards. */
+    private int myHeight;
+
+    /** The file to log each game to, or null. */
+    private String myLog;
+
+    /** The pieces placed in each game, indexed by bot then seed. */
+    private int[][] myPieces;
+
+    /** The lines cleared in each game. */
+    private int[][] myLines;
+
+    /** The score of each game. */
+    private long[][] myScores;
+
+    /** The time each game took in nanoseconds. */
+    private long[][] myNanos;
+
+    /**
+     * Creates a tournament without bots and with the default settings.
+     */
+    private Tournament() {
+        myNames = new ArrayList<>();
+        myWeights = new ArrayList<>();
+        myDepths = new ArrayList<>();
+        myGames = DEFAULT_GAMES;
+        myThreads = Runtime.getRuntime().availableProcessors();
+        myMaxPieces = DEFAULT_PIECES;
+        myWidth = DEFAULT_WIDTH;
+        myHeight = DEFAULT_HEIGHT;
+    }
+
+    /**
+     * Runs a tournament.
+     *
+     * @param theArgs The settings and bots (see the class comment).
+     * @throws IOException if the log cannot be written.
+     * @throws InterruptedException if interrupted while the games are played.
+     */
+    public static void main(final String... theArgs)
+        throws IOException, InterruptedException {
+        final Tournament tournament = new Tournament();
+        try {
+            tournament.parse(theArgs);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java ai.Tournament [-games N] [-seed S] [-threads T]"
+                               + " [-pieces P] [-size WxH] [-log FILE]"
+                               + " [name=]weights[@depth]...");
+            return;
+        }
+        final long start = System.nanoTime();
+        tournament.play();
+        final long nanos = System.nanoTime() - start;
+        tournament.report(System.out, nanos);
+        if (tournament.myLog != null) {
+            tournament.writeLog();
+        }
+    }
+
+    /**
+     * Reads the settings and bots.
+     *
+     * @param theArgs The arguments.
+     * @throws IllegalArgumentException if an argument is not understood.
+     */
+    private void parse(final String... theArgs) {
+        int i = 0;
+        while (i < theArgs.length) {
+            if (theArgs[i].startsWith("-")) {
+                i = parseOption(theArgs, i);
+            } else {
+                parseBot(theArgs[i]);
+                i++;
+            }
+        }
+        if (myNames.isEmpty() || myGames < 1 || myThreads < 1 || myMaxPieces < 1) {
+            throw new IllegalArgumentException("Need at least one bot, game, thread"
+                                               + " and piece");
+        }
+    }
+
+    /**
+     * Reads an option and its values.
+     *
+     * @param theArgs The arguments.
+     * @param theIndex The index of the option.
+     * @return The index of the argument after the option's values.
+     * @throws IllegalArgumentException if the option is not understood.
+     */
+    private int parseOption(final String[] theArgs, final int theIndex) {
+        if (theIndex + 1 >= theArgs.length) {
+            throw new IllegalArgumentException("No value for " + theArgs[theIndex]);
+        }
+        final String value = theArgs[theIndex + 1];
+        switch (theArgs[theIndex]) {
+            case "-games":
+                myGames = Integer.parseInt(value);
+                break;
+            case "-seed":
+                mySeed = Long.parseLong(value);
+                break;
+            case "-threads":
+                myThreads = Integer.parseInt(value);
+                break;
+            case "-pieces":
+                myMaxPieces = Integer.parseInt(value);
+                break;
+            case "-size":
+                parseSize(value);
+                break;
+            case "-log":
+                myLog = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option " + theArgs[theIndex]);
+        }
+        return theIndex + 2;
+    }
+
+    /**
+     * Reads the board size: WxH.
+     *
+     * @param theSize The size.
+     * @throws IllegalArgumentException if the size is not understood.
+     */
+    private void parseSize(final String theSize) {
+        final String[] size = theSize.split("x");
+        if (size.length != 2) {
+            throw new IllegalArgumentException("Bad size " + theSize);
+        }
+        myWidth = Integer.parseInt(size[0]);
+        myHeight = Integer.parseInt(size[1]);
+    }
+
+    /**
+     * Reads a bot: [name=]weights[@depth].
+     *
+     * @param theBot The bot.
+     * @throws IllegalArgumentException if the bot is not understood.
+     */
+    private void parseBot(final String theBot) {
+        String rest = theBot;
+        String name = theBot;
+        final int equals = rest.indexOf('=');
+        if (equals >= 0) {
+            name = rest.substring(0, equals);
+            rest = rest.substring(equals + 1);
+        }
+        int depth = 1;
+        final int at = rest.indexOf('@');
+        if (at >= 0) {
+            depth = Integer.parseInt(rest.substring(at + 1));
+            rest = rest.substring(0, at);
+        }
+        float[] weights = Evaluator.getDefaultWeights();
+        if (!"default".equals(rest)) {
+            final String[] values = rest.split(",");
+            weights = new float[values.length];
+            for (int i = 0; i < values.length; i++) {
+                weights[i] = Float.parseFloat(values[i]);
+            }
+        }
+        if (weights.length != Evaluator.FEATURES || depth < 1) {
+            throw new IllegalArgumentException("Bad bot " + theBot + ": need "
+                                               + Evaluator.FEATURES
+                                               + " weights and a depth of at least 1");
+        }
+        myNames.add(name.replace(',', ' '));
+        myWeights.add(weights);
+        myDepths.add(depth);
+    }
+
+    /**
+     * Plays every bot's games on the threads.
+     *
+     * @throws InterruptedException if interrupted while waiting for the games.
+     */
+    private void play() throws InterruptedException {
+        final int bots = myNames.size();
+        myPieces = new int[bots][myGames];
+        myLines = new int[bots][myGames];
+        myScores = new long[bots][myGames];
+        myNanos = new long[bots][myGames];
+        final List<Callable<Void>> games = new ArrayList<>();
+        for (int bot = 0; bot < bots; bot++) {
+            for (int game = 0; game < myGames; game++) {
+                final int b = bot;
+                final int g = game;
+                games.add(() -> {
+                    playGame(b, g);
+                    return null;
+                });
+            }
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(myThreads);
+        try {
+            for (final Future<Void> done : pool.invokeAll(games)) {
+                done.get();
+            }
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("A game failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game.
+     *
+     * @param theBot The index of the bot.
+     * @param theGame The index of the game, which is also its seed less the first.
+     */
+    private void playGame(final int theBot, final int theGame) {
+        final long start = System.nanoTime();
+        final TetrisEnv env = new TetrisEnv(myWidth, myHeight);
+        final int depth = myDepths.get(theBot);
+        final SearchBot bot = new SearchBot(myWidth, myHeight, myWeights.get(theBot), depth,
+                                            new TranspositionTable(TABLE_SLOTS), 1);
+        env.reset(mySeed + theGame);
+        int pieces = 0;
+        int lines = 0;
+        long score = 0;
+        while (!env.isDone() && pieces < myMaxPieces) {
+            final int cleared = (int) env.step(bot.chooseAction(env));
+            score += Scoring.getScore(cleared, Scoring.getLevel(lines));
+            lines += cleared;
+            pieces++;
+        }
+        bot.close();
+        myPieces[theBot][theGame] = pieces;
+        myLines[theBot][theGame] = lines;
+        myScores[theBot][theGame] = score;
+        myNanos[theBot][theGame] = System.nanoTime() - start;
+    }
+
+    /**
+     * Compares two bots' games of a seed.
+     *
+     * @param theFirst The index of the first bot.
+     * @param theSecond The index of the second bot.
+     * @param theGame The index of the game.
+     * @return 1 if the first bot won, 0 if it lost and 1/2 for a draw.
+     */
+    private double meet(final int theFirst, final int theSecond, final int theGame) {
+        int result = Integer.compare(myPieces[theFirst][theGame],
+                                     myPieces[theSecond][theGame]);
+        if (result == 0) {
+            result = Long.compare(myScores[theFirst][theGame], myScores[theSecond][theGame]);
+        }
+        return (Integer.signum(result) + 1) / 2.0;
+    }
+
+    /**
+     * Writes the summary.
+     *
+     * @param theOut The stream to write to.
+     * @param theNanos The time the games took in nanoseconds.
+     */
+    private void report(final PrintStream theOut, final long theNanos) {
+        final int bots = myNames.size();
+        final double[] points = new double[bots];
+        final double[] ratings = new double[bots];
+        Arrays.fill(ratings, INITIAL_RATING);
+        for (int game = 0; game < myGames; game++) {
+            for (int first = 0; first < bots; first++) {
+                for (int second = first + 1; second < bots; second++) {
+                    final double result = meet(first, second, game);
+                    points[first] += result;
+                    points[second] += 1 - result;
+                    final double expected = 1 / (1 + Math.pow(10, (ratings[second]
+                                                                  - ratings[first])
+                                                                 / RATING_SCALE));
+                    ratings[first] += K_FACTOR * (result - expected);
+                    ratings[second] -= K_FACTOR * (result - expected);
+                }
+            }
+        }
+        theOut.println("bot,games,score_mean,score_var,lines_mean,lines_var,"
+                       + "pieces_mean,pieces_var,points,elo");
+        long pieces = 0;
+        for (int bot = 0; bot < bots; bot++) {
+            final double[] score = getMoments(myScores[bot]);
+            final double[] lines = getMoments(toLongs(myLines[bot]));
+            final double[] placed = getMoments(toLongs(myPieces[bot]));
+            theOut.println(String.format(Locale.ROOT,
+                                         "%s,%d,%.1f,%.1f,%.2f,%.2f,%.2f,%.2f,%.1f,%.0f",
+                                         myNames.get(bot), myGames, score[0], score[1],
+                                         lines[0], lines[1], placed[0], placed[1],
+                                         points[bot], ratings[bot]));
+            pieces += Math.round(placed[0] * myGames);
+        }
+        final double seconds = theNanos / NANOS_PER_SECOND;
+        theOut.println(String.format(Locale.ROOT,
+                                     "# %d games, %d pieces in %.2f s: %.1f games/s,"
+                                     + " %.0f pieces/s on %d threads",
+                                     bots * myGames, pieces, seconds,
+                                     bots * myGames / seconds, pieces / seconds,
+                                     myThreads));
+    }
+
+    /**
+     * Writes one CSV line per game to the log.
+     *
+     * @throws IOException if the log cannot be written.
+     */
+    private void writeLog() throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(Paths.get(myLog),
+                                                   StandardCharsets.UTF_8))) {
+            out.println("bot,seed,pieces,lines,score,nanos");
+            for (int bot = 0; bot < myNames.size(); bot++) {
+                for (int game = 0; game < myGames; game++) {
+                    out.println(myNames.get(bot) + ',' + (mySeed + game) + ','
+                                + myPieces[bot][game] + ',' + myLines[bot][game] + ','
+                                + myScores[bot][game] + ',' + myNanos[bot][game]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the mean and the sample variance of some values.
+     *
+     * @param theValues The values.
+     * @return The mean and the variance (0 for a single value).
+     */
+    private static double[] getMoments(final long[] theValues) {
+        double mean = 0;
+        for (final long value : theValues) {
+            mean += value;
+        }
+        mean /= theValues.length;
+        double variance = 0;
+        for (final long value : theValues) {
+            variance += (value - mean) * (value - mean);
+        }
+        if (theValues.length > 1) {
+            variance /= theValues.length - 1;
+        }
+        return new double[] {mean, variance};
+    }
+
+    /**
+     * Widens ints to longs.
+     *
+     * @param theValues The ints.
+     * @return The longs.
+     */
+    private static long[] toLongs(final int[] theValues) {
+        final long[] result = new long[theValues.length];
+        for (int i = 0; i < theValues.length; i++) {
+            result[i] = theValues[i];
+        }
+        return result;
+    }
+}
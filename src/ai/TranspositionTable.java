@@ -0,0 +1,242 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size cache of the scores of searched positions, shared without locks by the
+ * threads of a search.
+ *
+ * A position is a bitboard with a movable piece and a next piece, and its key is a
+ * 64-bit hash of the three. The table is two arrays of longs, open addressed: a key is
+ * looked for in a bucket of PROBES slots from the slot its low bits select. Each slot
+ * holds an entry word (the score, the search's generation and the depth it was
+ * searched to) and the key XORed with the entry word. A reader only trusts an entry if
+ * the XOR of the two gives back its key, so an entry torn by threads writing the same
+ * slot at once reads as a miss instead of a wrong score.
+ *
+ * A full bucket keeps its deepest entries: a new entry replaces the entry for the
+ * same key or an empty one, otherwise the entry of an earlier generation or else the
+ * shallowest, and only if it was searched at least as deep. Calling newSearch() before
+ * each search makes the entries of earlier searches replaceable, so they are reused
+ * until the table needs their slots. The scores of a table must all come from the
+ * same Evaluator weights.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class TranspositionTable {
+    /** The slots of the bucket a key is looked for in. */
+    private static final int PROBES = 4;
+
+    /** The bits of an entry's depth and generation. */
+    private static final int FIELD_BITS = 16;
+
+    /** The mask of an entry's depth and generation. */
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    /** The multiplier of the hashes, the 64-bit golden ratio. */
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    /** The first multiplier of the final mix of a hash. */
+    private static final long MIX_1 = 0xFF51AFD7ED558CCDL;
+
+    /** The second multiplier of the final mix of a hash. */
+    private static final long MIX_2 = 0xC4CEB9FE1A85EC53L;
+
+    /** The shift of the final mix of a hash. */
+    private static final int MIX_SHIFT = 33;
+
+    /** The keys, each XORed with its entry. */
+    private final AtomicLongArray myKeys;
+
+    /** The entries: score bits, generation and depth + 1, or 0 for none. */
+    private final AtomicLongArray myEntries;
+
+    /** The mask selecting a slot from a key. */
+    private final int myMask;
+
+    /** The generation of the current search. */
+    private volatile int myGeneration;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param theSlots The number of slots, rounded up to a power of two.
+     * @throws IllegalArgumentException if theSlots is less than PROBES or more than
+     *         2^30.
+     */
+    public TranspositionTable(final int theSlots) {
+        if (theSlots < PROBES || theSlots > 1 << (Integer.SIZE - 2)) {
+            throw new IllegalArgumentException("Bad table size " + theSlots);
+        }
+        final int slots = Integer.highestOneBit(theSlots - 1) << 1;
+        myKeys = new AtomicLongArray(slots);
+        myEntries = new AtomicLongArray(slots);
+        myMask = slots - 1;
+    }
+
+    /**
+     * Hashes a bitboard.
+     *
+     * @param theRows The bitboard, one long per row.
+     * @param theOffset The index of its bottom row.
+     * @param theHeight The number of rows.
+     * @return The hash.
+     */
+    public static long hash(final long[] theRows, final int theOffset, final int theHeight) {
+        long result = theHeight;
+        for (int y = 0; y < theHeight; y++) {
+            result = Long.rotateLeft((result ^ theRows[theOffset + y]) * GOLDEN, FIELD_BITS);
+        }
+        return mix(result);
+    }
+
+    /**
+     * Provides the key of a position.
+     *
+     * @param theHash The hash of the bitboard.
+     * @param theCurrent The TetrisPiece ordinal of the movable piece.
+     * @param theNext The TetrisPiece ordinal of the next piece, or -1 for none.
+     * @return The key.
+     */
+    public static long key(final long theHash, final int theCurrent, final int theNext) {
+        return mix(theHash + GOLDEN * ((theCurrent + 1L) << FIELD_BITS | theNext + 1L));
+    }
+
+    /**
+     * Provides the number of slots.
+     *
+     * @return The number of slots.
+     */
+    public int getSlots() {
+        return myKeys.length();
+    }
+
+    /**
+     * Starts a new search, making the entries of earlier searches replaceable.
+     */
+    public void newSearch() {
+        myGeneration = (myGeneration + 1) & FIELD_MASK;
+    }
+
+    /**
+     * Empties the table. No search may be using it.
+     */
+    public void clear() {
+        for (int i = 0; i < myKeys.length(); i++) {
+            myEntries.set(i, 0);
+            myKeys.set(i, 0);
+        }
+    }
+
+    /**
+     * Looks up the score of a position searched at least to a depth.
+     *
+     * @param theKey The key of the position.
+     * @param theDepth The depth the score is needed for.
+     * @return The score, or NaN if the position was not searched that deep.
+     */
+    public float get(final long theKey, final int theDepth) {
+        float result = Float.NaN;
+        for (int i = 0; i < PROBES; i++) {
+            final int slot = (int) theKey + i & myMask;
+            final long entry = myEntries.get(slot);
+            if (entry != 0 && (myKeys.get(slot) ^ entry) == theKey
+                && getDepth(entry) >= theDepth) {
+                result = Float.intBitsToFloat((int) (entry >>> Integer.SIZE));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the score of a position, unless its bucket holds deeper entries.
+     *
+     * @param theKey The key of the position.
+     * @param theDepth The depth it was searched to, from 0 to 65534.
+     * @param theScore The score.
+     */
+    public void put(final long theKey, final int theDepth, final float theScore) {
+        final int generation = myGeneration;
+        int victim = 0;
+        int victimRank = Integer.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++) {
+            final int slot = (int) theKey + i & myMask;
+            final long entry = myEntries.get(slot);
+            final int rank = getRank(entry, (myKeys.get(slot) ^ entry) == theKey,
+                                     generation);
+            if (rank < victimRank) {
+                victim = slot;
+                victimRank = rank;
+            }
+        }
+        final long old = myEntries.get(victim);
+        if (old == 0 || getGeneration(old) != generation || getDepth(old) <= theDepth) {
+            final long entry = (long) Float.floatToRawIntBits(theScore) << Integer.SIZE
+                               | (long) generation << FIELD_BITS | theDepth + 1;
+            myEntries.set(victim, entry);
+            myKeys.set(victim, theKey ^ entry);
+        }
+    }
+
+    /**
+     * Ranks a slot for replacement, the lowest first: the entry of the same key, then
+     * an empty slot, then the entries of earlier generations and then those of this
+     * generation, the shallowest first.
+     *
+     * @param theEntry The entry in the slot.
+     * @param theSameKey Whether the entry is for the key being stored.
+     * @param theGeneration The generation of the current search.
+     * @return The rank.
+     */
+    private static int getRank(final long theEntry, final boolean theSameKey,
+                               final int theGeneration) {
+        int result = 1;
+        if (theEntry != 0) {
+            result = getDepth(theEntry) + (FIELD_MASK + 1) * 2;
+            if (theSameKey) {
+                result = 0;
+            } else if (getGeneration(theEntry) != theGeneration) {
+                result -= FIELD_MASK + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Provides the generation of an entry.
+     *
+     * @param theEntry The entry.
+     * @return The generation of the search that stored it.
+     */
+    private static int getGeneration(final long theEntry) {
+        return (int) (theEntry >>> FIELD_BITS & FIELD_MASK);
+    }
+
+    /**
+     * Provides the depth of an entry.
+     *
+     * @param theEntry The entry.
+     * @return The depth it was searched to.
+     */
+    private static int getDepth(final long theEntry) {
+        return (int) (theEntry & FIELD_MASK) - 1;
+    }
+
+    /**
+     * Mixes the bits of a hash so that each bit of the result depends on all of them.
+     *
+     * @param theHash The hash.
+     * @return The mixed hash.
+     */
+    private static long mix(final long theHash) {
+        long result = (theHash ^ theHash >>> MIX_SHIFT) * MIX_1;
+        result = (result ^ result >>> MIX_SHIFT) * MIX_2;
+        return result ^ result >>> MIX_SHIFT;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Many TetrisEnvs stepped together, one action each, split across threads.
+ *
+ * The observations of all environments are laid out one after another in shared
+ * arrays, environment i at index i times the size of one observation, with a reward
+ * and a done flag each. An environment whose episode is done is reset at once with
+ * its next seed, so after a step the observation of a done environment is the first
+ * of its next episode. The seeds of an environment's episodes depend only on the seed
+ * of reset() and its index, not on the number of threads.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class VectorEnv implements Closeable {
+    /** The environments. */
+    private final TetrisEnv[] myEnvs;
+
+    /** The rows of the observations. */
+    private final long[] myRows;
+
+    /** The column heights of the observations. */
+    private final int[] myHeights;
+
+    /** The pieces of the observations. */
+    private final int[] myPieces;
+
+    /** The reward of each environment for the last step. */
+    private final float[] myRewards;
+
+    /** Whether the last step ended the episode of each environment. */
+    private final boolean[] myDones;
+
+    /** The episodes each environment has started since the last reset(). */
+    private final long[] myEpisodes;
+
+    /** The tasks stepping a part of the environments each. */
+    private final List<Callable<Void>> myTasks;
+
+    /** The threads, or null to step on the calling thread. */
+    private final ExecutorService myPool;
+
+    /** The actions of the step being taken. */
+    private int[] myActions;
+
+    /** The seed of the last reset(). */
+    private long mySeed;
+
+    /**
+     * Creates environments. Call reset() before stepping.
+     *
+     * @param theCount The number of environments.
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @param theThreads The number of threads to step on, 1 for the calling thread.
+     * @throws IllegalArgumentException if theCount or theThreads is less than 1.
+     */
+    public VectorEnv(final int theCount, final int theWidth, final int theHeight,
+                     final int theThreads) {
+        checkCounts(theCount, theThreads);
+        myRows = new long[theCount * TetrisEnv.getRowsSize(theWidth, theHeight)];
+        myHeights = new int[theCount * theWidth];
+        myPieces = new int[theCount * TetrisEnv.getPiecesSize()];
+        myRewards = new float[theCount];
+        myDones = new boolean[theCount];
+        myEpisodes = new long[theCount];
+        myEnvs = createEnvs(theCount, theWidth, theHeight);
+        myTasks = createTasks(Math.min(theCount, theThreads));
+        myPool = createPool(myTasks.size());
+    }
+
+    /**
+     * Provides the number of environments.
+     *
+     * @return The number of environments.
+     */
+    public int getCount() {
+        return myEnvs.length;
+    }
+
+    /**
+     * Provides the number of actions of each environment.
+     *
+     * @return The number of actions, from 0.
+     */
+    public int getActionCount() {
+        return myEnvs[0].getActionCount();
+    }
+
+    /**
+     * Provides the rows of the observations (see TetrisEnv.getRowsSize()).
+     *
+     * @return The rows, updated in place.
+     */
+    public long[] getRows() {
+        return myRows;
+    }
+
+    /**
+     * Provides the column heights of the observations.
+     *
+     * @return The heights, updated in place.
+     */
+    public int[] getHeights() {
+        return myHeights;
+    }
+
+    /**
+     * Provides the pieces of the observations (see TetrisEnv.getPiecesSize()).
+     *
+     * @return The pieces, updated in place.
+     */
+    public int[] getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Provides the reward of each environment for the last step.
+     *
+     * @return The rewards, updated in place.
+     */
+    public float[] getRewards() {
+        return myRewards;
+    }
+
+    /**
+     * Provides whether the last step ended the episode of each environment.
+     *
+     * @return The done flags, updated in place.
+     */
+    public boolean[] getDones() {
+        return myDones;
+    }
+
+    /**
+     * Provides one of the environments, for instance to draw its board.
+     *
+     * @param theIndex The index of the environment.
+     * @return The environment.
+     */
+    public TetrisEnv getEnv(final int theIndex) {
+        return myEnvs[theIndex];
+    }
+
+    /**
+     * Starts an episode in every environment and writes the first observations.
+     *
+     * @param theSeed The seed of the episodes.
+     */
+    public void reset(final long theSeed) {
+        mySeed = theSeed;
+        for (int i = 0; i < myEnvs.length; i++) {
+            myEpisodes[i] = 0;
+            myEnvs[i].reset(getSeed(i));
+            myRewards[i] = 0;
+            myDones[i] = false;
+        }
+    }
+
+    /**
+     * Steps every environment.
+     *
+     * @param theActions The action of each environment.
+     * @throws IllegalArgumentException if there is not one action per environment, or
+     *         an action is not one.
+     */
+    public void step(final int[] theActions) {
+        if (theActions.length != myEnvs.length) {
+            throw new IllegalArgumentException(theActions.length + " actions for "
+                                               + myEnvs.length + " environments");
+        }
+        for (final int action : theActions) {
+            if (action < 0 || action >= getActionCount()) {
+                throw new IllegalArgumentException("Bad action " + action);
+            }
+        }
+        myActions = theActions;
+        if (myPool == null) {
+            step(0, myEnvs.length);
+        } else {
+            invokeTasks();
+        }
+    }
+
+    /**
+     * Stops the threads.
+     */
+    @Override
+    public void close() {
+        if (myPool != null) {
+            myPool.shutdown();
+        }
+    }
+
+    /**
+     * Steps some of the environments, resetting those whose episode is done.
+     *
+     * @param theFrom The index of the first environment.
+     * @param theTo The index after the last environment.
+     */
+    private void step(final int theFrom, final int theTo) {
+        for (int i = theFrom; i < theTo; i++) {
+            myRewards[i] = myEnvs[i].step(myActions[i]);
+            myDones[i] = myEnvs[i].isDone();
+            if (myDones[i]) {
+                myEpisodes[i]++;
+                myEnvs[i].reset(getSeed(i));
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks on the threads and waits for them.
+     */
+    private void invokeTasks() {
+        try {
+            for (final Future<Void> done : myPool.invokeAll(myTasks)) {
+                done.get();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final ExecutionException e) {
+            throw new IllegalStateException("Stepping failed", e.getCause());
+        }
+    }
+
+    /**
+     * Provides the seed of an environment's current episode: the seed of reset()
+     * advanced by the environment's index and by the number of environments for each
+     * episode it has started since.
+     *
+     * @param theIndex The index of the environment.
+     * @return The seed.
+     */
+    private long getSeed(final int theIndex) {
+        return mySeed + theIndex + myEpisodes[theIndex] * myEnvs.length;
+    }
+
+    /**
+     * Checks the numbers of environments and threads.
+     *
+     * @param theCount The number of environments.
+     * @param theThreads The number of threads.
+     * @throws IllegalArgumentException if either is less than 1.
+     */
+    private static void checkCounts(final int theCount, final int theThreads) {
+        if (theCount < 1 || theThreads < 1) {
+            throw new IllegalArgumentException("Cannot step " + theCount
+                                               + " environments on " + theThreads
+                                               + " threads");
+        }
+    }
+
+    /**
+     * Creates the environments.
+     *
+     * @param theCount The number of environments.
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @return The environments.
+     */
+    private TetrisEnv[] createEnvs(final int theCount, final int theWidth,
+                                   final int theHeight) {
+        final TetrisEnv[] result = new TetrisEnv[theCount];
+        for (int i = 0; i < theCount; i++) {
+            result[i] = new TetrisEnv(theWidth, theHeight, myRows, myHeights, myPieces, i);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the tasks, each stepping an equal part of the environments.
+     *
+     * @param theTasks The number of tasks.
+     * @return The tasks.
+     */
+    private List<Callable<Void>> createTasks(final int theTasks) {
+        final List<Callable<Void>> result = new ArrayList<>(theTasks);
+        for (int i = 0; i < theTasks; i++) {
+            final int from = (int) ((long) myEnvs.length * i / theTasks);
+            final int to = (int) ((long) myEnvs.length * (i + 1) / theTasks);
+            result.add(() -> {
+                step(from, to);
+                return null;
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Creates the threads to run the tasks on.
+     *
+     * @param theTasks The number of tasks.
+     * @return The threads, or null if there is only one task.
+     */
+    private static ExecutorService createPool(final int theTasks) {
+        ExecutorService result = null;
+        if (theTasks > 1) {
+            result = Executors.newFixedThreadPool(theTasks, theTask -> {
+                final Thread thread = new Thread(theTask, "vector-env");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return result;
+    }
+}
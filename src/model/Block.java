@@ -27,6 +27,8 @@ public enum Block {
     /** A Block from a TPiece. */
     T,
     /** A Block from a ZPiece. */
-    Z;
+    Z,
+    /** A Block from a garbage row sent by an opponent. */
+    G;
     
 }
@@ -4,9 +4,9 @@
 
 package model;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 
 /**
@@ -29,6 +29,22 @@ public class Board extends Observable {
      */
     private static final int DEFAULT_HEIGHT = 20;
 
+    /**
+     * The number of blocked corners around the center of a T for a T-spin.
+     */
+    private static final int T_SPIN_CORNERS = 3;
+
+    /**
+     * The number of rows above the board shown by toString().
+     */
+    private static final int HIDDEN_ROWS = 4;
+
+    /**
+     * The number of cells above which a board is large: it notifies observers with
+     * itself instead of rendering the whole board to a String on every change.
+     */
+    private static final int LARGE_BOARD_CELLS = 1024;
+
     
     // Instance fields
     
@@ -45,7 +61,7 @@ public class Board extends Observable {
     /**
      * The frozen blocks on the board.
      */
-    private final List<Block[]> myFrozenBlocks;
+    private final Grid myGrid;
     
     /**
      * The game over state.
@@ -53,19 +69,29 @@ public class Board extends Observable {
     private boolean myGameOver;
 
     /**
-     * Contains a non random sequence of TetrisPieces to loop through.
+     * Generates the pieces, either randomly or from a non random sequence.
+     */
+    private final PieceGenerator myGenerator;
+    
+    /**
+     * The spawn state of each TetrisPiece on this board.
+     */
+    private final Map<TetrisPiece, MovableTetrisPiece> mySpawnPieces;
+
+    /**
+     * The shared states of movable pieces on this board.
      */
-    private List<TetrisPiece> myNonRandomPieces;
+    private final PieceStates myPieceStates;
 
     /**
-     * The current index in the non random piece sequence.
+     * Garbage rows sent by an opponent and not yet inserted.
      */
-    private int mySequenceIndex;
-    
+    private final GarbageQueue myGarbage;
+
     /**
-     * Piece that is next to play.
+     * The hold slot and the pieces that are next to play.
      */
-    private TetrisPiece myNextPiece;
+    private final PieceQueue myPieceQueue;
     
     /**
      * Piece that is currently movable.
@@ -78,6 +104,47 @@ public class Board extends Observable {
      * down movement in the drop.
      */
     private boolean myDrop;
+
+    /**
+     * The number of batches of inputs currently being applied.
+     * Board and queue notifications are deferred while this is above zero.
+     */
+    private int myBatchDepth;
+
+    /**
+     * Whether the board changed during the current batch of inputs.
+     */
+    private boolean myBoardChanged;
+
+    /**
+     * Whether the piece queue changed during the current batch of inputs.
+     */
+    private boolean myQueueChanged;
+
+    /**
+     * Counts the ticks for gravity and lock delay of the movable piece.
+     */
+    private final PieceTimer myPieceTimer;
+
+    /**
+     * The number of ticks since the game started.
+     */
+    private long myTickCount;
+
+    /**
+     * Receives gameplay events, or null.
+     */
+    private BoardListener myListener;
+
+    /**
+     * Whether the last move of the movable piece was a rotation.
+     */
+    private boolean myRotated;
+
+    /**
+     * The number of times the board has changed.
+     */
+    private long myChangeCount;
     
     // Constructors
 
@@ -96,19 +163,31 @@ public class Board extends Observable {
      * @param theHeight Height of the Tetris game board.
      */
     public Board(final int theWidth, final int theHeight) {
+        this(theWidth, theHeight, System.nanoTime());
+    }
+
+    /**
+     * Tetris board constructor with a seeded piece generator. Two boards created with
+     * the same size and seed, given the same calls, play exactly the same game, so a
+     * client can predict a server's board and replay it from a snapshot.
+     * 
+     * @param theWidth Width of the Tetris game board.
+     * @param theHeight Height of the Tetris game board.
+     * @param theSeed The seed of the random piece generator.
+     */
+    public Board(final int theWidth, final int theHeight, final long theSeed) {
         super();
         myWidth = theWidth;
         myHeight = theHeight;
-        myFrozenBlocks = new LinkedList<Block[]>();
+        myGrid = new Grid(theWidth, theHeight);
          
-        myNonRandomPieces = new ArrayList<TetrisPiece>();
-        mySequenceIndex = 0;
-        
-        /*  myNextPiece and myCurrentPiece
-         *  are initialized by the newGame() method.
-         *  
-         *  Be sure to call newGame() before each game including the first game.
-         */
+        myGenerator = new PieceGenerator(theSeed);
+        myPieceStates = new PieceStates(theWidth, theHeight);
+        mySpawnPieces = myPieceStates.createSpawnPieces(theWidth, theHeight);
+        myGarbage = new GarbageQueue();
+        myPieceQueue = new PieceQueue(mySpawnPieces);
+        myPieceTimer = new PieceTimer();
+        // myCurrentPiece is initialized by newGame(), called before each game
     }
     
 
@@ -134,24 +213,149 @@ public class Board extends Observable {
     
 
 
+    /**
+     * Determines if a board of a given size is large. Large boards notify observers
+     * with the Board itself when the board changes, instead of a String of the whole
+     * board, so observers read just the cells they need with getBlock().
+     * 
+     * @param theWidth Width of the board.
+     * @param theHeight Height of the board.
+     * @return true if the board is large.
+     */
+    public static boolean isLarge(final int theWidth, final int theHeight) {
+        return (long) theWidth * theHeight > LARGE_BOARD_CELLS;
+    }
+
+    /**
+     * Get the block at a cell of the board, including the movable piece.
+     * 
+     * @param theX The column, from 0 at the left.
+     * @param theY The row, from 0 at the bottom.
+     * @return The Block at the cell, or Block.EMPTY if the cell is empty or off the board.
+     */
+    public Block getBlock(final int theX, final int theY) {
+        Block result = myGrid.get(theX, theY);
+        if (result == null && myCurrentPiece != null) {
+            for (final int p : myCurrentPiece.getPackedPoints()) {
+                if (myCurrentPiece.getX() + PackedPoints.x(p) == theX
+                    && myCurrentPiece.getY() + PackedPoints.y(p) == theY) {
+                    result = myCurrentPiece.getBlock();
+                }
+            }
+        }
+        if (result == null) {
+            result = Block.EMPTY;
+        }
+        return result;
+    }
+
+    /**
+     * Count the frozen blocks in a rectangle of the board, e.g. to draw a minimap.
+     * 
+     * @param theX The left column of the rectangle.
+     * @param theY The bottom row of the rectangle.
+     * @param theWidth The width of the rectangle.
+     * @param theHeight The height of the rectangle.
+     * @return The number of frozen blocks in the rectangle.
+     */
+    public int countBlocks(final int theX, final int theY,
+                           final int theWidth, final int theHeight) {
+        return myGrid.count(theX, theY, theWidth, theHeight);
+    }
+
+    /**
+     * Get the board position of the movable piece: the bottom left of its 4x4 grid.
+     * 
+     * @return The position, or null if there is no movable piece.
+     */
+    public Point getPiecePosition() {
+        Point result = null;
+        if (myCurrentPiece != null) {
+            result = myCurrentPiece.getPosition();
+        }
+        return result;
+    }
+
+    /**
+     * Get the frozen blocks, for encoders in this package.
+     * 
+     * @return The grid of frozen blocks.
+     */
+    Grid getGrid() {
+        return myGrid;
+    }
+
+    /**
+     * Get the movable piece, for encoders in this package.
+     * 
+     * @return The movable piece, or null before the first game.
+     */
+    MovableTetrisPiece getCurrentPiece() {
+        return myCurrentPiece;
+    }
+
+    /**
+     * Get the hold slot and the queue of upcoming pieces.
+     * The returned PieceQueue is updated in place as the game progresses.
+     * 
+     * @return The hold slot and upcoming pieces.
+     */
+    public PieceQueue getPieceQueue() {
+        return myPieceQueue;
+    }
+
+    /**
+     * Get the number of upcoming pieces shown in the piece queue.
+     * 
+     * @return The number of upcoming pieces shown.
+     */
+    public int getPreviewLength() {
+        return myPieceQueue.getLength();
+    }
+
+    /**
+     * Sets the number of upcoming pieces shown in the piece queue.
+     * The pieces themselves are unaffected; the queue always buffers
+     * PieceQueue.MAX_LENGTH pieces from the piece generator.
+     * 
+     * @param theLength The number of upcoming pieces to show, from
+     *        PieceQueue.MIN_LENGTH to PieceQueue.MAX_LENGTH.
+     * @throws IllegalArgumentException if theLength is out of range.
+     */
+    public void setPreviewLength(final int theLength) {
+        myPieceQueue.setLength(theLength);
+        if (myCurrentPiece != null) {
+            notifyQueueChanged();
+        }
+    }
+
     /**
      * Resets the board for a new game.
      * This method must be called before the first game and before each new game.
      */
     public void newGame() {
         
-        mySequenceIndex = 0;
-        myFrozenBlocks.clear();
-        for (int h = 0; h < myHeight; h++) {
-            myFrozenBlocks.add(new Block[myWidth]);
-        }
+        myGenerator.restart();
+        myGrid.clear();
+        myGarbage.clear();
 
         myGameOver = false;
+        myTickCount = 0;
         myCurrentPiece = nextMovablePiece(true);
         myDrop = false;
         
-        setChanged();
-        notifyObservers(toString());
+        notifyBoardChanged();
+    }
+
+    /**
+     * Resets the board for a new game whose random pieces come from a seed, so that
+     * games started with the same seed get the same pieces.
+     * 
+     * @param theSeed The seed of the random pieces.
+     */
+    public void newGame(final long theSeed) {
+        myGenerator.setSeed(theSeed);
+        newGame();
     }
 
     /**
@@ -160,26 +364,222 @@ public class Board extends Observable {
      * @param thePieces the List of non random TetrisPieces.
      */
     public void setPieceSequence(final List<TetrisPiece> thePieces) {
-        myNonRandomPieces = new ArrayList<TetrisPiece>(thePieces);
-        mySequenceIndex = 0;
+        myGenerator.setSequence(thePieces);
         myCurrentPiece = nextMovablePiece(true);
     }
     
+    /**
+     * Checks whether the game is over.
+     * 
+     * @return true if the game is over.
+     */
+    public boolean isGameOver() {
+        return myGameOver;
+    }
+
+    /**
+     * Inserts garbage rows sent by an opponent at the bottom of the board now, moving
+     * the stack up. Each row is full except for a hole in one column. The movable
+     * piece is moved up if the stack now overlaps it, and the game is over if blocks
+     * are pushed off the top of the board. Observers are notified once.
+     * 
+     * @param theRows The number of rows to insert.
+     * @param theHole The column of the hole in every inserted row.
+     * @throws IllegalArgumentException if theRows is negative or theHole is not a
+     *         column of the board.
+     */
+    public void addGarbage(final int theRows, final int theHole) {
+        GarbageQueue.check(theRows, theHole, myWidth);
+        if (!myGameOver && theRows > 0) {
+            insertGarbage(theRows, myGrid.insertRows(theRows, theHole));
+            while (myCurrentPiece != null && !myGrid.isLegal(myCurrentPiece)) {
+                myCurrentPiece = myCurrentPiece.translate(PackedPoints.pack(0, 1));
+            }
+            notifyBoardChanged();
+        }
+    }
+
+    /**
+     * Queues garbage rows sent by an opponent. Queued rows can be cancelled with
+     * cancelGarbage(); the rest are inserted the next time a piece locks without
+     * clearing a line.
+     * 
+     * @param theRows The number of rows to queue.
+     * @param theHole The column of the hole in every queued row.
+     * @throws IllegalArgumentException if theRows is negative or theHole is not a
+     *         column of the board.
+     */
+    public void queueGarbage(final int theRows, final int theHole) {
+        GarbageQueue.check(theRows, theHole, myWidth);
+        if (theRows > 0) {
+            myGarbage.add(theRows, theHole);
+        }
+    }
+
+    /**
+     * Cancels queued garbage rows, oldest first, for instance with the rows the
+     * player's own line clears would send.
+     * 
+     * @param theRows The number of rows to cancel.
+     * @return The rows left over once no garbage is queued.
+     * @throws IllegalArgumentException if theRows is negative.
+     */
+    public int cancelGarbage(final int theRows) {
+        return myGarbage.cancel(theRows);
+    }
+
+    /**
+     * Get the number of garbage rows queued and not yet inserted.
+     * 
+     * @return The number of queued rows.
+     */
+    public int getQueuedGarbage() {
+        return myGarbage.getRows();
+    }
+
+    /**
+     * Get the number of times the board (the frozen blocks or the movable piece) has
+     * changed, so that a poller can cheaply tell whether anything needs redrawing or
+     * sending without observing every change.
+     * 
+     * @return The number of changes since the board was created.
+     */
+    public long getChangeCount() {
+        return myChangeCount;
+    }
+
+    /**
+     * Get the number of ticks since the game started.
+     * 
+     * @return The number of ticks since the game started.
+     */
+    public long getTickCount() {
+        return myTickCount;
+    }
+
+    /**
+     * Sets the listener for gameplay events.
+     * 
+     * @param theListener The listener, or null for none.
+     */
+    public void setListener(final BoardListener theListener) {
+        myListener = theListener;
+    }
+
+    /**
+     * Sets the number of ticks for the movable piece to fall one row.
+     * 
+     * @param theTicks Ticks per row, at least 1.
+     * @throws IllegalArgumentException if theTicks is less than 1.
+     */
+    public void setGravity(final int theTicks) {
+        myPieceTimer.setGravity(theTicks);
+    }
+
+    /**
+     * Sets the number of ticks for the movable piece to fall one row while
+     * soft dropping.
+     * 
+     * @param theTicks Ticks per row, at least 1.
+     * @throws IllegalArgumentException if theTicks is less than 1.
+     */
+    public void setSoftDropGravity(final int theTicks) {
+        myPieceTimer.setSoftDropGravity(theTicks);
+    }
+
+    /**
+     * Sets the number of ticks a movable piece resting on the stack waits
+     * before it freezes in place.
+     * 
+     * @param theTicks The lock delay, at least 0.
+     * @throws IllegalArgumentException if theTicks is negative.
+     */
+    public void setLockDelay(final int theTicks) {
+        myPieceTimer.setLockDelay(theTicks);
+    }
+
+    /**
+     * Sets the number of times moving or rotating a resting piece may restart
+     * the lock delay before the piece reaches a lower row.
+     * 
+     * @param theLimit The move reset limit, at least 0.
+     * @throws IllegalArgumentException if theLimit is negative.
+     */
+    public void setMoveResetLimit(final int theLimit) {
+        myPieceTimer.setMoveResetLimit(theLimit);
+    }
+
+    /**
+     * Sets whether the movable piece is soft dropping, in which case it falls
+     * at the soft drop gravity.
+     * 
+     * @param theSoftDrop True while soft dropping.
+     */
+    public void setSoftDrop(final boolean theSoftDrop) {
+        myPieceTimer.setSoftDrop(theSoftDrop);
+    }
+
+    /**
+     * Advances the game by one tick.
+     * The movable piece falls when gravity is due, and a piece resting on the
+     * stack freezes in place once its lock delay has elapsed.
+     */
+    public void tick() {
+        if (!myGameOver && myCurrentPiece != null) {
+            myTickCount++;
+            if (myGrid.isLegal(myCurrentPiece.down())) {
+                if (myPieceTimer.fallTick()) {
+                    move(myCurrentPiece.down());
+                    myPieceTimer.fell(myCurrentPiece.getY());
+                }
+            } else if (myPieceTimer.lockTick()) {
+                lockPiece();
+            }
+        }
+    }
+
     /**
      * Try to move the movable piece down.
      * Freeze the Piece in position if down tries to move into an illegal state.
      * Clear full lines.
      */
     public void down() {
-        if (!move(myCurrentPiece.down())) {
-            // the piece froze, so clear lines and update current piece
-            addPieceToBoardData(myFrozenBlocks, myCurrentPiece);
-            checkRows();
-            if (!myGameOver) {
-                myCurrentPiece = nextMovablePiece(false);
+        if (move(myCurrentPiece.down())) {
+            myPieceTimer.fell(myCurrentPiece.getY());
+        } else {
+            lockPiece();
+        }
+    }
+
+    /**
+     * Swap the movable piece with the piece in the hold slot.
+     * When the hold slot is empty the next piece in the queue is played instead.
+     * A piece can only be held once until the next piece spawns, and the game
+     * ends if the piece swapped in is blocked where it spawns. Observers are sent
+     * one consolidated update once the swap is complete.
+     */
+    public void hold() {
+        if (myCurrentPiece != null && !myGameOver && myPieceQueue.isHoldAvailable()) {
+            // deferred so that observers see the swap and any top out as one update
+            myBatchDepth++;
+            final TetrisPiece held = myPieceQueue.getHeldTetrisPiece();
+            myPieceQueue.setHeldPiece(myCurrentPiece.getTetrisPiece());
+            if (held == null) {
+                myCurrentPiece = mySpawnPieces.get(pollPieceQueue());
+            } else {
+                myCurrentPiece = mySpawnPieces.get(held);
             }
-            setChanged();
-            notifyObservers(toString());
+            myPieceQueue.setHoldAvailable(false);
+            myPieceTimer.spawn(myCurrentPiece.getY());
+            myRotated = false;
+            fireInput(Input.HOLD);
+            if (!myGrid.isLegal(myCurrentPiece)) {
+                topOut();
+            }
+            notifyQueueChanged();
+            notifyBoardChanged();
+            myBatchDepth--;
+            flushBatch();
         }
     }
 
@@ -187,8 +587,9 @@ public class Board extends Observable {
      * Try to move the movable piece left.
      */
     public void left() {
-        if (myCurrentPiece != null) {
-            move(myCurrentPiece.left());
+        if (myCurrentPiece != null && move(myCurrentPiece.left())) {
+            myPieceTimer.moved();
+            fireInput(Input.LEFT);
         }
     }
 
@@ -196,8 +597,31 @@ public class Board extends Observable {
      * Try to move the movable piece right.
      */
     public void right() {
+        if (myCurrentPiece != null && move(myCurrentPiece.right())) {
+            myPieceTimer.moved();
+            fireInput(Input.RIGHT);
+        }
+    }
+
+    /**
+     * Try to shift the movable piece several columns at once.
+     * The piece moves as far as it can towards the requested column and stops
+     * at the first wall or frozen block, with a single notification to observers.
+     * 
+     * @param theColumns The number of columns to shift; negative is left,
+     *        positive is right.
+     */
+    public void shift(final int theColumns) {
         if (myCurrentPiece != null) {
-            move(myCurrentPiece.right());
+            final MovableTetrisPiece shifted = myGrid.slide(myCurrentPiece, theColumns);
+            if (shifted != myCurrentPiece && move(shifted)) {
+                myPieceTimer.moved();
+                if (theColumns < 0) {
+                    fireInput(Input.LEFT);
+                } else {
+                    fireInput(Input.RIGHT);
+                }
+            }
         }
     }
 
@@ -207,18 +631,22 @@ public class Board extends Observable {
     public void rotate() {
         if (myCurrentPiece != null) {           
             if (myCurrentPiece.getTetrisPiece() == TetrisPiece.O) {
-                move(myCurrentPiece.rotate());
+                if (move(myCurrentPiece.rotate())) {
+                    rotated();
+                }
             } else {
                 final MovableTetrisPiece cwPiece = myCurrentPiece.rotate();
                 
-                final Point[] offsets = WallKick.getkicks(cwPiece.getTetrisPiece(),
-                                                    myCurrentPiece.getRotation(),
-                                                    cwPiece.getRotation());
-                for (final Point p : offsets) {
-                    final Point offsetLocation = cwPiece.getPosition().transform(p);
-                    final MovableTetrisPiece temp = cwPiece.setPosition(offsetLocation);
-                    if (move(temp)) {
-                        break;
+                final int[] offsets =
+                    PackedPoints.getClockwiseKicks(cwPiece.getTetrisPiece(),
+                                                   myCurrentPiece.getRotation());
+                final int kick = myGrid.findKick(cwPiece, offsets);
+                if (kick >= 0 && move(cwPiece.translate(offsets[kick]))) {
+                    rotated();
+                    if (kick > 0) {
+                        BoardProbes.get().rotationKicked(cwPiece.getTetrisPiece(), kick,
+                                                         PackedPoints.x(offsets[kick]),
+                                                         PackedPoints.y(offsets[kick]));
                     }
                 }
             }
@@ -230,190 +658,247 @@ public class Board extends Observable {
      */
     public void drop() {
         if (!myGameOver) {
+            fireInput(Input.DROP);
             myDrop = true;
-            while (isPieceLegal(myCurrentPiece.down())) {
+            while (myGrid.isLegal(myCurrentPiece.down())) {
                 down();  // move down as far as possible
             }
             myDrop = false;
             down();  // move down one more time to freeze in place
         }
     }
-    
 
+    /**
+     * Applies a sequence of inputs, for instance a bot's plan or the inputs of
+     * a network packet, as one consolidated update.
+     * Observers receive at most one board state notification (and one piece
+     * queue notification if the queue changed) for the whole sequence instead
+     * of one per input; cleared rows and game over are still reported as they
+     * happen. Inputs after the game ends are ignored.
+     * 
+     * @param theInputs The inputs to apply, in order.
+     */
+    public void applyInputs(final Input... theInputs) {
+        applyInputs(theInputs, 0, theInputs.length);
+    }
 
-    @Override
-    public String toString() {
-        final List<Block[]> board = getBoard();
-        board.add(new Block[myWidth]);
-        board.add(new Block[myWidth]);
-        board.add(new Block[myWidth]);
-        board.add(new Block[myWidth]);
-        if (myCurrentPiece != null) {
-            addPieceToBoardData(board, myCurrentPiece);
-        }
-        
-        
-        final StringBuilder sb = new StringBuilder();
-        for (int i = board.size() - 1; i >= 0; i--) {
-            final Block[] row = board.get(i);
-            sb.append('|');
-            for (final Block c : row) {
-                if (c == null) {
-                    sb.append(' ');
-                } else {
-                    sb.append(c);
-                }
-            }
-            sb.append("|\n");
-            if (i == this.myHeight) {
-                sb.append(' ');
-                for (int j = 0; j < this.myWidth; j++) {
-                    sb.append('-');
-                }
-                sb.append('\n');
+    /**
+     * Applies part of a sequence of inputs as one consolidated update.
+     * 
+     * @param theInputs The inputs to apply, in order.
+     * @param theOffset The index of the first input to apply.
+     * @param theLength The number of inputs to apply.
+     * @see #applyInputs(Input...)
+     */
+    public void applyInputs(final Input[] theInputs, final int theOffset,
+                            final int theLength) {
+        myBatchDepth++;
+        try {
+            for (int i = theOffset; i < theOffset + theLength && !myGameOver; i++) {
+                theInputs[i].applyTo(this);
             }
+        } finally {
+            myBatchDepth--;
         }
-        sb.append('|');
-        for (int w = 0; w < myWidth; w++) {
-            sb.append('-');
-        }
-        sb.append('|');
-        return sb.toString();
+        flushBatch();
     }
 
-    
-    // private helper methods
-    
     /**
-     * Helper function to check if the current piece can be shifted to the
-     * specified position.
+     * Get the number of bytes writeState() writes for the board as it is now.
+     * The size only changes with the board dimensions and the length of a
+     * non random piece sequence.
      * 
-     * @param theMovedPiece the position to attempt to shift the current piece
-     * @return True if the move succeeded
+     * @return The size of the board state in bytes.
      */
-    private boolean move(final MovableTetrisPiece theMovedPiece) {
-        
-        boolean result = false;
-        if (isPieceLegal(theMovedPiece)) {
-            myCurrentPiece = theMovedPiece;
-            result = true;
-            if (!myDrop) {
-                setChanged();
-            }
-            notifyObservers(toString());
-        }
-        return result;
+    public int getStateSize() {
+        return 2 * Integer.BYTES + Long.BYTES + 1 + StateCodec.getPieceSize()
+               + PieceQueue.getStateSize() + PieceTimer.STATE_SIZE
+               + myGenerator.getStateSize() + StateCodec.getCellsSize(myWidth, myHeight);
     }
 
     /**
-     * Helper function to test if the piece is in a legal state.
+     * Writes the complete state of the game in a compact binary form: the
+     * dimensions, the movable piece, the piece queue and hold slot, gravity and
+     * lock delay, the piece generator and the bit-packed frozen blocks.
+     * Writes getStateSize() bytes at the buffer's position.
      * 
-     * Illegal states:
-     * - points of the piece exceed the bounds of the board
-     * - points of the piece collide with frozen blocks on the board
+     * @param theBuffer The buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer is too small.
+     */
+    public void writeState(final ByteBuffer theBuffer) {
+        theBuffer.putInt(myWidth);
+        theBuffer.putInt(myHeight);
+        theBuffer.putLong(myTickCount);
+        byte gameOver = 0;
+        if (myGameOver) {
+            gameOver = 1;
+        }
+        theBuffer.put(gameOver);
+        StateCodec.writePiece(myCurrentPiece, theBuffer);
+        myPieceQueue.writeState(theBuffer);
+        myPieceTimer.writeState(theBuffer);
+        myGenerator.writeState(theBuffer);
+        StateCodec.writeCells(myGrid, myWidth, myHeight, theBuffer);
+    }
+
+    /**
+     * Restores a state written by writeState() on a board of the same size,
+     * then notifies observers of the restored piece queue and board.
      * 
-     * @param thePiece MovableTetrisPiece to test.
-     * @return Returns true if the piece is in a legal state; false otherwise
-     */
-    private boolean isPieceLegal(final MovableTetrisPiece thePiece) {
-        boolean result = true;
+     * @param theBuffer The buffer to read from.
+     * @throws IllegalArgumentException if the state is for a board of a
+     *         different size.
+     */
+    public void readState(final ByteBuffer theBuffer) {
+        final int width = theBuffer.getInt();
+        final int height = theBuffer.getInt();
+        if (width != myWidth || height != myHeight) {
+            throw new IllegalArgumentException("State is for a " + width + "x" + height
+                                               + " board, not " + myWidth + "x" + myHeight);
+        }
+        myTickCount = theBuffer.getLong();
+        myGameOver = theBuffer.get() != 0;
+        myCurrentPiece = StateCodec.readPiece(theBuffer, myPieceStates);
+        myPieceQueue.readState(theBuffer);
+        myPieceTimer.readState(theBuffer);
+        myGenerator.readState(theBuffer);
+        StateCodec.readCells(myGrid, myWidth, myHeight, theBuffer);
+        myDrop = false;
         
-        for (final Point p : thePiece.getBoardPoints()) {
-            if (p.getX() < 0 || p.getX() >= myWidth) {
-                result = false;
-            }
-            if (p.getY() < 0) {
-                result = false;
+        notifyQueueChanged();
+        notifyBoardChanged();
+    }
+
+    @Override
+    public String toString() {
+        return myGrid.render(HIDDEN_ROWS, myCurrentPiece);
+    }
+
+    
+    // private helper methods
+    
+    /**
+     * Notifies observers that the board changed, or defers the notification
+     * until the end of the current batch of inputs.
+     * The board is only rendered to a String when someone is observing it, and
+     * large boards are never rendered: observers are sent the Board instead.
+     */
+    private void notifyBoardChanged() {
+        myChangeCount++;
+        if (myBatchDepth > 0) {
+            myBoardChanged = true;
+        } else if (countObservers() > 0) {
+            final long start = BoardProbes.get().startTiming();
+            setChanged();
+            if (isLarge(myWidth, myHeight)) {
+                notifyObservers(this);
+            } else {
+                notifyObservers(toString());
             }
+            BoardProbes.get().observerDispatchTimed(start);
         }
-        return result && !collision(thePiece);      
     }
 
     /**
-     * Adds a movable Tetris piece into a list of board data.
-     * 
-     * Allows a single data structure to represent the current piece
-     * and the frozen blocks.
-     * 
-     * @param theFrozenBlocks Board to set the piece on.
-     * @param thePiece Piece to set on the board.
+     * Notifies observers that the piece queue changed, or defers the
+     * notification until the end of the current batch of inputs.
      */
-    private void addPieceToBoardData(final List<Block[]> theFrozenBlocks,
-                                     final MovableTetrisPiece thePiece) {
-        for (final Point p : thePiece.getBoardPoints()) {
-            setPoint(theFrozenBlocks, p, thePiece.getTetrisPiece().getBlock());
+    private void notifyQueueChanged() {
+        if (myBatchDepth > 0) {
+            myQueueChanged = true;
+        } else {
+            final long start = BoardProbes.get().startTiming();
+            setChanged();
+            notifyObservers(myPieceQueue);
+            BoardProbes.get().observerDispatchTimed(start);
         }
     }
 
     /**
-     * Checks the board for complete rows.
+     * Sends the notifications deferred during a batch of inputs once the
+     * outermost batch has finished.
      */
-    private void checkRows() {
-        final List<Integer> completeRows = new ArrayList<>();
-        for (final Block[] row : myFrozenBlocks) {
-            boolean complete = true;
-            for (final Block b : row) {
-                if (b == null) {
-                    complete = false;
-                    break;
-                }
+    private void flushBatch() {
+        if (myBatchDepth == 0) {
+            if (myQueueChanged) {
+                myQueueChanged = false;
+                notifyQueueChanged();
             }
-            if (complete) {
-                completeRows.add(myFrozenBlocks.indexOf(row));
-                setChanged();
+            if (myBoardChanged) {
+                myBoardChanged = false;
+                notifyBoardChanged();
             }
         }
-        // loop through list backwards removing items by index
-        if (!completeRows.isEmpty()) {
-            for (int i = completeRows.size() - 1; i >= 0; i--) {
-                final Block[] row = myFrozenBlocks.get(completeRows.get(i));
-                myFrozenBlocks.remove(row);
-                myFrozenBlocks.add(new Block[myWidth]);
-            }
-        }
-        notifyObservers(completeRows.toArray(new Integer[completeRows.size()]));
     }
     
     /**
-     * Helper function to copy the board.
+     * Records a successful rotation of the movable piece.
+     */
+    private void rotated() {
+        myPieceTimer.moved();
+        myRotated = true;
+        fireInput(Input.ROTATE);
+    }
+
+    /**
+     * Reports an input to the listener, if any.
      * 
-     * @return A new copy of the board.
+     * @param theInput The input that was applied.
      */
-    private List<Block[]> getBoard() {
-        final List<Block[]> board = new ArrayList<Block[]>();
-        for (final Block[] row : myFrozenBlocks) {
-            board.add(row.clone());
+    private void fireInput(final Input theInput) {
+        if (myListener != null) {
+            myListener.inputApplied(theInput, myTickCount);
         }
-        return board;
     }
 
     /**
-     * Determines if a point is on the game board.
+     * Checks whether the movable piece is a T that was rotated into place with at
+     * least three of the four cells diagonal to its center blocked (walls and floor
+     * count as blocked).
      * 
-     * @param theBoard Board to test.
-     * @param thePoint Point to test.
-     * @return True if the point is on the board otherwise false.
+     * @return True if locking the movable piece now is a T-spin.
      */
-    private boolean isPointOnBoard(final List<Block[]> theBoard, final Point thePoint) {
-        return thePoint.getX() >= 0 && thePoint.getX() < myWidth && thePoint.getY() >= 0
-               && thePoint.getY() < theBoard.size();
+    private boolean isTSpin() {
+        // the center of a T is at (1, 1) of its bounding box in every rotation
+        return myRotated && myCurrentPiece.getTetrisPiece() == TetrisPiece.T
+               && myGrid.countBlockedCorners(myCurrentPiece.getX() + 1,
+                                             myCurrentPiece.getY() + 1) >= T_SPIN_CORNERS;
     }
 
     /**
-     * Sets a block at a board point.
-     * 
-     * @param theBoard Board to set the point on.
-     * @param thePoint Board point.
-     * @param theBlock Block to set at board point.
+     * Freezes the movable piece in place, clears full lines and spawns the next piece.
      */
-    private void setPoint(final List<Block[]> theBoard,
-                          final Point thePoint,
-                          final Block theBlock) {
-        
-        if (isPointOnBoard(theBoard, thePoint)) { 
-            final Block[] row = theBoard.get(thePoint.getY());
-            row[thePoint.getX()] = theBlock;
-        } else if (!myGameOver) {
+    private void lockPiece() {
+        // the piece froze, so clear lines and update current piece
+        final boolean tSpin = isTSpin();
+        BoardProbes.get().pieceLocked(myCurrentPiece.getTetrisPiece(),
+                                      myCurrentPiece.getX(),
+                                      myCurrentPiece.getY(), tSpin);
+        if (!myGrid.add(myCurrentPiece)) {
+            topOut();
+        }
+        final int linesCleared = checkRows();
+        if (myListener != null) {
+            myListener.pieceLocked(myCurrentPiece.getTetrisPiece(), linesCleared, tSpin,
+                                   myTickCount);
+        }
+        if (linesCleared == 0 && myGarbage.getRows() > 0 && !myGameOver) {
+            final int rows = myGarbage.getRows();
+            insertGarbage(rows, myGarbage.insertInto(myGrid));
+        }
+        if (!myGameOver) {
+            myCurrentPiece = nextMovablePiece(false);
+        }
+        notifyBoardChanged();
+    }
+    
+    /**
+     * Ends the game because blocks reached past the top of the board, unless it has
+     * already ended.
+     */
+    private void topOut() {
+        if (!myGameOver) {
+            BoardProbes.get().gameOver(myTickCount);
             myGameOver = true;
             setChanged();
             notifyObservers(myGameOver);
@@ -421,85 +906,95 @@ public class Board extends Observable {
     }
 
     /**
-     * Returns the block at a specific board point.
+     * Records garbage rows that were inserted into the grid, ending the game if they
+     * pushed blocks off the top.
      * 
-     * @param thePoint the specific Point to check
-     * @return the Block type at point or null if no block exists.
+     * @param theRows The number of rows inserted.
+     * @param theFit Whether the rows fit without pushing blocks off the top.
      */
-    private Block getPoint(final Point thePoint) {
-        Block b = null;
-        if (isPointOnBoard(myFrozenBlocks, thePoint)) {
-            b = myFrozenBlocks.get(thePoint.getY())[thePoint.getX()];
+    private void insertGarbage(final int theRows, final boolean theFit) {
+        BoardProbes.get().garbageInserted(theRows);
+        if (!theFit) {
+            topOut();
         }
-        return b;
     }
 
     /**
-     * Helper function to determine of a movable block has collided with set
-     * blocks.
+     * Helper function to check if the current piece can be shifted to the
+     * specified position.
      * 
-     * @param theTest movable TetrisPiece to test for collision.
-     * @return Returns true if any of the blocks has collided with a set board
-     *         block.
+     * @param theMovedPiece the position to attempt to shift the current piece
+     * @return True if the move succeeded
      */
-    private boolean collision(final MovableTetrisPiece theTest) {
-        boolean res = false;
-        for (final Point p : theTest.getBoardPoints()) {
-            if (getPoint(p) != null) {
-                res = true;
+    private boolean move(final MovableTetrisPiece theMovedPiece) {
+        final long start = BoardProbes.get().startTiming();
+        boolean result = false;
+        if (myGrid.isLegal(theMovedPiece)) {
+            myCurrentPiece = theMovedPiece;
+            myRotated = false;
+            result = true;
+            if (!myDrop) {
+                notifyBoardChanged();
             }
         }
-        return res;
+        BoardProbes.get().moveTimed(start);
+        return result;
+    }
+
+    /**
+     * Checks the board for complete rows.
+     * 
+     * @return The number of rows cleared.
+     */
+    private int checkRows() {
+        final long start = BoardProbes.get().startTiming();
+        final Integer[] completeRows = myGrid.clearFullRows();
+        BoardProbes.get().rowCheckTimed(start);
+        if (completeRows.length > 0) {
+            BoardProbes.get().rowsCleared(completeRows.length);
+            setChanged();
+            notifyObservers(completeRows);
+        }
+        return completeRows.length;
     }
 
     /**
      * Gets the next MovableTetrisPiece.
      * 
      * @param theRestart Restart the non random cycle.
-     * @return A new MovableTetrisPiece.
+     * @return The spawn state of the next piece.
      */
     private MovableTetrisPiece nextMovablePiece(final boolean theRestart) {
-        
-        if (myNextPiece == null || theRestart) {
-            prepareNextMovablePiece();
+        if (theRestart) {
+            myPieceQueue.clear();
         }
-        
-        final TetrisPiece next = myNextPiece;
-        
-        int startY = myHeight - 1;
-        if (myNextPiece == TetrisPiece.I) {
-            startY--; 
-        }
-        
-        prepareNextMovablePiece();
-        
-        final MovableTetrisPiece nextMovablePiece =
-            new MovableTetrisPiece(next,
-                                   new Point((myWidth - myNextPiece.getWidth()) / 2, startY));
-                        
-        
-        
+        final MovableTetrisPiece nextMovablePiece = mySpawnPieces.get(pollPieceQueue());
+        myPieceQueue.setHoldAvailable(true);
+        myPieceTimer.spawn(nextMovablePiece.getY());
+        myRotated = false;
         
         if (!myGameOver) {
-            setChanged();
-            notifyObservers(new MovableTetrisPiece(myNextPiece,
-                            new Point((myWidth - myNextPiece.getWidth()) / 2, startY)));
+            notifyQueueChanged();
+            if (myListener != null) {
+                myListener.pieceSpawned(nextMovablePiece.getTetrisPiece(), myTickCount);
+            }
         }
         
         return nextMovablePiece;
     }
-    
+
     /**
-     * Prepares the Next movable piece.
+     * Removes the next piece from the queue and refills the queue.
+     * 
+     * @return The next piece to play.
      */
-    private void prepareNextMovablePiece() {
-        
-        if (myNonRandomPieces == null || myNonRandomPieces.isEmpty()) {
-            myNextPiece = TetrisPiece.getRandomPiece();
-        } else {
-            mySequenceIndex %= myNonRandomPieces.size();
-            myNextPiece = myNonRandomPieces.get(mySequenceIndex++);
+    private TetrisPiece pollPieceQueue() {
+        while (!myPieceQueue.isFull()) {
+            myPieceQueue.add(myGenerator.next());
         }
+        final TetrisPiece next = myPieceQueue.poll();
+        myPieceQueue.add(myGenerator.next());
+        return next;
     }
     
 }
@@ -0,0 +1,150 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Copies the state of a Board into primitive arrays, for programs such as learning
+ * agents that read a board millions of times and cannot afford to render it or be
+ * notified of each change.
+ *
+ * The caller owns the arrays and may lay out many boards side by side in one array;
+ * each write fills one board's part of it in place, so nothing is allocated per read.
+ * Only frozen cells are copied; the movable piece is given by its type.
+ *
+ * <pre>
+ * rows     getWordsPerRow() longs per row, bottom row first; column x of a row is
+ *          bit x % 64 of its word x / 64
+ * heights  one int per column: 1 + the highest occupied row, or 0 if none
+ * pieces   the TetrisPiece ordinal of the movable piece (-1 for none), then of each
+ *          upcoming piece
+ * </pre>
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class BoardFeatures {
+
+    /**
+     * The board.
+     */
+    private final Board myBoard;
+
+    /**
+     * The frozen blocks of the board.
+     */
+    private final Grid myGrid;
+
+    /**
+     * The width of the board.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the board.
+     */
+    private final int myHeight;
+
+    /**
+     * The words of each row.
+     */
+    private final int myWords;
+
+    /**
+     * The columns whose height has been found, as a bitset.
+     */
+    private final long[] myFound;
+
+    /**
+     * Creates the features of a board.
+     *
+     * @param theBoard the board.
+     */
+    public BoardFeatures(final Board theBoard) {
+        myBoard = theBoard;
+        myGrid = theBoard.getGrid();
+        myWidth = theBoard.getWidth();
+        myHeight = theBoard.getHeight();
+        myWords = getWordsPerRow(myWidth);
+        myFound = new long[myWords];
+    }
+
+    /**
+     * Returns the number of words of each row of a board.
+     *
+     * @param theWidth the width of the board.
+     * @return the number of words.
+     */
+    public static int getWordsPerRow(final int theWidth) {
+        return (theWidth + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Returns the number of pieces written by writePieces().
+     *
+     * @return the movable piece and the upcoming pieces.
+     */
+    public int getPieceCount() {
+        return 1 + myBoard.getPieceQueue().size();
+    }
+
+    /**
+     * Writes the frozen cells of every row.
+     *
+     * @param theRows the array to write to.
+     * @param theOffset the index of the bottom row's first word.
+     */
+    public void writeRows(final long[] theRows, final int theOffset) {
+        for (int y = 0; y < myHeight; y++) {
+            System.arraycopy(myGrid.getOccupied(y), 0, theRows, theOffset + y * myWords,
+                             myWords);
+        }
+    }
+
+    /**
+     * Writes the height of every column, found from the top down a word of columns at
+     * a time and stopping once every column has been found.
+     *
+     * @param theHeights the array to write to.
+     * @param theOffset the index of the first column's height.
+     */
+    public void writeHeights(final int[] theHeights, final int theOffset) {
+        Arrays.fill(theHeights, theOffset, theOffset + myWidth, 0);
+        Arrays.fill(myFound, 0);
+        int found = 0;
+        for (int y = myHeight - 1; y >= 0 && found < myWidth; y--) {
+            final long[] row = myGrid.getOccupied(y);
+            for (int word = 0; word < myWords; word++) {
+                long bits = row[word] & ~myFound[word];
+                myFound[word] |= bits;
+                while (bits != 0) {
+                    final int x = word * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    theHeights[theOffset + x] = y + 1;
+                    found++;
+                    bits &= bits - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the types of the movable piece and the upcoming pieces.
+     *
+     * @param thePieces the array to write to.
+     * @param theOffset the index of the movable piece's type.
+     */
+    public void writePieces(final int[] thePieces, final int theOffset) {
+        final MovableTetrisPiece piece = myBoard.getCurrentPiece();
+        thePieces[theOffset] = -1;
+        if (piece != null) {
+            thePieces[theOffset] = piece.getTetrisPiece().ordinal();
+        }
+        final PieceQueue queue = myBoard.getPieceQueue();
+        for (int i = 0; i < queue.size(); i++) {
+            thePieces[theOffset + 1 + i] = queue.getNextPiece(i).getTetrisPiece().ordinal();
+        }
+    }
+}
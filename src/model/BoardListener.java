@@ -0,0 +1,47 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * Receives gameplay events from a Board as they happen, for instance to keep statistics.
+ *
+ * Unlike the Observer notifications of a Board, these events pass only primitives and
+ * enums, so a listener can be called for every input without any allocation.
+ * All times are in Board ticks since the game started.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public interface BoardListener {
+
+    /**
+     * Called when a new piece enters the board from the queue.
+     *
+     * @param thePiece the piece that spawned.
+     * @param theTick the tick the piece spawned at.
+     */
+    void pieceSpawned(TetrisPiece thePiece, long theTick);
+
+    /**
+     * Called when an input moves, rotates, holds or drops the movable piece.
+     * Inputs that fail (e.g. moving into a wall) are not reported.
+     *
+     * @param theInput the input that was applied.
+     * @param theTick the tick the input was applied at.
+     */
+    void inputApplied(Input theInput, long theTick);
+
+    /**
+     * Called when the movable piece freezes in place, after full lines are cleared.
+     *
+     * @param thePiece the piece that froze.
+     * @param theLinesCleared the number of lines the piece cleared.
+     * @param theTSpin whether the piece was a T rotated into a spot with at least three
+     *        of its four corners blocked.
+     * @param theTick the tick the piece froze at.
+     */
+    void pieceLocked(TetrisPiece thePiece, int theLinesCleared, boolean theTSpin,
+                     long theTick);
+}
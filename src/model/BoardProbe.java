@@ -0,0 +1,88 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * Receives the timings and engine events of every Board, for instance to record
+ * metrics or profiler events, without the model depending on the code recording them.
+ *
+ * A probe is installed for all boards with BoardProbes.install(). Its methods are
+ * called on the hot paths of the game, so they should return quickly and not
+ * allocate while nothing is being recorded.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public interface BoardProbe {
+
+    /**
+     * Called before a timed path runs.
+     *
+     * @return the start time to pass back when the path is done, or 0 to not time it.
+     */
+    long startTiming();
+
+    /**
+     * Called when moving, rotating or dropping the movable piece one step is done.
+     *
+     * @param theStart the value startTiming() returned.
+     */
+    void moveTimed(long theStart);
+
+    /**
+     * Called when checking for complete rows and clearing them is done.
+     *
+     * @param theStart the value startTiming() returned.
+     */
+    void rowCheckTimed(long theStart);
+
+    /**
+     * Called when notifying the observers of a board is done.
+     *
+     * @param theStart the value startTiming() returned.
+     */
+    void observerDispatchTimed(long theStart);
+
+    /**
+     * Called when a rotation only succeeded by kicking the piece off its position.
+     *
+     * @param thePiece the piece that rotated.
+     * @param theKick the index of the kick that was used (1 is the first kick).
+     * @param theX the x offset of the kick.
+     * @param theY the y offset of the kick.
+     */
+    void rotationKicked(TetrisPiece thePiece, int theKick, int theX, int theY);
+
+    /**
+     * Called when a piece freezes in place.
+     *
+     * @param thePiece the piece.
+     * @param theX the x position of the piece.
+     * @param theY the y position of the piece.
+     * @param theTSpin whether the piece was a T-spin.
+     */
+    void pieceLocked(TetrisPiece thePiece, int theX, int theY, boolean theTSpin);
+
+    /**
+     * Called when rows are cleared.
+     *
+     * @param theRows the number of rows cleared.
+     */
+    void rowsCleared(int theRows);
+
+    /**
+     * Called when garbage rows sent by an opponent are inserted.
+     *
+     * @param theRows the number of rows inserted.
+     */
+    void garbageInserted(int theRows);
+
+    /**
+     * Called when a game ends.
+     *
+     * @param theTicks the number of ticks the game lasted.
+     */
+    void gameOver(long theTicks);
+}
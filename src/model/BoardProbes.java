@@ -0,0 +1,102 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * Holds the BoardProbe every Board reports to. Until one is installed, boards report
+ * to a probe that ignores everything.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class BoardProbes {
+
+    /**
+     * The probe boards report to.
+     */
+    private static volatile BoardProbe ourProbe = new NoProbe();
+
+    /**
+     * Prevents instantiation.
+     */
+    private BoardProbes() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Installs the probe every Board reports to from now on.
+     *
+     * @param theProbe the probe.
+     * @throws IllegalArgumentException if theProbe is null.
+     */
+    public static void install(final BoardProbe theProbe) {
+        if (theProbe == null) {
+            throw new IllegalArgumentException("No probe");
+        }
+        ourProbe = theProbe;
+    }
+
+    /**
+     * Provides the probe boards report to.
+     *
+     * @return the probe.
+     */
+    static BoardProbe get() {
+        return ourProbe;
+    }
+
+    /**
+     * A probe that ignores everything.
+     */
+    private static final class NoProbe implements BoardProbe {
+
+        @Override
+        public long startTiming() {
+            return 0;
+        }
+
+        @Override
+        public void moveTimed(final long theStart) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void rowCheckTimed(final long theStart) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void observerDispatchTimed(final long theStart) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void rotationKicked(final TetrisPiece thePiece, final int theKick,
+                                   final int theX, final int theY) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void pieceLocked(final TetrisPiece thePiece, final int theX,
+                                final int theY, final boolean theTSpin) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void rowsCleared(final int theRows) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void garbageInserted(final int theRows) {
+            // nothing is recorded
+        }
+
+        @Override
+        public void gameOver(final long theTicks) {
+            // nothing is recorded
+        }
+    }
+}
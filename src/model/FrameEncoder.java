@@ -0,0 +1,275 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Encodes a Board for streaming as keyframes and deltas.
+ *
+ * A keyframe is the whole board: the tick count, the dimensions, the movable piece
+ * and every frozen cell at four bits per cell. Between keyframes the frozen cells and
+ * the movable piece are sent separately, since the piece moves on most ticks while
+ * the frozen cells only change when a piece locks: a cells delta lists the cells that
+ * changed and a piece delta is the piece's type, rotation and position. The encoder
+ * remembers what it last wrote, and only compares the frozen cells again when the
+ * grid has changed since, a row at a time.
+ *
+ * <pre>
+ * keyframe  tick (long), width (short), height (short), piece, then the cells row by
+ *           row from the bottom, two per byte with the first in the low four bits
+ * cells     changed cell count (short), then per cell:
+ *           index y * width + x (int), Block ordinal (byte)
+ * piece     TetrisPiece ordinal (byte, -1 for none), Rotation ordinal (byte),
+ *           x (short), y (short) of the bottom left of the piece's 4x4 grid
+ * </pre>
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class FrameEncoder {
+
+    /**
+     * The number of bytes of a piece.
+     */
+    public static final int PIECE_SIZE = 2 + 2 * Short.BYTES;
+
+    /**
+     * The number of bytes of each changed cell of a cells delta.
+     */
+    public static final int CELL_SIZE = Integer.BYTES + 1;
+
+    /**
+     * The number of bits used for each cell of a keyframe.
+     */
+    private static final int BITS_PER_CELL = 4;
+
+    /**
+     * The board.
+     */
+    private final Board myBoard;
+
+    /**
+     * The frozen blocks of the board.
+     */
+    private final Grid myGrid;
+
+    /**
+     * The width of the board.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the board.
+     */
+    private final int myHeight;
+
+    /**
+     * The Block ordinals of the frozen cells as last written, by row and column.
+     */
+    private final byte[][] myWritten;
+
+    /**
+     * The version of the grid when its cells were last written.
+     */
+    private long myWrittenVersion;
+
+    /**
+     * The movable piece as last written.
+     */
+    private MovableTetrisPiece myWrittenPiece;
+
+    /**
+     * Creates an encoder for a board. The first thing written should be a keyframe.
+     *
+     * @param theBoard the board.
+     */
+    public FrameEncoder(final Board theBoard) {
+        myBoard = theBoard;
+        myGrid = theBoard.getGrid();
+        myWidth = theBoard.getWidth();
+        myHeight = theBoard.getHeight();
+        myWritten = new byte[myHeight][myWidth];
+        myWrittenVersion = -1;
+    }
+
+    /**
+     * Returns the number of bytes of a keyframe of the board.
+     *
+     * @return the size of a keyframe.
+     */
+    public int getKeyframeSize() {
+        return Long.BYTES + 2 * Short.BYTES + PIECE_SIZE
+               + StateCodec.getCellsSize(myWidth, myHeight);
+    }
+
+    /**
+     * Writes a keyframe of the board.
+     *
+     * @param theBuffer the buffer to write to, with getKeyframeSize() bytes remaining.
+     */
+    public void writeKeyframe(final ByteBuffer theBuffer) {
+        theBuffer.putLong(myBoard.getTickCount());
+        theBuffer.putShort((short) myWidth);
+        theBuffer.putShort((short) myHeight);
+        writePiece(myBoard.getCurrentPiece(), theBuffer);
+        int bits = 0;
+        int cell = 0;
+        for (int y = 0; y < myHeight; y++) {
+            final byte[] row = myGrid.getRow(y);
+            System.arraycopy(row, 0, myWritten[y], 0, myWidth);
+            for (int x = 0; x < myWidth; x++) {
+                bits |= row[x] << (cell * BITS_PER_CELL);
+                cell++;
+                if (cell * BITS_PER_CELL == Byte.SIZE) {
+                    theBuffer.put((byte) bits);
+                    bits = 0;
+                    cell = 0;
+                }
+            }
+        }
+        if (cell > 0) {
+            theBuffer.put((byte) bits);
+        }
+        myWrittenVersion = myGrid.getVersion();
+        myWrittenPiece = myBoard.getCurrentPiece();
+    }
+
+    /**
+     * Writes a cells delta of the frozen cells that changed since they were last
+     * written, if any did.
+     *
+     * @param theBuffer the buffer to write to, with room for the count and theMaxCells
+     *        cells.
+     * @param theMaxCells the most changed cells to write.
+     * @return the number of cells written, 0 if none changed (and nothing was
+     *         written), or -1 if more than theMaxCells changed; then nothing was written
+     *         and the next thing written must be a keyframe.
+     */
+    public int writeCells(final ByteBuffer theBuffer, final int theMaxCells) {
+        int count = 0;
+        if (myGrid.getVersion() != myWrittenVersion) {
+            myWrittenVersion = myGrid.getVersion();
+            final int start = theBuffer.position();
+            theBuffer.putShort((short) 0);
+            for (int y = 0; y < myHeight && count >= 0; y++) {
+                count = writeRow(y, count, theMaxCells, theBuffer);
+            }
+            if (count > 0) {
+                theBuffer.putShort(start, (short) count);
+            } else {
+                theBuffer.position(start);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes a piece delta if the movable piece moved, rotated or changed since it
+     * was last written.
+     *
+     * @param theBuffer the buffer to write to, with PIECE_SIZE bytes remaining.
+     * @return true if the piece was written.
+     */
+    public boolean writePiece(final ByteBuffer theBuffer) {
+        final MovableTetrisPiece piece = myBoard.getCurrentPiece();
+        boolean result = false;
+        if (!isSamePiece(piece, myWrittenPiece)) {
+            writePiece(piece, theBuffer);
+            myWrittenPiece = piece;
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the changed cells of one row.
+     *
+     * @param theY the row.
+     * @param theCount the number of cells written so far.
+     * @param theMaxCells the most changed cells to write.
+     * @param theBuffer the buffer to write to.
+     * @return the number of cells written so far, or -1 if there are too many.
+     */
+    private int writeRow(final int theY, final int theCount, final int theMaxCells,
+                         final ByteBuffer theBuffer) {
+        final byte[] row = myGrid.getRow(theY);
+        final byte[] written = myWritten[theY];
+        int count = theCount;
+        int x = Arrays.mismatch(row, written);
+        while (x >= 0 && count >= 0) {
+            if (count == theMaxCells) {
+                count = -1;
+            } else {
+                written[x] = row[x];
+                theBuffer.putInt(theY * myWidth + x);
+                theBuffer.put(row[x]);
+                count++;
+                x = nextMismatch(row, written, x + 1);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the next column at or after a column where two rows differ.
+     *
+     * @param theRow the row.
+     * @param theWritten the row as last written.
+     * @param theFrom the first column to compare.
+     * @return the column, or -1 if the rows do not differ from theFrom on.
+     */
+    private int nextMismatch(final byte[] theRow, final byte[] theWritten,
+                             final int theFrom) {
+        int result = Arrays.mismatch(theRow, theFrom, myWidth,
+                                     theWritten, theFrom, myWidth);
+        if (result >= 0) {
+            result += theFrom;
+        }
+        return result;
+    }
+
+    /**
+     * Writes a piece.
+     *
+     * @param thePiece the piece, or null.
+     * @param theBuffer the buffer to write to.
+     */
+    private static void writePiece(final MovableTetrisPiece thePiece,
+                                   final ByteBuffer theBuffer) {
+        if (thePiece == null) {
+            theBuffer.put((byte) -1);
+            theBuffer.put((byte) 0);
+            theBuffer.putShort((short) 0);
+            theBuffer.putShort((short) 0);
+        } else {
+            theBuffer.put((byte) thePiece.getTetrisPiece().ordinal());
+            theBuffer.put((byte) thePiece.getRotation().ordinal());
+            theBuffer.putShort((short) thePiece.getX());
+            theBuffer.putShort((short) thePiece.getY());
+        }
+    }
+
+    /**
+     * Checks whether two pieces have the same type, rotation and position. Pieces
+     * from a board's table of states are shared, so this is usually an identity test.
+     *
+     * @param theFirst a piece, or null.
+     * @param theSecond another piece, or null.
+     * @return true if the pieces are the same.
+     */
+    private static boolean isSamePiece(final MovableTetrisPiece theFirst,
+                                       final MovableTetrisPiece theSecond) {
+        boolean result = theFirst == theSecond;
+        if (!result && theFirst != null && theSecond != null) {
+            result = theFirst.getTetrisPiece() == theSecond.getTetrisPiece()
+                     && theFirst.getRotation() == theSecond.getRotation()
+                     && theFirst.getX() == theSecond.getX()
+                     && theFirst.getY() == theSecond.getY();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.util.Arrays;
+
+/**
+ * The garbage rows sent to a Board by an opponent and not yet inserted, in the order
+ * they were sent. Each entry is a number of rows with the column of their hole.
+ *
+ * Lines the player clears cancel the oldest garbage first; whatever is left is
+ * inserted, all at once, the next time the player locks a piece without clearing.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class GarbageQueue {
+
+    /**
+     * The number of entries room is made for at first.
+     */
+    private static final int INITIAL_CAPACITY = 8;
+
+    /**
+     * The rows of each entry, oldest first.
+     */
+    private int[] myRows;
+
+    /**
+     * The hole column of each entry, oldest first.
+     */
+    private int[] myHoles;
+
+    /**
+     * The number of entries.
+     */
+    private int mySize;
+
+    /**
+     * The total rows of all entries.
+     */
+    private int myTotal;
+
+    /**
+     * Constructs an empty queue.
+     */
+    GarbageQueue() {
+        myRows = new int[INITIAL_CAPACITY];
+        myHoles = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Checks the size and hole of garbage sent to a board.
+     *
+     * @param theRows the number of rows.
+     * @param theHole the column of the hole.
+     * @param theWidth the width of the board.
+     * @throws IllegalArgumentException if theRows is negative or theHole is not a
+     *         column of the board.
+     */
+    static void check(final int theRows, final int theHole, final int theWidth) {
+        if (theRows < 0 || theHole < 0 || theHole >= theWidth) {
+            throw new IllegalArgumentException("Bad garbage: " + theRows
+                                               + " rows with a hole at " + theHole);
+        }
+    }
+
+    /**
+     * Adds garbage to the end of the queue.
+     *
+     * @param theRows the number of rows.
+     * @param theHole the column of the hole in every row.
+     */
+    void add(final int theRows, final int theHole) {
+        if (mySize == myRows.length) {
+            myRows = Arrays.copyOf(myRows, 2 * mySize);
+            myHoles = Arrays.copyOf(myHoles, 2 * mySize);
+        }
+        myRows[mySize] = theRows;
+        myHoles[mySize] = theHole;
+        mySize++;
+        myTotal += theRows;
+    }
+
+    /**
+     * Cancels queued rows, oldest first.
+     *
+     * @param theRows the number of rows to cancel.
+     * @return the rows left over once the queue is empty.
+     * @throws IllegalArgumentException if theRows is negative.
+     */
+    int cancel(final int theRows) {
+        if (theRows < 0) {
+            throw new IllegalArgumentException("Cannot cancel " + theRows + " rows");
+        }
+        final int cancelled = Math.min(theRows, myTotal);
+        int left = cancelled;
+        int removed = 0;
+        while (left > 0 && left >= myRows[removed]) {
+            left -= myRows[removed];
+            removed++;
+        }
+        if (left > 0) {
+            myRows[removed] -= left;
+        }
+        System.arraycopy(myRows, removed, myRows, 0, mySize - removed);
+        System.arraycopy(myHoles, removed, myHoles, 0, mySize - removed);
+        mySize -= removed;
+        myTotal -= cancelled;
+        return theRows - cancelled;
+    }
+
+    /**
+     * Returns the total rows queued.
+     *
+     * @return the number of rows.
+     */
+    int getRows() {
+        return myTotal;
+    }
+
+    /**
+     * Inserts every queued row into a grid and empties the queue.
+     *
+     * @param theGrid the grid.
+     * @return false if blocks were pushed off the top of the grid.
+     */
+    boolean insertInto(final Grid theGrid) {
+        boolean result = true;
+        for (int i = 0; i < mySize; i++) {
+            result &= theGrid.insertRows(myRows[i], myHoles[i]);
+        }
+        clear();
+        return result;
+    }
+
+    /**
+     * Empties the queue.
+     */
+    void clear() {
+        mySize = 0;
+        myTotal = 0;
+    }
+}
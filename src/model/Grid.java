@@ -0,0 +1,525 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The frozen blocks of a Board, from the bottom of the board up.
+ *
+ * Each row keeps a bitset of its occupied cells, the Block ordinal of each cell and a
+ * count of its occupied cells, so reading or setting a cell and testing whether a row
+ * is complete are constant time however large the board is. Only the rows touched
+ * since the last clear are checked for completeness, and cleared rows are emptied and
+ * reused at the top, so freezing a piece does not allocate or scan the whole board.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class Grid {
+
+    /**
+     * The number of bits of a column index that select the bit within a word.
+     */
+    private static final int WORD_SHIFT = 6;
+
+    /**
+     * Mask of the bits of a column index that select the bit within a word.
+     */
+    private static final int WORD_MASK = Long.SIZE - 1;
+
+    /**
+     * All Blocks, indexed by ordinal.
+     */
+    private static final Block[] BLOCKS = Block.values();
+
+    /**
+     * Width of the grid.
+     */
+    private final int myWidth;
+
+    /**
+     * Height of the grid.
+     */
+    private final int myHeight;
+
+    /**
+     * The occupied cells of each row as a bitset, bottom row first.
+     */
+    private final long[][] myOccupied;
+
+    /**
+     * The Block ordinal of each cell, bottom row first; 0 (EMPTY) is an empty cell.
+     */
+    private final byte[][] myBlocks;
+
+    /**
+     * The number of occupied cells of each row, bottom row first.
+     */
+    private final int[] myFilled;
+
+    /**
+     * The lowest row changed since complete rows were last cleared.
+     */
+    private int myLowestChanged;
+
+    /**
+     * The highest row changed since complete rows were last cleared.
+     */
+    private int myHighestChanged;
+
+    /**
+     * The number of changes to the grid, so that readers can tell cheaply whether it
+     * changed since they last looked.
+     */
+    private long myVersion;
+
+    /**
+     * Constructs an empty grid.
+     *
+     * @param theWidth the width of the grid.
+     * @param theHeight the height of the grid.
+     */
+    Grid(final int theWidth, final int theHeight) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myOccupied = new long[theHeight][(theWidth + WORD_MASK) >>> WORD_SHIFT];
+        myBlocks = new byte[theHeight][theWidth];
+        myFilled = new int[theHeight];
+        clear();
+    }
+
+    /**
+     * Removes all blocks.
+     */
+    void clear() {
+        for (int y = 0; y < myHeight; y++) {
+            clearRow(y);
+        }
+        myLowestChanged = myHeight;
+        myHighestChanged = -1;
+        myVersion++;
+    }
+
+    /**
+     * Determines if a point is on the grid.
+     *
+     * @param theX the column.
+     * @param theY the row.
+     * @return true if the point is on the grid.
+     */
+    boolean isOnGrid(final int theX, final int theY) {
+        return theX >= 0 && theX < myWidth && theY >= 0 && theY < myHeight;
+    }
+
+    /**
+     * Returns the block at a point.
+     *
+     * @param theX the column.
+     * @param theY the row.
+     * @return the Block at the point, or null if the point is empty or off the grid.
+     */
+    Block get(final int theX, final int theY) {
+        Block result = null;
+        if (isOnGrid(theX, theY) && myBlocks[theY][theX] != 0) {
+            result = BLOCKS[myBlocks[theY][theX]];
+        }
+        return result;
+    }
+
+    /**
+     * Sets the block at a point on the grid.
+     *
+     * @param theX the column.
+     * @param theY the row.
+     * @param theBlock the Block, or null to empty the point.
+     */
+    void set(final int theX, final int theY, final Block theBlock) {
+        final long bit = 1L << (theX & WORD_MASK);
+        final int word = theX >>> WORD_SHIFT;
+        if (myBlocks[theY][theX] != 0) {
+            myOccupied[theY][word] &= ~bit;
+            myFilled[theY]--;
+            myBlocks[theY][theX] = 0;
+        }
+        if (theBlock != null && theBlock != Block.EMPTY) {
+            myOccupied[theY][word] |= bit;
+            myFilled[theY]++;
+            myBlocks[theY][theX] = (byte) theBlock.ordinal();
+        }
+        myLowestChanged = Math.min(myLowestChanged, theY);
+        myHighestChanged = Math.max(myHighestChanged, theY);
+        myVersion++;
+    }
+
+    /**
+     * Returns the number of changes to the grid since it was created.
+     *
+     * @return the version of the grid.
+     */
+    long getVersion() {
+        return myVersion;
+    }
+
+    /**
+     * Returns the Block ordinals of a row, 0 (EMPTY) for an empty cell. The array is
+     * the grid's own and must not be modified; it is reused for another row once
+     * the row is cleared or garbage is inserted.
+     *
+     * @param theY the row.
+     * @return the Block ordinals of the row, by column.
+     */
+    byte[] getRow(final int theY) {
+        return myBlocks[theY];
+    }
+
+    /**
+     * Returns the number of blocks in a row.
+     *
+     * @param theY the row.
+     * @return the number of occupied cells of the row.
+     */
+    int getFilled(final int theY) {
+        return myFilled[theY];
+    }
+
+    /**
+     * Returns the occupied cells of a row as a bitset, column x at bit x % 64 of word
+     * x / 64. The array is the grid's own and must not be modified; it is reused for
+     * another row once the row is cleared or garbage is inserted.
+     *
+     * @param theY the row.
+     * @return the words of the row.
+     */
+    long[] getOccupied(final int theY) {
+        return myOccupied[theY];
+    }
+
+    /**
+     * Counts the blocks in a rectangle of the grid. Parts of the rectangle off the
+     * grid are ignored.
+     *
+     * @param theX the left column of the rectangle.
+     * @param theY the bottom row of the rectangle.
+     * @param theWidth the width of the rectangle.
+     * @param theHeight the height of the rectangle.
+     * @return the number of blocks in the rectangle.
+     */
+    int count(final int theX, final int theY, final int theWidth, final int theHeight) {
+        final int left = Math.max(0, theX);
+        final int right = Math.min(myWidth, theX + theWidth);
+        int result = 0;
+        for (int y = Math.max(0, theY); y < Math.min(myHeight, theY + theHeight)
+                                        && left < right; y++) {
+            for (int word = left >>> WORD_SHIFT; word <= (right - 1) >>> WORD_SHIFT; word++) {
+                long bits = myOccupied[y][word];
+                if (word == left >>> WORD_SHIFT) {
+                    bits &= -1L << (left & WORD_MASK);
+                }
+                if (word == (right - 1) >>> WORD_SHIFT) {
+                    bits &= -1L >>> (WORD_MASK - ((right - 1) & WORD_MASK));
+                }
+                result += Long.bitCount(bits);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tests if a piece is in a legal position: within the walls, above the floor
+     * and not overlapping any frozen block. Points above the grid are legal.
+     *
+     * @param thePiece the piece to test.
+     * @return true if the piece is in a legal position.
+     */
+    boolean isLegal(final MovableTetrisPiece thePiece) {
+        boolean result = true;
+        for (final int p : thePiece.getPackedPoints()) {
+            final int x = thePiece.getX() + PackedPoints.x(p);
+            final int y = thePiece.getY() + PackedPoints.y(p);
+            if (x < 0 || x >= myWidth || y < 0
+                || y < myHeight && myBlocks[y][x] != 0) {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Moves a piece sideways as far as it can go, up to a number of columns, stopping
+     * at the first wall or frozen block.
+     *
+     * @param thePiece the piece to move.
+     * @param theColumns the number of columns to move; negative is left.
+     * @return the moved piece, or thePiece if it cannot move at all.
+     */
+    MovableTetrisPiece slide(final MovableTetrisPiece thePiece, final int theColumns) {
+        final int step = Integer.signum(theColumns);
+        MovableTetrisPiece result = thePiece;
+        for (int i = 0; i < Math.abs(theColumns); i++) {
+            final MovableTetrisPiece next = result.translate(PackedPoints.pack(step, 0));
+            if (!isLegal(next)) {
+                break;
+            }
+            result = next;
+        }
+        return result;
+    }
+
+    /**
+     * Finds the first of a list of kicks that puts a rotated piece in a legal
+     * position.
+     *
+     * @param thePiece the rotated piece, before any kick.
+     * @param theKicks the kicks to try in order, packed by PackedPoints.
+     * @return the index of the first legal kick, or -1 if none is legal.
+     */
+    int findKick(final MovableTetrisPiece thePiece, final int[] theKicks) {
+        int result = -1;
+        for (int i = 0; i < theKicks.length && result < 0; i++) {
+            if (isLegal(thePiece.translate(theKicks[i]))) {
+                result = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Freezes the blocks of a piece into the grid.
+     *
+     * @param thePiece the piece to freeze.
+     * @return false if some of the piece was off the grid (so the game is over).
+     */
+    boolean add(final MovableTetrisPiece thePiece) {
+        boolean result = true;
+        final Block block = thePiece.getTetrisPiece().getBlock();
+        for (final int p : thePiece.getPackedPoints()) {
+            final int x = thePiece.getX() + PackedPoints.x(p);
+            final int y = thePiece.getY() + PackedPoints.y(p);
+            if (isOnGrid(x, y)) {
+                set(x, y, block);
+            } else {
+                result = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes all complete rows, moving the rows above them down. Only the rows
+     * changed since the last call can have become complete, so only they are checked.
+     *
+     * @return the indices of the removed rows, in ascending order.
+     */
+    Integer[] clearFullRows() {
+        final List<Integer> completeRows = new ArrayList<>();
+        for (int y = myLowestChanged; y <= myHighestChanged; y++) {
+            if (myFilled[y] == myWidth) {
+                completeRows.add(y);
+            }
+        }
+        myLowestChanged = myHeight;
+        myHighestChanged = -1;
+        if (!completeRows.isEmpty()) {
+            removeRows(completeRows);
+        }
+        return completeRows.toArray(new Integer[completeRows.size()]);
+    }
+
+    /**
+     * Inserts garbage rows at the bottom of the grid, moving the rows above them up.
+     * Each garbage row is full of garbage blocks except for one hole. The rows are
+     * moved by reference and the rows pushed off the top are reused for the garbage,
+     * so inserting does not allocate rows or copy cells.
+     *
+     * @param theRows the number of rows to insert.
+     * @param theHole the column of the hole in every inserted row.
+     * @return false if blocks were pushed off the top of the grid.
+     */
+    boolean insertRows(final int theRows, final int theHole) {
+        myVersion++;
+        final int rows = Math.min(theRows, myHeight);
+        boolean result = true;
+        for (int y = myHeight - rows; y < myHeight; y++) {
+            if (myFilled[y] > 0) {
+                result = false;
+            }
+        }
+        final long[][] spareOccupied = Arrays.copyOfRange(myOccupied, myHeight - rows,
+                                                          myHeight);
+        final byte[][] spareBlocks = Arrays.copyOfRange(myBlocks, myHeight - rows, myHeight);
+        System.arraycopy(myOccupied, 0, myOccupied, rows, myHeight - rows);
+        System.arraycopy(myBlocks, 0, myBlocks, rows, myHeight - rows);
+        System.arraycopy(myFilled, 0, myFilled, rows, myHeight - rows);
+        if (myHighestChanged >= 0) {
+            myLowestChanged = Math.min(myLowestChanged + rows, myHeight - 1);
+            myHighestChanged = Math.min(myHighestChanged + rows, myHeight - 1);
+        }
+        for (int y = 0; y < rows; y++) {
+            myOccupied[y] = spareOccupied[y];
+            myBlocks[y] = spareBlocks[y];
+            fillGarbageRow(y, theHole);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the cells diagonal to a cell that are blocked, by a frozen block or by
+     * a wall or the floor.
+     *
+     * @param theX the column of the center cell.
+     * @param theY the row of the center cell.
+     * @return the number of blocked corners, from 0 to 4.
+     */
+    int countBlockedCorners(final int theX, final int theY) {
+        int blocked = 0;
+        for (int dx = -1; dx <= 1; dx += 2) {
+            for (int dy = -1; dy <= 1; dy += 2) {
+                final int x = theX + dx;
+                final int y = theY + dy;
+                if (x < 0 || x >= myWidth || y < 0 || get(x, y) != null) {
+                    blocked++;
+                }
+            }
+        }
+        return blocked;
+    }
+
+    /**
+     * Renders the grid as text, one line per row from the top, with extra empty rows
+     * on top, a piece drawn in and a line marking the top of the grid.
+     *
+     * @param theExtraRows the number of empty rows to add on top.
+     * @param thePiece the piece to draw, or null.
+     * @return the grid as text.
+     */
+    String render(final int theExtraRows, final MovableTetrisPiece thePiece) {
+        final List<Block[]> board = copyRows(theExtraRows, thePiece);
+        
+        final StringBuilder sb = new StringBuilder();
+        for (int i = board.size() - 1; i >= 0; i--) {
+            final Block[] row = board.get(i);
+            sb.append('|');
+            for (final Block c : row) {
+                if (c == null) {
+                    sb.append(' ');
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append("|\n");
+            if (i == myHeight) {
+                sb.append(' ');
+                for (int j = 0; j < myWidth; j++) {
+                    sb.append('-');
+                }
+                sb.append('\n');
+            }
+        }
+        sb.append('|');
+        for (int w = 0; w < myWidth; w++) {
+            sb.append('-');
+        }
+        sb.append('|');
+        return sb.toString();
+    }
+
+    /**
+     * Copies the rows of the grid with extra empty rows on top and a piece drawn
+     * into them. A null Block is an empty cell.
+     *
+     * @param theExtraRows the number of empty rows to add on top.
+     * @param thePiece the piece to draw, or null.
+     * @return the copied rows, bottom row first.
+     */
+    private List<Block[]> copyRows(final int theExtraRows, final MovableTetrisPiece thePiece) {
+        final List<Block[]> rows = new ArrayList<Block[]>(myHeight + theExtraRows);
+        for (int y = 0; y < myHeight; y++) {
+            final Block[] row = new Block[myWidth];
+            for (int x = 0; x < myWidth; x++) {
+                row[x] = get(x, y);
+            }
+            rows.add(row);
+        }
+        for (int i = 0; i < theExtraRows; i++) {
+            rows.add(new Block[myWidth]);
+        }
+        if (thePiece != null) {
+            final Block block = thePiece.getTetrisPiece().getBlock();
+            for (final int p : thePiece.getPackedPoints()) {
+                final int x = thePiece.getX() + PackedPoints.x(p);
+                final int y = thePiece.getY() + PackedPoints.y(p);
+                if (x >= 0 && x < myWidth && y >= 0 && y < rows.size()) {
+                    rows.get(y)[x] = block;
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Removes rows, moving the rows above them down and reusing the removed rows,
+     * emptied, at the top.
+     *
+     * @param theRows the indices of the rows to remove, in ascending order.
+     */
+    private void removeRows(final List<Integer> theRows) {
+        myVersion++;
+        final int removed = theRows.size();
+        final long[][] spareOccupied = new long[removed][];
+        final byte[][] spareBlocks = new byte[removed][];
+        int next = 0;
+        int to = theRows.get(0);
+        for (int from = to; from < myHeight; from++) {
+            if (next < removed && theRows.get(next) == from) {
+                spareOccupied[next] = myOccupied[from];
+                spareBlocks[next] = myBlocks[from];
+                next++;
+            } else {
+                myOccupied[to] = myOccupied[from];
+                myBlocks[to] = myBlocks[from];
+                myFilled[to] = myFilled[from];
+                to++;
+            }
+        }
+        for (int i = 0; i < removed; i++) {
+            myOccupied[to + i] = spareOccupied[i];
+            myBlocks[to + i] = spareBlocks[i];
+            clearRow(to + i);
+        }
+    }
+
+    /**
+     * Fills a row with garbage blocks, except for a hole. The row is filled a word of
+     * the bitset at a time rather than cell by cell.
+     *
+     * @param theY the row.
+     * @param theHole the column of the hole.
+     */
+    private void fillGarbageRow(final int theY, final int theHole) {
+        final long[] occupied = myOccupied[theY];
+        Arrays.fill(occupied, -1L);
+        if ((myWidth & WORD_MASK) != 0) {
+            occupied[occupied.length - 1] = (1L << (myWidth & WORD_MASK)) - 1;
+        }
+        occupied[theHole >>> WORD_SHIFT] &= ~(1L << (theHole & WORD_MASK));
+        Arrays.fill(myBlocks[theY], (byte) Block.G.ordinal());
+        myBlocks[theY][theHole] = 0;
+        myFilled[theY] = myWidth - 1;
+    }
+
+    /**
+     * Empties a row.
+     *
+     * @param theY the row.
+     */
+    private void clearRow(final int theY) {
+        Arrays.fill(myOccupied[theY], 0);
+        Arrays.fill(myBlocks[theY], (byte) 0);
+        myFilled[theY] = 0;
+    }
+}
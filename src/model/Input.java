@@ -0,0 +1,104 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * The inputs that can be applied to a Board, for instance in a batch from a bot
+ * or from a network packet.
+ *
+ * Each Input has a one byte code so that sequences of inputs can be stored and
+ * sent compactly.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public enum Input {
+
+    /** Move the piece left. */
+    LEFT,
+    /** Move the piece right. */
+    RIGHT,
+    /** Rotate the piece clockwise. */
+    ROTATE,
+    /** Move the piece down, freezing it if it cannot move. */
+    DOWN,
+    /** Drop the piece until it freezes. */
+    DROP,
+    /** Swap the piece with the hold slot. */
+    HOLD,
+    /** Start soft dropping the piece. */
+    SOFT_DROP_ON,
+    /** Stop soft dropping the piece. */
+    SOFT_DROP_OFF,
+    /** Advance the game by one tick. */
+    TICK;
+
+    /**
+     * All Inputs indexed by code.
+     */
+    private static final Input[] CODES = values();
+
+    /**
+     * Returns the one byte code of this Input.
+     *
+     * @return the code of this Input.
+     */
+    public byte getCode() {
+        return (byte) ordinal();
+    }
+
+    /**
+     * Returns the Input with the given code.
+     *
+     * @param theCode the code of an Input.
+     * @return the Input with theCode.
+     * @throws IllegalArgumentException if no Input has theCode.
+     */
+    public static Input fromCode(final int theCode) {
+        if (theCode < 0 || theCode >= CODES.length) {
+            throw new IllegalArgumentException("Unknown input code: " + theCode);
+        }
+        return CODES[theCode];
+    }
+
+    /**
+     * Applies this Input to a board.
+     *
+     * @param theBoard the board.
+     */
+    void applyTo(final Board theBoard) {
+        switch (this) {
+            case LEFT:
+                theBoard.left();
+                break;
+            case RIGHT:
+                theBoard.right();
+                break;
+            case ROTATE:
+                theBoard.rotate();
+                break;
+            case DOWN:
+                theBoard.down();
+                break;
+            case DROP:
+                theBoard.drop();
+                break;
+            case HOLD:
+                theBoard.hold();
+                break;
+            case SOFT_DROP_ON:
+                theBoard.setSoftDrop(true);
+                break;
+            case SOFT_DROP_OFF:
+                theBoard.setSoftDrop(false);
+                break;
+            case TICK:
+                theBoard.tick();
+                break;
+            default:
+        }
+    }
+
+}
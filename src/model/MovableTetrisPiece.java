@@ -7,7 +7,8 @@ package model;
 /**
  * Represents a TetrisPiece with a position and a rotation.
  * 
- * A MovableTetrisPiece is immutable.
+ * A MovableTetrisPiece is immutable. Pieces created by a Board are shared
+ * flyweights from the board's PieceStates table.
  * 
  * @author TCSS 305 Instructors
  * @version Winter 2017
@@ -25,14 +26,19 @@ public final class MovableTetrisPiece {
     private final TetrisPiece myTetrisPiece;
     
     /**
-     * The board position of this TetrisPiece.
+     * The board position of this TetrisPiece, packed by PackedPoints.
      */
-    private final Point myPosition;
+    private final int myPosition;
 
     /**
      * The rotation value of this TetrisPiece.
      */
     private final Rotation myRotation;
+
+    /**
+     * The table that moved states are looked up in, or null to create them.
+     */
+    private final PieceStates myStates;
     
     // This constructor allows creation of pieces in the zero rotational state
     /**
@@ -60,9 +66,27 @@ public final class MovableTetrisPiece {
                               final Point thePosition, 
                               final Rotation theRotation) {
         
+        this(theTetrisPiece, PackedPoints.pack(thePosition.getX(), thePosition.getY()),
+             theRotation, null);
+    }
+
+    /**
+     * Constructs a MovableTetrisPiece at a packed position, without allocating a Point.
+     * 
+     * @param theTetrisPiece the type of TetrisPiece.
+     * @param thePosition the position on the Board, packed by PackedPoints.
+     * @param theRotation the initial angle of the TetrisPiece.
+     * @param theStates the table to look moved states up in, or null to create them.
+     */
+    MovableTetrisPiece(final TetrisPiece theTetrisPiece,
+                       final int thePosition,
+                       final Rotation theRotation,
+                       final PieceStates theStates) {
+        
         myTetrisPiece = theTetrisPiece;
         myPosition = thePosition;
         myRotation = theRotation;
+        myStates = theStates;
     }
     
     
@@ -109,6 +133,16 @@ public final class MovableTetrisPiece {
         return myTetrisPiece.getBlock();
     }
     
+    /**
+     * Gets the points of the TetrisPiece blocks, rotated but not translated to board
+     * coordinates. Points lie within a 4x4 grid with (0, 0) at the bottom left.
+     * 
+     * @return array of TetrisPiece block points.
+     */
+    public Point[] getLocalPoints() {
+        return getPoints();
+    }
+    
     
     // methods overridden from class Object
     
@@ -158,7 +192,35 @@ public final class MovableTetrisPiece {
      * @return the board position.
      */
     protected Point getPosition() {
-        return myPosition;
+        return new Point(getX(), getY());
+    }
+
+    /**
+     * The x coordinate of the current board position of the TetrisPiece.
+     * 
+     * @return the x coordinate of the board position.
+     */
+    int getX() {
+        return PackedPoints.x(myPosition);
+    }
+
+    /**
+     * The y coordinate of the current board position of the TetrisPiece.
+     * 
+     * @return the y coordinate of the board position.
+     */
+    int getY() {
+        return PackedPoints.y(myPosition);
+    }
+
+    /**
+     * Gets the TetrisPiece points rotated but not translated to board coordinates, packed
+     * by PackedPoints. The array is shared and must not be modified.
+     * 
+     * @return the packed local points of the TetrisPiece blocks.
+     */
+    int[] getPackedPoints() {
+        return PackedPoints.getShape(myTetrisPiece, myRotation);
     }
 
     /**
@@ -176,7 +238,13 @@ public final class MovableTetrisPiece {
      * @return the board points for the TetrisPiece blocks.
      */
     protected Point[] getBoardPoints() {
-        return getPoints(myPosition);
+        final int[] shape = getPackedPoints();
+        final Point[] blocks = new Point[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            blocks[i] = new Point(getX() + PackedPoints.x(shape[i]),
+                                  getY() + PackedPoints.y(shape[i]));
+        }
+        return blocks;
     }
     
     
@@ -188,9 +256,7 @@ public final class MovableTetrisPiece {
      * @return A new rotated movable TetrisPiece
      */
     protected MovableTetrisPiece rotate() {
-        return new MovableTetrisPiece(myTetrisPiece,
-                                      myPosition,
-                                      myRotation.clockwise());
+        return moveTo(myPosition, myRotation.clockwise());
     }
 
     /**
@@ -199,9 +265,7 @@ public final class MovableTetrisPiece {
      * @return A new left moved movable TetrisPiece
      */
     protected MovableTetrisPiece left() {
-        return new MovableTetrisPiece(myTetrisPiece,
-                                      myPosition.transform(-1, 0),
-                                      myRotation);
+        return moveTo(PackedPoints.translate(myPosition, -1, 0), myRotation);
     }
 
     /**
@@ -210,9 +274,7 @@ public final class MovableTetrisPiece {
      * @return A new right moved movable TetrisPiece
      */
     protected MovableTetrisPiece right() {
-        return new MovableTetrisPiece(myTetrisPiece,
-                                      myPosition.transform(1, 0),
-                                      myRotation);
+        return moveTo(PackedPoints.translate(myPosition, 1, 0), myRotation);
     }
 
     /**
@@ -221,9 +283,7 @@ public final class MovableTetrisPiece {
      * @return A new movable TetrisPiece moved down.
      */
     protected MovableTetrisPiece down() {
-        return new MovableTetrisPiece(myTetrisPiece,
-                                      myPosition.transform(0, -1),
-                                      myRotation);
+        return moveTo(PackedPoints.translate(myPosition, 0, -1), myRotation);
     }
     
     
@@ -239,7 +299,20 @@ public final class MovableTetrisPiece {
      * @return A new movable TetrisPiece at the specified location
      */
     protected MovableTetrisPiece setPosition(final Point thePosition) {
-        return new MovableTetrisPiece(myTetrisPiece, thePosition, myRotation);
+        return moveTo(PackedPoints.pack(thePosition.getX(), thePosition.getY()), myRotation);
+    }
+
+    /**
+     * Returns a new MovableTetrisPiece of the current piece type and same Rotation
+     * moved by a packed offset, without allocating a Point.
+     * 
+     * @param theOffset the offset to move by, packed by PackedPoints
+     * @return A new movable TetrisPiece at the moved location
+     */
+    MovableTetrisPiece translate(final int theOffset) {
+        return moveTo(PackedPoints.translate(myPosition, PackedPoints.x(theOffset),
+                                             PackedPoints.y(theOffset)),
+                      myRotation);
     }
 
 
@@ -247,12 +320,29 @@ public final class MovableTetrisPiece {
     // private methods
 
     /**
-     * Get the block points of the TetrisPiece transformed by x and y.
+     * Returns this TetrisPiece at another position and rotation, shared from the
+     * PieceStates table if this piece came from one.
+     * 
+     * @param thePosition the position, packed by PackedPoints.
+     * @param theRotation the rotation.
+     * @return the moved movable TetrisPiece.
+     */
+    private MovableTetrisPiece moveTo(final int thePosition, final Rotation theRotation) {
+        MovableTetrisPiece result;
+        if (myStates == null) {
+            result = new MovableTetrisPiece(myTetrisPiece, thePosition, theRotation, null);
+        } else {
+            result = myStates.get(myTetrisPiece, theRotation, thePosition);
+        }
+        return result;
+    }
+
+    /**
+     * Get the block points of the TetrisPiece, rotated but not translated.
      * 
-     * @param thePoint the point to transform the points around.
      * @return array of TetrisPiece block points.
      */
-    private Point[] getPoints(final Point thePoint) {
+    private Point[] getPoints() {
 
         final Point[] blocks = myTetrisPiece.getPoints();
         
@@ -279,22 +369,10 @@ public final class MovableTetrisPiece {
                     default:
                 }
             }
-            if (thePoint != null) {
-                blocks[i] = blocks[i].transform(thePoint);
-            }
         }
 
         return blocks;
     }
-    
-    /**
-     * Gets the local points of the TetrisPiece rotated.
-     * 
-     * @return array of TetrisPiece block points.
-     */
-    private Point[] getLocalPoints() {
-        return getPoints(null);
-    }
 
 
 }
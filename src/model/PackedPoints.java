@@ -0,0 +1,170 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * Points packed into a single int, for the internal paths of the model that move,
+ * rotate and collide pieces many times per frame. Unlike Point, a packed point is a
+ * primitive, so computing one never allocates.
+ *
+ * The x coordinate is kept in the high 16 bits and the y coordinate in the low 16 bits,
+ * both signed, so coordinates from -32768 to 32767 can be packed.
+ *
+ * Also holds the tables of packed block positions for every TetrisPiece in every
+ * Rotation and of the packed wall kick offsets for every clockwise rotation, so the
+ * model does not recompute or reallocate them for every move.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class PackedPoints {
+
+    /**
+     * The number of bits of each coordinate.
+     */
+    private static final int COORDINATE_BITS = 16;
+
+    /**
+     * Mask of the bits of the y coordinate.
+     */
+    private static final int Y_MASK = (1 << COORDINATE_BITS) - 1;
+
+    /**
+     * All Rotations, indexed by ordinal.
+     */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /**
+     * The packed local block positions of each TetrisPiece in each Rotation,
+     * indexed by piece ordinal then rotation ordinal.
+     */
+    private static final int[][][] SHAPES = createShapes();
+
+    /**
+     * The packed wall kick offsets to try, in order, when rotating each TetrisPiece
+     * clockwise from each Rotation, indexed by piece ordinal then rotation ordinal.
+     */
+    private static final int[][][] CLOCKWISE_KICKS = createClockwiseKicks();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private PackedPoints() { }
+
+    /**
+     * Packs a point.
+     *
+     * @param theX the x coordinate.
+     * @param theY the y coordinate.
+     * @return the packed point.
+     */
+    static int pack(final int theX, final int theY) {
+        return theX << COORDINATE_BITS | theY & Y_MASK;
+    }
+
+    /**
+     * Returns the x coordinate of a packed point.
+     *
+     * @param thePoint the packed point.
+     * @return the x coordinate.
+     */
+    static int x(final int thePoint) {
+        return thePoint >> COORDINATE_BITS;
+    }
+
+    /**
+     * Returns the y coordinate of a packed point.
+     *
+     * @param thePoint the packed point.
+     * @return the y coordinate.
+     */
+    static int y(final int thePoint) {
+        return (short) thePoint;
+    }
+
+    /**
+     * Moves a packed point.
+     *
+     * @param thePoint the packed point.
+     * @param theX the distance to move along x.
+     * @param theY the distance to move along y.
+     * @return the moved packed point.
+     */
+    static int translate(final int thePoint, final int theX, final int theY) {
+        return pack(x(thePoint) + theX, y(thePoint) + theY);
+    }
+
+    /**
+     * Returns the packed local block positions of a TetrisPiece in a Rotation.
+     * The array is shared and must not be modified.
+     *
+     * @param thePiece the TetrisPiece.
+     * @param theRotation the Rotation.
+     * @return the packed block positions.
+     */
+    static int[] getShape(final TetrisPiece thePiece, final Rotation theRotation) {
+        return SHAPES[thePiece.ordinal()][theRotation.ordinal()];
+    }
+
+    /**
+     * Returns the packed wall kick offsets to try when rotating a TetrisPiece clockwise.
+     * The first offset is always (0, 0). The array is shared and must not be modified.
+     *
+     * @param thePiece the TetrisPiece.
+     * @param theRotation the Rotation before rotating.
+     * @return the packed kick offsets, in the order to try them.
+     */
+    static int[] getClockwiseKicks(final TetrisPiece thePiece, final Rotation theRotation) {
+        return CLOCKWISE_KICKS[thePiece.ordinal()][theRotation.ordinal()];
+    }
+
+    /**
+     * Computes the table of packed local block positions.
+     *
+     * @return the shapes, indexed by piece ordinal then rotation ordinal.
+     */
+    private static int[][][] createShapes() {
+        final TetrisPiece[] pieces = TetrisPiece.values();
+        final int[][][] shapes = new int[pieces.length][ROTATIONS.length][];
+        for (final TetrisPiece piece : pieces) {
+            for (final Rotation rotation : ROTATIONS) {
+                final Point[] points = new MovableTetrisPiece(piece, new Point(0, 0),
+                                                              rotation).getLocalPoints();
+                final int[] shape = new int[points.length];
+                for (int i = 0; i < points.length; i++) {
+                    shape[i] = pack(points[i].getX(), points[i].getY());
+                }
+                shapes[piece.ordinal()][rotation.ordinal()] = shape;
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * Computes the table of packed clockwise wall kick offsets. The O piece does not
+     * kick, so it only has the (0, 0) offset.
+     *
+     * @return the kicks, indexed by piece ordinal then rotation ordinal.
+     */
+    private static int[][][] createClockwiseKicks() {
+        final TetrisPiece[] pieces = TetrisPiece.values();
+        final int[][][] kicks = new int[pieces.length][ROTATIONS.length][];
+        for (final TetrisPiece piece : pieces) {
+            for (final Rotation rotation : ROTATIONS) {
+                int[] packed = {pack(0, 0)};
+                if (piece != TetrisPiece.O) {
+                    final Point[] offsets = WallKick.getkicks(piece, rotation,
+                                                              rotation.clockwise());
+                    packed = new int[offsets.length];
+                    for (int i = 0; i < offsets.length; i++) {
+                        packed[i] = pack(offsets[i].getX(), offsets[i].getY());
+                    }
+                }
+                kicks[piece.ordinal()][rotation.ordinal()] = packed;
+            }
+        }
+        return kicks;
+    }
+}
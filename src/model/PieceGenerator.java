@@ -0,0 +1,165 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates the sequence of TetrisPieces for a Board, either randomly or by
+ * looping through a non random sequence.
+ *
+ * Random pieces come from a SplitMix64 generator whose whole state is a single
+ * long, so the generator can be saved and restored exactly.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class PieceGenerator {
+
+    /**
+     * The increment of the SplitMix64 generator.
+     */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The first SplitMix64 mixing constant.
+     */
+    private static final long MIX_1 = 0xBF58476D1CE4E5B9L;
+
+    /**
+     * The second SplitMix64 mixing constant.
+     */
+    private static final long MIX_2 = 0x94D049BB133111EBL;
+
+    /**
+     * The shifts of the SplitMix64 mixing function.
+     */
+    private static final int[] SHIFTS = {30, 27, 31};
+
+    /**
+     * All TetrisPieces, indexed by ordinal.
+     */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /**
+     * The state of the random generator.
+     */
+    private long myState;
+
+    /**
+     * Contains a non random sequence of TetrisPieces to loop through.
+     */
+    private List<TetrisPiece> myNonRandomPieces;
+
+    /**
+     * The current index in the non random piece sequence.
+     */
+    private int mySequenceIndex;
+
+    /**
+     * Constructs a PieceGenerator producing random pieces.
+     *
+     * @param theSeed the seed of the random generator.
+     */
+    PieceGenerator(final long theSeed) {
+        myState = theSeed;
+        myNonRandomPieces = new ArrayList<TetrisPiece>();
+    }
+
+    /**
+     * Generates the next piece, either randomly or from the non random sequence.
+     *
+     * @return the generated piece.
+     */
+    TetrisPiece next() {
+        final TetrisPiece result;
+        if (myNonRandomPieces.isEmpty()) {
+            result = PIECES[(int) ((nextLong() >>> 1) % PIECES.length)];
+        } else {
+            mySequenceIndex %= myNonRandomPieces.size();
+            result = myNonRandomPieces.get(mySequenceIndex++);
+        }
+        return result;
+    }
+
+    /**
+     * Sets a non random sequence of pieces to loop through.
+     *
+     * @param thePieces the non random pieces, or an empty list for random pieces.
+     */
+    void setSequence(final List<TetrisPiece> thePieces) {
+        myNonRandomPieces = new ArrayList<TetrisPiece>(thePieces);
+        mySequenceIndex = 0;
+    }
+
+    /**
+     * Restarts the random generator from a seed.
+     *
+     * @param theSeed the seed of the random generator.
+     */
+    void setSeed(final long theSeed) {
+        myState = theSeed;
+    }
+
+    /**
+     * Restarts the non random sequence from its first piece.
+     */
+    void restart() {
+        mySequenceIndex = 0;
+    }
+
+    /**
+     * Returns the number of bytes writeState() writes.
+     *
+     * @return the size of the state in bytes.
+     */
+    int getStateSize() {
+        return Long.BYTES + Integer.BYTES + Integer.BYTES + myNonRandomPieces.size();
+    }
+
+    /**
+     * Writes the state of this generator.
+     *
+     * @param theBuffer the buffer to write to.
+     */
+    void writeState(final ByteBuffer theBuffer) {
+        theBuffer.putLong(myState);
+        theBuffer.putInt(mySequenceIndex);
+        theBuffer.putInt(myNonRandomPieces.size());
+        for (final TetrisPiece piece : myNonRandomPieces) {
+            theBuffer.put((byte) piece.ordinal());
+        }
+    }
+
+    /**
+     * Reads a state written by writeState().
+     *
+     * @param theBuffer the buffer to read from.
+     */
+    void readState(final ByteBuffer theBuffer) {
+        myState = theBuffer.getLong();
+        mySequenceIndex = theBuffer.getInt();
+        final int length = theBuffer.getInt();
+        myNonRandomPieces = new ArrayList<TetrisPiece>(length);
+        for (int i = 0; i < length; i++) {
+            myNonRandomPieces.add(PIECES[theBuffer.get()]);
+        }
+    }
+
+    /**
+     * Advances the SplitMix64 generator.
+     *
+     * @return the next random long.
+     */
+    private long nextLong() {
+        myState += GOLDEN_GAMMA;
+        long z = myState;
+        z = (z ^ (z >>> SHIFTS[0])) * MIX_1;
+        z = (z ^ (z >>> SHIFTS[1])) * MIX_2;
+        return z ^ (z >>> SHIFTS[2]);
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * The hold slot and the queue of upcoming pieces for a Board.
+ *
+ * A single PieceQueue is owned by each Board and is reused for the lifetime of
+ * that Board; observers receive this same instance every time the held piece or
+ * the upcoming pieces change, so it should be read during update() and not stored.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class PieceQueue {
+
+    /**
+     * The smallest number of upcoming pieces that may be shown.
+     */
+    public static final int MIN_LENGTH = 1;
+
+    /**
+     * The largest number of upcoming pieces that may be shown; this many pieces are
+     * always buffered from the piece generator.
+     */
+    public static final int MAX_LENGTH = 6;
+
+    /**
+     * The number of upcoming pieces shown by default.
+     */
+    public static final int DEFAULT_LENGTH = 3;
+
+    /**
+     * The number of single byte fields written by writeState() besides the
+     * pieces: length, size, held piece and hold available.
+     */
+    private static final int STATE_FIELDS = 4;
+
+    /**
+     * The upcoming pieces stored as a ring buffer.
+     */
+    private final TetrisPiece[] myPieces;
+
+    /**
+     * The spawn state of each TetrisPiece on the owning Board.
+     */
+    private final Map<TetrisPiece, MovableTetrisPiece> mySpawnPieces;
+
+    /**
+     * Index of the next piece to play within the ring buffer.
+     */
+    private int myHead;
+
+    /**
+     * The number of pieces currently in the queue.
+     */
+    private int mySize;
+
+    /**
+     * The number of upcoming pieces that are shown.
+     */
+    private int myLength;
+
+    /**
+     * The piece in the hold slot, or null when the slot is empty.
+     */
+    private TetrisPiece myHeldPiece;
+
+    /**
+     * Whether the current piece may still be swapped into the hold slot.
+     */
+    private boolean myHoldAvailable;
+
+    /**
+     * Constructs an empty PieceQueue.
+     *
+     * @param theSpawnPieces the spawn state of each TetrisPiece on the owning Board.
+     */
+    PieceQueue(final Map<TetrisPiece, MovableTetrisPiece> theSpawnPieces) {
+        myPieces = new TetrisPiece[MAX_LENGTH];
+        mySpawnPieces = theSpawnPieces;
+        myLength = DEFAULT_LENGTH;
+        myHoldAvailable = true;
+    }
+
+    // public queries
+
+    /**
+     * Returns the number of upcoming pieces that are shown.
+     *
+     * @return the number of upcoming pieces.
+     */
+    public int size() {
+        return Math.min(myLength, mySize);
+    }
+
+    /**
+     * Returns one of the upcoming pieces in its spawn state.
+     *
+     * @param theIndex the position in the queue, 0 being the next piece to play.
+     * @return the upcoming piece at theIndex.
+     * @throws IndexOutOfBoundsException if theIndex is not within the queue.
+     */
+    public MovableTetrisPiece getNextPiece(final int theIndex) {
+        if (theIndex < 0 || theIndex >= size()) {
+            throw new IndexOutOfBoundsException("No queued piece at index " + theIndex);
+        }
+        return mySpawnPieces.get(myPieces[(myHead + theIndex) % myPieces.length]);
+    }
+
+    /**
+     * Returns the held piece in its spawn state.
+     *
+     * @return the held piece, or null when the hold slot is empty.
+     */
+    public MovableTetrisPiece getHeldPiece() {
+        MovableTetrisPiece result = null;
+        if (myHeldPiece != null) {
+            result = mySpawnPieces.get(myHeldPiece);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the current piece may still be swapped into the hold slot.
+     * A piece may only be held once until the next piece spawns.
+     *
+     * @return true if hold is available.
+     */
+    public boolean isHoldAvailable() {
+        return myHoldAvailable;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("hold=").append(myHeldPiece).append(" next=[");
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(myPieces[(myHead + i) % myPieces.length]);
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    // package methods - used by the Board class
+
+    /**
+     * Returns whether the queue holds as many pieces as it can.
+     *
+     * @return true if the queue is full.
+     */
+    boolean isFull() {
+        return mySize == myPieces.length;
+    }
+
+    /**
+     * Adds a piece to the end of the queue.
+     *
+     * @param thePiece the piece to add.
+     */
+    void add(final TetrisPiece thePiece) {
+        myPieces[(myHead + mySize) % myPieces.length] = thePiece;
+        mySize++;
+    }
+
+    /**
+     * Removes and returns the next piece to play.
+     *
+     * @return the piece at the head of the queue.
+     */
+    TetrisPiece poll() {
+        final TetrisPiece result = myPieces[myHead];
+        myPieces[myHead] = null;
+        myHead = (myHead + 1) % myPieces.length;
+        mySize--;
+        return result;
+    }
+
+    /**
+     * Returns the number of upcoming pieces that are shown.
+     *
+     * @return the number of upcoming pieces that are shown.
+     */
+    int getLength() {
+        return myLength;
+    }
+
+    /**
+     * Sets the number of upcoming pieces that are shown.
+     *
+     * @param theLength the number of upcoming pieces, from MIN_LENGTH to MAX_LENGTH.
+     * @throws IllegalArgumentException if theLength is out of range.
+     */
+    void setLength(final int theLength) {
+        if (theLength < MIN_LENGTH || theLength > MAX_LENGTH) {
+            throw new IllegalArgumentException("Preview length must be between "
+                            + MIN_LENGTH + " and " + MAX_LENGTH + ": " + theLength);
+        }
+        myLength = theLength;
+    }
+
+    /**
+     * Returns the held TetrisPiece.
+     *
+     * @return the held TetrisPiece, or null when the hold slot is empty.
+     */
+    TetrisPiece getHeldTetrisPiece() {
+        return myHeldPiece;
+    }
+
+    /**
+     * Places a piece in the hold slot.
+     *
+     * @param thePiece the piece to hold, or null to empty the hold slot.
+     */
+    void setHeldPiece(final TetrisPiece thePiece) {
+        myHeldPiece = thePiece;
+    }
+
+    /**
+     * Sets whether the current piece may be swapped into the hold slot.
+     *
+     * @param theAvailable true if hold is available.
+     */
+    void setHoldAvailable(final boolean theAvailable) {
+        myHoldAvailable = theAvailable;
+    }
+
+    /**
+     * Returns the number of bytes writeState() writes.
+     *
+     * @return the size of the state in bytes.
+     */
+    static int getStateSize() {
+        return MAX_LENGTH + STATE_FIELDS;
+    }
+
+    /**
+     * Writes the queue and hold slot, one byte each, with -1 for no piece.
+     *
+     * @param theBuffer the buffer to write to.
+     */
+    void writeState(final ByteBuffer theBuffer) {
+        theBuffer.put((byte) myLength);
+        theBuffer.put((byte) mySize);
+        for (int i = 0; i < myPieces.length; i++) {
+            theBuffer.put(pieceCode(myPieces[(myHead + i) % myPieces.length]));
+        }
+        theBuffer.put(pieceCode(myHeldPiece));
+        byte holdAvailable = 0;
+        if (myHoldAvailable) {
+            holdAvailable = 1;
+        }
+        theBuffer.put(holdAvailable);
+    }
+
+    /**
+     * Reads a queue and hold slot written by writeState().
+     *
+     * @param theBuffer the buffer to read from.
+     */
+    void readState(final ByteBuffer theBuffer) {
+        setLength(theBuffer.get());
+        mySize = theBuffer.get();
+        myHead = 0;
+        for (int i = 0; i < myPieces.length; i++) {
+            myPieces[i] = pieceFromCode(theBuffer.get());
+        }
+        myHeldPiece = pieceFromCode(theBuffer.get());
+        myHoldAvailable = theBuffer.get() != 0;
+    }
+
+    /**
+     * Returns the one byte code of a piece.
+     *
+     * @param thePiece the piece, or null.
+     * @return the ordinal of thePiece, or -1 for null.
+     */
+    static byte pieceCode(final TetrisPiece thePiece) {
+        byte result = -1;
+        if (thePiece != null) {
+            result = (byte) thePiece.ordinal();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the piece with a one byte code.
+     *
+     * @param theCode the code written by pieceCode().
+     * @return the piece, or null for -1.
+     */
+    static TetrisPiece pieceFromCode(final byte theCode) {
+        TetrisPiece result = null;
+        if (theCode >= 0) {
+            result = TetrisPiece.values()[theCode];
+        }
+        return result;
+    }
+
+    /**
+     * Empties the queue and the hold slot.
+     */
+    void clear() {
+        for (int i = 0; i < myPieces.length; i++) {
+            myPieces[i] = null;
+        }
+        myHead = 0;
+        mySize = 0;
+        myHeldPiece = null;
+        myHoldAvailable = true;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * A flyweight table of the MovableTetrisPiece states of one board size.
+ *
+ * A board only has a small number of distinct (piece, rotation, x, y) states, so each
+ * state is created once, the first time it is reached, and shared from then on. Pieces
+ * created by the table keep a reference to it and their movement methods look the
+ * moved state up here, so moving a piece around the board does not allocate once every
+ * state it reaches has been seen.
+ *
+ * States more than MARGIN cells outside the board are not kept and are created on
+ * every request. Boards with more than MAX_POSITIONS positions do not keep states at
+ * all, since the table would be larger than the garbage it saves.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class PieceStates {
+
+    /**
+     * The number of cells around the board that positions are kept for. Enough for a
+     * piece's 4x4 grid hanging off the board and a wall kick on top of it.
+     */
+    private static final int MARGIN = 6;
+
+    /**
+     * The largest number of positions kept for each piece and rotation.
+     */
+    private static final int MAX_POSITIONS = 1 << 16;
+
+    /**
+     * The number of Rotations.
+     */
+    private static final int ROTATIONS = Rotation.values().length;
+
+    /**
+     * The number of columns of positions kept.
+     */
+    private final int myColumns;
+
+    /**
+     * The number of rows of positions kept.
+     */
+    private final int myRows;
+
+    /**
+     * Whether states are kept.
+     */
+    private final boolean myEnabled;
+
+    /**
+     * The states created so far, indexed by piece and rotation then by position.
+     * The tables of each piece and rotation are allocated when first needed.
+     */
+    private final MovableTetrisPiece[][] myStates;
+
+    /**
+     * Creates an empty table for a board size.
+     *
+     * @param theWidth the width of the board.
+     * @param theHeight the height of the board.
+     */
+    PieceStates(final int theWidth, final int theHeight) {
+        myColumns = theWidth + 2 * MARGIN;
+        myRows = theHeight + 2 * MARGIN;
+        myEnabled = (long) myColumns * myRows <= MAX_POSITIONS;
+        myStates = new MovableTetrisPiece[TetrisPiece.values().length * ROTATIONS][];
+    }
+
+    /**
+     * Creates the spawn state of every TetrisPiece for a board of this size, so that
+     * spawning and holding pieces reuses the same immutable MovableTetrisPiece objects.
+     *
+     * @param theWidth the width of the board.
+     * @param theHeight the height of the board.
+     * @return the spawn state of each TetrisPiece.
+     */
+    Map<TetrisPiece, MovableTetrisPiece> createSpawnPieces(final int theWidth,
+                                                           final int theHeight) {
+        final Map<TetrisPiece, MovableTetrisPiece> spawnPieces =
+                        new EnumMap<TetrisPiece, MovableTetrisPiece>(TetrisPiece.class);
+        for (final TetrisPiece piece : TetrisPiece.values()) {
+            int startY = theHeight - 1;
+            if (piece == TetrisPiece.I) {
+                startY--;
+            }
+            spawnPieces.put(piece, get(piece, Rotation.START,
+                                       PackedPoints.pack((theWidth - piece.getWidth()) / 2,
+                                                         startY)));
+        }
+        return spawnPieces;
+    }
+
+    /**
+     * Returns the state of a piece, creating it if it has not been reached before.
+     *
+     * @param thePiece the TetrisPiece.
+     * @param theRotation the Rotation.
+     * @param thePosition the board position, packed by PackedPoints.
+     * @return the shared state.
+     */
+    MovableTetrisPiece get(final TetrisPiece thePiece, final Rotation theRotation,
+                           final int thePosition) {
+        final int column = PackedPoints.x(thePosition) + MARGIN;
+        final int row = PackedPoints.y(thePosition) + MARGIN;
+        MovableTetrisPiece result;
+        if (myEnabled && column >= 0 && column < myColumns && row >= 0 && row < myRows) {
+            final int table = thePiece.ordinal() * ROTATIONS + theRotation.ordinal();
+            if (myStates[table] == null) {
+                myStates[table] = new MovableTetrisPiece[myColumns * myRows];
+            }
+            final int index = row * myColumns + column;
+            result = myStates[table][index];
+            if (result == null) {
+                result = new MovableTetrisPiece(thePiece, thePosition, theRotation, this);
+                myStates[table][index] = result;
+            }
+        } else {
+            result = new MovableTetrisPiece(thePiece, thePosition, theRotation, this);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Counts the ticks that drive gravity and lock delay for the movable piece of a Board.
+ *
+ * Gravity is measured in ticks per row, both normally and while soft dropping.
+ * Once the piece rests on something it locks after the lock delay has elapsed.
+ * Moving or rotating a resting piece restarts the lock delay, but only a limited number
+ * of times until the piece reaches a row lower than it has been before.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class PieceTimer {
+
+    /**
+     * The number of bytes writeState() writes: eight ints and a byte.
+     */
+    static final int STATE_SIZE = 8 * Integer.BYTES + 1;
+
+    /**
+     * Default number of ticks for the piece to fall one row.
+     */
+    static final int DEFAULT_GRAVITY = 60;
+
+    /**
+     * Default number of ticks for the piece to fall one row while soft dropping.
+     */
+    static final int DEFAULT_SOFT_DROP_GRAVITY = 2;
+
+    /**
+     * Default number of ticks a resting piece waits before it locks.
+     */
+    static final int DEFAULT_LOCK_DELAY = 30;
+
+    /**
+     * Default number of times moving a resting piece may restart the lock delay.
+     */
+    static final int DEFAULT_MOVE_RESET_LIMIT = 15;
+
+    /**
+     * Number of ticks for the piece to fall one row.
+     */
+    private int myGravity;
+
+    /**
+     * Number of ticks for the piece to fall one row while soft dropping.
+     */
+    private int mySoftDropGravity;
+
+    /**
+     * Number of ticks a resting piece waits before it locks.
+     */
+    private int myLockDelay;
+
+    /**
+     * Number of times moving a resting piece may restart the lock delay.
+     */
+    private int myMoveResetLimit;
+
+    /**
+     * Whether the piece is soft dropping.
+     */
+    private boolean mySoftDrop;
+
+    /**
+     * Ticks since the piece last fell.
+     */
+    private int myFallTicks;
+
+    /**
+     * Ticks the piece has been resting.
+     */
+    private int myLockTicks;
+
+    /**
+     * Number of times the lock delay has been restarted.
+     */
+    private int myMoveResets;
+
+    /**
+     * The lowest row the piece has reached.
+     */
+    private int myLowestRow;
+
+    /**
+     * Constructs a PieceTimer with the default rates.
+     */
+    PieceTimer() {
+        myGravity = DEFAULT_GRAVITY;
+        mySoftDropGravity = DEFAULT_SOFT_DROP_GRAVITY;
+        myLockDelay = DEFAULT_LOCK_DELAY;
+        myMoveResetLimit = DEFAULT_MOVE_RESET_LIMIT;
+    }
+
+    /**
+     * Sets the number of ticks for the piece to fall one row.
+     *
+     * @param theTicks ticks per row, at least 1.
+     */
+    void setGravity(final int theTicks) {
+        myGravity = checkAtLeast(theTicks, 1);
+    }
+
+    /**
+     * Sets the number of ticks for the piece to fall one row while soft dropping.
+     *
+     * @param theTicks ticks per row, at least 1.
+     */
+    void setSoftDropGravity(final int theTicks) {
+        mySoftDropGravity = checkAtLeast(theTicks, 1);
+    }
+
+    /**
+     * Sets the number of ticks a resting piece waits before it locks.
+     *
+     * @param theTicks the lock delay, at least 0.
+     */
+    void setLockDelay(final int theTicks) {
+        myLockDelay = checkAtLeast(theTicks, 0);
+    }
+
+    /**
+     * Sets the number of times moving a resting piece may restart the lock delay.
+     *
+     * @param theLimit the move reset limit, at least 0.
+     */
+    void setMoveResetLimit(final int theLimit) {
+        myMoveResetLimit = checkAtLeast(theLimit, 0);
+    }
+
+    /**
+     * Sets whether the piece is soft dropping.
+     *
+     * @param theSoftDrop true while soft dropping.
+     */
+    void setSoftDrop(final boolean theSoftDrop) {
+        mySoftDrop = theSoftDrop;
+    }
+
+    /**
+     * Starts timing a newly spawned piece.
+     *
+     * @param theRow the row the piece spawned at.
+     */
+    void spawn(final int theRow) {
+        myFallTicks = 0;
+        myLockTicks = 0;
+        myMoveResets = 0;
+        myLowestRow = theRow;
+    }
+
+    /**
+     * Advances one tick while the piece is in the air.
+     *
+     * @return true if the piece should fall one row this tick.
+     */
+    boolean fallTick() {
+        int gravity = myGravity;
+        if (mySoftDrop) {
+            gravity = Math.min(myGravity, mySoftDropGravity);
+        }
+        myFallTicks++;
+        final boolean result = myFallTicks >= gravity;
+        if (result) {
+            myFallTicks = 0;
+        }
+        return result;
+    }
+
+    /**
+     * Advances one tick while the piece is resting.
+     *
+     * @return true if the piece should lock this tick.
+     */
+    boolean lockTick() {
+        myLockTicks++;
+        return myLockTicks > myLockDelay;
+    }
+
+    /**
+     * Records that the piece fell one row.
+     *
+     * @param theRow the row the piece fell to.
+     */
+    void fell(final int theRow) {
+        myFallTicks = 0;
+        myLockTicks = 0;
+        if (theRow < myLowestRow) {
+            myLowestRow = theRow;
+            myMoveResets = 0;
+        }
+    }
+
+    /**
+     * Records that the piece moved or rotated, restarting the lock delay of a resting
+     * piece if the move reset limit allows.
+     */
+    void moved() {
+        if (myLockTicks > 0 && myMoveResets < myMoveResetLimit) {
+            myLockTicks = 0;
+            myMoveResets++;
+        }
+    }
+
+    /**
+     * Writes the settings and counters of this timer.
+     *
+     * @param theBuffer the buffer to write to.
+     */
+    void writeState(final ByteBuffer theBuffer) {
+        theBuffer.putInt(myGravity);
+        theBuffer.putInt(mySoftDropGravity);
+        theBuffer.putInt(myLockDelay);
+        theBuffer.putInt(myMoveResetLimit);
+        theBuffer.putInt(myFallTicks);
+        theBuffer.putInt(myLockTicks);
+        theBuffer.putInt(myMoveResets);
+        theBuffer.putInt(myLowestRow);
+        byte softDrop = 0;
+        if (mySoftDrop) {
+            softDrop = 1;
+        }
+        theBuffer.put(softDrop);
+    }
+
+    /**
+     * Reads settings and counters written by writeState().
+     *
+     * @param theBuffer the buffer to read from.
+     */
+    void readState(final ByteBuffer theBuffer) {
+        setGravity(theBuffer.getInt());
+        setSoftDropGravity(theBuffer.getInt());
+        setLockDelay(theBuffer.getInt());
+        setMoveResetLimit(theBuffer.getInt());
+        myFallTicks = theBuffer.getInt();
+        myLockTicks = theBuffer.getInt();
+        myMoveResets = theBuffer.getInt();
+        myLowestRow = theBuffer.getInt();
+        mySoftDrop = theBuffer.get() != 0;
+    }
+
+    /**
+     * Checks that a setting is not below its minimum.
+     *
+     * @param theValue the setting.
+     * @param theMinimum the smallest allowed value.
+     * @return theValue.
+     * @throws IllegalArgumentException if theValue is below theMinimum.
+     */
+    private static int checkAtLeast(final int theValue, final int theMinimum) {
+        if (theValue < theMinimum) {
+            throw new IllegalArgumentException("Expected at least " + theMinimum
+                                               + " but was " + theValue);
+        }
+        return theValue;
+    }
+}
@@ -0,0 +1,404 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * Places pieces on bitboards the way a Board would, for programs such as bots that
+ * try every placement of a piece and cannot afford a Board for each.
+ *
+ * A bitboard is one long per row, bottom row first, with column x in bit x, as
+ * written by BoardFeatures.writeRows() for boards at most 64 columns wide. A placement
+ * is given by an action as TetrisEnv takes them: action / width clockwise rotations
+ * (with wall kicks), a shift against the left wall, a shift of action % width columns
+ * to the right (as far as the piece gets), and a drop. The result is the bitboard a
+ * Board would have once the piece locked and full rows were cleared, except that
+ * queued garbage is not inserted.
+ *
+ * A Placements keeps scratch space, so each thread needs its own.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class Placements {
+
+    /**
+     * The widest board supported, the bits of a long.
+     */
+    public static final int MAX_WIDTH = Long.SIZE;
+
+    /**
+     * The result of a placement that locks a block above the top, ending the game.
+     */
+    public static final int TOP_OUT = -1;
+
+    /**
+     * The number of Rotations.
+     */
+    private static final int ROTATIONS = Rotation.values().length;
+
+    /**
+     * The size of the local grid of a piece.
+     */
+    private static final int SHAPE_SIZE = 4;
+
+    /**
+     * The bits of a key used by the shape of a placed piece.
+     */
+    private static final int SHAPE_BITS = SHAPE_SIZE * SHAPE_SIZE;
+
+    /**
+     * The row masks of each shape, indexed by piece and rotation then local row.
+     */
+    private static final long[][] MASKS = new long[TetrisPiece.values().length
+                                                   * ROTATIONS][SHAPE_SIZE];
+
+    /**
+     * The leftmost, rightmost and lowest local block coordinates and the shape bits of
+     * each shape, indexed by piece and rotation.
+     */
+    private static final int[][] BOUNDS = new int[TetrisPiece.values().length
+                                                  * ROTATIONS][SHAPE_SIZE];
+
+    /**
+     * The index of the leftmost block in BOUNDS.
+     */
+    private static final int MIN_X = 0;
+
+    /**
+     * The index of the rightmost block in BOUNDS.
+     */
+    private static final int MAX_X = 1;
+
+    /**
+     * The index of the lowest block in BOUNDS.
+     */
+    private static final int MIN_Y = 2;
+
+    /**
+     * The index of the shape bits in BOUNDS: bit y * 4 + x for each block, relative
+     * to the leftmost and lowest blocks.
+     */
+    private static final int BITS = 3;
+
+    static {
+        for (final TetrisPiece piece : TetrisPiece.values()) {
+            for (final Rotation rotation : Rotation.values()) {
+                initShape(piece, rotation);
+            }
+        }
+    }
+
+    /**
+     * The width of the boards.
+     */
+    private final int myWidth;
+
+    /**
+     * The height of the boards.
+     */
+    private final int myHeight;
+
+    /**
+     * The bits of a full row.
+     */
+    private final long myFullRow;
+
+    /**
+     * The keys of the placements found by placeAll().
+     */
+    private final long[] myKeys;
+
+    /**
+     * The rotation of the piece being placed.
+     */
+    private int myRotation;
+
+    /**
+     * The x coordinate of the piece being placed.
+     */
+    private int myX;
+
+    /**
+     * The y coordinate of the piece being placed.
+     */
+    private int myY;
+
+    /**
+     * Creates placements for a board size.
+     *
+     * @param theWidth the width of the boards.
+     * @param theHeight the height of the boards.
+     * @throws IllegalArgumentException if theWidth is more than MAX_WIDTH.
+     */
+    public Placements(final int theWidth, final int theHeight) {
+        if (theWidth > MAX_WIDTH) {
+            throw new IllegalArgumentException("Boards wider than " + MAX_WIDTH
+                                               + " columns are not bitboards");
+        }
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myFullRow = -1L >>> MAX_WIDTH - theWidth;
+        myKeys = new long[getActionCount()];
+    }
+
+    /**
+     * Returns the number of actions.
+     *
+     * @return the number of actions, from 0.
+     */
+    public int getActionCount() {
+        return ROTATIONS * myWidth;
+    }
+
+    /**
+     * Places a piece on a bitboard.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @param theAction the action, from 0 to getActionCount() - 1.
+     * @param theOut the array to write the resulting bitboard to.
+     * @param theOutOffset the index of its bottom row.
+     * @return the number of rows cleared, or TOP_OUT if the game ends, in which case
+     *         nothing is written.
+     */
+    public int place(final long[] theRows, final int theOffset, final int thePiece,
+                     final int theAction, final long[] theOut, final int theOutOffset) {
+        move(theRows, theOffset, thePiece, theAction);
+        return lock(theRows, theOffset, thePiece, theOut, theOutOffset);
+    }
+
+    /**
+     * Places a piece on a bitboard in every distinct way, writing the resulting
+     * bitboards one after another. Actions that leave the piece's blocks on the same
+     * cells as an earlier action, and actions that end the game, are left out.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @param theOut the array to write the resulting bitboards to, with room for
+     *        getActionCount() of them.
+     * @param theLines the array to write the rows cleared by each placement to.
+     * @param theActions the array to write the action of each placement to.
+     * @return the number of placements written.
+     */
+    public int placeAll(final long[] theRows, final int theOffset, final int thePiece,
+                        final long[] theOut, final int[] theLines, final int[] theActions) {
+        int count = 0;
+        for (int action = 0; action < getActionCount(); action++) {
+            move(theRows, theOffset, thePiece, action);
+            final long key = getKey(thePiece);
+            if (!contains(myKeys, count, key)) {
+                final int lines = lock(theRows, theOffset, thePiece, theOut,
+                                       count * myHeight);
+                if (lines != TOP_OUT) {
+                    myKeys[count] = key;
+                    theLines[count] = lines;
+                    theActions[count] = action;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Moves a piece from its spawn position as an action does, up to the point it
+     * locks.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @param theAction the action.
+     */
+    private void move(final long[] theRows, final int theOffset, final int thePiece,
+                      final int theAction) {
+        final TetrisPiece piece = TetrisPiece.values()[thePiece];
+        myRotation = 0;
+        myX = (myWidth - piece.getWidth()) / 2;
+        myY = myHeight - 1;
+        if (piece == TetrisPiece.I) {
+            myY--;
+        }
+        for (int i = theAction / myWidth; i > 0; i--) {
+            rotate(theRows, theOffset, piece);
+        }
+        for (int i = 0; i < myWidth && isLegal(theRows, theOffset, thePiece, myX - 1, myY);
+             i++) {
+            myX--;
+        }
+        for (int i = theAction % myWidth;
+             i > 0 && isLegal(theRows, theOffset, thePiece, myX + 1, myY); i--) {
+            myX++;
+        }
+        while (isLegal(theRows, theOffset, thePiece, myX, myY - 1)) {
+            myY--;
+        }
+    }
+
+    /**
+     * Rotates the piece clockwise with the first wall kick that fits, if any.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the piece.
+     */
+    private void rotate(final long[] theRows, final int theOffset,
+                        final TetrisPiece thePiece) {
+        final int[] kicks = PackedPoints.getClockwiseKicks(thePiece,
+                                                           Rotation.values()[myRotation]);
+        final int rotation = myRotation;
+        myRotation = (rotation + 1) % ROTATIONS;
+        int kick = 0;
+        while (kick < kicks.length
+               && !isLegal(theRows, theOffset, thePiece.ordinal(),
+                           myX + PackedPoints.x(kicks[kick]),
+                           myY + PackedPoints.y(kicks[kick]))) {
+            kick++;
+        }
+        if (kick < kicks.length) {
+            myX += PackedPoints.x(kicks[kick]);
+            myY += PackedPoints.y(kicks[kick]);
+        } else {
+            myRotation = rotation;
+        }
+    }
+
+    /**
+     * Checks whether the piece fits at a position in the current rotation, that is
+     * whether it is within the walls and the floor and overlaps no frozen block.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @param theX the x coordinate of the piece.
+     * @param theY the y coordinate of the piece.
+     * @return true if the piece fits.
+     */
+    private boolean isLegal(final long[] theRows, final int theOffset, final int thePiece,
+                            final int theX, final int theY) {
+        final int shape = thePiece * ROTATIONS + myRotation;
+        final int[] bounds = BOUNDS[shape];
+        boolean result = theX + bounds[MIN_X] >= 0 && theX + bounds[MAX_X] < myWidth
+                         && theY + bounds[MIN_Y] >= 0;
+        for (int row = 0; row < SHAPE_SIZE && result; row++) {
+            final int y = theY + row;
+            result = MASKS[shape][row] == 0 || y >= myHeight
+                     || (theRows[theOffset + y] & shift(MASKS[shape][row], theX)) == 0;
+        }
+        return result;
+    }
+
+    /**
+     * Locks the piece where it is, writing the resulting bitboard with full rows
+     * cleared.
+     *
+     * @param theRows the bitboard.
+     * @param theOffset the index of its bottom row.
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @param theOut the array to write the resulting bitboard to.
+     * @param theOutOffset the index of its bottom row.
+     * @return the number of rows cleared, or TOP_OUT.
+     */
+    private int lock(final long[] theRows, final int theOffset, final int thePiece,
+                     final long[] theOut, final int theOutOffset) {
+        final long[] masks = MASKS[thePiece * ROTATIONS + myRotation];
+        int result = 0;
+        for (int row = 0; row < SHAPE_SIZE && result != TOP_OUT; row++) {
+            if (masks[row] != 0 && myY + row >= myHeight) {
+                result = TOP_OUT;
+            }
+        }
+        if (result != TOP_OUT) {
+            int to = 0;
+            for (int y = 0; y < myHeight; y++) {
+                long row = theRows[theOffset + y];
+                if (y >= myY && y < myY + SHAPE_SIZE) {
+                    row |= shift(masks[y - myY], myX);
+                }
+                theOut[theOutOffset + to] = row;
+                if (row != myFullRow) {
+                    to++;
+                }
+            }
+            result = myHeight - to;
+            for (; to < myHeight; to++) {
+                theOut[theOutOffset + to] = 0;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a key of the cells the piece's blocks are on, the same for every
+     * rotation and position that puts them on the same cells.
+     *
+     * @param thePiece the TetrisPiece ordinal of the piece.
+     * @return the key.
+     */
+    private long getKey(final int thePiece) {
+        final int[] bounds = BOUNDS[thePiece * ROTATIONS + myRotation];
+        final long cell = (long) (myY + bounds[MIN_Y]) * myWidth + myX + bounds[MIN_X];
+        return cell << SHAPE_BITS | bounds[BITS];
+    }
+
+    /**
+     * Moves a row mask to an x coordinate.
+     *
+     * @param theMask the mask of a piece row at x 0.
+     * @param theX the x coordinate, which may be negative if the mask's low bits are
+     *        clear.
+     * @return the moved mask.
+     */
+    private static long shift(final long theMask, final int theX) {
+        long result = theMask >>> -theX;
+        if (theX >= 0) {
+            result = theMask << theX;
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the start of an array contains a value.
+     *
+     * @param theArray the array.
+     * @param theLength the number of values to check.
+     * @param theValue the value.
+     * @return true if one of the first theLength values is theValue.
+     */
+    private static boolean contains(final long[] theArray, final int theLength,
+                                    final long theValue) {
+        boolean result = false;
+        for (int i = 0; i < theLength && !result; i++) {
+            result = theArray[i] == theValue;
+        }
+        return result;
+    }
+
+    /**
+     * Computes the row masks and bounds of a shape.
+     *
+     * @param thePiece the piece.
+     * @param theRotation the rotation.
+     */
+    private static void initShape(final TetrisPiece thePiece, final Rotation theRotation) {
+        final int shape = thePiece.ordinal() * ROTATIONS + theRotation.ordinal();
+        final int[] points = PackedPoints.getShape(thePiece, theRotation);
+        final int[] bounds = BOUNDS[shape];
+        bounds[MIN_X] = SHAPE_SIZE;
+        bounds[MIN_Y] = SHAPE_SIZE;
+        for (final int p : points) {
+            MASKS[shape][PackedPoints.y(p)] |= 1L << PackedPoints.x(p);
+            bounds[MIN_X] = Math.min(bounds[MIN_X], PackedPoints.x(p));
+            bounds[MAX_X] = Math.max(bounds[MAX_X], PackedPoints.x(p));
+            bounds[MIN_Y] = Math.min(bounds[MIN_Y], PackedPoints.y(p));
+        }
+        for (final int p : points) {
+            final int x = PackedPoints.x(p) - bounds[MIN_X];
+            final int y = PackedPoints.y(p) - bounds[MIN_Y];
+            bounds[BITS] |= 1 << y * SHAPE_SIZE + x;
+        }
+    }
+}
@@ -4,8 +4,6 @@
 
 package model;
 
-import java.util.Objects;
-
 /**
  * Represents a Point with x and y coordinates.
  * Point objects are immutable.
@@ -89,7 +87,8 @@ public final class Point {
 
     @Override
     public int hashCode() {
-        return Objects.hash(myX, myY);
+        // the same value as Objects.hash(myX, myY), without boxing
+        return (31 + myX) * 31 + myY;
     }
 
     @Override
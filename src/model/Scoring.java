@@ -0,0 +1,72 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+/**
+ * The scoring of a game: the level reached after clearing some lines, and the score
+ * of clearing rows at once on a level. The score board and the bot tournament both
+ * score games this way, so their scores can be compared.
+ *
+ * Levels start at 1 and go up every LINE_ROLLOVER lines. Clearing rows scores the
+ * points for that many rows times the level they were cleared on.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public final class Scoring {
+
+    /**
+     * The number of lines cleared before the next level starts.
+     */
+    public static final int LINE_ROLLOVER = 5;
+
+    /**
+     * The points for clearing 1 to 4 rows at once on level 1.
+     * (pulled from a description about Tetris scoring).
+     */
+    private static final int[] LINE_SCORES = {40, 100, 300, 1200};
+
+    /**
+     * Not instantiable.
+     */
+    private Scoring() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Provides the level of a game after clearing some lines.
+     *
+     * @param theLines The total number of lines cleared.
+     * @return The level, from 1.
+     */
+    public static int getLevel(final int theLines) {
+        return theLines / LINE_ROLLOVER + 1;
+    }
+
+    /**
+     * Provides the number of lines still to clear before the next level.
+     *
+     * @param theLines The total number of lines cleared.
+     * @return The number of lines, from 1 to LINE_ROLLOVER.
+     */
+    public static int getLinesToNextLevel(final int theLines) {
+        return LINE_ROLLOVER - theLines % LINE_ROLLOVER;
+    }
+
+    /**
+     * Provides the score of clearing rows at once.
+     *
+     * @param theRows The number of rows cleared at once.
+     * @param theLevel The level they were cleared on.
+     * @return The score, or 0 if no rows were cleared.
+     */
+    public static int getScore(final int theRows, final int theLevel) {
+        int result = 0;
+        if (theRows > 0) {
+            result = LINE_SCORES[Math.min(theRows, LINE_SCORES.length) - 1] * theLevel;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Helpers for writing the frozen blocks and movable piece of a Board in a
+ * compact binary form.
+ *
+ * Frozen blocks are bit-packed at four bits per cell (enough for an empty
+ * cell and the eight Block types), row by row from the bottom of the board.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+final class StateCodec {
+
+    /**
+     * The number of bits used for each cell.
+     */
+    private static final int BITS_PER_CELL = 4;
+
+    /**
+     * Mask of the bits of one cell.
+     */
+    private static final int CELL_MASK = (1 << BITS_PER_CELL) - 1;
+
+    /**
+     * Mask of the bits of one byte.
+     */
+    private static final int BYTE_MASK = 0xFF;
+
+    /**
+     * The number of bytes written for a movable piece: type, rotation, x and y.
+     */
+    private static final int PIECE_SIZE = 2 + 2 * Integer.BYTES;
+
+    /**
+     * All Blocks, indexed by ordinal.
+     */
+    private static final Block[] BLOCKS = Block.values();
+
+    /**
+     * All Rotations, indexed by ordinal.
+     */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /**
+     * Private constructor to prevent instantiation.
+     */
+    private StateCodec() { }
+
+    /**
+     * Returns the number of bytes needed for the cells of a board.
+     *
+     * @param theWidth the width of the board.
+     * @param theHeight the height of the board.
+     * @return the packed size of the cells in bytes.
+     */
+    static int getCellsSize(final int theWidth, final int theHeight) {
+        return (int) (((long) theWidth * theHeight * BITS_PER_CELL + Byte.SIZE - 1)
+                      / Byte.SIZE);
+    }
+
+    /**
+     * Returns the number of bytes written by writePiece().
+     *
+     * @return the size of a piece in bytes.
+     */
+    static int getPieceSize() {
+        return PIECE_SIZE;
+    }
+
+    /**
+     * Writes the cells of a board, four bits per cell. Each row is packed from the
+     * grid's own array of Block ordinals, or skipped if it is empty, into a scratch
+     * row and written with one bulk put, so a large board is written in milliseconds.
+     *
+     * @param theGrid the frozen blocks of the board.
+     * @param theWidth the width of the board.
+     * @param theHeight the height of the board.
+     * @param theBuffer the buffer to write to.
+     */
+    static void writeCells(final Grid theGrid, final int theWidth, final int theHeight,
+                           final ByteBuffer theBuffer) {
+        final byte[] packed = new byte[theWidth / 2 + 1];
+        // a cell left over from an odd-width row shares a byte with the next row
+        int carry = -1;
+        for (int y = 0; y < theHeight; y++) {
+            final byte[] row = theGrid.getRow(y);
+            int x = 0;
+            int count = 0;
+            if (carry >= 0) {
+                packed[0] = (byte) (carry | row[0] << BITS_PER_CELL);
+                x = 1;
+                count = 1;
+            }
+            if (theGrid.getFilled(y) == 0) {
+                // most rows of a large board are empty, and pack to zero bytes
+                final int pairs = (theWidth - x) / 2;
+                Arrays.fill(packed, count, count + pairs, (byte) 0);
+                count += pairs;
+                x += 2 * pairs;
+            }
+            while (x + 1 < theWidth) {
+                packed[count] = (byte) (row[x] | row[x + 1] << BITS_PER_CELL);
+                count++;
+                x += 2;
+            }
+            carry = -1;
+            if (x < theWidth) {
+                carry = row[x];
+            }
+            theBuffer.put(packed, 0, count);
+        }
+        if (carry >= 0) {
+            theBuffer.put((byte) carry);
+        }
+    }
+
+    /**
+     * Reads cells written by writeCells() into a grid.
+     *
+     * @param theGrid the frozen blocks of the board to fill.
+     * @param theWidth the width of the board.
+     * @param theHeight the height of the board.
+     * @param theBuffer the buffer to read from.
+     */
+    static void readCells(final Grid theGrid, final int theWidth, final int theHeight,
+                          final ByteBuffer theBuffer) {
+        int bits = 0;
+        int bitCount = 0;
+        for (int y = 0; y < theHeight; y++) {
+            for (int x = 0; x < theWidth; x++) {
+                if (bitCount < BITS_PER_CELL) {
+                    bits |= (theBuffer.get() & BYTE_MASK) << bitCount;
+                    bitCount += Byte.SIZE;
+                }
+                final int cell = bits & CELL_MASK;
+                bits >>>= BITS_PER_CELL;
+                bitCount -= BITS_PER_CELL;
+                theGrid.set(x, y, BLOCKS[cell]);
+            }
+        }
+    }
+
+    /**
+     * Writes a movable piece as its type, rotation and position.
+     *
+     * @param thePiece the piece to write, or null.
+     * @param theBuffer the buffer to write to.
+     */
+    static void writePiece(final MovableTetrisPiece thePiece, final ByteBuffer theBuffer) {
+        if (thePiece == null) {
+            theBuffer.put((byte) -1);
+            theBuffer.put((byte) 0);
+            theBuffer.putInt(0);
+            theBuffer.putInt(0);
+        } else {
+            theBuffer.put(PieceQueue.pieceCode(thePiece.getTetrisPiece()));
+            theBuffer.put((byte) thePiece.getRotation().ordinal());
+            theBuffer.putInt(thePiece.getX());
+            theBuffer.putInt(thePiece.getY());
+        }
+    }
+
+    /**
+     * Reads a movable piece written by writePiece().
+     *
+     * @param theBuffer the buffer to read from.
+     * @param theStates the table of piece states of the board.
+     * @return the piece, or null.
+     */
+    static MovableTetrisPiece readPiece(final ByteBuffer theBuffer,
+                                        final PieceStates theStates) {
+        final TetrisPiece piece = PieceQueue.pieceFromCode(theBuffer.get());
+        final Rotation rotation = ROTATIONS[theBuffer.get()];
+        final int x = theBuffer.getInt();
+        final int y = theBuffer.getInt();
+        MovableTetrisPiece result = null;
+        if (piece != null) {
+            result = theStates.get(piece, rotation, PackedPoints.pack(x, y));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import model.Block;
+import model.Input;
+import model.MovableTetrisPiece;
+import model.Point;
+import model.Rotation;
+import model.TetrisPiece;
+
+/**
+ * A client of the battle server. It joins a match, sends inputs, and keeps a copy of
+ * the cells of both boards from the deltas the server sends. It can instead watch a
+ * match, and then keeps a copy of both boards from the spectator frames.
+ *
+ * The client blocks while reading and writing, so it is meant to be used by one
+ * thread, such as a game loop or a test driving many clients.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class BattleClient implements Closeable {
+    /** The size of the buffer of bytes to send. */
+    private static final int OUT_SIZE = 256;
+
+    /** The Blocks by ordinal. */
+    private static final Block[] BLOCKS = Block.values();
+
+    /** The TetrisPieces by ordinal. */
+    private static final TetrisPiece[] PIECES = TetrisPiece.values();
+
+    /** The Rotations by ordinal. */
+    private static final Rotation[] ROTATIONS = Rotation.values();
+
+    /** The bits of a cell of a keyframe. */
+    private static final int CELL_BITS = 4;
+
+    /** Mask of the bits of a cell of a keyframe. */
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+
+    /** The channel to the server. */
+    private final SocketChannel myChannel;
+
+    /** Bytes received and not yet handled, ready for writing into. */
+    private final ByteBuffer myIn;
+
+    /** The buffer of bytes to send. */
+    private final ByteBuffer myOut;
+
+    /** The cells of both boards by Block ordinal, row by row from the bottom. */
+    private final byte[][] myCells;
+
+    /** The garbage rows sent to each player so far. */
+    private final int[] myGarbage;
+
+    /** The cells of the movable piece of each board, when watching. */
+    private final Point[][] myPieceCells;
+
+    /** The Block of the movable piece of each board, when watching. */
+    private final Block[] myPieceBlocks;
+
+    /** The index of this client's player in the match. */
+    private int myPlayer;
+
+    /** The width of the boards. */
+    private int myWidth;
+
+    /** The height of the boards. */
+    private int myHeight;
+
+    /** Whether a match has started. */
+    private boolean myStarted;
+
+    /** Whether the match has ended. */
+    private boolean myEnded;
+
+    /** The index of the winner, or Protocol.DRAW. */
+    private int myWinner;
+
+    /** The predicted board of this client's player, once a match has started. */
+    private Prediction myPrediction;
+
+    /**
+     * Connects to a battle server.
+     *
+     * @param theHost The host of the server.
+     * @param thePort The port of the server.
+     * @throws IOException if the connection fails.
+     */
+    public BattleClient(final String theHost, final int thePort) throws IOException {
+        myChannel = SocketChannel.open(new InetSocketAddress(theHost, thePort));
+        myChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        myIn = ByteBuffer.allocate(Protocol.MAX_FRAME);
+        myOut = ByteBuffer.allocate(OUT_SIZE);
+        myCells = new byte[Match.PLAYERS][];
+        myGarbage = new int[Match.PLAYERS];
+        myPieceCells = new Point[Match.PLAYERS][];
+        myPieceBlocks = new Block[Match.PLAYERS];
+    }
+
+    /**
+     * Asks to be matched against another player with the same board size.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     * @throws IOException if sending fails.
+     */
+    public void join(final int theWidth, final int theHeight) throws IOException {
+        myStarted = false;
+        myEnded = false;
+        myPrediction = null;
+        myOut.clear();
+        final int start = Protocol.beginFrame(myOut, Protocol.JOIN);
+        myOut.putShort((short) theWidth);
+        myOut.putShort((short) theHeight);
+        Protocol.endFrame(myOut, start);
+        write();
+    }
+
+    /**
+     * Asks to watch the newest match, or the next one to start.
+     *
+     * @throws IOException if sending fails.
+     */
+    public void watch() throws IOException {
+        myStarted = false;
+        myEnded = false;
+        myPrediction = null;
+        myOut.clear();
+        Protocol.endFrame(myOut, Protocol.beginFrame(myOut, Protocol.WATCH));
+        write();
+    }
+
+    /**
+     * Sends inputs to apply to this client's board on the next tick, and applies them
+     * to the predicted board at once. Inputs that do not fit in one frame are sent in
+     * several.
+     *
+     * @param theInputs The inputs.
+     * @throws IOException if sending fails.
+     */
+    public void sendInputs(final Input... theInputs) throws IOException {
+        if (myPrediction != null && !myEnded) {
+            myPrediction.predict(theInputs);
+        }
+        myOut.clear();
+        int start = Protocol.beginFrame(myOut, Protocol.INPUTS);
+        for (final Input input : theInputs) {
+            if (!myOut.hasRemaining()) {
+                Protocol.endFrame(myOut, start);
+                write();
+                myOut.clear();
+                start = Protocol.beginFrame(myOut, Protocol.INPUTS);
+            }
+            myOut.put(input.getCode());
+        }
+        Protocol.endFrame(myOut, start);
+        write();
+    }
+
+    /**
+     * Waits for the server to send something and handles every whole message
+     * received.
+     *
+     * @throws IOException if reading fails or the server closed the connection.
+     */
+    public void receive() throws IOException {
+        if (myChannel.read(myIn) < 0) {
+            throw new EOFException("Server closed the connection");
+        }
+        myIn.flip();
+        int length = Protocol.frameLength(myIn);
+        while (length > 0) {
+            final int end = myIn.position() + Protocol.LENGTH_SIZE + length;
+            myIn.position(myIn.position() + Protocol.LENGTH_SIZE);
+            handle(myIn.get(), end);
+            myIn.position(end);
+            length = Protocol.frameLength(myIn);
+        }
+        myIn.compact();
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        myChannel.close();
+    }
+
+    /**
+     * Provides the index of this client's player in the match.
+     *
+     * @return The index.
+     */
+    public int getPlayer() {
+        return myPlayer;
+    }
+
+    /**
+     * Provides the width of the boards.
+     *
+     * @return The width.
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Provides the height of the boards.
+     *
+     * @return The height.
+     */
+    public int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Provides a cell of a board, as last sent by the server.
+     *
+     * @param thePlayer The index of the player of the board.
+     * @param theX The column.
+     * @param theY The row, from the bottom.
+     * @return The Block in the cell.
+     */
+    public Block getBlock(final int thePlayer, final int theX, final int theY) {
+        Block result = BLOCKS[myCells[thePlayer][theY * myWidth + theX]];
+        if (result == Block.EMPTY && myPieceCells[thePlayer] != null) {
+            for (final Point cell : myPieceCells[thePlayer]) {
+                if (cell.getX() == theX && cell.getY() == theY) {
+                    result = myPieceBlocks[thePlayer];
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Provides the predicted board of this client's player: the board as the server
+     * will have it once it applies the inputs sent so far.
+     *
+     * @return The prediction, or null if no match was joined or it has not started.
+     */
+    public Prediction getPrediction() {
+        return myPrediction;
+    }
+
+    /**
+     * Provides the garbage rows sent to a player so far in the match.
+     *
+     * @param thePlayer The index of the player.
+     * @return The number of garbage rows.
+     */
+    public int getGarbage(final int thePlayer) {
+        return myGarbage[thePlayer];
+    }
+
+    /**
+     * Checks whether a match has started.
+     *
+     * @return true if a match has started.
+     */
+    public boolean isStarted() {
+        return myStarted;
+    }
+
+    /**
+     * Checks whether the match has ended.
+     *
+     * @return true if the match has ended.
+     */
+    public boolean isEnded() {
+        return myEnded;
+    }
+
+    /**
+     * Provides the winner of the match once it has ended.
+     *
+     * @return The index of the winner, or -1 if both players lost on the same tick.
+     */
+    public int getWinner() {
+        return myWinner;
+    }
+
+    /**
+     * Handles one message from the server.
+     *
+     * @param theType The type of the message.
+     * @param theEnd The position of the end of the message.
+     * @throws IOException if the message is not one the server sends.
+     */
+    private void handle(final byte theType, final int theEnd) throws IOException {
+        if (theType == Protocol.START) {
+            myPlayer = myIn.get();
+            startMatch(myIn.getShort(), myIn.getShort());
+            myPrediction = new Prediction(myWidth, myHeight, myIn.getLong());
+        } else if (theType == Protocol.KEYFRAME) {
+            readKeyframe(myIn.get());
+        } else if (theType == Protocol.PIECE) {
+            readPiece(myIn.get());
+        } else if (theType == Protocol.DELTA || theType == Protocol.CELLS) {
+            readCells(myIn.get());
+        } else if (theType == Protocol.GARBAGE) {
+            final int player = myIn.get();
+            myGarbage[player] += myIn.get();
+            myIn.get();
+        } else if (theType == Protocol.APPLIED) {
+            readApplied(theEnd);
+        } else if (theType == Protocol.END) {
+            myWinner = myIn.get();
+            myEnded = true;
+        } else {
+            throw new IOException("Bad message type " + theType);
+        }
+    }
+
+    /**
+     * Starts mirroring a match.
+     *
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     */
+    private void startMatch(final int theWidth, final int theHeight) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        for (int i = 0; i < Match.PLAYERS; i++) {
+            myCells[i] = new byte[theWidth * theHeight];
+            myGarbage[i] = 0;
+            myPieceCells[i] = null;
+        }
+        myStarted = true;
+    }
+
+    /**
+     * Reads the rest of a DELTA or CELLS.
+     *
+     * @param thePlayer The index of the player of the board.
+     */
+    private void readCells(final int thePlayer) {
+        final byte[] cells = myCells[thePlayer];
+        final int count = myIn.getShort() & Protocol.SHORT_MASK;
+        for (int i = 0; i < count; i++) {
+            final int cell = myIn.getInt();
+            cells[cell] = myIn.get();
+        }
+    }
+
+    /**
+     * Reads the rest of an APPLIED and confirms the tick to the predicted board.
+     *
+     * @param theEnd The position of the end of the message.
+     */
+    private void readApplied(final int theEnd) {
+        final int received = myIn.getInt();
+        final int rows = myIn.get();
+        final int hole = myIn.get();
+        final Input[] applied = new Input[theEnd - myIn.position()];
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = Input.fromCode(myIn.get());
+        }
+        if (myPrediction != null) {
+            myPrediction.confirm(received, applied, applied.length, rows, hole);
+        }
+    }
+
+    /**
+     * Reads the rest of a KEYFRAME.
+     *
+     * @param thePlayer The index of the player of the board.
+     */
+    private void readKeyframe(final int thePlayer) {
+        myIn.getLong();
+        final int width = myIn.getShort();
+        final int height = myIn.getShort();
+        if (!myStarted || width != myWidth || height != myHeight) {
+            startMatch(width, height);
+        }
+        readPiece(thePlayer);
+        final byte[] cells = myCells[thePlayer];
+        for (int i = 0; i < cells.length; i += 2) {
+            final int bits = myIn.get();
+            cells[i] = (byte) (bits & CELL_MASK);
+            if (i + 1 < cells.length) {
+                cells[i + 1] = (byte) (bits >>> CELL_BITS & CELL_MASK);
+            }
+        }
+    }
+
+    /**
+     * Reads the movable piece of a board, from a KEYFRAME or a PIECE.
+     *
+     * @param thePlayer The index of the player of the board.
+     */
+    private void readPiece(final int thePlayer) {
+        final int piece = myIn.get();
+        final int rotation = myIn.get();
+        final Point position = new Point(myIn.getShort(), myIn.getShort());
+        myPieceCells[thePlayer] = null;
+        if (piece >= 0) {
+            final MovableTetrisPiece movable =
+                new MovableTetrisPiece(PIECES[piece], position, ROTATIONS[rotation]);
+            final Point[] cells = movable.getLocalPoints();
+            for (int i = 0; i < cells.length; i++) {
+                cells[i] = cells[i].transform(position);
+            }
+            myPieceCells[thePlayer] = cells;
+            myPieceBlocks[thePlayer] = movable.getBlock();
+        }
+    }
+
+    /**
+     * Sends the buffer of bytes to send.
+     *
+     * @throws IOException if sending fails.
+     */
+    private void write() throws IOException {
+        myOut.flip();
+        while (myOut.hasRemaining()) {
+            myChannel.write(myOut);
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import model.BoardProbes;
+import utility.EngineProbe;
+
+/**
+ * A server for two player battles. Clients join with the board size they want, are
+ * matched with the next client asking for the same size, and then send their inputs
+ * while the server plays both boards, exchanges garbage rows between them and sends
+ * back the cells that changed (see Protocol). Other clients can watch a match, and
+ * are sent its boards by the match's spectator feeds.
+ *
+ * All connections and matches are handled by one thread with a Selector, so the
+ * server keeps no thread per client and a match needs no locking; a tick of a match
+ * costs far less than its 60 Hz period, so one thread serves thousands of matches.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class BattleServer implements Runnable, Closeable {
+    /** The port used when none is given. */
+    public static final int DEFAULT_PORT = 30_305;
+
+    /** The logger of server failures. */
+    private static final Logger LOGGER = Logger.getLogger(BattleServer.class.getName());
+
+    /** The number of ticks per second. */
+    private static final int TICKS_PER_SECOND = 60;
+
+    /** The time between ticks, in nanoseconds. */
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+
+    /** The number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The selector of all channels. */
+    private final Selector mySelector;
+
+    /** The channel accepting connections. */
+    private final ServerSocketChannel myServer;
+
+    /** The player waiting for an opponent, by the board size it asked for. */
+    private final Map<Long, Player> myLobby;
+
+    /** The matches being played. */
+    private final List<Match> myMatches;
+
+    /** The spectators waiting for a match to start. */
+    private final List<Player> myWaitingSpectators;
+
+    /** The number of matches being played, for other threads. */
+    private volatile int myMatchCount;
+
+    /**
+     * Creates a server listening on a port of the local machine.
+     *
+     * @param thePort The port, or 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public BattleServer(final int thePort) throws IOException {
+        mySelector = Selector.open();
+        myServer = ServerSocketChannel.open();
+        myServer.bind(new InetSocketAddress(thePort));
+        myServer.configureBlocking(false);
+        myServer.register(mySelector, SelectionKey.OP_ACCEPT);
+        myLobby = new HashMap<>();
+        myMatches = new ArrayList<>();
+        myWaitingSpectators = new ArrayList<>();
+    }
+
+    /**
+     * Provides the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return myServer.socket().getLocalPort();
+    }
+
+    /**
+     * Provides the number of matches being played.
+     *
+     * @return The number of matches.
+     */
+    public int getMatchCount() {
+        return myMatchCount;
+    }
+
+    /**
+     * Runs the server on a new daemon thread.
+     *
+     * @return The thread.
+     */
+    public Thread start() {
+        final Thread thread = new Thread(this, "battle-server");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Serves clients until the server is closed.
+     */
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime() + TICK_NANOS;
+        try {
+            while (myServer.isOpen()) {
+                final long wait = nextTick - System.nanoTime();
+                if (wait > 0) {
+                    // rounded up, so the last part of a millisecond is slept rather than spun
+                    mySelector.select((wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+                } else {
+                    mySelector.selectNow();
+                }
+                handleKeys();
+                if (System.nanoTime() - nextTick >= 0) {
+                    tick();
+                    nextTick += TICK_NANOS;
+                }
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.SEVERE, "Battle server stopped", e);
+        } finally {
+            closeChannels();
+        }
+    }
+
+    /**
+     * Stops the server. The thread running it closes every connection and returns.
+     *
+     * @throws IOException if closing the channel accepting connections fails.
+     */
+    @Override
+    public void close() throws IOException {
+        myServer.close();
+        mySelector.wakeup();
+    }
+
+    /**
+     * Starts a server on the port given as the first argument, or the default port.
+     *
+     * @param theArgs The command line arguments.
+     * @throws IOException if the port cannot be opened.
+     */
+    public static void main(final String... theArgs) throws IOException {
+        int port = DEFAULT_PORT;
+        if (theArgs.length > 0) {
+            port = Integer.parseInt(theArgs[0]);
+        }
+        BoardProbes.install(new EngineProbe());
+        try (BattleServer server = new BattleServer(port)) {
+            System.out.println("Battle server listening on port " + server.getPort());
+            server.run();
+        }
+    }
+
+    /**
+     * Handles the channels the selector reported as ready.
+     *
+     * @throws IOException if accepting a connection fails.
+     */
+    private void handleKeys() throws IOException {
+        final Iterator<SelectionKey> keys = mySelector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            final SelectionKey key = keys.next();
+            keys.remove();
+            if (key.isValid() && key.isAcceptable()) {
+                accept();
+            } else if (key.isValid()) {
+                handlePlayer((Player) key.attachment(), key);
+            }
+        }
+    }
+
+    /**
+     * Accepts a waiting connection, if there is one.
+     *
+     * @throws IOException if accepting fails.
+     */
+    private void accept() throws IOException {
+        final SocketChannel channel = myServer.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            final SelectionKey key = channel.register(mySelector, SelectionKey.OP_READ);
+            key.attach(new Player(channel, key));
+        }
+    }
+
+    /**
+     * Reads from or writes to a player's channel, disconnecting the player if it
+     * closed the connection or sent a bad message.
+     *
+     * @param thePlayer The player.
+     * @param theKey The key of the player's channel.
+     */
+    private void handlePlayer(final Player thePlayer, final SelectionKey theKey) {
+        try {
+            if (theKey.isWritable()) {
+                thePlayer.flush();
+            }
+            if (theKey.isReadable() && !thePlayer.read()) {
+                disconnect(thePlayer);
+            } else if (thePlayer.takeJoin()) {
+                join(thePlayer);
+            } else if (thePlayer.takeWatch()) {
+                watch(thePlayer);
+            }
+        } catch (final IOException e) {
+            disconnect(thePlayer);
+        } catch (final RuntimeException e) {
+            // a bug handling one client must not stop the server for everyone
+            LOGGER.log(Level.WARNING, "Failed to handle a client", e);
+            disconnect(thePlayer);
+        }
+    }
+
+    /**
+     * Matches a player with the player waiting for the same board size, or makes it
+     * wait. A player waiting to watch a match stops waiting.
+     *
+     * @param thePlayer The player.
+     */
+    private void join(final Player thePlayer) {
+        // a player already waiting may join again, possibly for another size, and a
+        // spectator waiting for a match may join instead
+        myLobby.values().remove(thePlayer);
+        myWaitingSpectators.remove(thePlayer);
+        final Long size = thePlayer.getSizeKey();
+        final Player opponent = myLobby.remove(size);
+        if (opponent == null) {
+            myLobby.put(size, thePlayer);
+        } else {
+            final int width = (int) (size >>> Integer.SIZE);
+            final int height = size.intValue();
+            final Match match = new Match(opponent, thePlayer, width, height);
+            myMatches.add(match);
+            myMatchCount = myMatches.size();
+            for (final Player spectator : myWaitingSpectators) {
+                match.watch(spectator);
+            }
+            myWaitingSpectators.clear();
+        }
+    }
+
+    /**
+     * Makes a player a spectator of the newest match, or of the next match to start
+     * if none is being played. A player waiting for an opponent stops waiting.
+     *
+     * @param thePlayer The player.
+     */
+    private void watch(final Player thePlayer) {
+        // a player waiting for an opponent may watch instead
+        myLobby.values().remove(thePlayer);
+        myWaitingSpectators.remove(thePlayer);
+        if (myMatches.isEmpty() || myMatches.get(myMatches.size() - 1).isOver()) {
+            myWaitingSpectators.add(thePlayer);
+        } else {
+            myMatches.get(myMatches.size() - 1).watch(thePlayer);
+        }
+    }
+
+    /**
+     * Closes a player's connection, taking it out of the lobby and forfeiting its
+     * match.
+     *
+     * @param thePlayer The player.
+     */
+    private void disconnect(final Player thePlayer) {
+        myLobby.remove(thePlayer.getSizeKey(), thePlayer);
+        myWaitingSpectators.remove(thePlayer);
+        if (thePlayer.getMatch() != null) {
+            thePlayer.getMatch().forfeit(thePlayer);
+        }
+        if (thePlayer.getWatched() != null) {
+            thePlayer.getWatched().unwatch(thePlayer);
+        }
+        thePlayer.close();
+    }
+
+    /**
+     * Closes every connection and the selector, once the server has stopped.
+     */
+    private void closeChannels() {
+        try {
+            for (final SelectionKey key : mySelector.keys()) {
+                key.channel().close();
+            }
+            mySelector.close();
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close the connections", e);
+        }
+    }
+
+    /**
+     * Plays one tick of a match, disconnecting its players if the tick fails.
+     *
+     * @param theMatch The match.
+     * @return true if the match ended on this tick.
+     */
+    private boolean step(final Match theMatch) {
+        boolean result = true;
+        try {
+            result = theMatch.step();
+        } catch (final RuntimeException e) {
+            // a bug playing one match must not stop the server for everyone
+            LOGGER.log(Level.WARNING, "Match failed to tick", e);
+            for (int i = 0; i < Match.PLAYERS; i++) {
+                disconnect(theMatch.getPlayer(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Plays one tick of every match and sends the results.
+     */
+    private void tick() {
+        final Iterator<Match> matches = myMatches.iterator();
+        while (matches.hasNext()) {
+            final Match match = matches.next();
+            if (match.isOver() || step(match)) {
+                matches.remove();
+            }
+        }
+        myMatchCount = myMatches.size();
+        for (final SelectionKey key : mySelector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Player) {
+                final Player player = (Player) key.attachment();
+                try {
+                    player.flush();
+                } catch (final IOException e) {
+                    disconnect(player);
+                }
+            }
+        }
+    }
+}
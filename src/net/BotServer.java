@@ -0,0 +1,625 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import model.BoardProbes;
+import model.Input;
+import utility.EngineProbe;
+
+/**
+ * An HTTP server on the local machine through which bots in other processes play
+ * games. Each game is a BotSession, either in lockstep, where the board only moves
+ * when the bot steps it, or ticked by the server 60 times a second.
+ *
+ * <pre>
+ * POST   /games?width=&amp;height=&amp;seed=&amp;lockstep=   starts a game (default 10 x
+ *        20, a random seed, in lockstep) and answers its state
+ * GET    /games/{id}               the state as JSON (see BotSession.toJson()), or
+ *                                  with ?format=binary as a KEYFRAME frame
+ * POST   /games/{id}/inputs?ticks= applies the inputs in the body and then the ticks
+ *                                  (default 1) and answers the state, in lockstep;
+ *                                  otherwise keeps them for the next tick
+ * GET    /games/{id}/frames        streams the board as KEYFRAME, CELLS and PIECE
+ *                                  frames (see Protocol) until the game is over
+ * DELETE /games/{id}               ends the game
+ * </pre>
+ * A game is also ended and forgotten once it has been over for 30 seconds, or after 5
+ * minutes without requests or streams (see BotSession.isExpired()); finished games
+ * are not ticked.
+ * Inputs are sent as Input names separated by commas or spaces, or with the content
+ * type application/octet-stream as one Input code per byte.
+ *
+ * Each request is handled by a task of its own, and a stream blocks its task for as
+ * long as it lasts. When the runtime has virtual threads the tasks run on them, so
+ * hundreds of streaming bots cost no more than hundreds of small objects; otherwise
+ * they run on a bounded pool of platform threads, with room for MAX_STREAMS streams
+ * beside the other requests. Further games and streams are refused as unavailable.
+ *
+ * Responses are small, so without TCP_NODELAY each one waits for the bot's delayed
+ * acknowledgement of the last, about 40 ms, which caps a bot in lockstep at 25 steps
+ * a second. The JDK's server only sets it when the system property
+ * sun.net.httpserver.nodelay is true before the first server is created; main() sets
+ * it, and an application embedding the server should too.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class BotServer implements Closeable {
+    /** The port used when none is given. */
+    public static final int DEFAULT_PORT = 30_306;
+
+    /** The most games played at once, and the most connections waiting to be accepted. */
+    public static final int MAX_GAMES = 1024;
+
+    /** The most frame streams open at once. */
+    public static final int MAX_STREAMS = MAX_GAMES;
+
+    /** The logger of failed games. */
+    private static final Logger LOGGER = Logger.getLogger(BotServer.class.getName());
+
+    /** The path of the games. */
+    private static final String PATH = "/games";
+
+    /** The most parts of the path of a game: "", the identifier and an action. */
+    private static final int MAX_PARTS = 3;
+
+    /** The number of ticks per second of games not in lockstep. */
+    private static final int TICKS_PER_SECOND = 60;
+
+    /** The time between ticks, in nanoseconds. */
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1) / TICKS_PER_SECOND;
+
+    /** The most ticks of one step of a game in lockstep. */
+    private static final int MAX_TICKS = 3600;
+
+    /** The most bytes of inputs in one request. */
+    private static final int MAX_BODY = 4096;
+
+    /** The default width of a board. */
+    private static final int DEFAULT_WIDTH = 10;
+
+    /** The default height of a board. */
+    private static final int DEFAULT_HEIGHT = 20;
+
+    /** The content type of JSON. */
+    private static final String JSON = "application/json";
+
+    /** The content type of binary frames and input codes. */
+    private static final String BINARY = "application/octet-stream";
+
+    /** The content type of error messages. */
+    private static final String TEXT = "text/plain; charset=utf-8";
+
+    /** The system property that makes the server set TCP_NODELAY on connections. */
+    private static final String NODELAY = "sun.net.httpserver.nodelay";
+
+    /** The platform threads for requests other than streams, without virtual threads. */
+    private static final int REQUEST_THREADS = 16;
+
+    /** The seconds an idle platform thread of the request pool is kept. */
+    private static final long IDLE_SECONDS = 60;
+
+    /** The server. */
+    private final HttpServer myServer;
+
+    /** The executor of the tasks handling requests. */
+    private final ExecutorService myExecutor;
+
+    /** The thread ticking games not in lockstep. */
+    private final ScheduledExecutorService myTicker;
+
+    /** The games by identifier. */
+    private final Map<Integer, BotSession> myGames;
+
+    /** The identifier of the next game. */
+    private final AtomicInteger myNextId;
+
+    /** The number of games, reserved before a game is added. */
+    private final AtomicInteger myGameCount;
+
+    /** The number of open frame streams. */
+    private final AtomicInteger myStreamCount;
+
+    /**
+     * Creates a server listening on a port of the loopback address.
+     *
+     * @param thePort The port, or 0 for any free port.
+     * @throws IOException if the port cannot be opened.
+     */
+    public BotServer(final int thePort) throws IOException {
+        myServer = HttpServer.create(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), thePort), MAX_GAMES);
+        myExecutor = newRequestExecutor();
+        myTicker = Executors.newSingleThreadScheduledExecutor(
+            theTask -> newDaemon(theTask, "bot-ticker"));
+        myGames = new ConcurrentHashMap<>();
+        myNextId = new AtomicInteger();
+        myGameCount = new AtomicInteger();
+        myStreamCount = new AtomicInteger();
+        myServer.setExecutor(myExecutor);
+        myServer.createContext(PATH, this::handle);
+    }
+
+    /**
+     * Provides the port the server is listening on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return myServer.getAddress().getPort();
+    }
+
+    /**
+     * Provides the number of games being played.
+     *
+     * @return The number of games.
+     */
+    public int getGameCount() {
+        return myGames.size();
+    }
+
+    /**
+     * Starts serving requests and ticking games.
+     */
+    public void start() {
+        myServer.start();
+        myTicker.scheduleAtFixedRate(this::tick, TICK_NANOS, TICK_NANOS,
+                                     TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Ends every game and stops the server.
+     */
+    @Override
+    public void close() {
+        myTicker.shutdownNow();
+        for (final BotSession game : myGames.values()) {
+            endGame(game);
+        }
+        myServer.stop(0);
+        myExecutor.shutdown();
+    }
+
+    /**
+     * Starts a server on the port given as the first argument, or the default port.
+     *
+     * @param theArgs The command line arguments.
+     * @throws IOException if the port cannot be opened.
+     */
+    public static void main(final String... theArgs) throws IOException {
+        int port = DEFAULT_PORT;
+        if (theArgs.length > 0) {
+            port = Integer.parseInt(theArgs[0]);
+        }
+        if (System.getProperty(NODELAY) == null) {
+            System.setProperty(NODELAY, "true");
+        }
+        BoardProbes.install(new EngineProbe());
+        final BotServer server = new BotServer(port);
+        server.start();
+        System.out.println("Bot server listening on http://localhost:" + server.getPort()
+                           + PATH);
+    }
+
+    /**
+     * Ticks every game not in lockstep, and ends and forgets the games that expired
+     * or failed to tick.
+     */
+    private void tick() {
+        final long now = System.nanoTime();
+        for (final BotSession game : myGames.values()) {
+            if (game.isExpired(now) || (!game.isLockstep() && !tickGame(game))) {
+                endGame(game);
+            }
+        }
+    }
+
+    /**
+     * Ends a game and forgets it, releasing its place among the MAX_GAMES.
+     *
+     * @param theGame The game.
+     */
+    private void endGame(final BotSession theGame) {
+        // only the caller that removes the game releases its place
+        if (myGames.remove(theGame.getId(), theGame)) {
+            myGameCount.decrementAndGet();
+        }
+        theGame.close();
+    }
+
+    /**
+     * Reserves a place for a new game among the MAX_GAMES.
+     *
+     * @return false if there are already MAX_GAMES games.
+     */
+    private boolean reserveGame() {
+        final boolean result = myGameCount.incrementAndGet() <= MAX_GAMES;
+        if (!result) {
+            myGameCount.decrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Ticks a game not in lockstep, so that a game failing cannot stop the ticker,
+     * which would stop every other game.
+     *
+     * @param theGame The game.
+     * @return false if the tick failed and the game must be ended.
+     */
+    private static boolean tickGame(final BotSession theGame) {
+        boolean result = true;
+        try {
+            theGame.tick();
+        } catch (final RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Game " + theGame.getId() + " failed to tick", e);
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Handles a request.
+     *
+     * @param theExchange The request and its response.
+     * @throws IOException if reading the request or writing the response fails.
+     */
+    private void handle(final HttpExchange theExchange) throws IOException {
+        try {
+            final String path = theExchange.getRequestURI().getPath().substring(PATH.length());
+            final String[] parts = path.split("/");
+            if (path.isEmpty() || "/".equals(path)) {
+                createGame(theExchange);
+            } else {
+                BotSession game = null;
+                if (parts.length > 1 && parts.length <= MAX_PARTS && parts[0].isEmpty()) {
+                    game = myGames.get(Integer.valueOf(parts[1]));
+                }
+                if (game == null) {
+                    respond(theExchange, HttpURLConnection.HTTP_NOT_FOUND, TEXT,
+                            "No such game\n".getBytes(StandardCharsets.UTF_8));
+                } else if (parts.length == 2) {
+                    handleGame(theExchange, game, "");
+                } else {
+                    handleGame(theExchange, game, parts[2]);
+                }
+            }
+        } catch (final IllegalArgumentException e) {
+            respond(theExchange, HttpURLConnection.HTTP_BAD_REQUEST, TEXT,
+                    (e.getMessage() + "\n").getBytes(StandardCharsets.UTF_8));
+        } finally {
+            theExchange.close();
+        }
+    }
+
+    /**
+     * Starts a game, if the request is a POST.
+     *
+     * @param theExchange The request and its response.
+     * @throws IOException if writing the response fails.
+     */
+    private void createGame(final HttpExchange theExchange) throws IOException {
+        final Map<String, String> query = getQuery(theExchange);
+        if (!"POST".equals(theExchange.getRequestMethod())) {
+            respond(theExchange, HttpURLConnection.HTTP_BAD_METHOD, TEXT, new byte[0]);
+        } else if (!reserveGame()) {
+            respond(theExchange, HttpURLConnection.HTTP_UNAVAILABLE, TEXT,
+                    "Too many games\n".getBytes(StandardCharsets.UTF_8));
+        } else {
+            final BotSession game;
+            try {
+                game = new BotSession(
+                    myNextId.incrementAndGet(),
+                    getInt(query, "width", DEFAULT_WIDTH, Protocol.MIN_SIZE,
+                           Protocol.MAX_SIZE),
+                    getInt(query, "height", DEFAULT_HEIGHT, Protocol.MIN_SIZE,
+                           Protocol.MAX_SIZE),
+                    Long.parseLong(query.getOrDefault("seed",
+                                                      String.valueOf(System.nanoTime()))),
+                    !"false".equals(query.get("lockstep")));
+            } catch (final RuntimeException e) {
+                myGameCount.decrementAndGet();
+                throw e;
+            }
+            myGames.put(game.getId(), game);
+            respond(theExchange, HttpURLConnection.HTTP_CREATED, JSON,
+                    game.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Handles a request about a game.
+     *
+     * @param theExchange The request and its response.
+     * @param theGame The game.
+     * @param theAction The part of the path after the game's identifier, or "".
+     * @throws IOException if reading the request or writing the response fails.
+     */
+    private void handleGame(final HttpExchange theExchange, final BotSession theGame,
+                            final String theAction) throws IOException {
+        theGame.touch();
+        switch (theExchange.getRequestMethod() + " " + theAction) {
+            case "GET ":
+                sendState(theExchange, theGame, HttpURLConnection.HTTP_OK);
+                break;
+            case "DELETE ":
+                endGame(theGame);
+                respond(theExchange, HttpURLConnection.HTTP_NO_CONTENT, TEXT, new byte[0]);
+                break;
+            case "POST inputs":
+                applyInputs(theExchange, theGame);
+                break;
+            case "GET frames":
+                stream(theExchange, theGame);
+                break;
+            default:
+                respond(theExchange, getStatus(theAction), TEXT, new byte[0]);
+                break;
+        }
+    }
+
+    /**
+     * Provides the status of a request about a game that is not handled.
+     *
+     * @param theAction The part of the path after the game's identifier, or "".
+     * @return Method not allowed if the path is one of a game, and otherwise not found.
+     */
+    private static int getStatus(final String theAction) {
+        int result = HttpURLConnection.HTTP_NOT_FOUND;
+        if (theAction.isEmpty() || "inputs".equals(theAction)
+            || "frames".equals(theAction)) {
+            result = HttpURLConnection.HTTP_BAD_METHOD;
+        }
+        return result;
+    }
+
+    /**
+     * Applies the inputs of a request to a game: at once, followed by ticks, in
+     * lockstep, and otherwise on the next tick.
+     *
+     * @param theExchange The request and its response.
+     * @param theGame The game.
+     * @throws IOException if reading the request or writing the response fails.
+     */
+    private void applyInputs(final HttpExchange theExchange, final BotSession theGame)
+        throws IOException {
+        final Input[] inputs = readInputs(theExchange);
+        if (theGame.isLockstep()) {
+            theGame.step(inputs, getInt(getQuery(theExchange), "ticks", 1, 0, MAX_TICKS));
+            sendState(theExchange, theGame, HttpURLConnection.HTTP_OK);
+        } else {
+            theGame.queue(inputs);
+            respond(theExchange, HttpURLConnection.HTTP_ACCEPTED, TEXT, new byte[0]);
+        }
+    }
+
+    /**
+     * Streams the frames of a game until the game is over, the game is ended or the
+     * bot goes away, unless MAX_STREAMS streams are already open.
+     *
+     * @param theExchange The request and its response.
+     * @param theGame The game.
+     * @throws IOException if writing the response fails.
+     */
+    private void stream(final HttpExchange theExchange, final BotSession theGame)
+        throws IOException {
+        drain(theExchange);
+        if (myStreamCount.incrementAndGet() > MAX_STREAMS) {
+            myStreamCount.decrementAndGet();
+            respond(theExchange, HttpURLConnection.HTTP_UNAVAILABLE, TEXT,
+                    "Too many streams\n".getBytes(StandardCharsets.UTF_8));
+        } else {
+            theExchange.getResponseHeaders().set("Content-Type", BINARY);
+            theExchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, 0);
+            final BotStream stream = new BotStream();
+            theGame.subscribe(stream);
+            try (OutputStream out = theExchange.getResponseBody()) {
+                stream.writeTo(out);
+            } finally {
+                theGame.unsubscribe(stream);
+                myStreamCount.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Sends the state of a game, as JSON or, if the request asks for it, a keyframe.
+     *
+     * @param theExchange The request and its response.
+     * @param theGame The game.
+     * @param theStatus The status of the response.
+     * @throws IOException if writing the response fails.
+     */
+    private static void sendState(final HttpExchange theExchange, final BotSession theGame,
+                                  final int theStatus) throws IOException {
+        if ("binary".equals(getQuery(theExchange).get("format"))) {
+            respond(theExchange, theStatus, BINARY, theGame.toKeyframe());
+        } else {
+            respond(theExchange, theStatus, JSON,
+                    theGame.toJson().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Sends a response.
+     *
+     * @param theExchange The request and its response.
+     * @param theStatus The status.
+     * @param theType The content type of the body.
+     * @param theBody The body, which may be empty.
+     * @throws IOException if writing the response fails.
+     */
+    private static void respond(final HttpExchange theExchange, final int theStatus,
+                                final String theType, final byte[] theBody)
+        throws IOException {
+        drain(theExchange);
+        if (theBody.length == 0) {
+            theExchange.sendResponseHeaders(theStatus, -1);
+        } else {
+            theExchange.getResponseHeaders().set("Content-Type", theType);
+            theExchange.sendResponseHeaders(theStatus, theBody.length);
+            try (OutputStream out = theExchange.getResponseBody()) {
+                out.write(theBody);
+            }
+        }
+    }
+
+    /**
+     * Reads whatever is left of the body of a request. The server would otherwise read
+     * it after the response, while the bot may already be sending its next request on
+     * the same connection, and the connection is sometimes reset.
+     *
+     * @param theExchange The request.
+     * @throws IOException if reading the request fails.
+     */
+    private static void drain(final HttpExchange theExchange) throws IOException {
+        theExchange.getRequestBody().close();
+    }
+
+    /**
+     * Reads the inputs in the body of a request: one Input code per byte if the body
+     * is application/octet-stream, and otherwise Input names separated by commas or
+     * spaces.
+     *
+     * @param theExchange The request.
+     * @return The inputs.
+     * @throws IOException if reading the request fails.
+     * @throws IllegalArgumentException if the body is too long or not inputs.
+     */
+    private static Input[] readInputs(final HttpExchange theExchange) throws IOException {
+        final byte[] body = theExchange.getRequestBody().readNBytes(MAX_BODY + 1);
+        if (body.length > MAX_BODY) {
+            throw new IllegalArgumentException("More than " + MAX_BODY + " bytes of inputs");
+        }
+        Input[] result;
+        if (BINARY.equals(theExchange.getRequestHeaders().getFirst("Content-Type"))) {
+            result = new Input[body.length];
+            for (int i = 0; i < body.length; i++) {
+                result[i] = Input.fromCode(body[i]);
+            }
+        } else {
+            final String text = new String(body, StandardCharsets.UTF_8).trim();
+            result = new Input[0];
+            if (!text.isEmpty()) {
+                final String[] names = text.split("[\\s,]+");
+                result = new Input[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    result[i] = Input.valueOf(names[i].toUpperCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the parameters of the query of a request.
+     *
+     * @param theExchange The request.
+     * @return The values of the parameters by name.
+     */
+    private static Map<String, String> getQuery(final HttpExchange theExchange) {
+        final Map<String, String> result = new HashMap<>();
+        final String query = theExchange.getRequestURI().getRawQuery();
+        if (query != null) {
+            for (final String parameter : query.split("&")) {
+                final int equals = parameter.indexOf('=');
+                if (equals > 0) {
+                    result.put(URLDecoder.decode(parameter.substring(0, equals),
+                                                 StandardCharsets.UTF_8),
+                               URLDecoder.decode(parameter.substring(equals + 1),
+                                                 StandardCharsets.UTF_8));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads a whole number parameter.
+     *
+     * @param theQuery The parameters by name.
+     * @param theName The name of the parameter.
+     * @param theDefault The value if the parameter is missing.
+     * @param theMin The smallest value allowed.
+     * @param theMax The largest value allowed.
+     * @return The value.
+     * @throws IllegalArgumentException if the value is not a number within the range.
+     */
+    private static int getInt(final Map<String, String> theQuery, final String theName,
+                              final int theDefault, final int theMin, final int theMax) {
+        int result = theDefault;
+        if (theQuery.containsKey(theName)) {
+            result = Integer.parseInt(theQuery.get(theName));
+        }
+        if (result < theMin || result > theMax) {
+            throw new IllegalArgumentException(theName + " must be from " + theMin
+                                               + " to " + theMax);
+        }
+        return result;
+    }
+
+    /**
+     * Creates the executor of the tasks handling requests: one virtual thread per
+     * task when the runtime has them, and otherwise a bounded pool of daemon threads,
+     * enough for every stream and some other requests; further tasks wait in line.
+     *
+     * @return The executor.
+     */
+    private static ExecutorService newRequestExecutor() {
+        ExecutorService result;
+        try {
+            // looked up at run time so the server still builds and runs without them
+            result = (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final ReflectiveOperationException e) {
+            final ThreadPoolExecutor pool = new ThreadPoolExecutor(
+                MAX_STREAMS + REQUEST_THREADS, MAX_STREAMS + REQUEST_THREADS,
+                IDLE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                theTask -> newDaemon(theTask, "bot-request"));
+            pool.allowCoreThreadTimeOut(true);
+            result = pool;
+        }
+        return result;
+    }
+
+    /**
+     * Creates a daemon thread.
+     *
+     * @param theTask The task of the thread.
+     * @param theName The name of the thread.
+     * @return The thread, not started.
+     */
+    private static Thread newDaemon(final Runnable theTask, final String theName) {
+        final Thread result = new Thread(theTask, theName);
+        result.setDaemon(true);
+        return result;
+    }
+}
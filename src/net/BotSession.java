@@ -0,0 +1,295 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import model.Block;
+import model.Board;
+import model.FrameEncoder;
+import model.Input;
+import model.MovableTetrisPiece;
+import model.PieceQueue;
+
+/**
+ * A game played by a bot through the BotServer.
+ *
+ * In lockstep the board only moves when the bot steps it, so a bot can think as long
+ * as it likes between ticks; otherwise the server ticks the board 60 times a second
+ * and the inputs the bot sends are applied on the next tick, as in a battle.
+ *
+ * The board is reached from the server's connection threads and its ticker, so every
+ * method holds the session's lock. Streams of the board are subscribers of a
+ * SpectatorFeed published under the same lock.
+ *
+ * A game without streams expires after IDLE_NANOS without requests, or OVER_NANOS
+ * once it is over, so that the server can forget games whose bots went away.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class BotSession {
+    /** The most inputs kept for the next tick of a game that is not in lockstep. */
+    private static final int MAX_INPUTS = 64;
+
+    /** The character of an empty cell in the JSON state. */
+    private static final char EMPTY_CELL = '.';
+
+    /** The time without requests after which a game expires, in nanoseconds. */
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /** The time after its end or last request after which a game that is over expires. */
+    private static final long OVER_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+    /** The identifier of the game. */
+    private final int myId;
+
+    /** Whether the board only moves when the bot steps it. */
+    private final boolean myLockstep;
+
+    /** The board. */
+    private final Board myBoard;
+
+    /** The feed of the board to streams. */
+    private final SpectatorFeed myFeed;
+
+    /** The streams of the board. */
+    private final List<BotStream> myStreams;
+
+    /** The inputs for the next tick, followed by a tick. */
+    private final Input[] myInputs;
+
+    /** The number of inputs for the next tick. */
+    private int myInputCount;
+
+    /** The time of the last request or of the end of the game, from System.nanoTime(). */
+    private long myLastUsed;
+
+    /**
+     * Creates a game and starts it.
+     *
+     * @param theId The identifier of the game.
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @param theSeed The seed of the board's pieces.
+     * @param theLockstep Whether the board only moves when the bot steps it.
+     */
+    BotSession(final int theId, final int theWidth, final int theHeight,
+               final long theSeed, final boolean theLockstep) {
+        myId = theId;
+        myLockstep = theLockstep;
+        myBoard = new Board(theWidth, theHeight, theSeed);
+        myBoard.newGame();
+        myFeed = new SpectatorFeed(myBoard, 0, SpectatorFeed.DEFAULT_KEYFRAME_INTERVAL);
+        myFeed.publish();
+        myStreams = new ArrayList<>();
+        myInputs = new Input[MAX_INPUTS + 1];
+        myLastUsed = System.nanoTime();
+    }
+
+    /**
+     * Provides the identifier of the game.
+     *
+     * @return The identifier.
+     */
+    int getId() {
+        return myId;
+    }
+
+    /**
+     * Checks whether the board only moves when the bot steps it.
+     *
+     * @return true if the game is in lockstep.
+     */
+    boolean isLockstep() {
+        return myLockstep;
+    }
+
+    /**
+     * Records that a request about the game was made, so that it does not expire.
+     */
+    synchronized void touch() {
+        myLastUsed = System.nanoTime();
+    }
+
+    /**
+     * Checks whether the game has no streams and has gone without requests for too
+     * long: IDLE_NANOS, or OVER_NANOS since its end if it is over.
+     *
+     * @param theNow The current time, from System.nanoTime().
+     * @return true if the game expired.
+     */
+    synchronized boolean isExpired(final long theNow) {
+        long timeout = IDLE_NANOS;
+        if (myBoard.isGameOver()) {
+            timeout = OVER_NANOS;
+        }
+        return myStreams.isEmpty() && theNow - myLastUsed >= timeout;
+    }
+
+    /**
+     * Applies inputs and then ticks, for a game in lockstep.
+     *
+     * @param theInputs The inputs.
+     * @param theTicks The number of ticks after the inputs.
+     */
+    synchronized void step(final Input[] theInputs, final int theTicks) {
+        myBoard.applyInputs(theInputs);
+        for (int i = 0; i < theTicks; i++) {
+            myBoard.tick();
+        }
+        publish();
+    }
+
+    /**
+     * Keeps inputs for the next tick, for a game not in lockstep. Inputs past the
+     * limit of a tick are dropped.
+     *
+     * @param theInputs The inputs.
+     */
+    synchronized void queue(final Input[] theInputs) {
+        final int count = Math.min(theInputs.length, MAX_INPUTS - myInputCount);
+        System.arraycopy(theInputs, 0, myInputs, myInputCount, count);
+        myInputCount += count;
+    }
+
+    /**
+     * Applies the kept inputs and ticks, for a game not in lockstep that is not over.
+     */
+    synchronized void tick() {
+        if (!myBoard.isGameOver()) {
+            myInputs[myInputCount] = Input.TICK;
+            myBoard.applyInputs(myInputs, 0, myInputCount + 1);
+            publish();
+        }
+        myInputCount = 0;
+    }
+
+    /**
+     * Adds a stream of the board. It is first sent the last keyframe and the deltas
+     * since, and ends when the game is over or the session is closed.
+     *
+     * @param theStream The stream.
+     */
+    synchronized void subscribe(final BotStream theStream) {
+        myFeed.subscribe(theStream);
+        myStreams.add(theStream);
+        if (myBoard.isGameOver()) {
+            theStream.end();
+        }
+    }
+
+    /**
+     * Removes a stream of the board.
+     *
+     * @param theStream The stream.
+     */
+    synchronized void unsubscribe(final BotStream theStream) {
+        myFeed.unsubscribe(theStream);
+        myStreams.remove(theStream);
+    }
+
+    /**
+     * Ends every stream of the board.
+     */
+    synchronized void close() {
+        for (final BotStream stream : myStreams) {
+            myFeed.unsubscribe(stream);
+            stream.end();
+        }
+        myStreams.clear();
+    }
+
+    /**
+     * Provides the board as a KEYFRAME frame (see Protocol and FrameEncoder).
+     *
+     * @return The frame.
+     */
+    synchronized byte[] toKeyframe() {
+        final FrameEncoder encoder = new FrameEncoder(myBoard);
+        final ByteBuffer buffer = ByteBuffer.allocate(Protocol.LENGTH_SIZE + 2
+                                                      + encoder.getKeyframeSize());
+        final int start = Protocol.beginFrame(buffer, Protocol.KEYFRAME);
+        buffer.put((byte) 0);
+        encoder.writeKeyframe(buffer);
+        Protocol.endFrame(buffer, start);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**
+     * Provides the state of the game as a JSON object: its identifier, tick count,
+     * whether it is over, the garbage rows queued, the held piece, the upcoming pieces
+     * and the rows of the board from the bottom, one character per cell with '.' for
+     * an empty cell and otherwise the name of the Block, the movable piece included.
+     *
+     * @return The JSON text.
+     */
+    synchronized String toJson() {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(myId);
+        json.append(",\"tick\":").append(myBoard.getTickCount());
+        json.append(",\"over\":").append(myBoard.isGameOver());
+        json.append(",\"lockstep\":").append(myLockstep);
+        json.append(",\"garbage\":").append(myBoard.getQueuedGarbage());
+        final PieceQueue queue = myBoard.getPieceQueue();
+        json.append(",\"hold\":");
+        appendPiece(json, queue.getHeldPiece());
+        json.append(",\"next\":[");
+        for (int i = 0; i < queue.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendPiece(json, queue.getNextPiece(i));
+        }
+        json.append("],\"rows\":[");
+        for (int y = 0; y < myBoard.getHeight(); y++) {
+            if (y > 0) {
+                json.append(',');
+            }
+            json.append('"');
+            for (int x = 0; x < myBoard.getWidth(); x++) {
+                final Block block = myBoard.getBlock(x, y);
+                if (block == Block.EMPTY) {
+                    json.append(EMPTY_CELL);
+                } else {
+                    json.append(block.name());
+                }
+            }
+            json.append('"');
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Sends what changed to the streams, and ends them if the game is over.
+     */
+    private void publish() {
+        myFeed.publish();
+        if (myBoard.isGameOver()) {
+            myLastUsed = System.nanoTime();
+            close();
+        }
+    }
+
+    /**
+     * Appends the name of a piece as a JSON string, or null.
+     *
+     * @param theJson The JSON text.
+     * @param thePiece The piece, or null.
+     */
+    private static void appendPiece(final StringBuilder theJson,
+                                    final MovableTetrisPiece thePiece) {
+        if (thePiece == null) {
+            theJson.append("null");
+        } else {
+            theJson.append('"').append(thePiece.getBlock().name()).append('"');
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stream of the frames of a bot's board to an HTTP response.
+ *
+ * The session hands the stream its frames under the session's lock, so receive()
+ * only queues them; the connection's own thread writes them out, blocking while
+ * there is nothing to write. A bot that reads too slowly for the queue is cut off
+ * rather than holding the frames of its board in memory.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class BotStream implements Subscriber {
+    /** The most publishes queued for a stream before it is cut off. */
+    private static final int MAX_QUEUED = 1024;
+
+    /** How often a waiting stream checks whether it has ended, in milliseconds. */
+    private static final long POLL_MILLIS = 100;
+
+    /** The frames to write. */
+    private final BlockingQueue<ByteBuffer> myQueue;
+
+    /** Whether the stream has ended. */
+    private volatile boolean myEnded;
+
+    /**
+     * Creates a stream with nothing to write yet.
+     */
+    BotStream() {
+        myQueue = new ArrayBlockingQueue<>(MAX_QUEUED);
+    }
+
+    @Override
+    public void receive(final ByteBuffer theFrames) {
+        // once a frame is lost the rest would not decode, so nothing more is queued
+        if (!myEnded && !myQueue.offer(theFrames)) {
+            myEnded = true;
+        }
+    }
+
+    /**
+     * Ends the stream once the frames already received are written.
+     */
+    void end() {
+        myEnded = true;
+    }
+
+    /**
+     * Writes frames as they are received until the stream ends.
+     *
+     * @param theOut The body of the response.
+     * @throws IOException if writing fails, for instance because the bot went away.
+     */
+    void writeTo(final OutputStream theOut) throws IOException {
+        final WritableByteChannel channel = Channels.newChannel(theOut);
+        try {
+            ByteBuffer frames = myQueue.poll();
+            while (frames != null || !myEnded) {
+                if (frames == null) {
+                    theOut.flush();
+                    frames = myQueue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } else {
+                    channel.write(frames);
+                    frames = myQueue.poll();
+                }
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        theOut.flush();
+    }
+}
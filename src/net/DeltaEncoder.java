@@ -0,0 +1,119 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+
+import model.Block;
+import model.Board;
+
+/**
+ * Encodes the changes to the cells of a board since they were last encoded, as DELTA
+ * frames. Only the cells that changed are sent, so a move of the piece is a handful of
+ * cells instead of the whole board, and boards that have not changed since the last
+ * delta (by Board.getChangeCount()) are not compared at all.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class DeltaEncoder {
+    /** The size of the length, type, player index and cell count of a frame. */
+    private static final int HEADER_SIZE = Protocol.LENGTH_SIZE + 2 + Short.BYTES;
+
+    /** The size of each changed cell: its index and its Block ordinal. */
+    private static final int CELL_SIZE = Integer.BYTES + 1;
+
+    /** The width of the board. */
+    private final int myWidth;
+
+    /** The height of the board. */
+    private final int myHeight;
+
+    /** The Block ordinal of each cell as last encoded, row by row from the bottom. */
+    private final byte[] myCells;
+
+    /** The change count of the board when it was last encoded. */
+    private long myChangeCount;
+
+    /**
+     * Creates an encoder for a board that starts empty, so the first delta has every
+     * filled cell.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     */
+    DeltaEncoder(final int theWidth, final int theHeight) {
+        myWidth = theWidth;
+        myHeight = theHeight;
+        myCells = new byte[theWidth * theHeight];
+        myChangeCount = -1;
+    }
+
+    /**
+     * Provides the size of the largest DELTA frame of a board, with every cell changed.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @return The size in bytes.
+     */
+    static int getMaxFrameSize(final int theWidth, final int theHeight) {
+        return HEADER_SIZE + CELL_SIZE * theWidth * theHeight;
+    }
+
+    /**
+     * Writes a DELTA frame of the cells that changed since the last call, if any did.
+     *
+     * @param theBoard The board.
+     * @param thePlayer The index of the player of the board.
+     * @param theBuffer The buffer to write the frame to.
+     * @return The number of cells that changed; no frame is written if it is 0.
+     */
+    int encode(final Board theBoard, final int thePlayer, final ByteBuffer theBuffer) {
+        int count = 0;
+        if (theBoard.getChangeCount() != myChangeCount) {
+            myChangeCount = theBoard.getChangeCount();
+            count = encodeCells(theBoard, thePlayer, theBuffer);
+        }
+        return count;
+    }
+
+    /**
+     * Compares every cell with the last encoding and writes a DELTA frame of the cells
+     * that changed, if any did.
+     *
+     * @param theBoard The board.
+     * @param thePlayer The index of the player of the board.
+     * @param theBuffer The buffer to write the frame to.
+     * @return The number of cells that changed.
+     */
+    private int encodeCells(final Board theBoard, final int thePlayer,
+                            final ByteBuffer theBuffer) {
+        final int start = Protocol.beginFrame(theBuffer, Protocol.DELTA);
+        theBuffer.put((byte) thePlayer);
+        final int countPosition = theBuffer.position();
+        theBuffer.putShort((short) 0);
+        int count = 0;
+        for (int y = 0; y < myHeight; y++) {
+            for (int x = 0; x < myWidth; x++) {
+                final Block block = theBoard.getBlock(x, y);
+                final int cell = y * myWidth + x;
+                if (myCells[cell] != block.ordinal()) {
+                    myCells[cell] = (byte) block.ordinal();
+                    theBuffer.putInt(cell);
+                    theBuffer.put(myCells[cell]);
+                    count++;
+                }
+            }
+        }
+        if (count == 0) {
+            theBuffer.position(start);
+        } else {
+            theBuffer.putShort(countPosition, (short) count);
+            Protocol.endFrame(theBuffer, start);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import model.Board;
+
+/**
+ * A match between two players. Each tick applies both players' inputs, queues the
+ * garbage rows each earned on the other's board (where they rise once that player
+ * locks a piece without clearing a line), sends the cells that changed to both, and
+ * ends the match once a board tops out. Spectators are fed both boards through a
+ * SpectatorFeed each.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class Match {
+    /** The number of players in a match. */
+    static final int PLAYERS = 2;
+
+    /** The garbage rows sent for clearing 0 to 4 lines at once. */
+    private static final int[] GARBAGE_ROWS = {0, 0, 1, 2, 4};
+
+    /** The size of a GARBAGE frame: length, type, player, rows and hole. */
+    private static final int GARBAGE_SIZE = Protocol.LENGTH_SIZE + 4 * Byte.BYTES;
+
+    /** The size of an END frame: length, type and winner. */
+    private static final int END_SIZE = Protocol.LENGTH_SIZE + 2 * Byte.BYTES;
+
+    /** The players. */
+    private final Player[] myPlayers;
+
+    /** The encoder of each player's board. */
+    private final DeltaEncoder[] myEncoders;
+
+    /** The spectator feed of each player's board. */
+    private final SpectatorFeed[] myFeeds;
+
+    /** The spectators. */
+    private final List<Player> mySpectators;
+
+    /** The source of the hole column of garbage rows. */
+    private final Random myRandom;
+
+    /** The buffer the frames of a tick are written to before going to both players. */
+    private final ByteBuffer myFrames;
+
+    /** The width of the boards. */
+    private final int myWidth;
+
+    /** Whether the match has ended. */
+    private boolean myOver;
+
+    /**
+     * Starts a match between two players who asked for the same board size.
+     *
+     * @param theFirst The first player.
+     * @param theSecond The second player.
+     * @param theWidth The width of the boards.
+     * @param theHeight The height of the boards.
+     */
+    Match(final Player theFirst, final Player theSecond,
+          final int theWidth, final int theHeight) {
+        myPlayers = new Player[] {theFirst, theSecond};
+        myEncoders = new DeltaEncoder[PLAYERS];
+        myFeeds = new SpectatorFeed[PLAYERS];
+        mySpectators = new ArrayList<>();
+        myRandom = new Random();
+        myWidth = theWidth;
+        myFrames = ByteBuffer.allocate(
+            PLAYERS * (GARBAGE_SIZE + DeltaEncoder.getMaxFrameSize(theWidth, theHeight))
+            + END_SIZE);
+        startPlayers(theHeight);
+    }
+
+    /**
+     * Plays one tick of the match.
+     *
+     * @return true if the match ended on this tick.
+     */
+    boolean step() {
+        for (final Player player : myPlayers) {
+            player.step();
+        }
+        myFrames.clear();
+        for (int i = 0; i < PLAYERS; i++) {
+            final int target = PLAYERS - 1 - i;
+            final int rows = myPlayers[i].takeGarbage();
+            final int hole = myRandom.nextInt(myWidth);
+            if (rows > 0) {
+                myPlayers[target].getBoard().queueGarbage(rows, hole);
+                final int start = Protocol.beginFrame(myFrames, Protocol.GARBAGE);
+                myFrames.put((byte) target);
+                myFrames.put((byte) rows);
+                myFrames.put((byte) hole);
+                Protocol.endFrame(myFrames, start);
+            }
+            myPlayers[target].confirm(rows, hole);
+        }
+        for (int i = 0; i < PLAYERS; i++) {
+            myEncoders[i].encode(myPlayers[i].getBoard(), i, myFrames);
+            myFeeds[i].publish();
+        }
+        final boolean lost0 = myPlayers[0].getBoard().isGameOver();
+        final boolean lost1 = myPlayers[1].getBoard().isGameOver();
+        if (lost0 && lost1) {
+            end(Protocol.DRAW);
+        } else if (lost0) {
+            end(1);
+        } else if (lost1) {
+            end(0);
+        } else {
+            broadcast();
+        }
+        return myOver;
+    }
+
+    /**
+     * Creates a seeded board for each player and starts its game.
+     *
+     * @param theHeight The height of the boards.
+     */
+    private void startPlayers(final int theHeight) {
+        for (int i = 0; i < PLAYERS; i++) {
+            final long seed = myRandom.nextLong();
+            final Board board = new Board(myWidth, theHeight, seed);
+            board.newGame();
+            myEncoders[i] = new DeltaEncoder(myWidth, theHeight);
+            myFeeds[i] = new SpectatorFeed(board, i, SpectatorFeed.DEFAULT_KEYFRAME_INTERVAL);
+            myPlayers[i].start(this, i, board, seed);
+        }
+    }
+
+    /**
+     * Provides the garbage rows a lock sends to the opponent: 1, 2 or 4 rows for
+     * clearing 2, 3 or 4 lines, or 2 rows per line for a T-spin.
+     *
+     * @param theLines The number of lines cleared.
+     * @param theTSpin Whether the lock was a T-spin.
+     * @return The number of garbage rows.
+     */
+    static int getAttack(final int theLines, final boolean theTSpin) {
+        int rows = GARBAGE_ROWS[Math.min(theLines, GARBAGE_ROWS.length - 1)];
+        if (theTSpin) {
+            rows = 2 * theLines;
+        }
+        return rows;
+    }
+
+    /**
+     * Ends the match because a player left, so the other player wins.
+     *
+     * @param theLeaver The player who left.
+     */
+    void forfeit(final Player theLeaver) {
+        if (!myOver) {
+            myFrames.clear();
+            end(PLAYERS - 1 - theLeaver.getIndex());
+        }
+    }
+
+    /**
+     * Adds a spectator, who is sent the current state of both boards and then what
+     * changes on them.
+     *
+     * @param theSpectator The spectator.
+     */
+    void watch(final Player theSpectator) {
+        mySpectators.add(theSpectator);
+        theSpectator.watch(this);
+        for (final SpectatorFeed feed : myFeeds) {
+            feed.subscribe(theSpectator);
+        }
+    }
+
+    /**
+     * Removes a spectator.
+     *
+     * @param theSpectator The spectator.
+     */
+    void unwatch(final Player theSpectator) {
+        mySpectators.remove(theSpectator);
+        for (final SpectatorFeed feed : myFeeds) {
+            feed.unsubscribe(theSpectator);
+        }
+    }
+
+    /**
+     * Provides a player of the match.
+     *
+     * @param theIndex The index of the player.
+     * @return The player.
+     */
+    Player getPlayer(final int theIndex) {
+        return myPlayers[theIndex];
+    }
+
+    /**
+     * Checks whether the match has ended.
+     *
+     * @return true if the match has ended.
+     */
+    boolean isOver() {
+        return myOver;
+    }
+
+    /**
+     * Adds an END frame to the frames of this tick, sends them to both players and
+     * the END frame to the spectators, and takes everyone out of the match.
+     *
+     * @param theWinner The index of the winner, or Protocol.DRAW.
+     */
+    private void end(final int theWinner) {
+        final int start = Protocol.beginFrame(myFrames, Protocol.END);
+        myFrames.put((byte) theWinner);
+        Protocol.endFrame(myFrames, start);
+        final ByteBuffer endFrame = myFrames.duplicate();
+        endFrame.limit(myFrames.position());
+        endFrame.position(start);
+        final ByteBuffer shared = endFrame.slice().asReadOnlyBuffer();
+        broadcast();
+        for (final Player player : myPlayers) {
+            player.leave();
+        }
+        for (final Player spectator : mySpectators) {
+            spectator.receive(shared.duplicate());
+            spectator.leave();
+        }
+        myOver = true;
+    }
+
+    /**
+     * Sends the frames of this tick to both players, encoded once and copied.
+     */
+    private void broadcast() {
+        myFrames.flip();
+        for (final Player player : myPlayers) {
+            player.send(myFrames.duplicate());
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import model.Board;
+import model.BoardListener;
+import model.Input;
+import model.TetrisPiece;
+
+/**
+ * A client connected to the battle server: its channel and buffers, the inputs it
+ * has sent for the next tick, and its board while it is in a match. A client may
+ * instead watch a match, and then receives the frames of the match's spectator feeds.
+ *
+ * A player is only used by the server thread, so it needs no locking.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class Player implements BoardListener, Subscriber {
+    /** The logger of connection failures. */
+    private static final Logger LOGGER = Logger.getLogger(Player.class.getName());
+
+    /** The size of the buffer of received bytes, more than a BattleClient's frames. */
+    private static final int IN_SIZE = 1024;
+
+    /** The size the buffer of bytes waiting to be sent starts at. */
+    private static final int MIN_OUT_SIZE = 1 << 12;
+
+    /** The most bytes waiting to be sent before the client is too far behind. */
+    private static final int OUT_SIZE = 4 * Protocol.MAX_FRAME;
+
+    /** The most inputs applied on one tick; more are dropped. */
+    private static final int MAX_INPUTS = 64;
+
+    /** The number of Inputs. */
+    private static final int INPUT_CODES = Input.values().length;
+
+    /** The channel to the client. */
+    private final SocketChannel myChannel;
+
+    /** The key of the channel with the server's selector. */
+    private final SelectionKey myKey;
+
+    /** Bytes received and not yet handled, ready for writing into. */
+    private final ByteBuffer myIn;
+
+    /** Bytes waiting to be sent, ready for writing into; grown as needed. */
+    private ByteBuffer myOut;
+
+    /** Spectator frames waiting to be sent, shared with other spectators. */
+    private final Deque<ByteBuffer> myFrames;
+
+    /** The number of bytes of the spectator frames waiting to be sent. */
+    private int myFrameBytes;
+
+    /** The inputs for the next tick, followed by room for a TICK. */
+    private final Input[] myInputs;
+
+    /** The number of inputs for the next tick. */
+    private int myInputCount;
+
+    /** The number of inputs received for the next tick, including dropped ones. */
+    private int myReceivedCount;
+
+    /** The width asked for in the last JOIN. */
+    private int myWidth;
+
+    /** The height asked for in the last JOIN. */
+    private int myHeight;
+
+    /** Whether a JOIN was received that the server has not handled yet. */
+    private boolean myJoinPending;
+
+    /** Whether a WATCH was received that the server has not handled yet. */
+    private boolean myWatchPending;
+
+    /** The match the player is watching, or null. */
+    private Match myWatched;
+
+    /** The board of the player in the current match, or null. */
+    private Board myBoard;
+
+    /** The current match, or null. */
+    private Match myMatch;
+
+    /** The index of the player in the current match. */
+    private int myIndex;
+
+    /** The garbage rows earned, less those cancelled, and not yet sent. */
+    private int myGarbage;
+
+    /** Whether bytes were dropped because the client was too far behind. */
+    private boolean myBehind;
+
+    /**
+     * Creates a player for a new connection.
+     *
+     * @param theChannel The channel to the client.
+     * @param theKey The key of the channel with the server's selector.
+     */
+    Player(final SocketChannel theChannel, final SelectionKey theKey) {
+        myChannel = theChannel;
+        myKey = theKey;
+        myIn = ByteBuffer.allocate(IN_SIZE);
+        myOut = ByteBuffer.allocate(MIN_OUT_SIZE);
+        myFrames = new ArrayDeque<>();
+        myInputs = new Input[MAX_INPUTS + 1];
+    }
+
+    /**
+     * Reads what the client sent and handles every whole message.
+     *
+     * @return false if the client closed the connection.
+     * @throws IOException if reading fails or the client sent a bad message.
+     */
+    boolean read() throws IOException {
+        final boolean open = myChannel.read(myIn) >= 0;
+        myIn.flip();
+        int length = Protocol.frameLength(myIn);
+        while (length > 0) {
+            final int end = myIn.position() + Protocol.LENGTH_SIZE + length;
+            myIn.position(myIn.position() + Protocol.LENGTH_SIZE);
+            handle(myIn.get(), end);
+            myIn.position(end);
+            length = Protocol.frameLength(myIn);
+        }
+        if (length == 0) {
+            throw new IOException("Empty message");
+        }
+        if (myIn.remaining() >= Protocol.LENGTH_SIZE
+            && Protocol.announcedLength(myIn) > IN_SIZE - Protocol.LENGTH_SIZE) {
+            // the frame could never fit, so waiting for the rest of it would spin
+            throw new IOException("Frame too long");
+        }
+        myIn.compact();
+        return open;
+    }
+
+    /**
+     * Checks for a JOIN the server has not handled, and marks it handled.
+     *
+     * @return true if the player asked to join a match.
+     */
+    boolean takeJoin() {
+        final boolean result = myJoinPending;
+        myJoinPending = false;
+        return result;
+    }
+
+    /**
+     * Checks for a WATCH the server has not handled, and marks it handled.
+     *
+     * @return true if the player asked to watch a match.
+     */
+    boolean takeWatch() {
+        final boolean result = myWatchPending;
+        myWatchPending = false;
+        return result;
+    }
+
+    /**
+     * Records that the player is watching a match.
+     *
+     * @param theMatch The match.
+     */
+    void watch(final Match theMatch) {
+        myWatched = theMatch;
+    }
+
+    /**
+     * Provides the board size asked for in the last JOIN, as one number so players
+     * asking for the same size can be matched.
+     *
+     * @return The width in the high half and the height in the low half.
+     */
+    long getSizeKey() {
+        return (long) myWidth << Integer.SIZE | myHeight;
+    }
+
+    /**
+     * Starts a match for this player and tells the client.
+     *
+     * @param theMatch The match.
+     * @param theIndex The index of this player in the match.
+     * @param theBoard The board of this player.
+     * @param theSeed The seed the board was created with.
+     */
+    void start(final Match theMatch, final int theIndex, final Board theBoard,
+               final long theSeed) {
+        myMatch = theMatch;
+        myIndex = theIndex;
+        myBoard = theBoard;
+        myBoard.setListener(this);
+        myInputCount = 0;
+        myReceivedCount = 0;
+        myGarbage = 0;
+        if (hasRoom(Byte.BYTES + 2 * Short.BYTES + Long.BYTES)) {
+            final int start = Protocol.beginFrame(myOut, Protocol.START);
+            myOut.put((byte) theIndex);
+            myOut.putShort((short) myWidth);
+            myOut.putShort((short) myHeight);
+            myOut.putLong(theSeed);
+            Protocol.endFrame(myOut, start);
+        }
+    }
+
+    /**
+     * Leaves the current match, so that the player can join another.
+     */
+    void leave() {
+        myMatch = null;
+        myBoard = null;
+        myWatched = null;
+    }
+
+    /**
+     * Applies the inputs received since the last tick and then a tick, as one update.
+     */
+    void step() {
+        myInputs[myInputCount] = Input.TICK;
+        myBoard.applyInputs(myInputs, 0, myInputCount + 1);
+    }
+
+    /**
+     * Tells the client what the last step() applied to its board and the garbage
+     * queued on it after, so that a predicting client can replay the tick exactly.
+     *
+     * @param theRows The garbage rows queued on the board, or 0.
+     * @param theHole The column of the hole of the garbage rows.
+     */
+    void confirm(final int theRows, final int theHole) {
+        if (hasRoom(Integer.BYTES + 2 * Byte.BYTES + myInputCount)) {
+            final int start = Protocol.beginFrame(myOut, Protocol.APPLIED);
+            myOut.putInt(myReceivedCount);
+            myOut.put((byte) theRows);
+            myOut.put((byte) theHole);
+            for (int i = 0; i < myInputCount; i++) {
+                myOut.put(myInputs[i].getCode());
+            }
+            Protocol.endFrame(myOut, start);
+        }
+        myInputCount = 0;
+        myReceivedCount = 0;
+    }
+
+    /**
+     * Takes the garbage rows earned since the last call.
+     *
+     * @return The number of garbage rows to send to the opponent.
+     */
+    int takeGarbage() {
+        final int result = myGarbage;
+        myGarbage = 0;
+        return result;
+    }
+
+    /**
+     * Queues bytes to send to the client. If the client is too far behind to take
+     * them, they are dropped and the next flush() fails.
+     *
+     * @param theFrames The bytes, from their position to their limit.
+     */
+    void send(final ByteBuffer theFrames) {
+        if (makeRoom(theFrames.remaining())) {
+            myOut.put(theFrames);
+        }
+    }
+
+    /**
+     * Queues spectator frames to send to the client, without copying them. If the
+     * client is too far behind to take them, they are dropped and the next flush()
+     * fails.
+     *
+     * @param theFrames The frames, from their position to their limit.
+     */
+    @Override
+    public void receive(final ByteBuffer theFrames) {
+        if (myFrameBytes + theFrames.remaining() <= OUT_SIZE) {
+            myFrameBytes += theFrames.remaining();
+            myFrames.add(theFrames);
+        } else {
+            myBehind = true;
+        }
+    }
+
+    /**
+     * Sends as many of the queued bytes as the channel takes without blocking, and
+     * asks the selector to report when the rest can be sent.
+     *
+     * @throws IOException if writing fails or the client fell too far behind.
+     */
+    void flush() throws IOException {
+        if (myBehind) {
+            throw new IOException("Client too far behind");
+        }
+        if (myOut.position() > 0) {
+            myOut.flip();
+            myChannel.write(myOut);
+            myOut.compact();
+        }
+        while (myOut.position() == 0 && !myFrames.isEmpty()) {
+            final ByteBuffer frames = myFrames.peek();
+            final int written = myChannel.write(frames);
+            myFrameBytes -= written;
+            if (frames.hasRemaining()) {
+                break;
+            }
+            myFrames.poll();
+        }
+        if (myOut.position() > 0 || !myFrames.isEmpty()) {
+            myKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            myKey.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Closes the connection.
+     */
+    void close() {
+        myKey.cancel();
+        try {
+            myChannel.close();
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close a connection", e);
+        }
+    }
+
+    /**
+     * Provides the board of the current match.
+     *
+     * @return The board, or null if the player is not in a match.
+     */
+    Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Provides the current match.
+     *
+     * @return The match, or null if the player is not in a match.
+     */
+    Match getMatch() {
+        return myMatch;
+    }
+
+    /**
+     * Provides the match the player is watching.
+     *
+     * @return The match, or null if the player is not watching a match.
+     */
+    Match getWatched() {
+        return myWatched;
+    }
+
+    /**
+     * Provides the index of the player in the current match.
+     *
+     * @return The index.
+     */
+    int getIndex() {
+        return myIndex;
+    }
+
+    @Override
+    public void pieceSpawned(final TetrisPiece thePiece, final long theTick) {
+        // only locks send garbage
+    }
+
+    @Override
+    public void inputApplied(final Input theInput, final long theTick) {
+        // only locks send garbage
+    }
+
+    @Override
+    public void pieceLocked(final TetrisPiece thePiece, final int theLines,
+                            final boolean theTSpin, final long theTick) {
+        // rows sent first cancel the garbage waiting to rise on this player's board
+        myGarbage += myBoard.cancelGarbage(Match.getAttack(theLines, theTSpin));
+    }
+
+    /**
+     * Checks that a frame fits in the bytes waiting to be sent. If the client is too
+     * far behind to take it, the frame is to be dropped and the next flush() fails.
+     *
+     * @param theBytes The length of the frame after its length and type.
+     * @return true if the frame fits.
+     */
+    private boolean hasRoom(final int theBytes) {
+        return makeRoom(Protocol.LENGTH_SIZE + 1 + theBytes);
+    }
+
+    /**
+     * Makes room for bytes in the bytes waiting to be sent, growing the buffer up to
+     * OUT_SIZE. If the client is too far behind to take them, the bytes are to be
+     * dropped and the next flush() fails.
+     *
+     * @param theBytes The number of bytes.
+     * @return true if the bytes fit.
+     */
+    private boolean makeRoom(final int theBytes) {
+        final int needed = myOut.position() + theBytes;
+        final boolean result = needed <= OUT_SIZE;
+        if (!result) {
+            myBehind = true;
+        } else if (needed > myOut.capacity()) {
+            final int size = Math.min(OUT_SIZE, Math.max(needed, 2 * myOut.capacity()));
+            final ByteBuffer grown = ByteBuffer.allocate(size);
+            myOut.flip();
+            grown.put(myOut);
+            myOut = grown;
+        }
+        return result;
+    }
+
+    /**
+     * Handles one message.
+     *
+     * @param theType The type of the message.
+     * @param theEnd The position in myIn just after the message.
+     * @throws IOException if the message is not one a client may send.
+     */
+    private void handle(final byte theType, final int theEnd) throws IOException {
+        if (theType == Protocol.JOIN && theEnd - myIn.position() == 2 * Short.BYTES) {
+            myWidth = clampSize(myIn.getShort());
+            myHeight = clampSize(myIn.getShort());
+            // the last of a JOIN and a WATCH read together wins
+            myJoinPending = myMatch == null && myWatched == null;
+            myWatchPending = false;
+        } else if (theType == Protocol.WATCH && theEnd == myIn.position()) {
+            myWatchPending = myMatch == null && myWatched == null;
+            myJoinPending = false;
+        } else if (theType == Protocol.INPUTS) {
+            while (myIn.position() < theEnd) {
+                final byte code = myIn.get();
+                if (myMatch != null) {
+                    myReceivedCount++;
+                }
+                if (myInputCount < MAX_INPUTS && myMatch != null) {
+                    myInputs[myInputCount] = decode(code);
+                    myInputCount++;
+                }
+            }
+        } else {
+            throw new IOException("Bad message type " + theType);
+        }
+    }
+
+    /**
+     * Decodes an input, treating a bad code or a TICK as a bad message: a client
+     * ticking its own board would run its gravity and lock timers ahead of the server's.
+     *
+     * @param theCode The code of the input.
+     * @return The input.
+     * @throws IOException if no input a client may send has the code.
+     */
+    private static Input decode(final byte theCode) throws IOException {
+        if (theCode < 0 || theCode >= INPUT_CODES || theCode == Input.TICK.getCode()) {
+            throw new IOException("Bad input code " + theCode);
+        }
+        return Input.fromCode(theCode);
+    }
+
+    /**
+     * Limits a board size asked for by a client.
+     *
+     * @param theSize The size asked for.
+     * @return The size, between Protocol.MIN_SIZE and Protocol.MAX_SIZE.
+     */
+    private static int clampSize(final short theSize) {
+        return Math.max(Protocol.MIN_SIZE, Math.min(Protocol.MAX_SIZE, theSize));
+    }
+}
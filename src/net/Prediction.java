@@ -0,0 +1,164 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import model.Board;
+import model.BoardListener;
+import model.Input;
+import model.TetrisPiece;
+
+/**
+ * A client's copy of its board in a battle, which applies the player's inputs at once
+ * instead of waiting for the server.
+ *
+ * The board is created with the same size and seed as the server's, so it plays the
+ * same game. After every tick the server confirms which of the inputs it applied and
+ * the garbage it queued (an APPLIED message). If the board had applied exactly those
+ * inputs, the tick is simply added; otherwise the board rolls back to a snapshot of
+ * the last confirmed tick, replays the confirmed tick, takes a new snapshot and then
+ * applies again the inputs the server has not seen yet. Snapshots are written with
+ * Board.writeState() into one reused buffer.
+ *
+ * The prediction is the board's BoardListener, since a lock cancels queued garbage
+ * the same way it does on the server.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class Prediction implements BoardListener {
+    /** The number of inputs room is made for at first. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** A tick, as an array to apply. */
+    private static final Input[] TICK = {Input.TICK};
+
+    /** The predicted board. */
+    private final Board myBoard;
+
+    /** The state of the board after the last confirmed tick. */
+    private final ByteBuffer myConfirmed;
+
+    /** The inputs applied to the board and not yet confirmed, oldest first. */
+    private Input[] myPending;
+
+    /** The number of pending inputs. */
+    private int myPendingCount;
+
+    /** The number of times the board was rolled back. */
+    private long myRollbacks;
+
+    /**
+     * Creates the predicted board of a match and starts its game.
+     *
+     * @param theWidth The width of the board.
+     * @param theHeight The height of the board.
+     * @param theSeed The seed of the server's board.
+     */
+    public Prediction(final int theWidth, final int theHeight, final long theSeed) {
+        myBoard = new Board(theWidth, theHeight, theSeed);
+        myBoard.setListener(this);
+        myBoard.newGame();
+        myConfirmed = ByteBuffer.allocate(myBoard.getStateSize());
+        myBoard.writeState(myConfirmed);
+        myPending = new Input[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Provides the predicted board, for instance to observe and draw.
+     *
+     * @return The board.
+     */
+    public Board getBoard() {
+        return myBoard;
+    }
+
+    /**
+     * Provides the number of times the board was rolled back because the server
+     * applied inputs differently than predicted.
+     *
+     * @return The number of rollbacks.
+     */
+    public long getRollbackCount() {
+        return myRollbacks;
+    }
+
+    /**
+     * Provides the number of inputs applied and not yet confirmed by the server.
+     *
+     * @return The number of pending inputs.
+     */
+    public int getPendingCount() {
+        return myPendingCount;
+    }
+
+    /**
+     * Applies inputs the player is sending to the server.
+     *
+     * @param theInputs The inputs.
+     */
+    public void predict(final Input... theInputs) {
+        if (myPendingCount + theInputs.length > myPending.length) {
+            myPending = Arrays.copyOf(myPending,
+                                      Math.max(2 * myPending.length,
+                                               myPendingCount + theInputs.length));
+        }
+        System.arraycopy(theInputs, 0, myPending, myPendingCount, theInputs.length);
+        myPendingCount += theInputs.length;
+        myBoard.applyInputs(theInputs);
+    }
+
+    /**
+     * Adds a tick confirmed by the server, rolling back if the board applied other
+     * inputs than the server did.
+     *
+     * @param theReceived The number of pending inputs the server received for the tick.
+     * @param theApplied The inputs the server applied before the tick, in order.
+     * @param theCount The number of inputs applied.
+     * @param theRows The garbage rows queued after the tick, or 0.
+     * @param theHole The column of the hole of the garbage rows.
+     */
+    public void confirm(final int theReceived, final Input[] theApplied, final int theCount,
+                        final int theRows, final int theHole) {
+        final int received = Math.min(theReceived, myPendingCount);
+        final boolean predicted = received == myPendingCount && theCount == received
+                                  && Arrays.equals(myPending, 0, received,
+                                                   theApplied, 0, theCount);
+        if (!predicted) {
+            myRollbacks++;
+            myConfirmed.flip();
+            myBoard.readState(myConfirmed);
+            myBoard.applyInputs(theApplied, 0, theCount);
+        }
+        myBoard.applyInputs(TICK);
+        myBoard.queueGarbage(theRows, theHole);
+        myConfirmed.clear();
+        myBoard.writeState(myConfirmed);
+        myPendingCount -= received;
+        System.arraycopy(myPending, received, myPending, 0, myPendingCount);
+        if (!predicted && myPendingCount > 0) {
+            myBoard.applyInputs(myPending, 0, myPendingCount);
+        }
+    }
+
+    @Override
+    public void pieceSpawned(final TetrisPiece thePiece, final long theTick) {
+        // only locks cancel garbage
+    }
+
+    @Override
+    public void inputApplied(final Input theInput, final long theTick) {
+        // only locks cancel garbage
+    }
+
+    @Override
+    public void pieceLocked(final TetrisPiece thePiece, final int theLines,
+                            final boolean theTSpin, final long theTick) {
+        myBoard.cancelGarbage(Match.getAttack(theLines, theTSpin));
+    }
+}
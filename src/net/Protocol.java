@@ -0,0 +1,161 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol between the battle server and its clients.
+ *
+ * Every message is a frame: an unsigned short length, then a one byte type, then
+ * length - 1 bytes of payload. All numbers are big-endian.
+ *
+ * Client to server:
+ * <pre>
+ * JOIN     width (short), height (short)
+ * INPUTS   one Input code (byte) per input, applied in order on the next tick; TICK
+ *          is applied by the server only, and a client sending it is disconnected
+ * WATCH    (no payload) watch the newest match, or the next one to start
+ * </pre>
+ * Server to client:
+ * <pre>
+ * START    your player index (byte), width (short), height (short), the seed of
+ *          your board (long)
+ * DELTA    player index (byte), changed cell count (short), then per cell:
+ *          cell index y * width + x (int), Block ordinal (byte)
+ * GARBAGE  receiving player index (byte), rows queued on its board (byte), hole
+ *          column (byte)
+ * APPLIED  after every tick, to each player: the number of inputs received for the
+ *          tick (int), the garbage rows (byte) and hole column (byte) queued on
+ *          its board after the tick, then the code (byte) of each input applied,
+ *          in order, before the tick
+ * END      winning player index (byte), or DRAW
+ * </pre>
+ * Server to spectators, per board (see FrameEncoder for the payloads):
+ * <pre>
+ * KEYFRAME player index (byte), keyframe
+ * CELLS    player index (byte), cells delta
+ * PIECE    player index (byte), piece delta
+ * END      as above
+ * </pre>
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+final class Protocol {
+    /** A client asks to be matched against another player. */
+    static final byte JOIN = 1;
+
+    /** A client sends inputs for its board. */
+    static final byte INPUTS = 2;
+
+    /** A client asks to watch a match. */
+    static final byte WATCH = 3;
+
+    /** The server starts a match. */
+    static final byte START = 16;
+
+    /** The server sends the cells of a board that changed. */
+    static final byte DELTA = 17;
+
+    /** The server reports garbage rows sent to a player. */
+    static final byte GARBAGE = 18;
+
+    /** The server ends a match. */
+    static final byte END = 19;
+
+    /** The server sends a whole board to spectators. */
+    static final byte KEYFRAME = 20;
+
+    /** The server sends the frozen cells of a board that changed to spectators. */
+    static final byte CELLS = 21;
+
+    /** The server sends the movable piece of a board to spectators. */
+    static final byte PIECE = 22;
+
+    /** The server tells a player what it applied to the player's board on a tick. */
+    static final byte APPLIED = 23;
+
+    /** The winner sent in END when both players lost on the same tick. */
+    static final byte DRAW = -1;
+
+    /** The size of the length of a frame. */
+    static final int LENGTH_SIZE = Short.BYTES;
+
+    /** The largest frame, including its length. */
+    static final int MAX_FRAME = LENGTH_SIZE + 0xFFFF;
+
+    /** The size of each changed cell in a DELTA. */
+    static final int CELL_SIZE = Integer.BYTES + 1;
+
+    /** The smallest board width or height a client may ask for. */
+    static final int MIN_SIZE = 4;
+
+    /** The largest board width or height a client may ask for. */
+    static final int MAX_SIZE = 64;
+
+    /** Mask of the bits of an unsigned short. */
+    static final int SHORT_MASK = 0xFFFF;
+
+    /**
+     * Prevents instantiation.
+     */
+    private Protocol() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Starts a frame, leaving room for its length.
+     *
+     * @param theBuffer The buffer to write the frame to.
+     * @param theType The type of the frame.
+     * @return The position of the frame, to pass to endFrame().
+     */
+    static int beginFrame(final ByteBuffer theBuffer, final byte theType) {
+        final int start = theBuffer.position();
+        theBuffer.putShort((short) 0);
+        theBuffer.put(theType);
+        return start;
+    }
+
+    /**
+     * Finishes a frame by writing its length.
+     *
+     * @param theBuffer The buffer the frame was written to.
+     * @param theStart The value beginFrame() returned.
+     */
+    static void endFrame(final ByteBuffer theBuffer, final int theStart) {
+        theBuffer.putShort(theStart, (short) (theBuffer.position() - theStart - LENGTH_SIZE));
+    }
+
+    /**
+     * Checks whether a whole frame is waiting in a buffer that is ready for reading.
+     *
+     * @param theBuffer The buffer.
+     * @return The length of the frame after its length, or -1 if it is not all there.
+     */
+    static int frameLength(final ByteBuffer theBuffer) {
+        int result = -1;
+        if (theBuffer.remaining() >= LENGTH_SIZE) {
+            final int length = announcedLength(theBuffer);
+            if (theBuffer.remaining() >= LENGTH_SIZE + length) {
+                result = length;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the length of the next frame in a buffer that is ready for reading and
+     * holds at least its length, without moving the buffer's position.
+     *
+     * @param theBuffer The buffer.
+     * @return The length of the frame after its length.
+     */
+    static int announcedLength(final ByteBuffer theBuffer) {
+        return theBuffer.getShort(theBuffer.position()) & SHORT_MASK;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import model.Board;
+import model.FrameEncoder;
+
+/**
+ * A feed of one board to any number of spectators, as KEYFRAME, CELLS and PIECE frames
+ * (see Protocol and FrameEncoder).
+ *
+ * Each call to publish() encodes what changed once, into a shared buffer, and hands
+ * every subscriber a read-only slice of the same bytes, so adding spectators costs no
+ * encoding and no copying. A keyframe is sent every so many publishes, and instead of
+ * a cells delta larger than a keyframe; a new subscriber is sent the last keyframe
+ * and the deltas since, which are kept as slices for that.
+ *
+ * A feed is meant to be used by one thread, such as the battle server's.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class SpectatorFeed {
+    /** The publishes between keyframes by default: a second at 60 ticks a second. */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+
+    /** The smallest buffer the frames are encoded into. */
+    private static final int MIN_ARENA_SIZE = 1 << 12;
+
+    /** The size of the length, type and player index of each frame. */
+    private static final int HEADER_SIZE = Protocol.LENGTH_SIZE + 2;
+
+    /** The board. */
+    private final Board myBoard;
+
+    /** The index of the player of the board. */
+    private final byte myIndex;
+
+    /** The encoder of the board. */
+    private final FrameEncoder myEncoder;
+
+    /** The publishes between keyframes. */
+    private final int myInterval;
+
+    /** The subscribers. */
+    private final List<Subscriber> mySubscribers;
+
+    /** The last keyframe and the deltas since, as slices of the buffers. */
+    private final List<ByteBuffer> myHistory;
+
+    /** The buffer frames are encoded into until it is full. */
+    private ByteBuffer myArena;
+
+    /** The publishes since the last keyframe. */
+    private int mySinceKeyframe;
+
+    /** The change count of the board when it was last published. */
+    private long myChangeCount;
+
+    /**
+     * Creates a feed of a board.
+     *
+     * @param theBoard The board.
+     * @param theIndex The index of the player of the board, sent in every frame.
+     * @param theInterval The publishes between keyframes, at least 1.
+     * @throws IllegalArgumentException if theInterval is less than 1, or a keyframe of
+     *         the board does not fit in a frame.
+     */
+    public SpectatorFeed(final Board theBoard, final int theIndex, final int theInterval) {
+        myEncoder = new FrameEncoder(theBoard);
+        if (theInterval < 1 || getKeyframeSize() > Protocol.MAX_FRAME) {
+            throw new IllegalArgumentException("Cannot feed a " + theBoard.getWidth() + "x"
+                                               + theBoard.getHeight() + " board every "
+                                               + theInterval + " publishes");
+        }
+        myBoard = theBoard;
+        myIndex = (byte) theIndex;
+        myInterval = theInterval;
+        mySubscribers = new ArrayList<>();
+        myHistory = new ArrayList<>();
+        myArena = ByteBuffer.allocate(getArenaSize());
+        mySinceKeyframe = theInterval;
+        myChangeCount = -1;
+    }
+
+    /**
+     * Adds a subscriber and sends it the last keyframe and the deltas since.
+     *
+     * @param theSubscriber The subscriber.
+     */
+    public void subscribe(final Subscriber theSubscriber) {
+        mySubscribers.add(theSubscriber);
+        for (final ByteBuffer frames : myHistory) {
+            theSubscriber.receive(frames.duplicate());
+        }
+    }
+
+    /**
+     * Removes a subscriber.
+     *
+     * @param theSubscriber The subscriber.
+     */
+    public void unsubscribe(final Subscriber theSubscriber) {
+        mySubscribers.remove(theSubscriber);
+    }
+
+    /**
+     * Provides the number of subscribers.
+     *
+     * @return The number of subscribers.
+     */
+    public int getSubscriberCount() {
+        return mySubscribers.size();
+    }
+
+    /**
+     * Encodes what changed on the board since the last call, if anything did, and
+     * sends it to every subscriber.
+     */
+    public void publish() {
+        if (myBoard.getChangeCount() != myChangeCount) {
+            myChangeCount = myBoard.getChangeCount();
+            if (myArena.remaining() < getArenaSize() / 2) {
+                // slices of the old buffer stay valid for subscribers still holding them
+                myArena = ByteBuffer.allocate(getArenaSize());
+            }
+            final int start = myArena.position();
+            if (mySinceKeyframe >= myInterval || !writeDeltas()) {
+                writeKeyframe();
+            }
+            if (myArena.position() > start) {
+                final ByteBuffer frames = myArena.duplicate();
+                frames.position(start);
+                frames.limit(myArena.position());
+                final ByteBuffer shared = frames.slice().asReadOnlyBuffer();
+                myHistory.add(shared);
+                for (final Subscriber subscriber : mySubscribers) {
+                    subscriber.receive(shared.duplicate());
+                }
+            }
+        }
+    }
+
+    /**
+     * Provides the size of a KEYFRAME frame of the board.
+     *
+     * @return The size in bytes.
+     */
+    private int getKeyframeSize() {
+        return HEADER_SIZE + myEncoder.getKeyframeSize();
+    }
+
+    /**
+     * Provides the size of a buffer that any one publish fits in.
+     *
+     * @return The size in bytes.
+     */
+    private int getArenaSize() {
+        return Math.max(MIN_ARENA_SIZE,
+                        2 * (getKeyframeSize() + HEADER_SIZE + FrameEncoder.PIECE_SIZE));
+    }
+
+    /**
+     * Writes a KEYFRAME frame and starts a new history with it.
+     */
+    private void writeKeyframe() {
+        final int start = Protocol.beginFrame(myArena, Protocol.KEYFRAME);
+        myArena.put(myIndex);
+        myEncoder.writeKeyframe(myArena);
+        Protocol.endFrame(myArena, start);
+        myHistory.clear();
+        mySinceKeyframe = 0;
+    }
+
+    /**
+     * Writes a CELLS frame if frozen cells changed and a PIECE frame if the movable
+     * piece changed.
+     *
+     * @return false if too many cells changed, and a keyframe must be written.
+     */
+    private boolean writeDeltas() {
+        final int start = Protocol.beginFrame(myArena, Protocol.CELLS);
+        myArena.put(myIndex);
+        // a delta larger than a keyframe is not worth sending
+        final int cells = myEncoder.writeCells(myArena,
+                                               getKeyframeSize() / FrameEncoder.CELL_SIZE);
+        if (cells > 0) {
+            Protocol.endFrame(myArena, start);
+        } else {
+            myArena.position(start);
+        }
+        if (cells >= 0) {
+            final int pieceStart = Protocol.beginFrame(myArena, Protocol.PIECE);
+            myArena.put(myIndex);
+            if (myEncoder.writePiece(myArena)) {
+                Protocol.endFrame(myArena, pieceStart);
+            } else {
+                myArena.position(pieceStart);
+            }
+            mySinceKeyframe++;
+        }
+        return cells >= 0;
+    }
+}
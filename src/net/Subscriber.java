@@ -0,0 +1,25 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A receiver of the frames of a SpectatorFeed.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public interface Subscriber {
+
+    /**
+     * Receives frames. The buffer is a read-only view of bytes shared with every other
+     * subscriber, so it can be kept and written out later without copying.
+     *
+     * @param theFrames The frames, from the buffer's position to its limit.
+     */
+    void receive(ByteBuffer theFrames);
+}
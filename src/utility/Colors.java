@@ -5,81 +5,115 @@
 package utility;
 
 import java.awt.Color;
-import java.util.Map;
-import java.util.TreeMap;
+import model.Block;
 
 /**
  * Class for creating and manipulating color schemes to be used to draw Tetris pieces.
- * 
+ *
+ * A color scheme is an array of colors indexed by Block ordinal (the entry for
+ * Block.EMPTY is null), so looking up the color of a cell is a single array load. All
+ * four schemes (standard or dark, inverted or not) are computed once, when the Colors
+ * is created, and shared; callers must not modify the arrays.
+ *
  * @author Tenma Rollins
- * @version 10 Mar 2017
+ * @version 17 Mar 2017
  *
  */
 public class Colors {
+    /** The largest value of a color component. */
+    private static final int MAX_COMPONENT = 255;
+
     /** The default color scheme. */
-    private final Map<Character, Color> myColorScheme;
-    
+    private final Color[] myColorScheme;
+
+    /** The default color scheme, one .darker() call darker. */
+    private final Color[] myDarkColorScheme;
+
+    /** The inverted default color scheme. */
+    private final Color[] myInvertedColorScheme;
+
+    /** The inverted dark color scheme. */
+    private final Color[] myInvertedDarkColorScheme;
+
     /**
-     * Initializes the default color scheme using standard tetris colors.
+     * Initializes the default color scheme using standard tetris colors, and the
+     * dark and inverted schemes derived from it.
      */
     public Colors() {
-        myColorScheme = new TreeMap<Character, Color>();
-        
-        myColorScheme.put('I', Color.CYAN);
-        myColorScheme.put('J', Color.BLUE);
-        myColorScheme.put('L', Color.ORANGE);
-        myColorScheme.put('O', Color.YELLOW);
-        myColorScheme.put('S', Color.GREEN);
-        myColorScheme.put('T', Color.MAGENTA);
-        myColorScheme.put('Z', Color.RED);
+        myColorScheme = new Color[Block.values().length];
+
+        myColorScheme[Block.I.ordinal()] = Color.CYAN;
+        myColorScheme[Block.J.ordinal()] = Color.BLUE;
+        myColorScheme[Block.L.ordinal()] = Color.ORANGE;
+        myColorScheme[Block.O.ordinal()] = Color.YELLOW;
+        myColorScheme[Block.S.ordinal()] = Color.GREEN;
+        myColorScheme[Block.T.ordinal()] = Color.MAGENTA;
+        myColorScheme[Block.Z.ordinal()] = Color.RED;
+        myColorScheme[Block.G.ordinal()] = Color.GRAY;
+
+        myDarkColorScheme = darken(myColorScheme);
+        myInvertedColorScheme = invert(myColorScheme);
+        myInvertedDarkColorScheme = invert(myDarkColorScheme);
     }
-    
+
     /**
-     * Provides the default color scheme (standard tetris colors).
-     * 
-     * @return The color scheme as a Map<Character, Color>, each character corresponding to
-     * the Tetris piece in the shape of that character.
+     * Provides one of the color schemes.
+     *
+     * @param theDark Whether to provide the scheme one .darker() call darker than the
+     * standard tetris colors.
+     * @param theInverted Whether to provide the scheme with its RGB values subtracted
+     * from 255.
+     * @return The color scheme, indexed by Block ordinal.
      */
-    public Map<Character, Color> getDefaultColorScheme() {
-        return myColorScheme;
+    public Color[] getColorScheme(final boolean theDark, final boolean theInverted) {
+        Color[] result = myColorScheme;
+        if (theDark && theInverted) {
+            result = myInvertedDarkColorScheme;
+        } else if (theDark) {
+            result = myDarkColorScheme;
+        } else if (theInverted) {
+            result = myInvertedColorScheme;
+        }
+        return result;
     }
-    
+
     /**
-     * Provides a color scheme which is one .darker() call darker than the default 
-     * color scheme.
-     * 
-     * @return The darker color scheme as a Map<Character, Color>, each character corresponding
-     * to the Tetris piece in the shape of that character. 
+     * Makes a color scheme which is one .darker() call darker than a given one.
+     *
+     * @param theColorScheme The original color scheme.
+     * @return The darker color scheme.
      */
-    public Map<Character, Color> getDarkColorScheme() {
-        final Map<Character, Color> darkColors = new TreeMap<Character, Color>();
-        for (final char key : myColorScheme.keySet()) {
-            final Color currentColor = myColorScheme.get(key);
-            darkColors.put(key, currentColor.darker());
+    private static Color[] darken(final Color[] theColorScheme) {
+        final Color[] darkScheme = new Color[theColorScheme.length];
+        for (int i = 0; i < theColorScheme.length; i++) {
+            if (theColorScheme[i] != null) {
+                darkScheme[i] = theColorScheme[i].darker();
+            }
         }
-        
-        return darkColors;
+
+        return darkScheme;
     }
 
     /**
      * Inverts a given color scheme so that their RGB values reflect the original values
      * subtracted from 255 (for each value).
-     * 
+     *
      * @param theColorScheme The original color scheme.
-     * @return The inverted color scheme as a Map<Character, Color>, each character 
-     * corresponding to the Tetris piece in the shape of that character.
+     * @return The inverted color scheme.
      */
-    public Map<Character, Color> invert(final Map<Character, Color> theColorScheme) {
-        final Map<Character, Color> invertedScheme = new TreeMap<Character, Color>();
-        for (final char key : theColorScheme.keySet()) {
-            final Color currentColor = theColorScheme.get(key);
-            final int redComp = 255 - currentColor.getRed();
-            final int greenComp = 255 - currentColor.getGreen();
-            final int blueComp = 255 - currentColor.getBlue();
-            invertedScheme.put(key, new Color(redComp, greenComp, blueComp));
+    private static Color[] invert(final Color[] theColorScheme) {
+        final Color[] invertedScheme = new Color[theColorScheme.length];
+        for (int i = 0; i < theColorScheme.length; i++) {
+            final Color currentColor = theColorScheme[i];
+            if (currentColor != null) {
+                final int redComp = MAX_COMPONENT - currentColor.getRed();
+                final int greenComp = MAX_COMPONENT - currentColor.getGreen();
+                final int blueComp = MAX_COMPONENT - currentColor.getBlue();
+                invertedScheme[i] = new Color(redComp, greenComp, blueComp);
+            }
         }
-        
+
         return invertedScheme;
     }
-     
+
 }
@@ -0,0 +1,65 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import model.BoardProbe;
+import model.TetrisPiece;
+
+/**
+ * The probe that reports the timings of every Board as Metrics and its engine events
+ * as FlightEvents. Install it with BoardProbes.install(new EngineProbe()).
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class EngineProbe implements BoardProbe {
+    @Override
+    public long startTiming() {
+        return Metric.start();
+    }
+
+    @Override
+    public void moveTimed(final long theStart) {
+        Metric.BOARD_MOVE.stop(theStart);
+    }
+
+    @Override
+    public void rowCheckTimed(final long theStart) {
+        Metric.CHECK_ROWS.stop(theStart);
+    }
+
+    @Override
+    public void observerDispatchTimed(final long theStart) {
+        Metric.OBSERVER_DISPATCH.stop(theStart);
+    }
+
+    @Override
+    public void rotationKicked(final TetrisPiece thePiece, final int theKick,
+                               final int theX, final int theY) {
+        FlightEvents.rotationKicked(thePiece.name(), theKick, theX, theY);
+    }
+
+    @Override
+    public void pieceLocked(final TetrisPiece thePiece, final int theX, final int theY,
+                            final boolean theTSpin) {
+        FlightEvents.pieceLocked(thePiece.name(), theX, theY, theTSpin);
+    }
+
+    @Override
+    public void rowsCleared(final int theRows) {
+        FlightEvents.rowsCleared(theRows);
+    }
+
+    @Override
+    public void garbageInserted(final int theRows) {
+        FlightEvents.garbageInserted(theRows);
+    }
+
+    @Override
+    public void gameOver(final long theTicks) {
+        FlightEvents.gameOver(theTicks);
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder events for the game engine, so that recordings can line up GC
+ * pauses and other JVM activity with what was happening in the game.
+ *
+ * Every event is disabled by default and has no stack trace. While an event is disabled
+ * the helper methods only create an event object that the JIT removes and check a flag,
+ * so the calls can stay in the hot paths permanently. To record them, enable the
+ * "tetris.*" events in a JFR settings file (e.g. a copy of default.jfc made with JDK
+ * Mission Control) and start the game with -XX:StartFlightRecording:settings=thatFile.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class FlightEvents {
+
+    /**
+     * Prevents instantiation.
+     */
+    private FlightEvents() {
+        throw new IllegalStateException();
+    }
+
+    /**
+     * Records that a piece froze in place.
+     *
+     * @param thePiece The name of the piece.
+     * @param theX The x position of the piece.
+     * @param theY The y position of the piece.
+     * @param theTSpin Whether the piece was a T-spin.
+     */
+    public static void pieceLocked(final String thePiece, final int theX, final int theY,
+                                   final boolean theTSpin) {
+        final PieceLock event = new PieceLock();
+        if (event.isEnabled()) {
+            event.myPiece = thePiece;
+            event.myX = theX;
+            event.myY = theY;
+            event.myTSpin = theTSpin;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that rows were cleared.
+     *
+     * @param theRows The number of rows cleared.
+     */
+    public static void rowsCleared(final int theRows) {
+        final RowsCleared event = new RowsCleared();
+        if (event.isEnabled()) {
+            event.myRows = theRows;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that garbage rows sent by an opponent were inserted.
+     *
+     * @param theRows The number of rows inserted.
+     */
+    public static void garbageInserted(final int theRows) {
+        final GarbageInsert event = new GarbageInsert();
+        if (event.isEnabled()) {
+            event.myRows = theRows;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a game ended.
+     *
+     * @param theTicks The number of ticks the game lasted.
+     */
+    public static void gameOver(final long theTicks) {
+        final GameOver event = new GameOver();
+        if (event.isEnabled()) {
+            event.myTicks = theTicks;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records that a rotation only succeeded by kicking the piece off its position.
+     *
+     * @param thePiece The name of the piece.
+     * @param theKick The index of the kick that was used (1 is the first kick).
+     * @param theX The x offset of the kick.
+     * @param theY The y offset of the kick.
+     */
+    public static void rotationKicked(final String thePiece, final int theKick,
+                                      final int theX, final int theY) {
+        final RotationKick event = new RotationKick();
+        if (event.isEnabled()) {
+            event.myPiece = thePiece;
+            event.myKick = theKick;
+            event.myX = theX;
+            event.myY = theY;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts timing a tick of the frame timer.
+     *
+     * @return The event to pass to endTick(), or null if the event is disabled.
+     */
+    public static TimerTick beginTick() {
+        TimerTick result = null;
+        final TimerTick event = new TimerTick();
+        if (event.isEnabled()) {
+            event.begin();
+            result = event;
+        }
+        return result;
+    }
+
+    /**
+     * Finishes timing a tick of the frame timer.
+     *
+     * @param theEvent The event beginTick() returned, which may be null.
+     * @param theLatenessNanos How late the timer fired, in nanoseconds.
+     */
+    public static void endTick(final TimerTick theEvent, final long theLatenessNanos) {
+        if (theEvent != null) {
+            theEvent.end();
+            if (theEvent.shouldCommit()) {
+                theEvent.myLateness = theLatenessNanos;
+                theEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Records that a new level was reached.
+     *
+     * @param theLevel The new level.
+     * @param theDelay The new delay between rows of gravity, in milliseconds.
+     */
+    public static void levelChanged(final int theLevel, final int theDelay) {
+        final LevelChange event = new LevelChange();
+        if (event.isEnabled()) {
+            event.myLevel = theLevel;
+            event.myDelay = theDelay;
+            event.commit();
+        }
+    }
+
+    /**
+     * A piece froze in place.
+     */
+    @Name("tetris.PieceLock")
+    @Label("Piece Lock")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class PieceLock extends Event {
+        /** The name of the piece. */
+        @Label("Piece")
+        private String myPiece;
+
+        /** The x position of the piece. */
+        @Label("X")
+        private int myX;
+
+        /** The y position of the piece. */
+        @Label("Y")
+        private int myY;
+
+        /** Whether the piece was a T-spin. */
+        @Label("T-Spin")
+        private boolean myTSpin;
+    }
+
+    /**
+     * Rows were cleared.
+     */
+    @Name("tetris.RowsCleared")
+    @Label("Rows Cleared")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class RowsCleared extends Event {
+        /** The number of rows cleared. */
+        @Label("Rows")
+        private int myRows;
+    }
+
+    /**
+     * Garbage rows were inserted.
+     */
+    @Name("tetris.GarbageInsert")
+    @Label("Garbage Insert")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class GarbageInsert extends Event {
+        /** The number of rows inserted. */
+        @Label("Rows")
+        private int myRows;
+    }
+
+    /**
+     * A game ended.
+     */
+    @Name("tetris.GameOver")
+    @Label("Game Over")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class GameOver extends Event {
+        /** The number of ticks the game lasted. */
+        @Label("Ticks")
+        private long myTicks;
+    }
+
+    /**
+     * A rotation used a wall kick.
+     */
+    @Name("tetris.RotationKick")
+    @Label("Rotation Kick")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class RotationKick extends Event {
+        /** The name of the piece. */
+        @Label("Piece")
+        private String myPiece;
+
+        /** The index of the kick that was used. */
+        @Label("Kick")
+        private int myKick;
+
+        /** The x offset of the kick. */
+        @Label("X Offset")
+        private int myX;
+
+        /** The y offset of the kick. */
+        @Label("Y Offset")
+        private int myY;
+    }
+
+    /**
+     * A tick of the frame timer: held controls and the logic board.
+     */
+    @Name("tetris.TimerTick")
+    @Label("Timer Tick")
+    @Category("Tetris")
+    @Description("Handling of one tick of the frame timer")
+    @Enabled(false)
+    @StackTrace(false)
+    public static final class TimerTick extends Event {
+        /** How late the timer fired. */
+        @Label("Lateness")
+        @Timespan
+        private long myLateness;
+    }
+
+    /**
+     * A new level was reached.
+     */
+    @Name("tetris.LevelChange")
+    @Label("Level Change")
+    @Category("Tetris")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class LevelChange extends Event {
+        /** The new level. */
+        @Label("Level")
+        private int myLevel;
+
+        /** The new delay between rows of gravity. */
+        @Label("Gravity Delay (ms)")
+        private int myDelay;
+    }
+}
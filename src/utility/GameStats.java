@@ -0,0 +1,302 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.util.Arrays;
+
+import model.BoardListener;
+import model.Input;
+import model.TetrisPiece;
+
+/**
+ * Statistics of the current game, fed by the gameplay events of a Board: pieces per second,
+ * inputs per piece, lines per minute, T-spins, combos and how long pieces take to lock.
+ *
+ * Everything is kept in primitive counters and fixed-size arrays that are allocated once,
+ * so handling an event never allocates. Rates over the recent pieces come from ring
+ * buffers of the last RECENT_COUNT pieces; the time to lock is kept as a histogram of
+ * ticks from which percentiles can be read.
+ *
+ * Times are measured in Board ticks, so they stop while the game is paused.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public class GameStats implements BoardListener {
+    /** The number of recent pieces that recent rates are measured over. */
+    public static final int RECENT_COUNT = 32;
+
+    /** The number of ticks covered by each bucket of the time to lock histogram. */
+    private static final int LOCK_BUCKET_TICKS = 4;
+
+    /** The number of buckets of the time to lock histogram; the last one is open ended. */
+    private static final int LOCK_BUCKETS = 64;
+
+    /** The number of milliseconds in a second. */
+    private static final double MS_PER_SECOND = 1000.0;
+
+    /** The largest percentile. */
+    private static final double PERCENT = 100.0;
+
+    /** The number of seconds in a minute. */
+    private static final double SECONDS_PER_MINUTE = 60.0;
+
+    /** The length of a tick in milliseconds. */
+    private final double myTickMillis;
+
+    /** The tick each of the recent pieces locked at (a ring buffer). */
+    private final long[] myRecentLockTicks;
+
+    /** The number of inputs used for each of the recent pieces (a ring buffer). */
+    private final int[] myRecentInputs;
+
+    /** The number of pieces locked after each number of ticks, in buckets. */
+    private final int[] myLockHistogram;
+
+    /** The number of pieces locked. */
+    private int myPieces;
+
+    /** The number of inputs applied. */
+    private int myInputs;
+
+    /** The number of inputs applied to the current piece. */
+    private int myPieceInputs;
+
+    /** The number of lines cleared. */
+    private int myLines;
+
+    /** The number of T-spins. */
+    private int myTSpins;
+
+    /** The number of pieces in a row that have cleared lines. */
+    private int myCombo;
+
+    /** The longest combo. */
+    private int myMaxCombo;
+
+    /** The tick the current piece spawned at. */
+    private long mySpawnTick;
+
+    /** The tick of the latest event. */
+    private long myLastTick;
+
+    /**
+     * Creates empty statistics.
+     *
+     * @param theTickMillis The length of a Board tick in milliseconds.
+     */
+    public GameStats(final double theTickMillis) {
+        myTickMillis = theTickMillis;
+        myRecentLockTicks = new long[RECENT_COUNT];
+        myRecentInputs = new int[RECENT_COUNT];
+        myLockHistogram = new int[LOCK_BUCKETS];
+    }
+
+    /**
+     * Clears the statistics for a new game.
+     */
+    public void reset() {
+        Arrays.fill(myRecentLockTicks, 0);
+        Arrays.fill(myRecentInputs, 0);
+        Arrays.fill(myLockHistogram, 0);
+        myPieces = 0;
+        myInputs = 0;
+        myPieceInputs = 0;
+        myLines = 0;
+        myTSpins = 0;
+        myCombo = 0;
+        myMaxCombo = 0;
+        mySpawnTick = 0;
+        myLastTick = 0;
+    }
+
+    @Override
+    public void pieceSpawned(final TetrisPiece thePiece, final long theTick) {
+        mySpawnTick = theTick;
+        myPieceInputs = 0;
+        myLastTick = theTick;
+    }
+
+    @Override
+    public void inputApplied(final Input theInput, final long theTick) {
+        myInputs++;
+        myPieceInputs++;
+        myLastTick = theTick;
+    }
+
+    @Override
+    public void pieceLocked(final TetrisPiece thePiece, final int theLinesCleared,
+                            final boolean theTSpin, final long theTick) {
+        final int slot = myPieces % RECENT_COUNT;
+        myRecentLockTicks[slot] = theTick;
+        myRecentInputs[slot] = myPieceInputs;
+        myPieces++;
+
+        final int bucket = (int) Math.min(LOCK_BUCKETS - 1,
+                                          (theTick - mySpawnTick) / LOCK_BUCKET_TICKS);
+        myLockHistogram[bucket]++;
+
+        myLines += theLinesCleared;
+        if (theTSpin) {
+            myTSpins++;
+        }
+        if (theLinesCleared > 0) {
+            myCombo++;
+            myMaxCombo = Math.max(myMaxCombo, myCombo);
+        } else {
+            myCombo = 0;
+        }
+        myLastTick = theTick;
+    }
+
+    /**
+     * Provides the number of pieces locked.
+     *
+     * @return The number of pieces.
+     */
+    public int getPieces() {
+        return myPieces;
+    }
+
+    /**
+     * Provides the length of the game so far, up to the latest event.
+     *
+     * @return The length of the game in milliseconds.
+     */
+    public long getDurationMillis() {
+        return Math.round(myLastTick * myTickMillis);
+    }
+
+    /**
+     * Provides the average number of pieces locked per second over the whole game.
+     *
+     * @return Pieces per second.
+     */
+    public double getPiecesPerSecond() {
+        return perSecond(myPieces, myLastTick);
+    }
+
+    /**
+     * Provides the number of pieces locked per second over the recent pieces.
+     *
+     * @return Pieces per second.
+     */
+    public double getRecentPiecesPerSecond() {
+        double result = getPiecesPerSecond();
+        if (myPieces > RECENT_COUNT) {
+            // the oldest recent lock is in the slot the next lock will overwrite
+            final long oldest = myRecentLockTicks[myPieces % RECENT_COUNT];
+            final long newest = myRecentLockTicks[(myPieces - 1) % RECENT_COUNT];
+            result = perSecond(RECENT_COUNT - 1, newest - oldest);
+        }
+        return result;
+    }
+
+    /**
+     * Provides the average number of inputs per piece over the whole game. Fewer inputs
+     * per piece means better finesse.
+     *
+     * @return Inputs per piece.
+     */
+    public double getInputsPerPiece() {
+        double result = 0;
+        if (myPieces > 0) {
+            result = (double) myInputs / myPieces;
+        }
+        return result;
+    }
+
+    /**
+     * Provides the average number of inputs per piece over the recent pieces.
+     *
+     * @return Inputs per piece.
+     */
+    public double getRecentInputsPerPiece() {
+        final int count = Math.min(myPieces, RECENT_COUNT);
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            total += myRecentInputs[i];
+        }
+        double result = 0;
+        if (count > 0) {
+            result = (double) total / count;
+        }
+        return result;
+    }
+
+    /**
+     * Provides the average number of lines cleared per minute over the whole game.
+     *
+     * @return Lines per minute.
+     */
+    public double getLinesPerMinute() {
+        return perSecond(myLines, myLastTick) * SECONDS_PER_MINUTE;
+    }
+
+    /**
+     * Provides the number of T-spins.
+     *
+     * @return The number of T-spins.
+     */
+    public int getTSpins() {
+        return myTSpins;
+    }
+
+    /**
+     * Provides the number of pieces in a row, up to the latest, that have cleared lines.
+     *
+     * @return The current combo.
+     */
+    public int getCombo() {
+        return myCombo;
+    }
+
+    /**
+     * Provides the longest combo of the game.
+     *
+     * @return The longest combo.
+     */
+    public int getMaxCombo() {
+        return myMaxCombo;
+    }
+
+    /**
+     * Provides a percentile of the time pieces took from spawning to locking, to the
+     * resolution of the histogram.
+     *
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The time to lock in milliseconds, or 0 before any piece has locked.
+     */
+    public long getLockTimePercentile(final double thePercentile) {
+        final long rank = (long) Math.ceil(thePercentile / PERCENT * myPieces);
+        long seen = 0;
+        int bucket = 0;
+        while (bucket < LOCK_BUCKETS - 1 && seen + myLockHistogram[bucket] < rank) {
+            seen += myLockHistogram[bucket];
+            bucket++;
+        }
+        long result = 0;
+        if (myPieces > 0) {
+            result = Math.round((bucket + 1) * LOCK_BUCKET_TICKS * myTickMillis);
+        }
+        return result;
+    }
+
+    /**
+     * Converts a count over a number of ticks to a rate per second.
+     *
+     * @param theCount The count.
+     * @param theTicks The number of ticks.
+     * @return The count per second, or 0 if no time has passed.
+     */
+    private double perSecond(final int theCount, final long theTicks) {
+        double result = 0;
+        if (theTicks > 0) {
+            result = theCount * MS_PER_SECOND / (theTicks * myTickMillis);
+        }
+        return result;
+    }
+}
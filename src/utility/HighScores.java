@@ -0,0 +1,477 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A local high score table that survives restarts.
+ *
+ * Every finished game is appended to a binary log file and never rewritten. In memory
+ * only the best scores for each board size are kept, in sorted sets, so recording a game
+ * and reading the top scores both take O(log n) time however many games have been
+ * played. At startup the sets are rebuilt from a snapshot of the top scores plus the part
+ * of the log written after the snapshot; the snapshot is rewritten whenever that part of
+ * the log grows long, so loading never has to replay the whole history.
+ *
+ * All file access happens on a single background thread. Queries read the sets directly
+ * and never block, so they are safe to call from the event dispatch thread (until the
+ * table has been loaded they simply return fewer scores).
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public class HighScores {
+    /** The number of scores kept for each board size. */
+    public static final int TOP_COUNT = 10;
+
+    /** The logger of file errors. */
+    private static final Logger LOGGER = Logger.getLogger(HighScores.class.getName());
+
+    /** Identifies a high score snapshot file ("TTHS"). */
+    private static final int MAGIC = 0x54544853;
+
+    /** The version of the snapshot layout. */
+    private static final int VERSION = 2;
+
+    /** The number of bytes of one game in the log and the snapshot. */
+    private static final int RECORD_SIZE = 2 * Long.BYTES + 6 * Integer.BYTES;
+
+    /** The number of bytes of the snapshot header: magic, version, log offset, count. */
+    private static final int SNAPSHOT_HEADER_SIZE = 3 * Integer.BYTES + Long.BYTES;
+
+    /** The number of games appended to the log before the snapshot is rewritten. */
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    /** The number of bits to shift the board width by in a board size key. */
+    private static final int KEY_SHIFT = 32;
+
+    /** Mask of the board height in a board size key. */
+    private static final long KEY_MASK = 0xFFFFFFFFL;
+
+    /** Orders scores from best to worst. */
+    private static final Comparator<Entry> BEST_FIRST = new Comparator<Entry>() {
+        @Override
+        public int compare(final Entry theFirst, final Entry theSecond) {
+            int result = Integer.compare(theSecond.myScore, theFirst.myScore);
+            if (result == 0) {
+                result = Integer.compare(theSecond.myLines, theFirst.myLines);
+            }
+            if (result == 0) {
+                result = Long.compare(theFirst.myId, theSecond.myId);
+            }
+            return result;
+        }
+    };
+
+    /** The append-only log of every finished game. */
+    private final Path myLogFile;
+
+    /** The snapshot of the top scores. */
+    private final Path mySnapshotFile;
+
+    /** The top scores for each board size, keyed by getKey(). */
+    private final Map<Long, NavigableSet<Entry>> myTopScores;
+
+    /** The thread that reads and writes the files. */
+    private final ExecutorService myExecutor;
+
+    /** The number of entries created, used to order equal scores (background thread). */
+    private long myNextId;
+
+    /** The log length covered by the snapshot, in bytes (background thread). */
+    private long mySnapshotOffset;
+
+    /** The log length, in bytes (background thread). */
+    private long myLogLength;
+
+    /**
+     * Creates a high score table stored in the given directory and starts loading it in
+     * the background.
+     *
+     * @param theDirectory The directory for the log and snapshot files.
+     */
+    public HighScores(final File theDirectory) {
+        myLogFile = new File(theDirectory, "scores.log").toPath();
+        mySnapshotFile = new File(theDirectory, "scores.snap").toPath();
+        myTopScores = new ConcurrentHashMap<>();
+        myExecutor = Executors.newSingleThreadExecutor(theRunnable -> {
+            final Thread thread = new Thread(theRunnable, "HighScores");
+            thread.setDaemon(true);
+            return thread;
+        });
+        myExecutor.execute(this::load);
+    }
+
+    /**
+     * Records a finished game. Returns immediately; the game is logged in the background.
+     *
+     * @param theWidth The board width.
+     * @param theHeight The board height.
+     * @param theScore The final score.
+     * @param theLines The number of lines cleared.
+     * @param theLevel The final level.
+     * @param theStats The statistics of the game.
+     */
+    public void record(final int theWidth, final int theHeight, final int theScore,
+                       final int theLines, final int theLevel, final GameStats theStats) {
+        final Entry entry = new Entry(0, System.currentTimeMillis(), theWidth, theHeight,
+                                      theScore, theLines, theLevel);
+        entry.myPieces = theStats.getPieces();
+        entry.myDuration = theStats.getDurationMillis();
+        myExecutor.execute(() -> {
+            entry.myId = myNextId++;
+            add(entry);
+            append(entry);
+        });
+    }
+
+    /**
+     * Provides the best scores recorded for a board size, best first.
+     *
+     * @param theWidth The board width.
+     * @param theHeight The board height.
+     * @return At most TOP_COUNT scores.
+     */
+    public List<Entry> getTopScores(final int theWidth, final int theHeight) {
+        final List<Entry> result = new ArrayList<>(TOP_COUNT);
+        final NavigableSet<Entry> scores = myTopScores.get(getKey(theWidth, theHeight));
+        if (scores != null) {
+            for (final Entry entry : scores) {
+                if (result.size() == TOP_COUNT) {
+                    break;
+                }
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds a score to the top scores of its board size, dropping the worst score if there
+     * are too many.
+     *
+     * @param theEntry The score to add.
+     */
+    private void add(final Entry theEntry) {
+        final NavigableSet<Entry> scores =
+                        myTopScores.computeIfAbsent(getKey(theEntry.myWidth,
+                                                           theEntry.myHeight),
+                            theKey -> new ConcurrentSkipListSet<>(BEST_FIRST));
+        scores.add(theEntry);
+        // sets never hold more than TOP_COUNT + 1 entries, so size() stays cheap
+        if (scores.size() > TOP_COUNT) {
+            scores.pollLast();
+        }
+    }
+
+    /**
+     * Appends a score to the log, rewriting the snapshot if the log has grown long.
+     *
+     * @param theEntry The score to append.
+     */
+    private void append(final Entry theEntry) {
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        theEntry.write(buffer);
+        buffer.flip();
+        try {
+            Files.createDirectories(myLogFile.toAbsolutePath().getParent());
+            try (FileChannel channel = FileChannel.open(myLogFile,
+                                                        StandardOpenOption.CREATE,
+                                                        StandardOpenOption.WRITE,
+                                                        StandardOpenOption.APPEND)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                myLogLength = channel.size();
+            }
+            if (myLogLength - mySnapshotOffset >= (long) COMPACT_THRESHOLD * RECORD_SIZE) {
+                writeSnapshot();
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Could not save the high scores", e);
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays the log written after it.
+     */
+    private void load() {
+        try {
+            if (Files.isRegularFile(mySnapshotFile)) {
+                readSnapshot();
+            }
+            if (Files.isRegularFile(myLogFile)) {
+                replayLog();
+            }
+            if (myLogLength - mySnapshotOffset >= (long) COMPACT_THRESHOLD * RECORD_SIZE) {
+                writeSnapshot();
+            }
+        } catch (final IOException e) {
+            LOGGER.log(Level.WARNING, "Could not load the high scores", e);
+        }
+    }
+
+    /**
+     * Reads the top scores and the log offset from the snapshot. A damaged snapshot is
+     * ignored and the whole log is replayed instead.
+     *
+     * @throws IOException if the snapshot cannot be read.
+     */
+    private void readSnapshot() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(mySnapshotFile));
+        if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt() != MAGIC
+                        || buffer.getInt() != VERSION) {
+            return;
+        }
+        final long offset = buffer.getLong();
+        final int count = buffer.getInt();
+        if (offset < 0 || count < 0 || buffer.remaining() < (long) count * RECORD_SIZE) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            add(Entry.read(myNextId++, buffer));
+        }
+        mySnapshotOffset = offset;
+    }
+
+    /**
+     * Adds the scores logged after the snapshot. An incomplete record at the end of the
+     * log (from a crash while writing it) is cut off so that later records line up.
+     *
+     * @throws IOException if the log cannot be read.
+     */
+    private void replayLog() throws IOException {
+        try (FileChannel channel = FileChannel.open(myLogFile, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            if (mySnapshotOffset > channel.size()) {
+                // the log was replaced since the snapshot was written
+                myTopScores.clear();
+                mySnapshotOffset = 0;
+            }
+            myLogLength = mySnapshotOffset
+                          + (channel.size() - mySnapshotOffset) / RECORD_SIZE * RECORD_SIZE;
+            if (myLogLength < channel.size()) {
+                channel.truncate(myLogLength);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * COMPACT_THRESHOLD);
+            channel.position(mySnapshotOffset);
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    add(Entry.read(myNextId++, buffer));
+                }
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * Writes all top scores to a new snapshot, then replaces the old snapshot with it.
+     *
+     * @throws IOException if the snapshot cannot be written.
+     */
+    private void writeSnapshot() throws IOException {
+        final List<Entry> entries = new ArrayList<>();
+        for (final NavigableSet<Entry> scores : myTopScores.values()) {
+            entries.addAll(scores);
+        }
+        final ByteBuffer buffer =
+                        ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE + entries.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putLong(myLogLength);
+        buffer.putInt(entries.size());
+        for (final Entry entry : entries) {
+            entry.write(buffer);
+        }
+
+        final Path temporary = mySnapshotFile.resolveSibling("scores.snap.tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, mySnapshotFile, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+        mySnapshotOffset = myLogLength;
+    }
+
+    /**
+     * Combines a board size into a single map key.
+     *
+     * @param theWidth The board width.
+     * @param theHeight The board height.
+     * @return The key for the board size.
+     */
+    private static Long getKey(final int theWidth, final int theHeight) {
+        return ((long) theWidth << KEY_SHIFT) | (theHeight & KEY_MASK);
+    }
+
+    /**
+     * One finished game in the high score table.
+     *
+     * @author agent
+     * @version 19 Oct 2026
+     *
+     */
+    public static final class Entry {
+        /** Orders entries with equal scores by arrival. */
+        private long myId;
+
+        /** When the game finished, in milliseconds since the epoch. */
+        private final long myTime;
+
+        /** The board width. */
+        private final int myWidth;
+
+        /** The board height. */
+        private final int myHeight;
+
+        /** The final score. */
+        private final int myScore;
+
+        /** The number of lines cleared. */
+        private final int myLines;
+
+        /** The final level. */
+        private final int myLevel;
+
+        /** The number of pieces locked. */
+        private int myPieces;
+
+        /** The length of the game in milliseconds. */
+        private long myDuration;
+
+        /**
+         * Creates an entry.
+         *
+         * @param theId Orders entries with equal scores by arrival.
+         * @param theTime When the game finished.
+         * @param theWidth The board width.
+         * @param theHeight The board height.
+         * @param theScore The final score.
+         * @param theLines The number of lines cleared.
+         * @param theLevel The final level.
+         */
+        private Entry(final long theId, final long theTime, final int theWidth,
+                      final int theHeight, final int theScore, final int theLines,
+                      final int theLevel) {
+            myId = theId;
+            myTime = theTime;
+            myWidth = theWidth;
+            myHeight = theHeight;
+            myScore = theScore;
+            myLines = theLines;
+            myLevel = theLevel;
+        }
+
+        /**
+         * Reads an entry written by write().
+         *
+         * @param theId Orders entries with equal scores by arrival.
+         * @param theBuffer The buffer to read from.
+         * @return The entry.
+         */
+        private static Entry read(final long theId, final ByteBuffer theBuffer) {
+            final long time = theBuffer.getLong();
+            final int width = theBuffer.getInt();
+            final int height = theBuffer.getInt();
+            final int score = theBuffer.getInt();
+            final int lines = theBuffer.getInt();
+            final int level = theBuffer.getInt();
+            final Entry result = new Entry(theId, time, width, height, score, lines, level);
+            result.myPieces = theBuffer.getInt();
+            result.myDuration = theBuffer.getLong();
+            return result;
+        }
+
+        /**
+         * Writes this entry in RECORD_SIZE bytes.
+         *
+         * @param theBuffer The buffer to write to.
+         */
+        private void write(final ByteBuffer theBuffer) {
+            theBuffer.putLong(myTime);
+            theBuffer.putInt(myWidth);
+            theBuffer.putInt(myHeight);
+            theBuffer.putInt(myScore);
+            theBuffer.putInt(myLines);
+            theBuffer.putInt(myLevel);
+            theBuffer.putInt(myPieces);
+            theBuffer.putLong(myDuration);
+        }
+
+        /**
+         * Provides when the game finished.
+         *
+         * @return The time in milliseconds since the epoch.
+         */
+        public long getTime() {
+            return myTime;
+        }
+
+        /**
+         * Provides the final score.
+         *
+         * @return The score.
+         */
+        public int getScore() {
+            return myScore;
+        }
+
+        /**
+         * Provides the number of lines cleared.
+         *
+         * @return The lines cleared.
+         */
+        public int getLines() {
+            return myLines;
+        }
+
+        /**
+         * Provides the final level.
+         *
+         * @return The level.
+         */
+        public int getLevel() {
+            return myLevel;
+        }
+
+        /**
+         * Provides the number of pieces locked.
+         *
+         * @return The number of pieces.
+         */
+        public int getPieces() {
+            return myPieces;
+        }
+
+        /**
+         * Provides the length of the game.
+         *
+         * @return The length in milliseconds.
+         */
+        public long getDuration() {
+            return myDuration;
+        }
+    }
+}
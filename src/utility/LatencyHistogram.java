@@ -0,0 +1,170 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of durations in nanoseconds, in the style of HdrHistogram.
+ *
+ * Values are counted in log-linear buckets: each power of two is split into 16 equal
+ * buckets, so any value is reported to within about 6% however large it is, and the
+ * whole range of a long fits in under a thousand counters. Recording a value is a few
+ * shifts and an atomic increment, with no locks and no allocation, so it is cheap enough
+ * to call on every move and every frame from any thread.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class LatencyHistogram {
+    /** The number of bits of each value kept exactly within its power of two. */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** The number of buckets each power of two is split into. */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** The number of buckets needed for every non-negative long. */
+    private static final int BUCKETS =
+                    (Long.SIZE - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + 2 * SUB_BUCKETS;
+
+    /** The largest percentile. */
+    private static final double PERCENT = 100.0;
+
+    /** The number of values in each bucket. */
+    private final AtomicLongArray myCounts;
+
+    /** The number of values recorded. */
+    private final LongAdder myCount;
+
+    /** The sum of the values recorded. */
+    private final LongAdder mySum;
+
+    /** The largest value recorded. */
+    private final AtomicLong myMax;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        myCounts = new AtomicLongArray(BUCKETS);
+        myCount = new LongAdder();
+        mySum = new LongAdder();
+        myMax = new AtomicLong();
+    }
+
+    /**
+     * Records a value. Negative values are recorded as 0.
+     *
+     * @param theNanos The value, in nanoseconds.
+     */
+    public void record(final long theNanos) {
+        final long value = Math.max(0, theNanos);
+        myCounts.incrementAndGet(getBucket(value));
+        myCount.increment();
+        mySum.add(value);
+        long max = myMax.get();
+        while (value > max && !myMax.compareAndSet(max, value)) {
+            max = myMax.get();
+        }
+    }
+
+    /**
+     * Provides the number of values recorded.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return myCount.sum();
+    }
+
+    /**
+     * Provides the mean of the values recorded.
+     *
+     * @return The mean in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double getMean() {
+        final long count = myCount.sum();
+        double result = 0;
+        if (count > 0) {
+            result = (double) mySum.sum() / count;
+        }
+        return result;
+    }
+
+    /**
+     * Provides the largest value recorded.
+     *
+     * @return The maximum in nanoseconds.
+     */
+    public long getMax() {
+        return myMax.get();
+    }
+
+    /**
+     * Provides a percentile of the values recorded, as the upper end of the bucket it
+     * falls in. Values recorded while this runs may or may not be included.
+     *
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The percentile in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(final double thePercentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += myCounts.get(i);
+        }
+        final long rank = Math.max(1, (long) Math.ceil(thePercentile / PERCENT * total));
+        long seen = 0;
+        long result = 0;
+        for (int i = 0; i < BUCKETS && total > 0; i++) {
+            seen += myCounts.get(i);
+            if (seen >= rank) {
+                result = Math.min(getBucketTop(i), myMax.get());
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clears the histogram. Values recorded while this runs may or may not be kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            myCounts.set(i, 0);
+        }
+        myCount.reset();
+        mySum.reset();
+        myMax.set(0);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param theValue A non-negative value.
+     * @return The index of its bucket.
+     */
+    private static int getBucket(final long theValue) {
+        // values below 2 * SUB_BUCKETS get a bucket each; larger values are shifted
+        // right until they are in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        final int shift = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(theValue)
+                                      - SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKETS + (int) (theValue >>> shift);
+    }
+
+    /**
+     * Finds the largest value that falls in a bucket.
+     *
+     * @param theBucket The index of the bucket.
+     * @return The largest value of the bucket.
+     */
+    private static long getBucketTop(final int theBucket) {
+        final int shift = Math.max(0, theBucket / SUB_BUCKETS - 1);
+        final long mantissa = theBucket - (long) shift * SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+/**
+ * The timed hot paths of the game, each with a histogram of how long it takes.
+ *
+ * Timing a path is two calls around it:
+ * <pre>
+ * final long start = Metric.start();
+ * ...
+ * Metric.BOARD_MOVE.stop(start);
+ * </pre>
+ * While metrics are disabled start() returns 0 without reading the clock and stop()
+ * does nothing, so the cost of an instrumented path is a volatile read. Metrics are
+ * disabled until the debug overlay or the Metrics MBean turns them on.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public enum Metric {
+    /** Moving, rotating or dropping the movable piece one step in the logic board. */
+    BOARD_MOVE("Board move"),
+
+    /** Freezing a piece, checking for complete rows and clearing them. */
+    CHECK_ROWS("Check rows"),
+
+    /** Notifying observers of the logic board, i.e. all the views updating. */
+    OBSERVER_DISPATCH("Observer dispatch"),
+
+    /** Painting the game display. */
+    PAINT("Paint"),
+
+    /** Handling one tick of the frame timer: held controls and the logic board. */
+    TICK("Tick"),
+
+    /** How late the frame timer fires compared to its delay. */
+    TICK_LATENCY("Tick latency");
+
+    /** Whether metrics are being recorded. */
+    private static volatile boolean ourEnabled;
+
+    /** The name shown for this metric. */
+    private final String myName;
+
+    /** The durations recorded for this metric. */
+    private final LatencyHistogram myHistogram;
+
+    /**
+     * Creates a metric.
+     *
+     * @param theName The name shown for the metric.
+     */
+    Metric(final String theName) {
+        myName = theName;
+        myHistogram = new LatencyHistogram();
+    }
+
+    /**
+     * Checks whether metrics are being recorded.
+     *
+     * @return true if metrics are enabled.
+     */
+    public static boolean isEnabled() {
+        return ourEnabled;
+    }
+
+    /**
+     * Turns recording of all metrics on or off.
+     *
+     * @param theEnabled Whether to record metrics.
+     */
+    public static void setEnabled(final boolean theEnabled) {
+        ourEnabled = theEnabled;
+    }
+
+    /**
+     * Starts timing a path.
+     *
+     * @return The start time to pass to stop(), or 0 if metrics are disabled.
+     */
+    public static long start() {
+        long result = 0;
+        if (ourEnabled) {
+            result = System.nanoTime();
+        }
+        return result;
+    }
+
+    /**
+     * Finishes timing a path and records how long it took.
+     *
+     * @param theStart The value start() returned.
+     */
+    public void stop(final long theStart) {
+        if (theStart != 0) {
+            myHistogram.record(System.nanoTime() - theStart);
+        }
+    }
+
+    /**
+     * Records a duration measured some other way.
+     *
+     * @param theNanos The duration in nanoseconds.
+     */
+    public void record(final long theNanos) {
+        if (ourEnabled) {
+            myHistogram.record(theNanos);
+        }
+    }
+
+    /**
+     * Provides the histogram of this metric.
+     *
+     * @return The histogram.
+     */
+    public LatencyHistogram getHistogram() {
+        return myHistogram;
+    }
+
+    @Override
+    public String toString() {
+        return myName;
+    }
+}
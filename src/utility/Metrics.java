@@ -0,0 +1,130 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Publishes the game's metrics over JMX under the name "tetris:type=Metrics".
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class Metrics implements MetricsMXBean {
+    /** The JMX name of the metrics. */
+    public static final String OBJECT_NAME = "tetris:type=Metrics";
+
+    /** The logger of registration failures. */
+    private static final Logger LOGGER = Logger.getLogger(Metrics.class.getName());
+
+    /** The 50th percentile. */
+    private static final double MEDIAN = 50;
+
+    /** The 99th percentile. */
+    private static final double HIGH_PERCENTILE = 99;
+
+    /** The number of nanoseconds in a microsecond. */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /**
+     * Creates the JMX view of the metrics; use register() instead.
+     */
+    private Metrics() {
+        super();
+    }
+
+    /**
+     * Registers the metrics with the platform MBean server. Registering more than once
+     * does nothing. Errors are logged rather than thrown, since the game runs fine without
+     * its metrics being published.
+     */
+    public static void register() {
+        try {
+            final ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(new Metrics(), name);
+            }
+        } catch (final JMException e) {
+            LOGGER.log(Level.WARNING, "Could not register the metrics", e);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return Metric.isEnabled();
+    }
+
+    @Override
+    public void setEnabled(final boolean theEnabled) {
+        Metric.setEnabled(theEnabled);
+    }
+
+    @Override
+    public Map<String, Long> getCounts() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (final Metric metric : Metric.values()) {
+            result.put(metric.toString(), metric.getHistogram().getCount());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getMeanMicros() {
+        final Map<String, Double> result = new LinkedHashMap<>();
+        for (final Metric metric : Metric.values()) {
+            result.put(metric.toString(), metric.getHistogram().getMean() / NANOS_PER_MICRO);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return getPercentileMicros(MEDIAN);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return getPercentileMicros(HIGH_PERCENTILE);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        final Map<String, Double> result = new LinkedHashMap<>();
+        for (final Metric metric : Metric.values()) {
+            result.put(metric.toString(), metric.getHistogram().getMax() / NANOS_PER_MICRO);
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        for (final Metric metric : Metric.values()) {
+            metric.getHistogram().reset();
+        }
+    }
+
+    /**
+     * Provides a percentile of the duration of each path.
+     *
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The percentiles in microseconds.
+     */
+    private static Map<String, Double> getPercentileMicros(final double thePercentile) {
+        final Map<String, Double> result = new LinkedHashMap<>();
+        for (final Metric metric : Metric.values()) {
+            result.put(metric.toString(),
+                       metric.getHistogram().getPercentile(thePercentile) / NANOS_PER_MICRO);
+        }
+        return result;
+    }
+}
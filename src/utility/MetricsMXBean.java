@@ -0,0 +1,72 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.util.Map;
+
+/**
+ * The JMX view of the game's metrics, for watching where frame time goes from JConsole or
+ * VisualVM while the game runs. Every map is keyed by metric name; durations are in
+ * microseconds.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public interface MetricsMXBean {
+    /**
+     * Checks whether metrics are being recorded.
+     *
+     * @return true if metrics are enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording of all metrics on or off.
+     *
+     * @param theEnabled Whether to record metrics.
+     */
+    void setEnabled(boolean theEnabled);
+
+    /**
+     * Provides the number of times each path was timed.
+     *
+     * @return The counts.
+     */
+    Map<String, Long> getCounts();
+
+    /**
+     * Provides the mean duration of each path.
+     *
+     * @return The means in microseconds.
+     */
+    Map<String, Double> getMeanMicros();
+
+    /**
+     * Provides the median duration of each path.
+     *
+     * @return The medians in microseconds.
+     */
+    Map<String, Double> getP50Micros();
+
+    /**
+     * Provides the 99th percentile duration of each path.
+     *
+     * @return The 99th percentiles in microseconds.
+     */
+    Map<String, Double> getP99Micros();
+
+    /**
+     * Provides the longest duration of each path.
+     *
+     * @return The maximums in microseconds.
+     */
+    Map<String, Double> getMaxMicros();
+
+    /**
+     * Clears all metrics.
+     */
+    void reset();
+}
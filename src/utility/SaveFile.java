@@ -0,0 +1,201 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package utility;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import model.Board;
+
+/**
+ * A save slot for an in-progress game, stored in a compact binary file.
+ *
+ * The file is memory-mapped once and the mapping is kept between saves, so saving only
+ * copies the board state (a few hundred bytes for a standard board) into memory; the
+ * operating system writes the pages out in the background. This keeps frequent autosaves
+ * from stalling the event dispatch thread.
+ *
+ * File layout: magic, version, board width, board height, the number of counters, the
+ * counters (e.g. the scoreboard's), the size of the board state, then the board state
+ * written by Board.writeState().
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public class SaveFile {
+    /** Identifies a Tetris save file ("TTRS"). */
+    private static final int MAGIC = 0x54545253;
+
+    /** The version of the file layout. */
+    private static final int VERSION = 2;
+
+    /** The number of ints in the header before the counters. */
+    private static final int HEADER_INTS = 5;
+
+    /** The file to save to. */
+    private final File myFile;
+
+    /** The mapping of the file kept between saves, or null before the first save. */
+    private MappedByteBuffer myBuffer;
+
+    /** The board width of the last save loaded. */
+    private int myWidth;
+
+    /** The board height of the last save loaded. */
+    private int myHeight;
+
+    /** The counters of the last save loaded. */
+    private int[] myCounters;
+
+    /**
+     * Creates a save slot backed by the given file. Nothing is read or written until
+     * save() or load() is called.
+     *
+     * @param theFile The file to save to.
+     */
+    public SaveFile(final File theFile) {
+        myFile = theFile;
+        myCounters = new int[0];
+    }
+
+    /**
+     * Checks whether the save file exists.
+     *
+     * @return true if there is a saved game.
+     */
+    public boolean exists() {
+        return myFile.isFile();
+    }
+
+    /**
+     * Saves a game into the file, replacing any game saved before.
+     *
+     * @param theBoard The board of the game to save.
+     * @param theCounters Any extra counters to save with the game (e.g. the score).
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public void save(final Board theBoard, final int[] theCounters) throws IOException {
+        final int stateSize = theBoard.getStateSize();
+        final int size = Integer.BYTES * (HEADER_INTS + theCounters.length + 1) + stateSize;
+        if (myBuffer == null || myBuffer.capacity() < size) {
+            map(size);
+        }
+
+        myBuffer.clear();
+        myBuffer.putInt(MAGIC);
+        myBuffer.putInt(VERSION);
+        myBuffer.putInt(theBoard.getWidth());
+        myBuffer.putInt(theBoard.getHeight());
+        myBuffer.putInt(theCounters.length);
+        for (final int counter : theCounters) {
+            myBuffer.putInt(counter);
+        }
+        myBuffer.putInt(stateSize);
+        theBoard.writeState(myBuffer);
+    }
+
+    /**
+     * Loads the header of the saved game, so that getWidth(), getHeight() and
+     * getCounters() describe it and restore() can read its board state.
+     *
+     * @throws IOException if the file cannot be read or is not a valid save file.
+     * @throws IllegalArgumentException if the number of counters does not fit in the
+     *         file.
+     */
+    public void load() throws IOException {
+        try (FileChannel channel = FileChannel.open(myFile.toPath(),
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            myBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        try {
+            myBuffer.clear();
+            if (myBuffer.getInt() != MAGIC || myBuffer.getInt() != VERSION) {
+                throw new IOException("Not a Tetris save file: " + myFile);
+            }
+            myWidth = myBuffer.getInt();
+            myHeight = myBuffer.getInt();
+            final int count = myBuffer.getInt();
+            if (count < 0 || count > myBuffer.remaining() / Integer.BYTES) {
+                throw new IllegalArgumentException("Bad counter count " + count
+                                                   + " in save file: " + myFile);
+            }
+            myCounters = new int[count];
+            for (int i = 0; i < myCounters.length; i++) {
+                myCounters[i] = myBuffer.getInt();
+            }
+        } catch (final BufferUnderflowException e) {
+            throw new IOException("Truncated save file: " + myFile, e);
+        }
+    }
+
+    /**
+     * Returns the board width of the game loaded by load().
+     *
+     * @return The board width.
+     */
+    public int getWidth() {
+        return myWidth;
+    }
+
+    /**
+     * Returns the board height of the game loaded by load().
+     *
+     * @return The board height.
+     */
+    public int getHeight() {
+        return myHeight;
+    }
+
+    /**
+     * Returns the counters of the game loaded by load().
+     *
+     * @return A copy of the saved counters.
+     */
+    public int[] getCounters() {
+        return myCounters.clone();
+    }
+
+    /**
+     * Restores the board state of the game loaded by load() into a board of the same size.
+     *
+     * @param theBoard The board to restore into.
+     * @throws IOException if the board state is truncated.
+     */
+    public void restore(final Board theBoard) throws IOException {
+        myBuffer.position(Integer.BYTES * (HEADER_INTS + myCounters.length));
+        final int stateSize = myBuffer.getInt();
+        if (myBuffer.remaining() < stateSize) {
+            throw new IOException("Truncated save file: " + myFile);
+        }
+        theBoard.readState(myBuffer);
+    }
+
+    /**
+     * Maps the file for saving, growing it if necessary.
+     *
+     * @param theSize The number of bytes needed.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    private void map(final int theSize) throws IOException {
+        final File parent = myFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(myFile.toPath(),
+                                                    StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE)) {
+            myBuffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                   Math.max(theSize, channel.size()));
+        }
+    }
+}
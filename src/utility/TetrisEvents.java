@@ -51,5 +51,29 @@ public enum TetrisEvents {
     INVERT_COLOR_SCHEME_ON,
     
     /** For when the color scheme should not be inverted. */
-    INVERT_COLOR_SCHEME_OFF;
+    INVERT_COLOR_SCHEME_OFF,
+    
+    /** For when the number of previewed pieces is changed. */
+    PREVIEW_LENGTH_CHANGE,
+    
+    /** For when the game in progress should be saved. */
+    SAVE_GAME,
+    
+    /** For when the saved game should be loaded. */
+    LOAD_GAME,
+    
+    /** For when the high score table should be shown. */
+    SHOW_HIGH_SCORES,
+    
+    /** For when the debug overlay should be shown. */
+    DEBUG_OVERLAY_ON,
+    
+    /** For when the debug overlay should be hidden. */
+    DEBUG_OVERLAY_OFF,
+    
+    /** For when the frame stats overlay should be shown. */
+    FRAME_OVERLAY_ON,
+    
+    /** For when the frame stats overlay should be hidden. */
+    FRAME_OVERLAY_OFF;
 }
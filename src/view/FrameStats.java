@@ -0,0 +1,181 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package view;
+
+import java.util.Arrays;
+
+/**
+ * Frame timing for the game display: frames per second, how long painting takes and the
+ * key-to-pixel latency (the time from a key press to the end of the paint that shows what
+ * the key did).
+ *
+ * Samples of the last SAMPLES frames and inputs are kept in ring buffers allocated up
+ * front, and percentiles are computed in a scratch array that is also allocated once,
+ * so recording and reading the numbers never allocates.
+ *
+ * A key-to-pixel measurement starts at inputStarted(). If the input changes the board
+ * (boardChanged() is called before inputFinished()) it ends at the next paintFinished();
+ * otherwise, e.g. when the piece is against a wall, the measurement is dropped.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class FrameStats {
+    /** The number of frames and inputs kept. */
+    public static final int SAMPLES = 128;
+
+    /** The number of nanoseconds in a second. */
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    /** The largest percentile. */
+    private static final double PERCENT = 100.0;
+
+    /** When each recent frame finished painting (a ring buffer). */
+    private final long[] myFrameEnds;
+
+    /** How long each recent frame took to paint (a ring buffer). */
+    private final long[] myPaintTimes;
+
+    /** The key-to-pixel latency of each recent input (a ring buffer). */
+    private final long[] myLatencies;
+
+    /** Scratch space for sorting samples. */
+    private final long[] mySorted;
+
+    /** The number of frames painted. */
+    private long myFrames;
+
+    /** The number of latencies measured. */
+    private long myInputs;
+
+    /** When the pending input was pressed, or 0 if no input is pending. */
+    private long myInputStart;
+
+    /** Whether the pending input changed the board, so the next paint shows it. */
+    private boolean myInputShown;
+
+    /**
+     * Creates empty frame statistics.
+     */
+    public FrameStats() {
+        myFrameEnds = new long[SAMPLES];
+        myPaintTimes = new long[SAMPLES];
+        myLatencies = new long[SAMPLES];
+        mySorted = new long[SAMPLES];
+    }
+
+    /**
+     * Records that a key was pressed. A press while an earlier one is still waiting to be
+     * painted does not restart the measurement, since the earlier press waits longest.
+     *
+     * @param theTime When the key was pressed, from System.nanoTime().
+     */
+    public void inputStarted(final long theTime) {
+        if (myInputStart == 0) {
+            myInputStart = theTime;
+        }
+    }
+
+    /**
+     * Records that the board changed, so that a pending input will be shown by the next
+     * paint.
+     */
+    public void boardChanged() {
+        if (myInputStart != 0) {
+            myInputShown = true;
+        }
+    }
+
+    /**
+     * Records that the key press has been handled, dropping the measurement if the press
+     * did not change the board.
+     */
+    public void inputFinished() {
+        if (!myInputShown) {
+            myInputStart = 0;
+        }
+    }
+
+    /**
+     * Records a painted frame, completing the key-to-pixel measurement of a pending input
+     * that it shows.
+     *
+     * @param theStart When painting started, from System.nanoTime().
+     * @param theEnd When painting finished, from System.nanoTime().
+     */
+    public void paintFinished(final long theStart, final long theEnd) {
+        final int slot = (int) (myFrames % SAMPLES);
+        myFrameEnds[slot] = theEnd;
+        myPaintTimes[slot] = theEnd - theStart;
+        myFrames++;
+
+        if (myInputShown) {
+            myLatencies[(int) (myInputs % SAMPLES)] = theEnd - myInputStart;
+            myInputs++;
+            myInputStart = 0;
+            myInputShown = false;
+        }
+    }
+
+    /**
+     * Provides the frame rate over the recent frames.
+     *
+     * @return Frames per second, or 0 before two frames have been painted.
+     */
+    public double getFramesPerSecond() {
+        final int count = (int) Math.min(myFrames, SAMPLES);
+        double result = 0;
+        if (count > 1) {
+            final long newest = myFrameEnds[(int) ((myFrames - 1) % SAMPLES)];
+            final long oldest = myFrameEnds[(int) ((myFrames - count) % SAMPLES)];
+            if (newest > oldest) {
+                result = (count - 1) * NANOS_PER_SECOND / (newest - oldest);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Provides a percentile of the paint time of the recent frames.
+     *
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The paint time in nanoseconds, or 0 before any frame has been painted.
+     */
+    public long getPaintTime(final double thePercentile) {
+        return getPercentile(myPaintTimes, myFrames, thePercentile);
+    }
+
+    /**
+     * Provides a percentile of the key-to-pixel latency of the recent inputs.
+     *
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The latency in nanoseconds, or 0 before any input has been measured.
+     */
+    public long getLatency(final double thePercentile) {
+        return getPercentile(myLatencies, myInputs, thePercentile);
+    }
+
+    /**
+     * Computes a percentile of the samples in a ring buffer.
+     *
+     * @param theSamples The ring buffer.
+     * @param theCount The number of samples ever written to it.
+     * @param thePercentile The percentile, from 0 to 100.
+     * @return The percentile, or 0 if there are no samples.
+     */
+    private long getPercentile(final long[] theSamples, final long theCount,
+                               final double thePercentile) {
+        final int count = (int) Math.min(theCount, SAMPLES);
+        long result = 0;
+        if (count > 0) {
+            System.arraycopy(theSamples, 0, mySorted, 0, count);
+            Arrays.sort(mySorted, 0, count);
+            final int rank = (int) Math.ceil(thePercentile / PERCENT * count);
+            result = mySorted[Math.max(0, Math.min(count, rank) - 1)];
+        }
+        return result;
+    }
+}
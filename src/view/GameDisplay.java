@@ -11,17 +11,23 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.TreeMap;
 
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
 
+import model.Block;
+import model.Board;
+import model.PieceQueue;
+import model.Point;
 import utility.Colors;
+import utility.LatencyHistogram;
+import utility.Metric;
 import utility.TetrisEvents;
 
 /**
@@ -52,6 +58,54 @@ public class GameDisplay extends JPanel implements Observer {
     /** Screen overlay color for when the game is finished. */
     private static final Color GAMEOVER_COLOR = Color.RED;
     
+    /** Background color of the debug overlay. */
+    private static final Color DEBUG_BACKGROUND = new Color(0, 0, 0, 160);
+    
+    /** Font of the debug overlay. */
+    private static final Font DEBUG_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    
+    /** The number of nanoseconds in a microsecond. */
+    private static final double NANOS_PER_MICRO = 1000.0;
+    
+    /** The 50th percentile. */
+    private static final double MEDIAN = 50;
+    
+    /** The 99th percentile. */
+    private static final double HIGH_PERCENTILE = 99;
+    
+    /** The number of nanoseconds in a millisecond. */
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    
+    /** The number of columns of a large board shown at once. */
+    private static final int VIEW_COLUMNS = 20;
+    
+    /** The number of rows of a large board shown at once. */
+    private static final int VIEW_ROWS = 40;
+    
+    /** The closest the movable piece gets to the edge of the view before it scrolls. */
+    private static final int VIEW_MARGIN = 6;
+    
+    /** The distance from the position of a piece to about its center. */
+    private static final int PIECE_CENTER = 2;
+    
+    /** The largest width or height of the minimap, in pixels. */
+    private static final int MINIMAP_SIZE = 96;
+    
+    /** The distance of the minimap from the edges of the display, in pixels. */
+    private static final int MINIMAP_PADDING = 8;
+    
+    /** The largest alpha of a color. */
+    private static final int OPAQUE = 255;
+    
+    /** The number of bits to shift an alpha into an ARGB pixel. */
+    private static final int ALPHA_SHIFT = 24;
+    
+    /** The color of the view outline on the minimap. */
+    private static final Color MINIMAP_VIEW_COLOR = Color.YELLOW;
+
+    /** The Block drawn as each character of the board, indexed by character. */
+    private static final Block[] BLOCKS_BY_SYMBOL = createBlockSymbols();
+    
     /** X grid size. Determines how many blocks wide the game board is. */
     private int myXGridSize;
     
@@ -67,7 +121,7 @@ public class GameDisplay extends JPanel implements Observer {
     /**
      * The parsed grid for the current game board to draw.
      */
-    private final List<String> myGameGrid;
+    private final List<Block[]> myGameGrid;
     
     /** The Color object that will create and manipulate color schemes. */
     private final Colors myColorChanger;
@@ -75,11 +129,47 @@ public class GameDisplay extends JPanel implements Observer {
     /** Boolean flag to determine whether or not to invert the current color scheme. */
     private boolean myInvertFlag;
 
-    /** The current color scheme. */
-    private Map<Character, Color> myColorScheme;
+    /** Boolean flag to determine whether or not to use the dark color scheme. */
+    private boolean myDarkFlag;
+
+    /** The current color scheme, indexed by Block ordinal. */
+    private Color[] myColorScheme;
     
     /** The current game state (See *_STATE constants for details). */
     private TetrisEvents myGameState;
+    
+    /** Whether to draw the debug overlay. */
+    private boolean myDebugOverlay;
+    
+    /** Whether to draw the frame stats overlay. */
+    private boolean myFrameOverlay;
+    
+    /** Frame rate, paint time and key-to-pixel latency of this display. */
+    private final FrameStats myFrameStats;
+    
+    /** Whether the board is large, so only a view of it is drawn, with a minimap. */
+    private boolean myLarge;
+    
+    /** The large board being drawn, or null before its first update. */
+    private Board myBoard;
+    
+    /** The left column of the large board shown in the view. */
+    private int myViewX;
+    
+    /** The bottom row of the large board shown in the view. */
+    private int myViewY;
+    
+    /** The minimap of the frozen blocks of the large board, or null before it is drawn. */
+    private BufferedImage myMinimap;
+    
+    /** The number of board cells in each direction drawn as one minimap pixel. */
+    private int myMinimapCells;
+    
+    /** Whether the frozen blocks changed since the minimap was drawn. */
+    private boolean myMinimapStale;
+    
+    /** The tile drawn for each cell, reused so drawing does not allocate. */
+    private final Rectangle2D.Double myTile;
 
     /**
      * Sets the initial values for any non-constant fields, as well as sets the minimum size.
@@ -92,15 +182,28 @@ public class GameDisplay extends JPanel implements Observer {
         
         myXGridSize = theXGridSize;
         myYGridSize = theYGridSize;
+        myLarge = Board.isLarge(theXGridSize, theYGridSize);
 
         setInitialSize();
         setBackground(Color.WHITE);
         
         setBorder(BorderFactory.createLineBorder(Color.GRAY));
         
-        myGameGrid = new ArrayList<String>();
+        myGameGrid = new ArrayList<Block[]>();
         myColorChanger = new Colors();
-        myColorScheme = new TreeMap<Character, Color>();
+        myColorScheme = myColorChanger.getColorScheme(false, false);
+        myFrameStats = new FrameStats();
+        myTile = new Rectangle2D.Double();
+    }
+    
+    /**
+     * Provides the frame statistics of this display, so that key presses can be timed
+     * until they are painted.
+     * 
+     * @return The frame statistics.
+     */
+    public FrameStats getFrameStats() {
+        return myFrameStats;
     }
 
     /**
@@ -109,6 +212,11 @@ public class GameDisplay extends JPanel implements Observer {
      */
     @Override
     public void paintComponent(final Graphics theGraphics) {
+        // the clock is only read when the frame overlay or the metrics want it
+        long start = 0;
+        if (myFrameOverlay || Metric.isEnabled()) {
+            start = System.nanoTime();
+        }
         super.paintComponent(theGraphics);
         final Graphics2D g2d = (Graphics2D) theGraphics;
         
@@ -117,23 +225,34 @@ public class GameDisplay extends JPanel implements Observer {
                              RenderingHints.VALUE_ANTIALIAS_ON);
         // resize the GUI before drawing anything
         resize();
-        myScaleFactor = 1.0 * this.getHeight() / myYGridSize; 
-        
-        // make sure a color scheme exists
-        if (myColorScheme.isEmpty()) {
-            myColorScheme = myColorChanger.getDefaultColorScheme();
-        }
+        myScaleFactor = 1.0 * this.getHeight() / getViewRows(); 
         
         
         
         // determine state and draw appropriate screen
-        if (myGameState == TetrisEvents.RUNNING) {
+        if (myGameState == TetrisEvents.RUNNING && myLarge) {
+            drawView(g2d);
+        } else if (myGameState == TetrisEvents.RUNNING) {
             drawGrid(g2d);
         } else if (myGameState == TetrisEvents.PAUSED) {
             drawScreenOverlay(g2d, "PAUSED", PAUSE_COLOR);
         } else if (myGameState == TetrisEvents.END_GAME) {
             drawScreenOverlay(g2d, "GAME OVER", GAMEOVER_COLOR);
         }
+        
+        if (myDebugOverlay) {
+            drawDebugOverlay(g2d);
+        }
+        if (myFrameOverlay) {
+            drawFrameOverlay(g2d);
+        }
+        if (start != 0) {
+            final long end = System.nanoTime();
+            Metric.PAINT.record(end - start);
+            if (myFrameOverlay) {
+                myFrameStats.paintFinished(start, end);
+            }
+        }
     }
 
     /**
@@ -141,13 +260,21 @@ public class GameDisplay extends JPanel implements Observer {
      */
     @Override
     public void update(final Observable theObserveable, final Object theObject) {
-        final String updateInfo = theObject.toString();
-        
         if (theObject instanceof String) {
-            parseBoard(updateInfo);
+            parseBoard((String) theObject);
+            myFrameStats.boardChanged();
+        } else if (theObject instanceof Board) {
+            // a large board sends itself rather than a String of every cell
+            myBoard = (Board) theObject;
+            followPiece();
+            myFrameStats.boardChanged();
+        } else if (theObject instanceof PieceQueue) {
+            // a new piece means the last one froze
+            myMinimapStale = true;
         } else if (theObject instanceof Dimension) {
             myXGridSize = ((Dimension) theObject).width;
             myYGridSize = ((Dimension) theObject).height;
+            myLarge = Board.isLarge(myXGridSize, myYGridSize);
             setInitialSize();
         } else {
             checkGameStateChange(theObject);
@@ -172,9 +299,86 @@ public class GameDisplay extends JPanel implements Observer {
         } else if (theObject == TetrisEvents.NEW_GAME) {
             myGameState = TetrisEvents.RUNNING;
             myGameGrid.clear();
+            myBoard = null;
+            myMinimapStale = true;
+        } else if (theObject == TetrisEvents.DEBUG_OVERLAY_ON) {
+            myDebugOverlay = true;
+            Metric.setEnabled(true);
+        } else if (theObject == TetrisEvents.DEBUG_OVERLAY_OFF) {
+            myDebugOverlay = false;
+            Metric.setEnabled(false);
+        } else if (theObject == TetrisEvents.FRAME_OVERLAY_ON) {
+            myFrameOverlay = true;
+        } else if (theObject == TetrisEvents.FRAME_OVERLAY_OFF) {
+            myFrameOverlay = false;
         }
     }
     
+    /**
+     * Draws the debug overlay in the top left corner: the count, median, 99th percentile
+     * and maximum (in microseconds) of each metric.
+     * 
+     * @param theG2D The graphics context to draw with.
+     */
+    private void drawDebugOverlay(final Graphics2D theG2D) {
+        final Metric[] metrics = Metric.values();
+        theG2D.setFont(DEBUG_FONT);
+        final int lineHeight = theG2D.getFontMetrics().getHeight();
+        final int padding = lineHeight / 2;
+        
+        theG2D.setColor(DEBUG_BACKGROUND);
+        theG2D.fillRect(0, 0, getWidth(), lineHeight * (metrics.length + 1) + padding);
+        
+        theG2D.setColor(Color.WHITE);
+        int y = lineHeight;
+        theG2D.drawString(String.format("%-17s %7s %7s %7s %7s", "us", "count", "p50",
+                                        "p99", "max"), padding, y);
+        for (final Metric metric : metrics) {
+            final LatencyHistogram histogram = metric.getHistogram();
+            y += lineHeight;
+            theG2D.drawString(String.format("%-17s %7d %7.0f %7.0f %7.0f", metric,
+                                            histogram.getCount(),
+                                            histogram.getPercentile(MEDIAN) / NANOS_PER_MICRO,
+                                            histogram.getPercentile(HIGH_PERCENTILE)
+                                                / NANOS_PER_MICRO,
+                                            histogram.getMax() / NANOS_PER_MICRO),
+                              padding, y);
+        }
+    }
+    
+    /**
+     * Draws the frame stats overlay in the bottom left corner: frames per second, and the
+     * median and 99th percentile of the paint time and key-to-pixel latency (in ms) of
+     * the recent frames and key presses.
+     * 
+     * @param theG2D The graphics context to draw with.
+     */
+    private void drawFrameOverlay(final Graphics2D theG2D) {
+        theG2D.setFont(DEBUG_FONT);
+        final int lineHeight = theG2D.getFontMetrics().getHeight();
+        final int padding = lineHeight / 2;
+        final int lines = 3;
+        final int top = getHeight() - lineHeight * lines - padding;
+        
+        theG2D.setColor(DEBUG_BACKGROUND);
+        theG2D.fillRect(0, top, getWidth(), getHeight() - top);
+        
+        theG2D.setColor(Color.WHITE);
+        int y = top + lineHeight;
+        theG2D.drawString(String.format("FPS %.1f", myFrameStats.getFramesPerSecond()),
+                          padding, y);
+        y += lineHeight;
+        theG2D.drawString(String.format("Paint p50/p99 %.2f/%.2f ms",
+                                        myFrameStats.getPaintTime(MEDIAN) / NANOS_PER_MILLI,
+                                        myFrameStats.getPaintTime(HIGH_PERCENTILE)
+                                            / NANOS_PER_MILLI), padding, y);
+        y += lineHeight;
+        theG2D.drawString(String.format("Key-to-pixel p50/p99 %.1f/%.1f ms",
+                                        myFrameStats.getLatency(MEDIAN) / NANOS_PER_MILLI,
+                                        myFrameStats.getLatency(HIGH_PERCENTILE)
+                                            / NANOS_PER_MILLI), padding, y);
+    }
+    
     /** 
      * Helper method for checking for changes to the color scheme.
      * 
@@ -182,38 +386,26 @@ public class GameDisplay extends JPanel implements Observer {
      */
     private void checkColorChange(final Object theObject) {
         if (theObject == TetrisEvents.STANDARD_COLOR_CHANGE) {
-            myColorScheme = myColorChanger.getDefaultColorScheme();
-            checkIfInvert();
+            myDarkFlag = false;
         } else if (theObject == TetrisEvents.DARK_COLOR_CHANGE) {
-            myColorScheme = myColorChanger.getDarkColorScheme();
-            checkIfInvert();
+            myDarkFlag = true;
         } else if (theObject == TetrisEvents.INVERT_COLOR_SCHEME_ON) {
             myInvertFlag = true;
-            checkIfInvert();
             setBackground(Color.BLACK);
         } else if (theObject == TetrisEvents.INVERT_COLOR_SCHEME_OFF) {
-            checkIfInvert(); // reinverts scheme to get original colors
             myInvertFlag = false;
             setBackground(Color.WHITE);
         }
+        myColorScheme = myColorChanger.getColorScheme(myDarkFlag, myInvertFlag);
     } 
 
-    /**
-     * Checks if the invert flag is true and, if so, inverts the current color scheme.
-     */
-    private void checkIfInvert() {
-        if (myInvertFlag) {
-            myColorScheme = myColorChanger.invert(myColorScheme);
-        }
-    }
-
     /**
      * Sets the initial size of the display for a new grid size or a new game. Also updates
      * the display properly so that it is visually correct.
      */
     private void setInitialSize() {
-        final Dimension size = new Dimension((int) (MIN_HEIGHT * 1.0 * myXGridSize 
-                        / myYGridSize), MIN_HEIGHT);
+        final Dimension size = new Dimension((int) (MIN_HEIGHT * 1.0 * getViewColumns() 
+                        / getViewRows()), MIN_HEIGHT);
         setMinimumSize(size);
         setPreferredSize(size);
         revalidate(); // so that the panel resizes properly 
@@ -230,7 +422,7 @@ public class GameDisplay extends JPanel implements Observer {
         final int height = currentSize.height;
         
         // find my current desired ratio
-        final double gridRatio = (1.0 * myXGridSize) / myYGridSize;
+        final double gridRatio = (1.0 * getViewColumns()) / getViewRows();
 
         // calculate as if width is limiting
         int newWidth = width;
@@ -276,28 +468,162 @@ public class GameDisplay extends JPanel implements Observer {
      */
     private void drawGrid(final Graphics2D theG2D) {
         for (int y = 0; y < myGameGrid.size(); y++) {
-            final char[] gameTiles = myGameGrid.get(y).toCharArray();
+            final Block[] gameTiles = myGameGrid.get(y);
             for (int x = 0; x < gameTiles.length; x++) {
-                if (gameTiles[x] != ' ') {
-                    final Rectangle2D.Double tile = new Rectangle2D.Double(myScaleFactor * x, 
-                                                                     myScaleFactor * y,
-                                                                     myScaleFactor, 
-                                                                     myScaleFactor);
-                    theG2D.setColor(myColorScheme.get(gameTiles[x]));
-                    theG2D.fill(tile);
-                    if (myInvertFlag) {
-                        theG2D.setColor(Color.WHITE);
-                    } else {
-                        theG2D.setColor(Color.BLACK);
+                if (gameTiles[x] != Block.EMPTY) {
+                    drawTile(theG2D, x, y, gameTiles[x]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws one tile of the game board.
+     * 
+     * @param theG2D The Graphics2D object to use to draw on the JPanel. 
+     * @param theX The column of the tile on the display.
+     * @param theY The row of the tile on the display, from the top.
+     * @param theBlock The Block to draw.
+     */
+    private void drawTile(final Graphics2D theG2D, final int theX, final int theY,
+                          final Block theBlock) {
+        myTile.setRect(myScaleFactor * theX, myScaleFactor * theY,
+                       myScaleFactor, myScaleFactor);
+        theG2D.setColor(myColorScheme[theBlock.ordinal()]);
+        theG2D.fill(myTile);
+        if (myInvertFlag) {
+            theG2D.setColor(Color.WHITE);
+        } else {
+            theG2D.setColor(Color.BLACK);
+        }
+        theG2D.draw(myTile);
+    }
+
+    /**
+     * Draws the part of a large board in the view, and the minimap. Only the cells in
+     * the view are read, so drawing takes the same time however large the board is.
+     * 
+     * @param theG2D The Graphics2D object to use to draw on the JPanel. 
+     */
+    private void drawView(final Graphics2D theG2D) {
+        if (myBoard != null) {
+            final int columns = getViewColumns();
+            final int rows = getViewRows();
+            for (int y = 0; y < rows; y++) {
+                for (int x = 0; x < columns; x++) {
+                    final Block block = myBoard.getBlock(myViewX + x,
+                                                         myViewY + rows - 1 - y);
+                    if (block != Block.EMPTY) {
+                        drawTile(theG2D, x, y, block);
                     }
-                    theG2D.draw(tile);
                 }
             }
+            drawMinimap(theG2D);
         }
     }
+
+    /**
+     * Draws the minimap of a large board in the top right corner, with an outline of
+     * the part of the board in the view. The minimap is only redrawn after a piece
+     * freezes.
+     * 
+     * @param theG2D The Graphics2D object to use to draw on the JPanel. 
+     */
+    private void drawMinimap(final Graphics2D theG2D) {
+        if (myMinimapStale || myMinimap == null) {
+            myMinimap = createMinimap();
+            myMinimapStale = false;
+        }
+        final int left = getWidth() - MINIMAP_PADDING - myMinimap.getWidth();
+        final int top = MINIMAP_PADDING;
+        theG2D.drawImage(myMinimap, left, top, null);
+        theG2D.setColor(MINIMAP_VIEW_COLOR);
+        theG2D.drawRect(left + myViewX / myMinimapCells,
+                        top + (myYGridSize - myViewY - getViewRows()) / myMinimapCells,
+                        Math.max(1, getViewColumns() / myMinimapCells),
+                        Math.max(1, getViewRows() / myMinimapCells));
+    }
+
+    /**
+     * Draws the frozen blocks of the large board into a minimap image: each pixel
+     * covers a square of cells and is brighter the more of them are filled.
+     * 
+     * @return The minimap.
+     */
+    private BufferedImage createMinimap() {
+        myMinimapCells = Math.max(1, (Math.max(myXGridSize, myYGridSize) + MINIMAP_SIZE - 1)
+                                     / MINIMAP_SIZE);
+        final int width = (myXGridSize + myMinimapCells - 1) / myMinimapCells;
+        final int height = (myYGridSize + myMinimapCells - 1) / myMinimapCells;
+        final BufferedImage minimap = new BufferedImage(width, height,
+                                                        BufferedImage.TYPE_INT_ARGB);
+        final int area = myMinimapCells * myMinimapCells;
+        final int background = DEBUG_BACKGROUND.getRGB();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                final int filled = myBoard.countBlocks(x * myMinimapCells,
+                                                       myYGridSize - (y + 1) * myMinimapCells,
+                                                       myMinimapCells, myMinimapCells);
+                int pixel = background;
+                if (filled > 0) {
+                    final int level = OPAQUE * filled / area;
+                    pixel = OPAQUE << ALPHA_SHIFT | level << Short.SIZE
+                            | level << Byte.SIZE | level;
+                }
+                minimap.setRGB(x, y, pixel);
+            }
+        }
+        return minimap;
+    }
+
+    /**
+     * Scrolls the view of a large board so that the movable piece stays at least
+     * VIEW_MARGIN cells from its edges, without showing anything off the board.
+     */
+    private void followPiece() {
+        final Point position = myBoard.getPiecePosition();
+        if (position != null) {
+            final int columns = getViewColumns();
+            final int rows = getViewRows();
+            final int x = position.getX() + PIECE_CENTER;
+            final int y = position.getY() + PIECE_CENTER;
+            myViewX = Math.min(Math.max(myViewX, x + VIEW_MARGIN + 1 - columns),
+                               x - VIEW_MARGIN);
+            myViewY = Math.min(Math.max(myViewY, y + VIEW_MARGIN + 1 - rows),
+                               y - VIEW_MARGIN);
+            myViewX = Math.max(0, Math.min(myViewX, myXGridSize - columns));
+            myViewY = Math.max(0, Math.min(myViewY, myYGridSize - rows));
+        }
+    }
+
+    /**
+     * Provides the number of columns drawn: the whole board, or the view of a large board.
+     * 
+     * @return The number of columns.
+     */
+    private int getViewColumns() {
+        int result = myXGridSize;
+        if (myLarge) {
+            result = Math.min(VIEW_COLUMNS, myXGridSize);
+        }
+        return result;
+    }
+
+    /**
+     * Provides the number of rows drawn: the whole board, or the view of a large board.
+     * 
+     * @return The number of rows.
+     */
+    private int getViewRows() {
+        int result = myYGridSize;
+        if (myLarge) {
+            result = Math.min(VIEW_ROWS, myYGridSize);
+        }
+        return result;
+    }
     
     /**
-     * Parses the string from the game board update so that myGameBoard holds only the strings
+     * Parses the string from the game board update so that myGameGrid holds only the Blocks
      * for the part of the board that can change (and that we can see). Thus, borders are 
      * omitted through this parse.
      * 
@@ -318,10 +644,31 @@ public class GameDisplay extends JPanel implements Observer {
             
             // add the current line to the game grid
             final String line = board.substring(1, endIndex);
-            myGameGrid.add(line);
+            final Block[] row = new Block[line.length()];
+            for (int x = 0; x < row.length; x++) {
+                row[x] = BLOCKS_BY_SYMBOL[line.charAt(x)];
+            }
+            myGameGrid.add(row);
             
             // truncate the remaining string
             board = board.substring(endIndex + 2);
         }
     }
+
+    /**
+     * Creates the table of the Block drawn as each character of the board. Characters
+     * that are not the name of a Block are drawn as empty.
+     * 
+     * @return The Blocks, indexed by character.
+     */
+    private static Block[] createBlockSymbols() {
+        final Block[] blocks = new Block[Byte.MAX_VALUE + 1];
+        Arrays.fill(blocks, Block.EMPTY);
+        for (final Block block : Block.values()) {
+            if (block != Block.EMPTY) {
+                blocks[block.name().charAt(0)] = block;
+            }
+        }
+        return blocks;
+    }
 }
@@ -44,8 +44,8 @@ public class GameInfo extends JPanel {
     private void setup() {
         final String newLine = " "; // Adds one line of blank space
         final String[] controls = {"Rotate : Up Key", 
-            "Move Left : Left Key", "Move Right : Right Key", "Move Down : Down Key", newLine, 
-            "Drop : Space Key", newLine, "Pause : P"};
+            "Move Left : Left Key", "Move Right : Right Key", "Soft Drop : Down Key", newLine, 
+            "Drop : Space Key", "Hold : C Key", newLine, "Pause : P"};
         
         for (final String line : controls) {
             final JLabel lineInfo = new JLabel();
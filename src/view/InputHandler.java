@@ -0,0 +1,208 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package view;
+
+import model.Board;
+
+/**
+ * Tracks which controls are held down and applies movement to the logic board at fixed
+ * rates, independent of the operating system's key repeat.
+ *
+ * Left and right follow the usual delayed auto-shift (DAS) and auto-repeat rate (ARR)
+ * scheme: one cell on press, then after DAS frames the piece repeats every ARR frames.
+ * An ARR of 0 slides the piece all the way to the wall in a single step. Holding down
+ * soft drops the piece at the soft drop gravity of the logic board. All rates are counted
+ * in frames of tick().
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ *
+ */
+public final class InputHandler {
+    /** The default number of frames a direction is held before it starts repeating. */
+    public static final int DEFAULT_DAS = 10;
+
+    /** The default number of frames between repeated moves (0 means instant). */
+    public static final int DEFAULT_ARR = 2;
+
+    /** The number of frames a direction is held before it starts repeating. */
+    private int myDelayedAutoShift;
+
+    /** The number of frames between repeated moves (0 means instant). */
+    private int myAutoRepeatRate;
+
+    /** The controls currently held down, indexed by Control ordinal. */
+    private final boolean[] myHeld;
+
+    /** The direction currently shifting: -1 for left, 1 for right, 0 for none. */
+    private int myDirection;
+
+    /** The number of frames the current direction has been held. */
+    private int myShiftFrames;
+
+    /**
+     * Creates an input handler with the default rates and nothing held.
+     */
+    public InputHandler() {
+        myHeld = new boolean[Control.values().length];
+        myDelayedAutoShift = DEFAULT_DAS;
+        myAutoRepeatRate = DEFAULT_ARR;
+    }
+
+    /**
+     * Sets the number of frames a direction is held before it starts repeating.
+     *
+     * @param theFrames The delayed auto-shift in frames.
+     * @throws IllegalArgumentException if theFrames is negative.
+     */
+    public void setDelayedAutoShift(final int theFrames) {
+        myDelayedAutoShift = checkFrames(theFrames);
+    }
+
+    /**
+     * Sets the number of frames between repeated moves; 0 slides to the wall instantly.
+     *
+     * @param theFrames The auto-repeat rate in frames.
+     * @throws IllegalArgumentException if theFrames is negative.
+     */
+    public void setAutoRepeatRate(final int theFrames) {
+        myAutoRepeatRate = checkFrames(theFrames);
+    }
+
+    /**
+     * Records that a control was pressed, acting on it immediately. Presses of a control
+     * that is already held (key repeat from the operating system) are ignored.
+     *
+     * @param theControl The control that was pressed.
+     * @param theBoard The logic board to act on.
+     */
+    public void press(final Control theControl, final Board theBoard) {
+        if (!myHeld[theControl.ordinal()]) {
+            myHeld[theControl.ordinal()] = true;
+            switch (theControl) {
+                case LEFT:
+                    startShift(-1, theBoard);
+                    break;
+                case RIGHT:
+                    startShift(1, theBoard);
+                    break;
+                case DOWN:
+                    theBoard.setSoftDrop(true);
+                    break;
+                case ROTATE:
+                    theBoard.rotate();
+                    break;
+                case DROP:
+                    theBoard.drop();
+                    break;
+                case HOLD:
+                    theBoard.hold();
+                    break;
+                default:
+            }
+        }
+    }
+
+    /**
+     * Records that a control was released. If one direction is released while the other
+     * is still held, shifting continues in the held direction.
+     *
+     * @param theControl The control that was released.
+     * @param theBoard The logic board to act on.
+     */
+    public void release(final Control theControl, final Board theBoard) {
+        myHeld[theControl.ordinal()] = false;
+        if (theControl == Control.DOWN) {
+            theBoard.setSoftDrop(false);
+        } else if (theControl == Control.LEFT && myDirection < 0) {
+            myDirection = 0;
+            if (myHeld[Control.RIGHT.ordinal()]) {
+                startShift(1, theBoard);
+            }
+        } else if (theControl == Control.RIGHT && myDirection > 0) {
+            myDirection = 0;
+            if (myHeld[Control.LEFT.ordinal()]) {
+                startShift(-1, theBoard);
+            }
+        }
+    }
+
+    /**
+     * Releases every control, for instance when the game loses focus or is paused.
+     *
+     * @param theBoard The logic board to act on, or null if there is none yet.
+     */
+    public void releaseAll(final Board theBoard) {
+        for (int i = 0; i < myHeld.length; i++) {
+            myHeld[i] = false;
+        }
+        myDirection = 0;
+        if (theBoard != null) {
+            theBoard.setSoftDrop(false);
+        }
+    }
+
+    /**
+     * Advances the handler by one frame, repeating any held movement that is due.
+     *
+     * @param theBoard The logic board to act on.
+     */
+    public void tick(final Board theBoard) {
+        if (myDirection != 0) {
+            myShiftFrames++;
+            if (myShiftFrames >= myDelayedAutoShift) {
+                if (myAutoRepeatRate == 0) {
+                    theBoard.shift(myDirection * theBoard.getWidth());
+                } else if ((myShiftFrames - myDelayedAutoShift) % myAutoRepeatRate == 0) {
+                    theBoard.shift(myDirection);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts shifting in a direction, moving one cell immediately.
+     *
+     * @param theDirection -1 for left, 1 for right.
+     * @param theBoard The logic board to act on.
+     */
+    private void startShift(final int theDirection, final Board theBoard) {
+        myDirection = theDirection;
+        myShiftFrames = 0;
+        theBoard.shift(theDirection);
+    }
+
+    /**
+     * Checks that a number of frames is not negative.
+     *
+     * @param theFrames The number of frames to check.
+     * @return theFrames.
+     * @throws IllegalArgumentException if theFrames is negative.
+     */
+    private static int checkFrames(final int theFrames) {
+        if (theFrames < 0) {
+            throw new IllegalArgumentException("Frames must not be negative: " + theFrames);
+        }
+        return theFrames;
+    }
+
+    /**
+     * The controls tracked by the input handler.
+     */
+    public enum Control {
+        /** Move the piece left. */
+        LEFT,
+        /** Move the piece right. */
+        RIGHT,
+        /** Soft drop the piece. */
+        DOWN,
+        /** Rotate the piece clockwise. */
+        ROTATE,
+        /** Drop the piece. */
+        DROP,
+        /** Swap the piece with the hold slot. */
+        HOLD;
+    }
+}
@@ -15,6 +15,7 @@ import java.util.Observer;
 import javax.swing.Box;
 import javax.swing.ButtonGroup;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBox;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JLabel;
 import javax.swing.JMenu;
@@ -22,9 +23,12 @@ import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
+import model.PieceQueue;
 import utility.MusicPlayer;
 import utility.TetrisEvents;
 
@@ -49,6 +53,12 @@ public final class MenuBar extends Observable implements Observer {
     /** The path to the sidebar icon for the scoring information window. */
     private static final ImageIcon SIDEBAR_ICON = new ImageIcon("images/sidebar.jpg");
     
+    /** The initial width and height offered for a large board. */
+    private static final int LARGE_BOARD_DEFAULT = 1000;
+    
+    /** The largest width and height of a large board. */
+    private static final int LARGE_BOARD_MAXIMUM = 4096;
+    
     /** The menubar itself. */
     private final JMenuBar myMenuBar;
 
@@ -70,6 +80,12 @@ public final class MenuBar extends Observable implements Observer {
     /** The end game button (only to be enabled when a game is in progress. */
     private JMenuItem myEndGameButton;
     
+    /** The save game button (only to be enabled when a game is in progress). */
+    private JMenuItem mySaveGameButton;
+    
+    /** The number of upcoming pieces to preview. */
+    private int myPreviewLength;
+    
     /**
      * Creates and sets up the menubar as well as the music player.
      */
@@ -81,6 +97,7 @@ public final class MenuBar extends Observable implements Observer {
         myMusicPlayer.setShouldLoop(true); // makes sure any song plays on loop
         
         myMuteFlag = true;
+        myPreviewLength = PieceQueue.DEFAULT_LENGTH;
         
         setupFileMenu();
         setupOptionsMenu();
@@ -95,6 +112,14 @@ public final class MenuBar extends Observable implements Observer {
         return myMenuBar;
     }
     
+    /**
+     * Provides the number of upcoming pieces the player has chosen to preview.
+     * @return The number of upcoming pieces to preview.
+     */
+    public int getPreviewLength() {
+        return myPreviewLength;
+    }
+    
     /**
      * Handles update info from the GUI and the backend logic board.
      */
@@ -102,9 +127,11 @@ public final class MenuBar extends Observable implements Observer {
     public void update(final Observable theObservable, final Object theObject) {
         if (theObject == TetrisEvents.NEW_GAME) {
             myEndGameButton.setEnabled(true);
+            mySaveGameButton.setEnabled(true);
             myMusicPlayer.play();
         } else if (theObject instanceof Boolean || theObject == TetrisEvents.END_GAME) {
             myEndGameButton.setEnabled(false);
+            mySaveGameButton.setEnabled(false);
             if (myMusicPlayer.isStarted()) {
                 myMusicPlayer.stopPlay();
             }
@@ -122,6 +149,9 @@ public final class MenuBar extends Observable implements Observer {
         
         final JMenuItem newGame = new JMenuItem("New Game");
         final JMenuItem endGame = new JMenuItem("End Game");
+        final JMenuItem saveGame = new JMenuItem("Save Game");
+        final JMenuItem loadGame = new JMenuItem("Load Game");
+        final JMenuItem highScores = new JMenuItem("High Scores");
         final JMenuItem quitGame = new JMenuItem("Quit");
         
         // add actions to each menu item
@@ -138,6 +168,27 @@ public final class MenuBar extends Observable implements Observer {
                 notifyObservers(TetrisEvents.END_GAME);
             }
         });
+        saveGame.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                setChanged();
+                notifyObservers(TetrisEvents.SAVE_GAME);
+            }
+        });
+        loadGame.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                setChanged();
+                notifyObservers(TetrisEvents.LOAD_GAME);
+            }
+        });
+        highScores.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                setChanged();
+                notifyObservers(TetrisEvents.SHOW_HIGH_SCORES);
+            }
+        });
         quitGame.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(final ActionEvent theEvent) {
@@ -149,11 +200,18 @@ public final class MenuBar extends Observable implements Observer {
         // ensure the end game button is not enabled by default
         myEndGameButton = endGame;
         myEndGameButton.setEnabled(false);
+        mySaveGameButton = saveGame;
+        mySaveGameButton.setEnabled(false);
         
         // attach everything to the menu and add menu to the menubar
         file.add(newGame);
         file.add(endGame);
         file.addSeparator();
+        file.add(saveGame);
+        file.add(loadGame);
+        file.addSeparator();
+        file.add(highScores);
+        file.addSeparator();
         file.add(quitGame);
         
         myMenuBar.add(file);
@@ -168,14 +226,46 @@ public final class MenuBar extends Observable implements Observer {
         
         final JMenu colors = new JMenu("Colors...");
         final JMenu sounds = new JMenu("Sounds...");
+        final JMenu preview = new JMenu("Preview...");
+        final JCheckBoxMenuItem debugOverlay = new JCheckBoxMenuItem("Debug Overlay");
+        final JCheckBoxMenuItem frameOverlay = new JCheckBoxMenuItem("Frame Stats Overlay");
+        
+        frameOverlay.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                setChanged();
+                if (frameOverlay.isSelected()) {
+                    notifyObservers(TetrisEvents.FRAME_OVERLAY_ON);
+                } else {
+                    notifyObservers(TetrisEvents.FRAME_OVERLAY_OFF);
+                }
+            }
+        });
+        
+        debugOverlay.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(final ActionEvent theEvent) {
+                setChanged();
+                if (debugOverlay.isSelected()) {
+                    notifyObservers(TetrisEvents.DEBUG_OVERLAY_ON);
+                } else {
+                    notifyObservers(TetrisEvents.DEBUG_OVERLAY_OFF);
+                }
+            }
+        });
         
         // set up sub menus
         setupColorsSubMenu(colors);
         setupSoundsSubMenu(sounds);
+        setupPreviewSubMenu(preview);
         
         // attach everything and add menu to menubar
         options.add(colors);
         options.add(sounds);
+        options.add(preview);
+        options.addSeparator();
+        options.add(debugOverlay);
+        options.add(frameOverlay);
         
         myMenuBar.add(options);
     }
@@ -232,6 +322,33 @@ public final class MenuBar extends Observable implements Observer {
         theColorMenu.add(invert);
     }    
     
+    /**
+     * Helper method for setting up the "Preview..." submenu, which picks how many upcoming
+     * pieces are shown.
+     * 
+     * @param thePreviewMenu The JMenu that corresponds to the "Preview..." submenu.
+     */
+    private void setupPreviewSubMenu(final JMenu thePreviewMenu) {
+        // button group so only one length can be picked at any given time
+        final ButtonGroup lengthGroup = new ButtonGroup();
+        
+        for (int i = PieceQueue.MIN_LENGTH; i <= PieceQueue.MAX_LENGTH; i++) {
+            final int length = i;
+            final JCheckBoxMenuItem item = new JCheckBoxMenuItem("Next " + length);
+            item.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(final ActionEvent theEvent) {
+                    myPreviewLength = length;
+                    setChanged();
+                    notifyObservers(TetrisEvents.PREVIEW_LENGTH_CHANGE);
+                }
+            });
+            item.setSelected(length == myPreviewLength);
+            lengthGroup.add(item);
+            thePreviewMenu.add(item);
+        }
+    }
+    
     /**
      * Helper method to set up the "Sounds..." sub menu.
      * 
@@ -430,6 +547,15 @@ public final class MenuBar extends Observable implements Observer {
         chooser.add(new JLabel("WARNING: Large width can potentially"));
         chooser.add(new JLabel("create window too large to be displayed"));
         chooser.add(new JLabel("on current screen."));
+        chooser.add(Box.createVerticalStrut(padding));
+        
+        // large boards are shown through a scrolling viewport, so any size fits
+        final JCheckBox largeBoard = new JCheckBox("Large board (viewport and minimap)");
+        final JSpinner largeWidth = new JSpinner(new SpinnerNumberModel(
+                        LARGE_BOARD_DEFAULT, gridSizeMinimum, LARGE_BOARD_MAXIMUM, 1));
+        final JSpinner largeHeight = new JSpinner(new SpinnerNumberModel(
+                        LARGE_BOARD_DEFAULT, gridSizeMinimum, LARGE_BOARD_MAXIMUM, 1));
+        chooser.add(createLargeBoardChooser(largeBoard, largeWidth, largeHeight));
         
         // ensure that these fields always have some kind of value
         myXGridSize = xSlider.getValue();
@@ -454,10 +580,47 @@ public final class MenuBar extends Observable implements Observer {
         
         // only begin a new game if the user says okay
         if (result == JOptionPane.OK_OPTION) {
+            if (largeBoard.isSelected()) {
+                myXGridSize = (Integer) largeWidth.getValue();
+                myYGridSize = (Integer) largeHeight.getValue();
+            }
             setChanged();
             notifyObservers(new Dimension(myXGridSize, myYGridSize));
             setChanged();
             notifyObservers(TetrisEvents.NEW_GAME);
         }
     }
+    
+    /**
+     * Lays out the controls for choosing a large board: a checkbox to choose one and
+     * spinners for its size, which are only enabled while the checkbox is selected.
+     * 
+     * @param theCheckBox The checkbox choosing a large board.
+     * @param theWidth The spinner for the width of the large board.
+     * @param theHeight The spinner for the height of the large board.
+     * @return The laid out controls.
+     */
+    private Box createLargeBoardChooser(final JCheckBox theCheckBox, final JSpinner theWidth,
+                                        final JSpinner theHeight) {
+        theWidth.setEnabled(false);
+        theHeight.setEnabled(false);
+        theCheckBox.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(final ChangeEvent theEvent) {
+                theWidth.setEnabled(theCheckBox.isSelected());
+                theHeight.setEnabled(theCheckBox.isSelected());
+            }
+        });
+        
+        final Box size = Box.createHorizontalBox();
+        size.add(new JLabel("Width:"));
+        size.add(theWidth);
+        size.add(new JLabel(" Height:"));
+        size.add(theHeight);
+        
+        final Box result = Box.createVerticalBox();
+        result.add(theCheckBox);
+        result.add(size);
+        return result;
+    }
 }
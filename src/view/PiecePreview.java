@@ -4,28 +4,34 @@
 
 package view;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.awt.image.BufferedImage;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.TreeMap;
 
 import javax.swing.JPanel;
 
+import model.Block;
 import model.MovableTetrisPiece;
+import model.PieceQueue;
+import model.Point;
 import utility.Colors;
 import utility.TetrisEvents;
 
 /**
- * Displays the preview for the next piece to be dropped into the game board.
- * 
+ * Displays the preview for the next pieces to be dropped into the game board, as well as
+ * the piece in the hold slot.
+ *
+ * Each piece is drawn once into a cached sprite (per color scheme and slot size), so an
+ * update from the logic board only records which pieces to show.
+ *
  * @author Tenma Rollins
  * @version 03 Mar 2017
  *
@@ -33,71 +39,128 @@ import utility.TetrisEvents;
 public class PiecePreview extends JPanel implements Observer {
     /** Generated serial version UID. */
     private static final long serialVersionUID = 6646002635448560996L;
-    
-    /** 
+
+    /**
      * Since the preview will be some JPanel where width = height, this represents how many
      * grid-boxes I want to fit into the preview.
      * (i.e. GRID_SIZE = 5 means a 5x5 grid, which will affect the scale factor for drawing
      * any individual tile/box of a given piece).
      */
     private static final int GRID_SIZE = 5;
-    
+
     /** The width of a 3-wide piece. */
     private static final int THREE_WIDE_PIECE = 3;
-    
+
     /** The width of a 4-wide piece. */
     private static final int FOUR_WIDE_PIECE = 4;
-    
+
     /** The maximum width for any piece (also the max height for any piece). */
-    private static final int MAX_PIECE_WIDTH = 4; 
+    private static final int MAX_PIECE_WIDTH = 4;
+
+    /** The composite used to fade the held piece after hold has been used. */
+    private static final Composite USED_HOLD_COMPOSITE =
+                    AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.35f);
+
+    /**
+     * The fewest small slots along the bottom of the preview (the hold slot followed by
+     * the pieces after the next piece).
+     */
+    private static final int MIN_SMALL_SLOTS = 3;
+
+    /** The fraction of the preview height used for the next piece. */
+    private static final double NEXT_PIECE_FRACTION = 2.0 / 3.0;
+
+    /** The label drawn above the hold slot. */
+    private static final String HOLD_LABEL = "HOLD";
+
+    /** The number of different block types. */
+    private static final int BLOCK_TYPES = Block.values().length;
+
+    /** The scale factor of grid units to display units for the next piece. */
+    private final double myScale;
+
+    /** The left edge of the slot for the next piece. */
+    private final double myNextPieceLeft;
+
+    /** The size of the preview panel. */
+    private final Dimension mySize;
+
+    /** The shape of each piece seen so far, indexed by Block ordinal. */
+    private final MovableTetrisPiece[] myShapes;
+
+    /** The cached sprites for the next piece slot, indexed by Block ordinal. */
+    private final BufferedImage[] myLargeSprites;
 
-    /** The scale factor of grid units to display units for width. */
-    private final double myXScale;
-    
-    /** The scale factor of grid units to display units for height. */
-    private final double myYScale;
-    
-    /** The current piece to draw. */
-    private final List<String> myPiece;
+    /** The cached sprites for the small slots, indexed by Block ordinal. */
+    private final BufferedImage[] mySmallSprites;
+
+    /** The pieces queued after the next piece. */
+    private final Block[] myQueuedBlocks;
 
     /** The Color object that will create and manipulate color schemes. */
     private final Colors myColorChanger;
-    
+
     /** Boolean flag to determine whether or not to invert the current color scheme. */
     private boolean myInvertFlag;
 
-    /** The current color scheme. */
-    private Map<Character, Color> myColorScheme;
-    
-    /** The current width of myPiece. */
-    private int myPieceWidth;
+    /** Boolean flag to determine whether or not to use the dark color scheme. */
+    private boolean myDarkFlag;
+
+    /** The current color scheme, indexed by Block ordinal. */
+    private Color[] myColorScheme;
+
+    /** The next piece to draw, or null before the first game. */
+    private Block myNextBlock;
+
+    /** The held piece to draw, or null when nothing is held. */
+    private Block myHeldBlock;
+
+    /** The number of pieces queued after the next piece. */
+    private int myQueuedCount;
+
+    /** Whether the held piece may currently be swapped in. */
+    private boolean myHoldAvailable;
+
+    /** The number of small slots currently laid out along the bottom. */
+    private int mySmallSlots;
+
+    /** Whether the cached sprites must be redrawn before they are next used. */
+    private boolean mySpritesStale;
 
     /**
-     * Sets up the size and look of the preview panel. Also sets the initial scale 
+     * Sets up the size and look of the preview panel. Also sets the initial scale
      * for drawing pieces.
-     * 
+     *
      * @param theSize The fixed size for this preview.
      */
     public PiecePreview(final Dimension theSize) {
         super();
-        
+
         setPreferredSize(theSize);
         setMaximumSize(theSize);
         setBackground(Color.WHITE);
-        
-        myXScale = theSize.getWidth() / GRID_SIZE;
-        myYScale = theSize.getHeight() / GRID_SIZE;
-        
-        myPiece = new ArrayList<String>();
-        
+
+        mySize = new Dimension(theSize);
+        // the next piece is drawn with square tiles centered in the top of the preview
+        myScale = Math.min(theSize.getWidth(),
+                           theSize.getHeight() * NEXT_PIECE_FRACTION) / GRID_SIZE;
+        myNextPieceLeft = (theSize.getWidth() - myScale * GRID_SIZE) / 2;
+
+        myShapes = new MovableTetrisPiece[BLOCK_TYPES];
+        myLargeSprites = new BufferedImage[BLOCK_TYPES];
+        mySmallSprites = new BufferedImage[BLOCK_TYPES];
+        myQueuedBlocks = new Block[PieceQueue.MAX_LENGTH];
+        mySmallSlots = MIN_SMALL_SLOTS;
+
         myColorChanger = new Colors();
-        myColorScheme = new TreeMap<Character, Color>();
-        
+        myColorScheme = myColorChanger.getColorScheme(false, false);
+
         myInvertFlag = false;
+        myHoldAvailable = true;
     }
 
     /**
-     *  Draws the piece with correct offset to center.
+     *  Draws the pieces from their cached sprites.
      */
     @Override
     public void paintComponent(final Graphics theGraphics) {
@@ -107,110 +170,197 @@ public class PiecePreview extends JPanel implements Observer {
         // turn antialiasing on for more visually appealing drawing
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
                              RenderingHints.VALUE_ANTIALIAS_ON);
-        
-        // make sure a color scheme exists
-        if (myColorScheme.isEmpty()) {
-            myColorScheme = myColorChanger.getDefaultColorScheme();
+
+        if (mySpritesStale) {
+            createSprites();
+        }
+
+        if (myNextBlock != null) {
+            g2d.drawImage(myLargeSprites[myNextBlock.ordinal()],
+                          (int) myNextPieceLeft, 0, null);
         }
-        
-        drawPiece(g2d);
+        drawSmallSlots(g2d);
     }
 
     /**
      * Handles the update information from the backend logic board. If information about the
-     * next game piece is passed to theObject, then it parses theObjet.toString.
+     * held and next game pieces is passed to theObject, then it records which to draw.
      */
     @Override
     public void update(final Observable theObserveable, final Object theObject) {
-        // MoveableTetrisPiece => Preview Piece Information
-        if (theObject instanceof MovableTetrisPiece) {
-            final MovableTetrisPiece currentPiece = (MovableTetrisPiece) theObject; 
-            parsePiece(currentPiece.toString());  
-            myPieceWidth = currentPiece.getWidth();
+        // PieceQueue => Preview Piece Information
+        if (theObject instanceof PieceQueue) {
+            updateQueue((PieceQueue) theObject);
         } else if (theObject == TetrisEvents.STANDARD_COLOR_CHANGE) {
-            myColorScheme = myColorChanger.getDefaultColorScheme();
-            checkIfInvert();
+            myDarkFlag = false;
+            updateColorScheme();
         } else if (theObject == TetrisEvents.DARK_COLOR_CHANGE) {
-            myColorScheme = myColorChanger.getDarkColorScheme();
-            checkIfInvert();
+            myDarkFlag = true;
+            updateColorScheme();
         } else if (theObject == TetrisEvents.INVERT_COLOR_SCHEME_ON) {
             myInvertFlag = true;
-            checkIfInvert();
+            updateColorScheme();
             setBackground(Color.BLACK);
         } else if (theObject == TetrisEvents.INVERT_COLOR_SCHEME_OFF) {
-            checkIfInvert(); // reinverts scheme to get original colors
             myInvertFlag = false;
+            updateColorScheme();
             setBackground(Color.WHITE);
         }
-        
+
         repaint();
     }
-    
+
     /**
-     * Checks if the invert flag is true and, if so, inverts the current color scheme.
+     * Switches to the color scheme selected by the dark and invert flags.
      */
-    private void checkIfInvert() {
-        if (myInvertFlag) {
-            myColorScheme = myColorChanger.invert(myColorScheme);
+    private void updateColorScheme() {
+        myColorScheme = myColorChanger.getColorScheme(myDarkFlag, myInvertFlag);
+        mySpritesStale = true;
+    }
+
+    /**
+     * Records the held and upcoming pieces of the queue so they can be drawn.
+     *
+     * @param theQueue The held and upcoming pieces of the logic board.
+     */
+    private void updateQueue(final PieceQueue theQueue) {
+        myNextBlock = recordShape(theQueue.getNextPiece(0));
+
+        myQueuedCount = theQueue.size() - 1;
+        for (int i = 0; i < myQueuedCount; i++) {
+            myQueuedBlocks[i] = recordShape(theQueue.getNextPiece(i + 1));
+        }
+
+        final MovableTetrisPiece heldPiece = theQueue.getHeldPiece();
+        if (heldPiece == null) {
+            myHeldBlock = null;
+        } else {
+            myHeldBlock = recordShape(heldPiece);
+        }
+        myHoldAvailable = theQueue.isHoldAvailable();
+
+        // the hold slot plus every queued piece after the next one
+        final int smallSlots = Math.max(MIN_SMALL_SLOTS, theQueue.size());
+        if (smallSlots != mySmallSlots) {
+            mySmallSlots = smallSlots;
+            mySpritesStale = true;
         }
     }
 
     /**
-     * Handles the actual string parse for the piece given the correctly formatted string.
-     * 
-     * @param thePiece The piece (as a string) to parse.
+     * Remembers the shape of a piece so a sprite can be drawn for it.
+     *
+     * @param thePiece The piece to remember.
+     * @return The Block type of the piece.
      */
-    private void parsePiece(final String thePiece) {
-        String piece = thePiece;
-        myPiece.clear();
-        
-        while (piece.length() > 0) {
-            myPiece.add(piece.substring(0, MAX_PIECE_WIDTH));
-            piece = piece.substring(MAX_PIECE_WIDTH + 1);
+    private Block recordShape(final MovableTetrisPiece thePiece) {
+        final Block block = thePiece.getBlock();
+        if (myShapes[block.ordinal()] == null) {
+            myShapes[block.ordinal()] = thePiece;
+            mySpritesStale = true;
         }
+        return block;
     }
-    
+
     /**
-     * Draws the current piece with the current color scheme centered in the preview panel.
-     * 
+     * Draws the hold slot and the pieces queued after the next piece along the bottom of
+     * the preview panel.
+     *
      * @param theG2D The Graphics2D object to draw with.
      */
-    private void drawPiece(final Graphics2D theG2D) {
-        // draw the piece in the preview panel
-        // to do : better math for centering the piece in the panel
-        for (int y = 0; y < myPiece.size(); y++) {
-            final char[] pieceTiles = myPiece.get(y).toCharArray();
-            for (int x = 0; x < pieceTiles.length; x++) {
-                if (pieceTiles[x] != ' ') {
-                    // O piece center is already centered
-                    double xOffset = (GRID_SIZE - MAX_PIECE_WIDTH) / 2.0;
-                    double yOffset = (GRID_SIZE - MAX_PIECE_WIDTH) / 2.0;
-                    // centers for any piece only differ by 0.5 in x or y
-                    final double centeringOffset = 0.5; 
-                    
-                    if (myPieceWidth == THREE_WIDE_PIECE) {
-                        // to align the center of any 3-wide pieces, you need a .5 x offset
-                        xOffset = xOffset + centeringOffset; 
-                    } else if (myPieceWidth == FOUR_WIDE_PIECE) {
-                        yOffset = yOffset + centeringOffset; 
-                        // 4-wide piece is the I piece, which is on its side by default so
-                        // lower by 0.5 to center
-                    }
-                    
-                    final Rectangle2D.Double tile = 
-                                    new Rectangle2D.Double(myXScale * (x + xOffset),
-                                                           myYScale * (y + yOffset),
-                                                           myXScale, myYScale);
-                    theG2D.setColor(myColorScheme.get(pieceTiles[x]));
-                    theG2D.fill(tile);
-                    if (myInvertFlag) {
-                        theG2D.setColor(Color.WHITE);
-                    } else {
-                        theG2D.setColor(Color.BLACK);
-                    }
-                    theG2D.draw(tile);
-                }
+    private void drawSmallSlots(final Graphics2D theG2D) {
+        final double slotWidth = mySize.getWidth() / mySmallSlots;
+        final int top = (int) (mySize.getHeight() * NEXT_PIECE_FRACTION);
+
+        if (myInvertFlag) {
+            theG2D.setColor(Color.WHITE);
+        } else {
+            theG2D.setColor(Color.BLACK);
+        }
+        theG2D.drawString(HOLD_LABEL, (int) (slotWidth / GRID_SIZE), top);
+
+        if (myHeldBlock != null) {
+            final Composite original = theG2D.getComposite();
+            if (!myHoldAvailable) {
+                // a used hold slot is drawn faded until the next piece spawns
+                theG2D.setComposite(USED_HOLD_COMPOSITE);
+            }
+            theG2D.drawImage(mySmallSprites[myHeldBlock.ordinal()], 0, top, null);
+            theG2D.setComposite(original);
+        }
+
+        for (int i = 0; i < myQueuedCount; i++) {
+            theG2D.drawImage(mySmallSprites[myQueuedBlocks[i].ordinal()],
+                             (int) (slotWidth * (i + 1)), top, null);
+        }
+    }
+
+    /**
+     * Redraws the cached sprites of every piece seen so far with the current color scheme
+     * and slot sizes.
+     */
+    private void createSprites() {
+        final double smallScale = Math.min(mySize.getWidth() / mySmallSlots,
+                                           mySize.getHeight() * (1 - NEXT_PIECE_FRACTION))
+                                  / GRID_SIZE;
+        for (int i = 0; i < BLOCK_TYPES; i++) {
+            if (myShapes[i] != null) {
+                myLargeSprites[i] = createSprite(myShapes[i], myScale);
+                mySmallSprites[i] = createSprite(myShapes[i], smallScale);
+            }
+        }
+        mySpritesStale = false;
+    }
+
+    /**
+     * Draws a piece with the current color scheme centered in a GRID_SIZE square sprite.
+     *
+     * @param thePiece The piece to draw.
+     * @param theScale The scale factor of grid units to display units.
+     * @return The sprite of the piece.
+     */
+    private BufferedImage createSprite(final MovableTetrisPiece thePiece,
+                                       final double theScale) {
+        final int spriteSize = (int) Math.ceil(theScale * GRID_SIZE);
+        final BufferedImage sprite = new BufferedImage(spriteSize, spriteSize,
+                                                       BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g2d = sprite.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+                             RenderingHints.VALUE_ANTIALIAS_ON);
+
+        // O piece center is already centered
+        double xOffset = (GRID_SIZE - MAX_PIECE_WIDTH) / 2.0;
+        double yOffset = (GRID_SIZE - MAX_PIECE_WIDTH) / 2.0;
+        // centers for any piece only differ by 0.5 in x or y
+        final double centeringOffset = 0.5;
+
+        if (thePiece.getWidth() == THREE_WIDE_PIECE) {
+            // to align the center of any 3-wide pieces, you need a .5 x offset
+            xOffset = xOffset + centeringOffset;
+        } else if (thePiece.getWidth() == FOUR_WIDE_PIECE) {
+            yOffset = yOffset + centeringOffset;
+            // 4-wide piece is the I piece, which is on its side by default so
+            // lower by 0.5 to center
+        }
+
+        final Color fill = myColorScheme[thePiece.getBlock().ordinal()];
+        for (final Point block : thePiece.getLocalPoints()) {
+            // local points have y pointing up, the sprite has y pointing down
+            final int row = MAX_PIECE_WIDTH - 1 - block.getY();
+            final Rectangle2D.Double tile =
+                            new Rectangle2D.Double(theScale * (block.getX() + xOffset),
+                                                   theScale * (row + yOffset),
+                                                   theScale, theScale);
+            g2d.setColor(fill);
+            g2d.fill(tile);
+            if (myInvertFlag) {
+                g2d.setColor(Color.WHITE);
+            } else {
+                g2d.setColor(Color.BLACK);
             }
+            g2d.draw(tile);
         }
+        g2d.dispose();
+        return sprite;
     }
 }
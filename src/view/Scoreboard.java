@@ -13,8 +13,10 @@ import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.Timer;
 
+import model.PieceQueue;
+import model.Scoring;
+import utility.GameStats;
 import utility.TetrisEvents;
 
 /**
@@ -28,20 +30,20 @@ public class Scoreboard extends JPanel implements Observer {
     /** Generated serial version UID. */
     private static final long serialVersionUID = 1102657896549936653L;
     
-    /** The number of lines you can clear before the next level starts. */
-    private static final int LINE_ROLLOVER = 5;
-    
     /** Default padding for any components. */
     private static final int PADDING = 10;
     
-    /** 
-     * The score for # of lines cleared at the same time. 
-     * (pulled from a description about Tetris scoring).
-     */
-    private static final int[] LINE_SCORES = {40, 100, 300, 1200};
+    /** The percentile of the typical time to lock. */
+    private static final int MEDIAN = 50;
+    
+    /** The percentile of a slow time to lock. */
+    private static final int HIGH_PERCENTILE = 90;
 
-    /** The timer that is being used for the game. */
-    private final Timer myTimer;
+    /** The drop speed (delay between rows, in ms) at the start of a game. */
+    private final int myInitialDropSpeed;
+    
+    /** The current drop speed (delay between rows, in ms). */
+    private int myDropSpeed;
     
     /** The total number of lines cleared so far. */
     private int myLinesCleared;
@@ -69,6 +71,24 @@ public class Scoreboard extends JPanel implements Observer {
 
     /** The JLabel that displays the current drop speed (aka the current timer delay). */
     private JLabel myCurrentDropSpeed;
+    
+    /** The JLabel that displays the pieces per second. */
+    private JLabel myPiecesPerSecondLabel;
+    
+    /** The JLabel that displays the inputs per piece. */
+    private JLabel myInputsPerPieceLabel;
+    
+    /** The JLabel that displays the lines per minute. */
+    private JLabel myLinesPerMinuteLabel;
+    
+    /** The JLabel that displays the T-spins and combos. */
+    private JLabel mySpinsLabel;
+    
+    /** The JLabel that displays the time pieces take to lock. */
+    private JLabel myLockTimeLabel;
+    
+    /** The statistics of the current game, or null. */
+    private GameStats myStats;
 
     
     /**
@@ -76,16 +96,17 @@ public class Scoreboard extends JPanel implements Observer {
      * to 0.
      * 
      * @param theSize The fixed size for this score board.
-     * @param theTimer A reference to the timer being used for the game.
+     * @param theInitialDropSpeed The delay between rows (in ms) at the start of a game.
      */
-    public Scoreboard(final Dimension theSize, final Timer theTimer) {
+    public Scoreboard(final Dimension theSize, final int theInitialDropSpeed) {
         super();
 
         setMaximumSize(theSize);
         setBackground(Color.WHITE);
         setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
         
-        myTimer = theTimer;
+        myInitialDropSpeed = theInitialDropSpeed;
+        myDropSpeed = theInitialDropSpeed;
         
         setup();
         
@@ -105,20 +126,67 @@ public class Scoreboard extends JPanel implements Observer {
             final int previousLevel = myLevel;
             
             myLinesCleared = myLinesCleared + rowsCleared;
-            myScore = myScore + LINE_SCORES[rowsCleared - 1] * (myLevel + 1);
-            myLevel = myLinesCleared / LINE_ROLLOVER;
-            myNextLevel = LINE_ROLLOVER - myLinesCleared % LINE_ROLLOVER;
+            myScore = myScore + Scoring.getScore(rowsCleared, myLevel);
+            myLevel = Scoring.getLevel(myLinesCleared);
+            myNextLevel = Scoring.getLinesToNextLevel(myLinesCleared);
             
             if (previousLevel != myLevel) {
                 firePropertyChange(TetrisEvents.LEVEL_UP.toString(), null, myLevel);
             }
             
             updateText();
+        } else if (theObject instanceof PieceQueue) {
+            // a new piece spawned, so the previous one has been counted
+            updateStatsText();
         } else if (theObject == TetrisEvents.NEW_GAME) {
             reset();
         }
     } 
     
+    /**
+     * Sets the drop speed shown on the score board.
+     * 
+     * @param theDropSpeed The delay between rows, in ms.
+     */
+    public void setDropSpeed(final int theDropSpeed) {
+        myDropSpeed = theDropSpeed;
+        updateText();
+    }
+    
+    /**
+     * Sets the statistics shown on the score board, which it refreshes whenever a new
+     * piece spawns.
+     * 
+     * @param theStats The statistics of the current game.
+     */
+    public void setStats(final GameStats theStats) {
+        myStats = theStats;
+        updateStatsText();
+    }
+    
+    /**
+     * Provides the counters of the score board so that they can be saved with a game.
+     * 
+     * @return The score, lines cleared and level, in that order.
+     */
+    public int[] getCounters() {
+        return new int[] {myScore, myLinesCleared, myLevel};
+    }
+    
+    /**
+     * Restores counters provided by getCounters(), for instance when a saved game is loaded.
+     * 
+     * @param theCounters The score, lines cleared and level, in that order.
+     */
+    public void setCounters(final int[] theCounters) {
+        myScore = theCounters[0];
+        myLinesCleared = theCounters[1];
+        myLevel = theCounters[2];
+        myNextLevel = Scoring.getLinesToNextLevel(myLinesCleared);
+        
+        updateText();
+    }
+    
     /**
      * Sets up the score board as it should be layed out:
      * Score : ....
@@ -126,6 +194,8 @@ public class Scoreboard extends JPanel implements Observer {
      * Level : ....
      * - Next Level in ... lines! -
      * Drop speed: ...
+     * 
+     * followed by the statistics of the game.
      */
     private void setup() {        
         // initialize each label
@@ -144,8 +214,24 @@ public class Scoreboard extends JPanel implements Observer {
         myCurrentDropSpeed = new JLabel();
         myCurrentDropSpeed.setAlignmentX(JLabel.CENTER_ALIGNMENT);
         
+        myPiecesPerSecondLabel = new JLabel();
+        myPiecesPerSecondLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        
+        myInputsPerPieceLabel = new JLabel();
+        myInputsPerPieceLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        
+        myLinesPerMinuteLabel = new JLabel();
+        myLinesPerMinuteLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        
+        mySpinsLabel = new JLabel();
+        mySpinsLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        
+        myLockTimeLabel = new JLabel();
+        myLockTimeLabel.setAlignmentX(JLabel.CENTER_ALIGNMENT);
+        
         // make sure the labels actually have text to begin with
         updateText();
+        updateStatsText();
         
         // add everything to the scoreboard
         add(myScoreLabel);
@@ -155,6 +241,12 @@ public class Scoreboard extends JPanel implements Observer {
         add(myNextLevelLabel);
         add(Box.createVerticalStrut(PADDING));
         add(myCurrentDropSpeed);
+        add(Box.createVerticalStrut(PADDING));
+        add(myPiecesPerSecondLabel);
+        add(myInputsPerPieceLabel);
+        add(myLinesPerMinuteLabel);
+        add(mySpinsLabel);
+        add(myLockTimeLabel);
     }
     
     /**
@@ -166,18 +258,42 @@ public class Scoreboard extends JPanel implements Observer {
         myLinesLabel.setText("Lines Cleared: " + myLinesCleared);
         myLevelLabel.setText("Level: " + myLevel);
         myNextLevelLabel.setText("- Next Level in " + myNextLevel + " lines! -");
-        myCurrentDropSpeed.setText("Drop speed: " + myTimer.getDelay() + "ms");
+        myCurrentDropSpeed.setText("Drop speed: " + myDropSpeed + "ms");
         
         repaint();
     }
     
+    /**
+     * Updates the text for the statistics labels. Called once per piece rather than on
+     * every statistics event, since formatting the text allocates.
+     */
+    private void updateStatsText() {
+        if (myStats != null) {
+            myPiecesPerSecondLabel.setText(String.format("Pieces/sec: %.2f (recent %.2f)",
+                                                    myStats.getPiecesPerSecond(),
+                                                    myStats.getRecentPiecesPerSecond()));
+            myInputsPerPieceLabel.setText(String.format("Inputs/piece: %.1f",
+                                                        myStats.getInputsPerPiece()));
+            myLinesPerMinuteLabel.setText(String.format("Lines/min: %.1f",
+                                                        myStats.getLinesPerMinute()));
+            mySpinsLabel.setText("T-Spins: " + myStats.getTSpins() + "  Combo: "
+                                 + myStats.getCombo() + " (max " + myStats.getMaxCombo()
+                                 + ")");
+            myLockTimeLabel.setText("Lock time p50/p90: "
+                                    + myStats.getLockTimePercentile(MEDIAN) + "/"
+                                    + myStats.getLockTimePercentile(HIGH_PERCENTILE) + "ms");
+        }
+    }
+    
     /**
      * Resets the scoreboard with proper initial values.
      */
     private void reset() {
         myScore = 0;
         myLinesCleared = 0;
-        myLevel = 1; // always start on 1st level
+        myLevel = Scoring.getLevel(0); // always start on 1st level
+        myNextLevel = Scoring.getLinesToNextLevel(0);
+        myDropSpeed = myInitialDropSpeed;
         
         updateText();
     }
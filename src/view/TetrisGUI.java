@@ -16,16 +16,30 @@ import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
 import java.util.Observable;
 import java.util.Observer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.ImageIcon;
 import javax.swing.JFrame;
+import javax.swing.JOptionPane;
 import javax.swing.Timer;
 
 import model.Board;
+import model.BoardProbes;
+import utility.EngineProbe;
+import utility.FlightEvents;
+import utility.GameStats;
+import utility.HighScores;
+import utility.Metric;
+import utility.Metrics;
+import utility.SaveFile;
 import utility.TetrisEvents;
 
 /**
@@ -37,12 +51,36 @@ import utility.TetrisEvents;
  *
  */
 public final class TetrisGUI extends Observable implements Observer, PropertyChangeListener {  
+    /** The logger of autosave failures. */
+    private static final Logger LOGGER = Logger.getLogger(TetrisGUI.class.getName());
+
     /** The initial delay before the game begins. */
     private static final int TIMER_GAMESTART_DELAY = 2000;
     
-    /** The initial delay of the timer for the first level of Tetris. */
+    /** The initial delay between rows of gravity for the first level of Tetris. */
     private static final int TIMER_INITIAL_DELAY = 1000;
     
+    /** The delay of the timer that ticks the game (about 60 ticks/second). */
+    private static final int FRAME_DELAY = 16;
+    
+    /** The number of milliseconds in a second. */
+    private static final int MS_PER_SECOND = 1000;
+    
+    /** The delay between autosaves of a running game (in ms). */
+    private static final int AUTOSAVE_DELAY = 5000;
+    
+    /** The file games are saved to. */
+    private static final File SAVE_FILE = new File("save/tetris.sav");
+    
+    /** The directory the high score table is stored in. */
+    private static final File HIGH_SCORE_DIRECTORY = new File("save");
+    
+    /** The number of nanoseconds in a millisecond. */
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+    
+    /** The delay of the frame timer, in nanoseconds. */
+    private static final long FRAME_DELAY_NANOS = FRAME_DELAY * NANOS_PER_MILLI;
+    
     /** Default padding amount (in pixels) for any components. */
     private static final int COMPONENT_PADDING = 10;
 
@@ -52,15 +90,33 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
     /** Default size for any fixed-size components. */
     private static final Dimension STATS_COMPONENT_SIZE = new Dimension(150, 150);
     
+    /** Size of the scoreboard, which also shows the statistics of the game. */
+    private static final Dimension SCOREBOARD_SIZE = new Dimension(200, 230);
+    
     /** The main JFrame to display the game. */
     private final JFrame myFrame;
     
-    /** The timer to control animation speed. */
+    /** The timer that ticks the logic board and held controls once per frame. */
     private final Timer myTimer;
     
+    /** The timer that autosaves a running game. */
+    private final Timer myAutosaveTimer;
+    
+    /** The save slot for games in progress. */
+    private final SaveFile mySaveFile;
+    
+    /** The table of the best finished games. */
+    private final HighScores myHighScores;
+    
+    /** The statistics of the current game. */
+    private final GameStats myStats;
+    
     /** KeyListener for connection keystrokes to actions. */
     private final KeyboardListener myKeyListener;
     
+    /** Applies held controls to the logic board at fixed rates. */
+    private final InputHandler myInput;
+    
     /** The information panel for the controls of the game. */
     private final GameInfo myInfo;
     
@@ -87,6 +143,9 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
     
     /** The current board height. */
     private int myYGridSize;
+    
+    /** When the frame timer last fired (from System.nanoTime()), or 0 after a stop. */
+    private long myLastTickTime;
 
     
     /** 
@@ -96,9 +155,14 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
         super();
         myFrame = new JFrame("TCSS 305 - Tetris");
         
-        myTimer = new Timer(TIMER_INITIAL_DELAY, new TimerListener());
+        myTimer = new Timer(FRAME_DELAY, new TimerListener());
+        myAutosaveTimer = new Timer(AUTOSAVE_DELAY, new TimerListener());
+        mySaveFile = new SaveFile(SAVE_FILE);
+        myHighScores = new HighScores(HIGH_SCORE_DIRECTORY);
+        myStats = new GameStats(FRAME_DELAY);
         
         myKeyListener = new KeyboardListener();
+        myInput = new InputHandler();
         
         myInfo = new GameInfo(STATS_COMPONENT_SIZE);  
         myMenuBar = new MenuBar();
@@ -109,12 +173,17 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
      */
     public void start() {        
         myGameState = TetrisEvents.END_GAME;
+        Metrics.register();
+        BoardProbes.install(new EngineProbe());
         
         final int defaultWidth = 10;
         final int defaultHeight = 20;
+        myXGridSize = defaultWidth;
+        myYGridSize = defaultHeight;
         myDisplay = new GameDisplay(defaultWidth, defaultHeight);
         myPreview = new PiecePreview(STATS_COMPONENT_SIZE);
-        myScoreboard = new Scoreboard(STATS_COMPONENT_SIZE, myTimer);
+        myScoreboard = new Scoreboard(SCOREBOARD_SIZE, TIMER_INITIAL_DELAY);
+        myScoreboard.setStats(myStats);
         
         // #########################
         // SETUP VISUAL COMPONENTS #
@@ -220,12 +289,10 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
     public void propertyChange(final PropertyChangeEvent theEvent) {
         final String propertyType = theEvent.getPropertyName();
         if (TetrisEvents.LEVEL_UP.toString().equals(propertyType)) {
-            final int currentLevel = (int) theEvent.getNewValue();
-            
-            // create some new delay that is smaller but not too absurd
-            final int newDelay = (int) Math.max(100.0,
-                                            TIMER_INITIAL_DELAY * Math.pow(0.9, currentLevel));
-            myTimer.setDelay(newDelay);
+            final int newDelay = getLevelDelay((int) theEvent.getNewValue());
+            myLogicBoard.setGravity(toTicks(newDelay));
+            myScoreboard.setDropSpeed(newDelay);
+            FlightEvents.levelChanged((int) theEvent.getNewValue(), newDelay);
         } else if (TetrisEvents.GRID_SIZE_CHANGE.toString().equals(propertyType)) {
             final int[] gridSize = (int[]) theEvent.getNewValue();
             
@@ -246,17 +313,109 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
     private void checkGameStateChange(final Object theObject) {
         if (myGameState != TetrisEvents.END_GAME && theObject == TetrisEvents.PAUSED) {
             myTimer.stop();
+            myInput.releaseAll(myLogicBoard);
             myGameState = TetrisEvents.PAUSED;
         } else if (myGameState != TetrisEvents.END_GAME 
                         && theObject == TetrisEvents.UNPAUSED) {
             myTimer.start();
+            myLastTickTime = 0;
             myGameState = TetrisEvents.RUNNING;
         } else if (theObject == TetrisEvents.NEW_GAME) {
             startNewGame();
         } else if (theObject instanceof Boolean || theObject == TetrisEvents.END_GAME) {
+            if (myGameState != TetrisEvents.END_GAME) {
+                recordHighScore();
+            }
             myGameState = TetrisEvents.END_GAME;
+            myTimer.stop();
+            myAutosaveTimer.stop();
+            myInput.releaseAll(myLogicBoard);
         } else if (theObject == TetrisEvents.QUIT) {
             myFrame.dispatchEvent(new WindowEvent(myFrame, WindowEvent.WINDOW_CLOSING));
+        } else if (theObject == TetrisEvents.PREVIEW_LENGTH_CHANGE && myLogicBoard != null) {
+            myLogicBoard.setPreviewLength(myMenuBar.getPreviewLength());
+        } else if (theObject == TetrisEvents.SAVE_GAME && myGameState != TetrisEvents.END_GAME) {
+            saveGame(true);
+        } else if (theObject == TetrisEvents.LOAD_GAME) {
+            loadGame();
+        } else if (theObject == TetrisEvents.SHOW_HIGH_SCORES) {
+            showHighScores();
+        }
+    }
+    
+    /**
+     * Records the game that just ended in the high score table.
+     */
+    private void recordHighScore() {
+        final int[] counters = myScoreboard.getCounters();
+        myHighScores.record(myLogicBoard.getWidth(), myLogicBoard.getHeight(),
+                            counters[0], counters[1], counters[2], myStats);
+    }
+    
+    /**
+     * Shows the high score table for the current board size.
+     */
+    private void showHighScores() {
+        final StringBuilder text = new StringBuilder(128);
+        text.append("Best scores on a ").append(myXGridSize).append(" x ")
+            .append(myYGridSize).append(" board:\n\n");
+        int rank = 1;
+        for (final HighScores.Entry entry : myHighScores.getTopScores(myXGridSize,
+                                                                      myYGridSize)) {
+            text.append(rank++).append(".  ").append(entry.getScore()).append("   (")
+                .append(entry.getLines()).append(" lines, level ").append(entry.getLevel())
+                .append(", ").append(entry.getPieces()).append(" pieces in ")
+                .append(entry.getDuration() / MS_PER_SECOND).append("s)\n");
+        }
+        if (rank == 1) {
+            text.append("No games finished yet.");
+        }
+        JOptionPane.showMessageDialog(myFrame, text.toString(), "High Scores",
+                                      JOptionPane.PLAIN_MESSAGE);
+    }
+    
+    /**
+     * Saves the game in progress. Autosaves report errors on the console only, so that a
+     * full disk does not interrupt the game with dialogs.
+     * 
+     * @param theShowErrors Whether to show errors to the player.
+     */
+    private void saveGame(final boolean theShowErrors) {
+        try {
+            mySaveFile.save(myLogicBoard, myScoreboard.getCounters());
+        } catch (final IOException e) {
+            if (theShowErrors) {
+                JOptionPane.showMessageDialog(myFrame, "Could not save the game: "
+                                                + e.getMessage(), "Save Game",
+                                              JOptionPane.ERROR_MESSAGE);
+            } else {
+                LOGGER.log(Level.WARNING, "Could not autosave the game", e);
+            }
+        }
+    }
+    
+    /**
+     * Loads the saved game by starting a new game on a board of the saved size and then
+     * restoring the saved board and scoreboard into it.
+     */
+    private void loadGame() {
+        try {
+            mySaveFile.load();
+            
+            setChanged();
+            notifyObservers(new Dimension(mySaveFile.getWidth(), mySaveFile.getHeight()));
+            setChanged();
+            notifyObservers(TetrisEvents.NEW_GAME);
+            
+            mySaveFile.restore(myLogicBoard);
+            final int[] counters = mySaveFile.getCounters();
+            myScoreboard.setCounters(counters);
+            myScoreboard.setDropSpeed(getLevelDelay(counters[2]));
+        } catch (final IOException | BufferUnderflowException
+                        | IllegalArgumentException | IndexOutOfBoundsException e) {
+            JOptionPane.showMessageDialog(myFrame, "Could not load the game: "
+                                            + e.getMessage(), "Load Game",
+                                          JOptionPane.ERROR_MESSAGE);
         }
     }
     
@@ -271,6 +430,10 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
         }
         
         myLogicBoard = new Board(myXGridSize, myYGridSize);
+        myLogicBoard.setPreviewLength(myMenuBar.getPreviewLength());
+        myLogicBoard.setGravity(toTicks(TIMER_INITIAL_DELAY));
+        myStats.reset();
+        myLogicBoard.setListener(myStats);
         reconnectLogicBoardObservers();
 
         // so that the frame can be set smaller than it previously was if needed
@@ -281,12 +444,35 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
         myFrame.setLocationRelativeTo(null);
         
         myTimer.setInitialDelay(TIMER_GAMESTART_DELAY);
-        myTimer.setDelay(TIMER_INITIAL_DELAY);
         myTimer.start();
+        myLastTickTime = 0;
+        myAutosaveTimer.restart();
+        myInput.releaseAll(myLogicBoard);
         myLogicBoard.newGame();
         myGameState = TetrisEvents.RUNNING;
     }
 
+    /**
+     * Computes the delay between rows of gravity for a level: smaller for every level
+     * but not too absurd.
+     * 
+     * @param theLevel The level, from 1.
+     * @return The delay in milliseconds.
+     */
+    private static int getLevelDelay(final int theLevel) {
+        return (int) Math.max(100.0, TIMER_INITIAL_DELAY * Math.pow(0.9, theLevel - 1));
+    }
+
+    /**
+     * Converts a delay in milliseconds to the nearest whole number of game ticks.
+     * 
+     * @param theDelay The delay in milliseconds.
+     * @return The delay in ticks, at least 1.
+     */
+    private static int toTicks(final int theDelay) {
+        return Math.max(1, Math.round((float) theDelay / FRAME_DELAY));
+    }
+    
     /**
      * Helper method for reconnecting observers to new instances of the logic board.
      */
@@ -299,7 +485,9 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
     }
     
     /**
-     * Handles all relevant key strokes and their corresponding actions. 
+     * Handles all relevant key strokes and their corresponding actions. Movement keys are
+     * passed to myInput as presses and releases, so holding a key repeats at the rates of
+     * the input handler rather than the operating system's key repeat.
      * 
      * @author Tenma Rollins
      * @version 03 Mar 2017
@@ -317,6 +505,7 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
          * D, d, right-arrow    => RIGHT
          * S, s, down-arrow     => DOWN
          * Space-bar            => DROP
+         * C, c, shift          => HOLD
          * P, p                 => PAUSE
          * 
          * 
@@ -326,8 +515,16 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
             final int key = theEvent.getKeyCode();
             
             // only check controls if the game state is true
-            if (myGameState == TetrisEvents.RUNNING) {
-                checkControls(key);
+            final InputHandler.Control control = getControl(key);
+            if (myGameState == TetrisEvents.RUNNING && control != null) {
+                // time from when the key event was created, so time spent waiting in the
+                // event queue counts towards the key-to-pixel latency
+                final long queued = Math.max(0, System.currentTimeMillis()
+                                                - theEvent.getWhen());
+                final FrameStats stats = myDisplay.getFrameStats();
+                stats.inputStarted(System.nanoTime() - queued * NANOS_PER_MILLI);
+                myInput.press(control, myLogicBoard);
+                stats.inputFinished();
             }
             
             if (key == KeyEvent.VK_P && myGameState != TetrisEvents.END_GAME) {
@@ -342,22 +539,38 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
         }
         
         /**
-         * Helper method to check if the given key corresponds to any particular control key.
+         * Releases the control of a key, so that held movement stops.
+         */
+        @Override
+        public void keyReleased(final KeyEvent theEvent) {
+            final InputHandler.Control control = getControl(theEvent.getKeyCode());
+            if (control != null && myLogicBoard != null) {
+                myInput.release(control, myLogicBoard);
+            }
+        }
+        
+        /**
+         * Helper method to find the control, if any, that the given key corresponds to.
          * 
          * @param theKey The given key to check against.
+         * @return The control for theKey, or null if theKey is not a control key.
          */
-        private void checkControls(final int theKey) {
+        private InputHandler.Control getControl(final int theKey) {
+            InputHandler.Control control = null;
             if (checkMultiKey(theKey, KeyEvent.VK_W, KeyEvent.VK_UP)) {
-                myLogicBoard.rotate();
+                control = InputHandler.Control.ROTATE;
             } else if (checkMultiKey(theKey, KeyEvent.VK_A, KeyEvent.VK_LEFT)) {
-                myLogicBoard.left();
+                control = InputHandler.Control.LEFT;
             } else if (checkMultiKey(theKey, KeyEvent.VK_D, KeyEvent.VK_RIGHT)) {
-                myLogicBoard.right();
+                control = InputHandler.Control.RIGHT;
             } else if (checkMultiKey(theKey, KeyEvent.VK_S, KeyEvent.VK_DOWN)) {
-                myLogicBoard.down();
+                control = InputHandler.Control.DOWN;
             } else if (theKey == KeyEvent.VK_SPACE) {
-                myLogicBoard.drop();
+                control = InputHandler.Control.DROP;
+            } else if (checkMultiKey(theKey, KeyEvent.VK_C, KeyEvent.VK_SHIFT)) {
+                control = InputHandler.Control.HOLD;
             }
+            return control;
         }
 
         /**
@@ -382,15 +595,37 @@ public final class TetrisGUI extends Observable implements Observer, PropertyCha
      */
     private class TimerListener implements ActionListener {
         /**
-         *  Preforms the relevant action on a timer update (which is to drop the piece down
-         *  by 1).
+         *  Preforms the relevant action on a timer update (which is to advance held
+         *  controls and then the logic board by one tick; gravity and locking are counted
+         *  in ticks by the logic board itself), or autosaves a running game.
          */
         @Override
         public void actionPerformed(final ActionEvent theEvent) {
             final Object source = theEvent.getSource();
             
-            if (source.equals(myTimer)) {
-                myLogicBoard.down(); // move the piece down every time the timer updates
+            if (source.equals(myTimer) && myGameState == TetrisEvents.RUNNING) {
+                final FlightEvents.TimerTick event = FlightEvents.beginTick();
+                // the clock is only read when stats or the flight recorder want it
+                long start = Metric.start();
+                if (start == 0 && event != null) {
+                    start = System.nanoTime();
+                }
+                // the first tick after a start or pause has no regular delay to compare to
+                long lateness = 0;
+                if (start != 0 && myLastTickTime != 0 && myTimer.isRunning()) {
+                    lateness = start - myLastTickTime - FRAME_DELAY_NANOS;
+                    Metric.TICK_LATENCY.record(lateness);
+                }
+                myLastTickTime = start;
+                myInput.tick(myLogicBoard);
+                myLogicBoard.tick();
+                if (Metric.isEnabled()) {
+                    Metric.TICK.stop(start);
+                }
+                FlightEvents.endTick(event, lateness);
+            } else if (source.equals(myAutosaveTimer)
+                            && myGameState == TetrisEvents.RUNNING) {
+                saveGame(false);
             }
         }
         
@@ -0,0 +1,253 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import model.BoardFeatures;
+
+import org.junit.Test;
+
+/**
+ * Tests of Evaluator: the features it finds a row or a cell at a time agree with the
+ * features found from their definitions one cell at a time.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class EvaluatorTest {
+    /** The height of the boards. */
+    private static final int HEIGHT = 20;
+
+    /** The number of random boards measured for each width. */
+    private static final int BOARDS = 500;
+
+    /** The width of the boards. */
+    private int myWidth;
+
+    /** The longs of each row of the boards. */
+    private int myWords;
+
+    /** The cells of the board, by row from the bottom, true for a full cell. */
+    private boolean[][] myCells;
+
+    /**
+     * Test method for boards narrower than a word.
+     */
+    @Test
+    public void testNarrowBoards() {
+        checkRandomBoards(4);
+        checkRandomBoards(10);
+    }
+
+    /**
+     * Test method for boards of one word per row, the widest measured a row at a time.
+     */
+    @Test
+    public void testOneWordBoards() {
+        checkRandomBoards(63);
+        checkRandomBoards(64);
+    }
+
+    /**
+     * Test method for boards of more than one word per row, measured a cell at a time.
+     */
+    @Test
+    public void testWideBoards() {
+        checkRandomBoards(65);
+        checkRandomBoards(130);
+    }
+
+    /**
+     * Test method for empty boards, whose only transitions are against the floor.
+     */
+    @Test
+    public void testEmptyBoards() {
+        for (final int width : new int[] {10, 64, 70}) {
+            create(width);
+            final int[] expected = new int[Evaluator.FEATURES];
+            expected[Evaluator.COLUMN_TRANSITIONS] = width;
+            assertArrayEquals("empty board " + width + " wide", expected,
+                              measure(new Evaluator(width, HEIGHT), 0));
+        }
+    }
+
+    /**
+     * Test method for the score, the weighted sum of the features.
+     */
+    @Test
+    public void testEvaluate() {
+        final Random random = new Random(42);
+        create(10);
+        final float[] weights = Evaluator.getDefaultWeights();
+        final Evaluator evaluator = new Evaluator(myWidth, HEIGHT, weights);
+        for (int i = 0; i < BOARDS; i++) {
+            randomBoard(random);
+            final int lines = random.nextInt(5);
+            final int[] features = expectedFeatures(lines);
+            float expected = 0;
+            for (int f = 0; f < Evaluator.FEATURES; f++) {
+                expected += weights[f] * features[f];
+            }
+            assertEquals("score of board " + i, expected,
+                         evaluator.evaluate(writeRows(0), 0, lines), 0);
+        }
+    }
+
+    /**
+     * Test method for weights of the wrong length.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadWeights() {
+        new Evaluator(10, HEIGHT, new float[Evaluator.FEATURES - 1]);
+    }
+
+    /**
+     * Measures random boards of a width, checking each against the definitions.
+     *
+     * @param theWidth The width of the boards.
+     */
+    private void checkRandomBoards(final int theWidth) {
+        final Random random = new Random(theWidth);
+        create(theWidth);
+        final Evaluator evaluator = new Evaluator(theWidth, HEIGHT);
+        for (int i = 0; i < BOARDS; i++) {
+            randomBoard(random);
+            final int lines = random.nextInt(5);
+            final long[] rows = writeRows(HEIGHT * myWords);
+            final int[] features = new int[1 + Evaluator.FEATURES];
+            evaluator.measure(rows, HEIGHT * myWords, lines, features, 1);
+            final int[] actual = new int[Evaluator.FEATURES];
+            System.arraycopy(features, 1, actual, 0, Evaluator.FEATURES);
+            assertArrayEquals("board " + i + " of width " + theWidth,
+                              expectedFeatures(lines), actual);
+        }
+    }
+
+    /**
+     * Starts measuring boards of a width.
+     *
+     * @param theWidth The width of the boards.
+     */
+    private void create(final int theWidth) {
+        myWidth = theWidth;
+        myWords = BoardFeatures.getWordsPerRow(theWidth);
+        myCells = new boolean[HEIGHT][theWidth];
+    }
+
+    /**
+     * Fills the board with random stacks of cells with holes, and sometimes full or
+     * floating rows.
+     *
+     * @param theRandom The source of the board.
+     */
+    private void randomBoard(final Random theRandom) {
+        final int top = theRandom.nextInt(HEIGHT + 1);
+        for (int x = 0; x < myWidth; x++) {
+            final int height = theRandom.nextInt(top + 1);
+            for (int y = 0; y < HEIGHT; y++) {
+                myCells[y][x] = y < height && theRandom.nextInt(5) > 0;
+            }
+        }
+        if (theRandom.nextInt(4) == 0) {
+            final int y = theRandom.nextInt(HEIGHT);
+            for (int x = 0; x < myWidth; x++) {
+                myCells[y][x] = theRandom.nextInt(8) > 0;
+            }
+        }
+    }
+
+    /**
+     * Writes the board as rows after an unused board.
+     *
+     * @param theOffset The index of the board's bottom row.
+     * @return The rows.
+     */
+    private long[] writeRows(final int theOffset) {
+        final long[] result = new long[theOffset + HEIGHT * myWords];
+        for (int i = 0; i < theOffset; i++) {
+            result[i] = -1L;
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < myWidth; x++) {
+                if (myCells[y][x]) {
+                    result[theOffset + y * myWords + x / Long.SIZE] |= 1L << x;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Measures the board with an evaluator.
+     *
+     * @param theEvaluator The evaluator.
+     * @param theLines The rows cleared by the placement that left the board.
+     * @return The features.
+     */
+    private int[] measure(final Evaluator theEvaluator, final int theLines) {
+        final int[] result = new int[Evaluator.FEATURES];
+        theEvaluator.measure(writeRows(0), 0, theLines, result, 0);
+        return result;
+    }
+
+    /**
+     * Finds the features of the board from their definitions, a cell at a time.
+     *
+     * @param theLines The rows cleared by the placement that left the board.
+     * @return The features.
+     */
+    private int[] expectedFeatures(final int theLines) {
+        final int[] result = new int[Evaluator.FEATURES];
+        final int[] heights = new int[myWidth];
+        int top = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < myWidth; x++) {
+                if (myCells[y][x]) {
+                    heights[x] = y + 1;
+                    top = y + 1;
+                }
+            }
+        }
+        for (int x = 0; x < myWidth; x++) {
+            result[Evaluator.HEIGHT] += heights[x];
+            if (x > 0) {
+                result[Evaluator.BUMPINESS] += Math.abs(heights[x] - heights[x - 1]);
+            }
+            for (int y = 0; y < heights[x]; y++) {
+                if (!myCells[y][x]) {
+                    result[Evaluator.HOLES]++;
+                }
+            }
+            if (!myCells[0][x]) {
+                result[Evaluator.COLUMN_TRANSITIONS]++;
+            }
+        }
+        for (int y = 0; y < top; y++) {
+            for (int x = 0; x < myWidth; x++) {
+                final boolean left = x == 0 || myCells[y][x - 1];
+                final boolean right = x == myWidth - 1 || myCells[y][x + 1];
+                final boolean above = y < HEIGHT - 1 && myCells[y + 1][x];
+                if (myCells[y][x] != left) {
+                    result[Evaluator.ROW_TRANSITIONS]++;
+                }
+                if (myCells[y][x] != above) {
+                    result[Evaluator.COLUMN_TRANSITIONS]++;
+                }
+                if (!myCells[y][x] && left && right) {
+                    result[Evaluator.WELLS]++;
+                }
+            }
+            if (!myCells[y][myWidth - 1]) {
+                result[Evaluator.ROW_TRANSITIONS]++;
+            }
+        }
+        result[Evaluator.LINES] = theLines;
+        return result;
+    }
+}
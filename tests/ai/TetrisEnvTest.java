@@ -0,0 +1,148 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package ai;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of TetrisEnv: games from the same seed and the same actions are the same,
+ * step for step.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class TetrisEnvTest {
+    /** The width of the boards. */
+    private static final int WIDTH = 10;
+
+    /** The height of the boards. */
+    private static final int HEIGHT = 20;
+
+    /** The number of steps of each test. */
+    private static final int STEPS = 3000;
+
+    /**
+     * Test method for two environments playing the same seeds and actions.
+     */
+    @Test
+    public void testSameSeedSameGame() {
+        final TetrisEnv first = new TetrisEnv(WIDTH, HEIGHT);
+        final TetrisEnv second = new TetrisEnv(WIDTH, HEIGHT);
+        final Random random = new Random(42);
+        long seed = 305;
+        first.reset(seed);
+        second.reset(seed);
+        assertSameObservation("after reset", first, second);
+        for (int i = 0; i < STEPS; i++) {
+            final int action = random.nextInt(first.getActionCount());
+            assertEquals("reward of step " + i, first.step(action), second.step(action), 0);
+            assertSameObservation("after step " + i, first, second);
+            if (first.isDone()) {
+                seed++;
+                first.reset(seed);
+                second.reset(seed);
+            }
+        }
+    }
+
+    /**
+     * Test method for one environment replaying a game after a reset.
+     */
+    @Test
+    public void testResetReplays() {
+        final TetrisEnv env = new TetrisEnv(WIDTH, HEIGHT);
+        final Random random = new Random(42);
+        final List<long[]> rows = new ArrayList<>();
+        final List<int[]> pieces = new ArrayList<>();
+        final int[] actions = new int[STEPS];
+        final float[] rewards = new float[STEPS];
+        int steps = 0;
+        env.reset(305);
+        while (steps < STEPS && !env.isDone()) {
+            actions[steps] = random.nextInt(env.getActionCount());
+            rewards[steps] = env.step(actions[steps]);
+            rows.add(env.getRows().clone());
+            pieces.add(env.getPieces().clone());
+            steps++;
+        }
+        assertTrue("game over", env.isDone());
+
+        env.reset(305);
+        for (int i = 0; i < steps; i++) {
+            assertEquals("reward of step " + i, rewards[i], env.step(actions[i]), 0);
+            assertArrayEquals("rows after step " + i, rows.get(i), env.getRows());
+            assertArrayEquals("pieces after step " + i, pieces.get(i), env.getPieces());
+        }
+        assertTrue("game over again", env.isDone());
+    }
+
+    /**
+     * Test method for games from different seeds, which get different pieces.
+     */
+    @Test
+    public void testDifferentSeeds() {
+        final TetrisEnv first = new TetrisEnv(WIDTH, HEIGHT);
+        final TetrisEnv second = new TetrisEnv(WIDTH, HEIGHT);
+        first.reset(1);
+        second.reset(2);
+        boolean differ = false;
+        for (int i = 0; i < 10 && !first.isDone() && !second.isDone(); i++) {
+            differ |= !Arrays.equals(first.getPieces(), second.getPieces());
+            first.step(0);
+            second.step(0);
+        }
+        assertTrue("pieces differ", differ);
+    }
+
+    /**
+     * Test method for an action out of range.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadAction() {
+        final TetrisEnv env = new TetrisEnv(WIDTH, HEIGHT);
+        env.reset(305);
+        env.step(env.getActionCount());
+    }
+
+    /**
+     * Test method for a step after the game is over.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testStepAfterDone() {
+        final TetrisEnv env = new TetrisEnv(WIDTH, HEIGHT);
+        env.reset(305);
+        while (!env.isDone()) {
+            env.step(0);
+        }
+        env.step(0);
+    }
+
+    /**
+     * Checks that two environments have the same observation.
+     *
+     * @param theMessage The message to fail with.
+     * @param theFirst The first environment.
+     * @param theSecond The second environment.
+     */
+    private static void assertSameObservation(final String theMessage,
+                                              final TetrisEnv theFirst,
+                                              final TetrisEnv theSecond) {
+        assertArrayEquals(theMessage + " rows", theFirst.getRows(), theSecond.getRows());
+        assertArrayEquals(theMessage + " heights", theFirst.getHeights(),
+                          theSecond.getHeights());
+        assertArrayEquals(theMessage + " pieces", theFirst.getPieces(),
+                          theSecond.getPieces());
+        assertEquals(theMessage + " done", theFirst.isDone(), theSecond.isDone());
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of FrameEncoder: decoding a keyframe and the cells and piece deltas after it
+ * gives back the frozen cells and the movable piece of the board.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class FrameEncoderTest {
+    /** The width of the board. */
+    private static final int WIDTH = 10;
+
+    /** The height of the board. */
+    private static final int HEIGHT = 20;
+
+    /** The board. */
+    private Board myBoard;
+
+    /** The encoder of the board. */
+    private FrameEncoder myEncoder;
+
+    /** The buffer frames are written to. */
+    private ByteBuffer myBuffer;
+
+    /** The Block ordinal of each frozen cell, as decoded. */
+    private byte[] myCells;
+
+    /** The tick count of the board as decoded from the last keyframe. */
+    private long myTick;
+
+    /** The TetrisPiece ordinal of the movable piece as decoded, or -1 for none. */
+    private int myPiece;
+
+    /** The Rotation ordinal of the movable piece as decoded. */
+    private int myRotation;
+
+    /** The x coordinate of the movable piece as decoded. */
+    private int myX;
+
+    /** The y coordinate of the movable piece as decoded. */
+    private int myY;
+
+    /**
+     * Creates a board with a fixed seed and its encoder before each test.
+     */
+    @Before
+    public void setUp() {
+        myBoard = new Board(WIDTH, HEIGHT, 305);
+        myBoard.newGame(305);
+        myEncoder = new FrameEncoder(myBoard);
+        myBuffer = ByteBuffer.allocate(myEncoder.getKeyframeSize() + Short.BYTES
+                                       + FrameEncoder.CELL_SIZE * WIDTH * HEIGHT);
+        myCells = new byte[WIDTH * HEIGHT];
+    }
+
+    /**
+     * Test method for a keyframe of a board with frozen blocks.
+     */
+    @Test
+    public void testKeyframe() {
+        for (int i = 0; i < 6; i++) {
+            myBoard.left();
+            myBoard.drop();
+        }
+        myBuffer.clear();
+        myEncoder.writeKeyframe(myBuffer);
+        assertEquals("keyframe size", myEncoder.getKeyframeSize(), myBuffer.position());
+        myBuffer.flip();
+        readKeyframe();
+        assertEquals("tick", myBoard.getTickCount(), myTick);
+        assertMatches("keyframe");
+    }
+
+    /**
+     * Test method for deltas after a keyframe, over random moves and several games.
+     */
+    @Test
+    public void testDeltas() {
+        myBuffer.clear();
+        myEncoder.writeKeyframe(myBuffer);
+        myBuffer.flip();
+        readKeyframe();
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            move(random.nextInt(5));
+            myBuffer.clear();
+            final int cells = myEncoder.writeCells(myBuffer, WIDTH * HEIGHT);
+            myBuffer.flip();
+            readCells(cells);
+            myBuffer.clear();
+            final boolean piece = myEncoder.writePiece(myBuffer);
+            myBuffer.flip();
+            if (piece) {
+                readPiece();
+            }
+            assertEquals("bytes left after move " + i, 0, myBuffer.remaining());
+            assertMatches("after move " + i);
+            if (myBoard.isGameOver()) {
+                myBoard.newGame(i);
+            }
+        }
+    }
+
+    /**
+     * Test method for deltas of a board that has not changed since the last frame.
+     */
+    @Test
+    public void testNoChange() {
+        myBuffer.clear();
+        myEncoder.writeKeyframe(myBuffer);
+        final int position = myBuffer.position();
+        assertEquals("cells", 0, myEncoder.writeCells(myBuffer, WIDTH * HEIGHT));
+        assertFalse("piece", myEncoder.writePiece(myBuffer));
+        assertEquals("bytes written", position, myBuffer.position());
+    }
+
+    /**
+     * Test method for a cells delta larger than allowed.
+     */
+    @Test
+    public void testTooManyCells() {
+        myBuffer.clear();
+        myEncoder.writeKeyframe(myBuffer);
+        myBoard.drop();
+        myBuffer.clear();
+        assertEquals("cells", -1, myEncoder.writeCells(myBuffer, 1));
+        assertEquals("bytes written", 0, myBuffer.position());
+
+        myEncoder.writeKeyframe(myBuffer);
+        myBuffer.flip();
+        readKeyframe();
+        assertMatches("keyframe after too many cells");
+    }
+
+    /**
+     * Test method for the piece of a board whose game has not started.
+     */
+    @Test
+    public void testNoPiece() {
+        final Board board = new Board(WIDTH, HEIGHT, 305);
+        final FrameEncoder encoder = new FrameEncoder(board);
+        myBuffer.clear();
+        encoder.writeKeyframe(myBuffer);
+        myBuffer.flip();
+        readKeyframe();
+        assertNull("no piece", board.getCurrentPiece());
+        assertEquals("piece ordinal", -1, myPiece);
+    }
+
+    /**
+     * Test method for the size of a keyframe of a board with an odd number of cells.
+     */
+    @Test
+    public void testOddKeyframe() {
+        final Board board = new Board(5, 5, 305);
+        board.newGame(305);
+        final FrameEncoder encoder = new FrameEncoder(board);
+        myBuffer.clear();
+        encoder.writeKeyframe(myBuffer);
+        // 25 cells at two per byte round up to 13 bytes
+        assertEquals("keyframe size", Long.BYTES + 2 * Short.BYTES
+                                      + FrameEncoder.PIECE_SIZE + 13,
+                     encoder.getKeyframeSize());
+        assertEquals("bytes written", encoder.getKeyframeSize(), myBuffer.position());
+    }
+
+    /**
+     * Makes a move on the board.
+     *
+     * @param theMove The move, from 0 to 4.
+     */
+    private void move(final int theMove) {
+        switch (theMove) {
+            case 0:
+                myBoard.left();
+                break;
+            case 1:
+                myBoard.right();
+                break;
+            case 2:
+                myBoard.rotate();
+                break;
+            case 3:
+                myBoard.drop();
+                break;
+            default:
+                myBoard.down();
+                break;
+        }
+    }
+
+    /**
+     * Reads a keyframe into the decoded board.
+     */
+    private void readKeyframe() {
+        myTick = myBuffer.getLong();
+        final int width = myBuffer.getShort();
+        final int height = myBuffer.getShort();
+        readPiece();
+        for (int cell = 0; cell < width * height; cell += 2) {
+            final int bits = myBuffer.get();
+            if (cell < myCells.length) {
+                myCells[cell] = (byte) (bits & 0xF);
+            }
+            if (cell + 1 < myCells.length) {
+                myCells[cell + 1] = (byte) (bits >>> 4 & 0xF);
+            }
+        }
+        assertEquals("bytes left", 0, myBuffer.remaining());
+    }
+
+    /**
+     * Reads a cells delta into the decoded board.
+     *
+     * @param theCount The number of cells the encoder wrote.
+     */
+    private void readCells(final int theCount) {
+        if (theCount > 0) {
+            assertEquals("count", theCount, myBuffer.getShort());
+            for (int i = 0; i < theCount; i++) {
+                myCells[myBuffer.getInt()] = myBuffer.get();
+            }
+        }
+        assertEquals("bytes left", 0, myBuffer.remaining());
+    }
+
+    /**
+     * Reads a piece into the decoded board.
+     */
+    private void readPiece() {
+        myPiece = myBuffer.get();
+        myRotation = myBuffer.get();
+        myX = myBuffer.getShort();
+        myY = myBuffer.getShort();
+    }
+
+    /**
+     * Checks that the decoded board is the board.
+     *
+     * @param theMessage The message to fail with.
+     */
+    private void assertMatches(final String theMessage) {
+        final Grid grid = myBoard.getGrid();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(theMessage + " at (" + x + ", " + y + ")",
+                             grid.getRow(y)[x], myCells[y * WIDTH + x]);
+            }
+        }
+        final MovableTetrisPiece piece = myBoard.getCurrentPiece();
+        assertEquals(theMessage + " piece", piece.getTetrisPiece().ordinal(), myPiece);
+        assertEquals(theMessage + " rotation", piece.getRotation().ordinal(), myRotation);
+        assertEquals(theMessage + " x", piece.getX(), myX);
+        assertEquals(theMessage + " y", piece.getY(), myY);
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * TCSS 305 - Project Tetris
+ */
+
+package model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of Grid: after random edits, cleared rows and inserted garbage, the grid
+ * agrees with a plain array of its cells on every cell, row count, bitset and
+ * rectangle count.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class GridTest {
+    /** The height of the grids. */
+    private static final int HEIGHT = 20;
+
+    /** The grid. */
+    private Grid myGrid;
+
+    /** The cells of the grid, by row from the bottom, null for an empty cell. */
+    private Block[][] myCells;
+
+    /** The random edits. */
+    private Random myRandom;
+
+    /**
+     * Test method for a grid narrower than a word.
+     */
+    @Test
+    public void testNarrowGrid() {
+        checkRandomEdits(6);
+    }
+
+    /**
+     * Test method for a grid of exactly one word per row.
+     */
+    @Test
+    public void testOneWordGrid() {
+        checkRandomEdits(64);
+    }
+
+    /**
+     * Test method for a grid of more than one word per row.
+     */
+    @Test
+    public void testWideGrid() {
+        checkRandomEdits(70);
+    }
+
+    /**
+     * Test method for a new and a cleared grid.
+     */
+    @Test
+    public void testClear() {
+        create(10, 42);
+        myGrid.set(3, 4, Block.T);
+        myGrid.clear();
+        assertMatches("cleared");
+        assertNull("off the grid", myGrid.get(-1, 0));
+        assertNull("above the grid", myGrid.get(0, HEIGHT));
+        assertEquals("rows cleared", 0, myGrid.clearFullRows().length);
+    }
+
+    /**
+     * Test method for setting a cell to EMPTY.
+     */
+    @Test
+    public void testSetEmpty() {
+        create(10, 42);
+        myGrid.set(9, 0, Block.I);
+        myGrid.set(9, 0, Block.EMPTY);
+        assertMatches("set EMPTY");
+    }
+
+    /**
+     * Test method for garbage that pushes blocks off the top.
+     */
+    @Test
+    public void testInsertRowsOverflow() {
+        create(10, 42);
+        myGrid.set(5, HEIGHT - 2, Block.O);
+        myCells[HEIGHT - 2][5] = Block.O;
+        assertTrue("room for one row", insertRows(1, 0));
+        assertMatches("after one row");
+        assertFalse("no room for another", insertRows(1, 9));
+        assertMatches("after overflow");
+    }
+
+    /**
+     * Test method for a version that changes with every edit.
+     */
+    @Test
+    public void testVersion() {
+        create(10, 42);
+        long version = myGrid.getVersion();
+        myGrid.set(0, 0, Block.J);
+        assertTrue("after set", myGrid.getVersion() > version);
+        version = myGrid.getVersion();
+        myGrid.insertRows(1, 3);
+        assertTrue("after insert", myGrid.getVersion() > version);
+        for (int x = 0; x < 10; x++) {
+            myGrid.set(x, 1, Block.L);
+        }
+        version = myGrid.getVersion();
+        assertEquals("rows cleared", 1, myGrid.clearFullRows().length);
+        assertTrue("after clear", myGrid.getVersion() > version);
+    }
+
+    /**
+     * Makes random edits to a grid, checking it against the plain array after each.
+     *
+     * @param theWidth The width of the grid.
+     */
+    private void checkRandomEdits(final int theWidth) {
+        create(theWidth, theWidth);
+        for (int i = 0; i < 3000; i++) {
+            final int edit = myRandom.nextInt(20);
+            if (edit < 12) {
+                setCell(myRandom.nextInt(theWidth), lowRow());
+            } else if (edit < 15) {
+                fillRow(lowRow());
+            } else if (edit < 18) {
+                clearFullRows();
+            } else {
+                insertRows(1 + myRandom.nextInt(3), myRandom.nextInt(theWidth));
+            }
+            assertMatches("after edit " + i);
+        }
+    }
+
+    /**
+     * Creates an empty grid and its plain array.
+     *
+     * @param theWidth The width of the grid.
+     * @param theSeed The seed of the random edits.
+     */
+    private void create(final int theWidth, final long theSeed) {
+        myGrid = new Grid(theWidth, HEIGHT);
+        myCells = new Block[HEIGHT][theWidth];
+        myRandom = new Random(theSeed);
+    }
+
+    /**
+     * Chooses a row, more often near the bottom so rows fill up and are cleared.
+     *
+     * @return The row.
+     */
+    private int lowRow() {
+        return Math.min(myRandom.nextInt(HEIGHT), myRandom.nextInt(HEIGHT));
+    }
+
+    /**
+     * Sets a cell to a random block, or empties it.
+     *
+     * @param theX The column.
+     * @param theY The row.
+     */
+    private void setCell(final int theX, final int theY) {
+        final Block[] blocks = Block.values();
+        Block block = null;
+        if (myRandom.nextInt(4) > 0) {
+            block = blocks[1 + myRandom.nextInt(blocks.length - 1)];
+        }
+        myGrid.set(theX, theY, block);
+        myCells[theY][theX] = block;
+    }
+
+    /**
+     * Fills every cell of a row.
+     *
+     * @param theY The row.
+     */
+    private void fillRow(final int theY) {
+        for (int x = 0; x < myCells[theY].length; x++) {
+            myGrid.set(x, theY, Block.S);
+            myCells[theY][x] = Block.S;
+        }
+    }
+
+    /**
+     * Clears the full rows of the grid and the plain array, checking they agree on
+     * the rows cleared.
+     */
+    private void clearFullRows() {
+        final List<Integer> full = new ArrayList<>();
+        final List<Block[]> kept = new ArrayList<>();
+        for (int y = 0; y < HEIGHT; y++) {
+            if (countRow(y) == myCells[y].length) {
+                full.add(y);
+            } else {
+                kept.add(myCells[y]);
+            }
+        }
+        for (int y = 0; y < HEIGHT; y++) {
+            if (y < kept.size()) {
+                myCells[y] = kept.get(y);
+            } else {
+                myCells[y] = new Block[myCells[0].length];
+            }
+        }
+        assertArrayEquals("rows cleared", full.toArray(new Integer[full.size()]),
+                          myGrid.clearFullRows());
+    }
+
+    /**
+     * Inserts garbage rows into the grid and the plain array, checking they agree on
+     * whether blocks were pushed off the top.
+     *
+     * @param theRows The number of rows.
+     * @param theHole The column of the hole.
+     * @return Whether the grid had room for the rows.
+     */
+    private boolean insertRows(final int theRows, final int theHole) {
+        boolean fits = true;
+        for (int y = HEIGHT - theRows; y < HEIGHT; y++) {
+            fits &= countRow(y) == 0;
+        }
+        for (int y = HEIGHT - 1; y >= 0; y--) {
+            if (y >= theRows) {
+                myCells[y] = myCells[y - theRows];
+            } else {
+                myCells[y] = new Block[myCells[0].length];
+                for (int x = 0; x < myCells[y].length; x++) {
+                    if (x != theHole) {
+                        myCells[y][x] = Block.G;
+                    }
+                }
+            }
+        }
+        assertEquals("fits", fits, myGrid.insertRows(theRows, theHole));
+        return fits;
+    }
+
+    /**
+     * Counts the blocks of a row of the plain array.
+     *
+     * @param theY The row.
+     * @return The number of blocks.
+     */
+    private int countRow(final int theY) {
+        return count(0, theY, myCells[theY].length, 1);
+    }
+
+    /**
+     * Counts the blocks in a rectangle of the plain array, ignoring the parts off it.
+     *
+     * @param theX The left column.
+     * @param theY The bottom row.
+     * @param theWidth The width.
+     * @param theHeight The height.
+     * @return The number of blocks.
+     */
+    private int count(final int theX, final int theY, final int theWidth,
+                      final int theHeight) {
+        int result = 0;
+        for (int y = Math.max(0, theY); y < Math.min(HEIGHT, theY + theHeight); y++) {
+            for (int x = Math.max(0, theX);
+                    x < Math.min(myCells[y].length, theX + theWidth); x++) {
+                if (myCells[y][x] != null) {
+                    result++;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks that the grid is the plain array.
+     *
+     * @param theMessage The message to fail with.
+     */
+    private void assertMatches(final String theMessage) {
+        final int width = myCells[0].length;
+        for (int y = 0; y < HEIGHT; y++) {
+            final byte[] row = myGrid.getRow(y);
+            final long[] occupied = myGrid.getOccupied(y);
+            for (int x = 0; x < width; x++) {
+                final String cell = theMessage + " at (" + x + ", " + y + ")";
+                final Block block = myCells[y][x];
+                assertEquals(cell, block, myGrid.get(x, y));
+                int ordinal = 0;
+                if (block != null) {
+                    ordinal = block.ordinal();
+                }
+                assertEquals(cell + " ordinal", ordinal, row[x]);
+                assertEquals(cell + " bit", block != null,
+                             (occupied[x / Long.SIZE] >>> x & 1) != 0);
+            }
+            for (int x = width; x < occupied.length * Long.SIZE; x++) {
+                assertEquals(theMessage + " bit past the row at (" + x + ", " + y + ")",
+                             0, occupied[x / Long.SIZE] >>> x & 1);
+            }
+            assertEquals(theMessage + " filled in row " + y, countRow(y),
+                         myGrid.getFilled(y));
+        }
+        final int x = myRandom.nextInt(width + 4) - 2;
+        final int y = myRandom.nextInt(HEIGHT + 4) - 2;
+        final int w = myRandom.nextInt(width + 2);
+        final int h = myRandom.nextInt(HEIGHT + 2);
+        assertEquals(theMessage + " count of " + w + " by " + h + " at (" + x + ", " + y
+                     + ")", count(x, y, w, h), myGrid.count(x, y, w, h));
+    }
+}
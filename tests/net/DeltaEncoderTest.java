@@ -0,0 +1,162 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import model.Block;
+import model.Board;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of DeltaEncoder: applying every DELTA frame it writes to a copy of the cells
+ * gives back the board.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class DeltaEncoderTest {
+    /** The width of the board. */
+    private static final int WIDTH = 10;
+
+    /** The height of the board. */
+    private static final int HEIGHT = 20;
+
+    /** The index of the player sent in the frames. */
+    private static final int PLAYER = 1;
+
+    /** The board. */
+    private Board myBoard;
+
+    /** The encoder of the board. */
+    private DeltaEncoder myEncoder;
+
+    /** The buffer frames are written to. */
+    private ByteBuffer myBuffer;
+
+    /** The Block ordinal of each cell, as decoded from the frames. */
+    private byte[] myCells;
+
+    /**
+     * Creates a board with a fixed seed and its encoder before each test.
+     */
+    @Before
+    public void setUp() {
+        myBoard = new Board(WIDTH, HEIGHT, 305);
+        myBoard.newGame(305);
+        myEncoder = new DeltaEncoder(WIDTH, HEIGHT);
+        myBuffer = ByteBuffer.allocate(DeltaEncoder.getMaxFrameSize(WIDTH, HEIGHT));
+        myCells = new byte[WIDTH * HEIGHT];
+    }
+
+    /**
+     * Test method for the first delta, which has every filled cell.
+     */
+    @Test
+    public void testFirstDelta() {
+        myBoard.drop();
+        assertTrue("cells sent", encodeAndApply() >= 4);
+        assertMatches("first delta");
+    }
+
+    /**
+     * Test method for a board that has not changed since the last delta.
+     */
+    @Test
+    public void testUnchangedBoard() {
+        encodeAndApply();
+        assertEquals("cells sent", 0, encodeAndApply());
+        assertEquals("bytes written", 0, myBuffer.remaining());
+    }
+
+    /**
+     * Test method for deltas of random moves over several games.
+     */
+    @Test
+    public void testRandomMoves() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            move(random.nextInt(6));
+            encodeAndApply();
+            assertMatches("after move " + i);
+            if (myBoard.isGameOver()) {
+                myBoard.newGame(i);
+            }
+        }
+    }
+
+    /**
+     * Makes a move on the board.
+     *
+     * @param theMove The move, from 0 to 5.
+     */
+    private void move(final int theMove) {
+        switch (theMove) {
+            case 0:
+                myBoard.left();
+                break;
+            case 1:
+                myBoard.right();
+                break;
+            case 2:
+                myBoard.rotate();
+                break;
+            case 3:
+                myBoard.drop();
+                break;
+            case 4:
+                myBoard.hold();
+                break;
+            default:
+                myBoard.down();
+                break;
+        }
+    }
+
+    /**
+     * Encodes a delta of the board and applies it to the decoded cells.
+     *
+     * @return The number of cells the delta changed.
+     */
+    private int encodeAndApply() {
+        myBuffer.clear();
+        final int count = myEncoder.encode(myBoard, PLAYER, myBuffer);
+        myBuffer.flip();
+        if (count > 0) {
+            assertEquals("frame length", myBuffer.remaining() - Protocol.LENGTH_SIZE,
+                         Protocol.frameLength(myBuffer));
+            myBuffer.position(Protocol.LENGTH_SIZE);
+            assertEquals("type", Protocol.DELTA, myBuffer.get());
+            assertEquals("player", PLAYER, myBuffer.get());
+            assertEquals("count", count, myBuffer.getShort());
+            for (int i = 0; i < count; i++) {
+                myCells[myBuffer.getInt()] = myBuffer.get();
+            }
+            assertEquals("bytes left", 0, myBuffer.remaining());
+        }
+        return count;
+    }
+
+    /**
+     * Checks that the decoded cells are the board's.
+     *
+     * @param theMessage The message to fail with.
+     */
+    private void assertMatches(final String theMessage) {
+        final Block[] blocks = Block.values();
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals(theMessage + " at (" + x + ", " + y + ")",
+                             myBoard.getBlock(x, y), blocks[myCells[y * WIDTH + x]]);
+            }
+        }
+    }
+}
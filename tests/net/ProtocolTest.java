@@ -0,0 +1,119 @@
+/*
+ * TCSS 305 Assignment 6 - Tetris
+ */
+
+package net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the framing of Protocol: frames written with beginFrame() and endFrame()
+ * read back whole, and partial frames are not read.
+ *
+ * @author agent
+ * @version 19 Oct 2026
+ */
+public class ProtocolTest {
+    /** The buffer frames are written to. */
+    private ByteBuffer myBuffer;
+
+    /**
+     * Creates an empty buffer before each test.
+     */
+    @Before
+    public void setUp() {
+        myBuffer = ByteBuffer.allocate(Protocol.MAX_FRAME + 64);
+    }
+
+    /**
+     * Test method for a frame with a payload written and read back.
+     */
+    @Test
+    public void testFrameRoundTrip() {
+        final int start = Protocol.beginFrame(myBuffer, Protocol.JOIN);
+        myBuffer.putShort((short) 10);
+        myBuffer.putShort((short) 20);
+        Protocol.endFrame(myBuffer, start);
+        myBuffer.flip();
+
+        assertEquals("length", 1 + 2 * Short.BYTES, Protocol.frameLength(myBuffer));
+        myBuffer.position(myBuffer.position() + Protocol.LENGTH_SIZE);
+        assertEquals("type", Protocol.JOIN, myBuffer.get());
+        assertEquals("width", 10, myBuffer.getShort());
+        assertEquals("height", 20, myBuffer.getShort());
+        assertEquals("remaining", 0, myBuffer.remaining());
+    }
+
+    /**
+     * Test method for several frames written one after another and read in order.
+     */
+    @Test
+    public void testFramesInOrder() {
+        final byte[] codes = {1, 2, 3, 4, 5, 6, 7};
+        for (int count = 0; count < codes.length; count++) {
+            final int start = Protocol.beginFrame(myBuffer, Protocol.INPUTS);
+            myBuffer.put(codes, 0, count);
+            Protocol.endFrame(myBuffer, start);
+        }
+        myBuffer.flip();
+
+        for (int count = 0; count < codes.length; count++) {
+            final int length = Protocol.frameLength(myBuffer);
+            assertEquals("length of frame " + count, 1 + count, length);
+            myBuffer.position(myBuffer.position() + Protocol.LENGTH_SIZE);
+            assertEquals("type of frame " + count, Protocol.INPUTS, myBuffer.get());
+            final byte[] read = new byte[count];
+            myBuffer.get(read);
+            final byte[] expected = new byte[count];
+            System.arraycopy(codes, 0, expected, 0, count);
+            assertArrayEquals("payload of frame " + count, expected, read);
+        }
+        assertEquals("no frame left", -1, Protocol.frameLength(myBuffer));
+    }
+
+    /**
+     * Test method for frames that have not all arrived.
+     */
+    @Test
+    public void testPartialFrame() {
+        final int start = Protocol.beginFrame(myBuffer, Protocol.GARBAGE);
+        myBuffer.put((byte) 1);
+        myBuffer.put((byte) 2);
+        myBuffer.put((byte) 3);
+        Protocol.endFrame(myBuffer, start);
+        final int end = myBuffer.position();
+
+        for (int limit = 0; limit < end; limit++) {
+            final ByteBuffer partial = myBuffer.duplicate();
+            partial.position(0);
+            partial.limit(limit);
+            assertEquals("frame of " + limit + " bytes", -1, Protocol.frameLength(partial));
+        }
+        myBuffer.flip();
+        assertEquals("whole frame", 4, Protocol.frameLength(myBuffer));
+        assertEquals("position unchanged", 0, myBuffer.position());
+    }
+
+    /**
+     * Test method for the length of the largest frame, which does not fit in a
+     * signed short.
+     */
+    @Test
+    public void testLargestFrame() {
+        final int start = Protocol.beginFrame(myBuffer, Protocol.KEYFRAME);
+        myBuffer.put(new byte[Protocol.MAX_FRAME - Protocol.LENGTH_SIZE - 1]);
+        Protocol.endFrame(myBuffer, start);
+        myBuffer.flip();
+
+        assertEquals("announced length", Protocol.MAX_FRAME - Protocol.LENGTH_SIZE,
+                     Protocol.announcedLength(myBuffer));
+        assertEquals("frame length", Protocol.MAX_FRAME - Protocol.LENGTH_SIZE,
+                     Protocol.frameLength(myBuffer));
+    }
+}